@@ -109,6 +109,14 @@ public interface Graph {
      */
     public Iterable<Edge> getEdges(String key, Object value);
 
+    /**
+     * Generate a query object that can be used to select the vertices or edges of the graph that satisfy a number of constraints.
+     * The graph implementation should use its indexing structures to answer the query, else a full element-filter scan is required.
+     *
+     * @return a graph query object with methods for constraining which elements are selected
+     */
+    public GraphQuery query();
+
     /**
      * A shutdown function is required to properly close the graph.
      * This is important for implementations that utilize disk-based serializations.
@@ -0,0 +1,59 @@
+package com.tinkerpop.blueprints;
+
+/**
+ * A GraphQuery object defines a collection of filters and modifiers that are used to intelligently select vertices or edges from a graph.
+ * Unlike a Query, which selects the edges of a vertex, a GraphQuery selects from all the elements of the graph.
+ */
+public interface GraphQuery {
+
+    /**
+     * Filter out the element if it does not have a property with the specified value.
+     *
+     * @param key   the key of the property
+     * @param value the value to check against
+     * @return the modified query object
+     */
+    public GraphQuery has(final String key, final Object value);
+
+    /**
+     * Filter out the element if it does not have a property with a comparable value.
+     *
+     * @param key     the key of the property
+     * @param value   the value to check against
+     * @param compare the comparator to use for comparison
+     * @return the modified query object
+     */
+    public <T extends Comparable<T>> GraphQuery has(final String key, final T value, final Query.Compare compare);
+
+    /**
+     * Filter out the element if its property value is not within the provided interval.
+     *
+     * @param key        the key of the property
+     * @param startValue the inclusive start value of the interval
+     * @param endValue   the exclusive end value of the interval
+     * @return the modified query object
+     */
+    public <T extends Comparable<T>> GraphQuery interval(final String key, final T startValue, final T endValue);
+
+    /**
+     * Filter out the element if the max number of elements to retrieve has already been reached.
+     *
+     * @param max the max number of elements to return
+     * @return the modified query object
+     */
+    public GraphQuery limit(final long max);
+
+    /**
+     * Execute the query and return the matching edges.
+     *
+     * @return the unfiltered edges
+     */
+    public Iterable<Edge> edges();
+
+    /**
+     * Execute the query and return the matching vertices.
+     *
+     * @return the unfiltered vertices
+     */
+    public Iterable<Vertex> vertices();
+}
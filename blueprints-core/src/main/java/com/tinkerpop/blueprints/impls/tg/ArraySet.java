@@ -0,0 +1,96 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable array of elements that is used for the edges of a single label in the compact storage of TinkerGraph.
+ * Compared to a HashSet it needs a single array slot per element instead of a map entry and a hash table slot.
+ * Note that add() does not check for duplicates as TinkerGraph adds every edge exactly once to the adjacency of a vertex.
+ * Removal is a linear scan that fills the gap with the last element, so iteration order is not preserved.
+ */
+class ArraySet<E> extends AbstractSet<E> implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean add(final E element) {
+        if (this.size == this.elements.length) {
+            final Object[] newElements = new Object[this.size + (this.size >> 1) + 1];
+            System.arraycopy(this.elements, 0, newElements, 0, this.size);
+            this.elements = newElements;
+        }
+        this.elements[this.size++] = element;
+        return true;
+    }
+
+    public boolean contains(final Object element) {
+        return this.indexOf(element) >= 0;
+    }
+
+    public boolean remove(final Object element) {
+        final int index = this.indexOf(element);
+        if (index < 0)
+            return false;
+        this.removeIndex(index);
+        return true;
+    }
+
+    public void clear() {
+        this.elements = new Object[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index = 0;
+            private boolean removable = false;
+
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            public E next() {
+                if (this.index >= size)
+                    throw new NoSuchElementException();
+                this.removable = true;
+                return (E) elements[this.index++];
+            }
+
+            public void remove() {
+                if (!this.removable)
+                    throw new IllegalStateException();
+                this.removable = false;
+                removeIndex(--this.index);
+            }
+        };
+    }
+
+    private int indexOf(final Object element) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == element)
+                return i;
+        }
+        if (null != element) {
+            for (int i = 0; i < this.size; i++) {
+                if (element.equals(this.elements[i]))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeIndex(final int index) {
+        this.size--;
+        this.elements[index] = this.elements[this.size];
+        this.elements[this.size] = null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A small map from edge labels to values that is used for the adjacency of a vertex in the compact storage of TinkerGraph.
+ * Entries are held in two parallel arrays and looked up by a linear scan, as a vertex is typically incident to only a few labels.
+ * Labels are interned by the graph, so a reference comparison usually finds the label before String.equals() is needed.
+ */
+class LabelMap<V> extends AbstractMap<String, V> implements Serializable {
+
+    private static final String[] EMPTY_LABELS = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private String[] labels = EMPTY_LABELS;
+    private Object[] values = EMPTY_VALUES;
+    private int size = 0;
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean containsKey(final Object label) {
+        return this.indexOf(label) >= 0;
+    }
+
+    public V get(final Object label) {
+        final int index = this.indexOf(label);
+        return index < 0 ? null : (V) this.values[index];
+    }
+
+    public V put(final String label, final V value) {
+        final int index = this.indexOf(label);
+        if (index >= 0) {
+            final V oldValue = (V) this.values[index];
+            this.values[index] = value;
+            return oldValue;
+        }
+        if (this.size == this.labels.length) {
+            final int capacity = this.size == 0 ? 1 : this.size * 2;
+            final String[] newLabels = new String[capacity];
+            final Object[] newValues = new Object[capacity];
+            System.arraycopy(this.labels, 0, newLabels, 0, this.size);
+            System.arraycopy(this.values, 0, newValues, 0, this.size);
+            this.labels = newLabels;
+            this.values = newValues;
+        }
+        this.labels[this.size] = label;
+        this.values[this.size] = value;
+        this.size++;
+        return null;
+    }
+
+    public V remove(final Object label) {
+        final int index = this.indexOf(label);
+        if (index < 0)
+            return null;
+        final V oldValue = (V) this.values[index];
+        this.removeIndex(index);
+        return oldValue;
+    }
+
+    public void clear() {
+        this.labels = EMPTY_LABELS;
+        this.values = EMPTY_VALUES;
+        this.size = 0;
+    }
+
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<Entry<String, V>>() {
+                    private int index = 0;
+                    private boolean removable = false;
+
+                    public boolean hasNext() {
+                        return this.index < size;
+                    }
+
+                    public Entry<String, V> next() {
+                        if (this.index >= size)
+                            throw new NoSuchElementException();
+                        this.removable = true;
+                        final int current = this.index++;
+                        return new SimpleEntry<String, V>(labels[current], (V) values[current]) {
+                            public V setValue(final V value) {
+                                values[current] = value;
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+
+                    public void remove() {
+                        if (!this.removable)
+                            throw new IllegalStateException();
+                        this.removable = false;
+                        removeIndex(--this.index);
+                    }
+                };
+            }
+
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(final Object label) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.labels[i] == label)
+                return i;
+        }
+        if (null != label) {
+            for (int i = 0; i < this.size; i++) {
+                if (label.equals(this.labels[i]))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeIndex(final int index) {
+        final int moved = this.size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(this.labels, index + 1, this.labels, index, moved);
+            System.arraycopy(this.values, index + 1, this.values, index, moved);
+        }
+        this.size--;
+        this.labels[this.size] = null;
+        this.values[this.size] = null;
+    }
+}
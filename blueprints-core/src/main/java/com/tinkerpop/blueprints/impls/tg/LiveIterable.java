@@ -0,0 +1,99 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterable that iterates the collections of a TinkerGraph in place and chains across them without copying.
+ * Every iterator registers itself with the graph while it is not exhausted.
+ * Before the graph mutates its structure, it asks all registered iterators to snapshot their remaining elements.
+ * Thus, an iterator sees the state of the graph at the time the iterator was created, but the copy is only paid for
+ * when the graph is actually modified during iteration.
+ * Unlike a copied collection, the iterable itself is not a snapshot: an iterator created after a modification sees it.
+ */
+class LiveIterable<T> implements Iterable<T> {
+
+    private final TinkerGraph graph;
+    private final Collection<? extends Collection<? extends T>> collections;
+
+    public LiveIterable(final TinkerGraph graph, final Collection<? extends Collection<? extends T>> collections) {
+        this.graph = graph;
+        this.collections = collections;
+    }
+
+    public Iterator<T> iterator() {
+        final LiveIterator<T> iterator;
+        if (this.collections.size() == 1)
+            iterator = new LiveIterator<T>(this.graph, null, this.collections.iterator().next().iterator());
+        else
+            iterator = new LiveIterator<T>(this.graph, this.collections.iterator(), null);
+        this.graph.registerLiveIterator(iterator);
+        return iterator;
+    }
+
+    protected static class LiveIterator<E> implements Iterator<E> {
+
+        private final TinkerGraph graph;
+        private Iterator<? extends Collection<? extends E>> collections;
+        private Iterator<? extends E> current;
+        private boolean registered = true;
+
+        private LiveIterator(final TinkerGraph graph, final Iterator<? extends Collection<? extends E>> collections, final Iterator<? extends E> current) {
+            this.graph = graph;
+            this.collections = collections;
+            this.current = current;
+        }
+
+        public boolean hasNext() {
+            if (null != this.current && this.current.hasNext())
+                return true;
+            while (null != this.collections && this.collections.hasNext()) {
+                this.current = this.collections.next().iterator();
+                if (this.current.hasNext())
+                    return true;
+            }
+            this.unregister();
+            return false;
+        }
+
+        public E next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+            return this.current.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Copies the remaining elements so the iterator no longer depends on the underlying collections.
+         */
+        protected void snapshot() {
+            this.registered = false;
+            final List<E> remaining = new ArrayList<E>();
+            if (null != this.current) {
+                while (this.current.hasNext()) {
+                    remaining.add(this.current.next());
+                }
+            }
+            if (null != this.collections) {
+                while (this.collections.hasNext()) {
+                    remaining.addAll(this.collections.next());
+                }
+            }
+            this.collections = null;
+            this.current = remaining.iterator();
+        }
+
+        private void unregister() {
+            if (this.registered) {
+                this.registered = false;
+                this.graph.unregisterLiveIterator(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from element id strings to values that is used by the compact storage of TinkerGraph.
+ * Keys that are the canonical string form of a long are stored as primitive longs in an open addressing table,
+ * which saves the map entry and the hash table slot of a HashMap for every element.
+ * All other keys are stored in a regular HashMap.
+ * Removal through the iterators of the collection views is not supported.
+ */
+class LongKeyedMap<V> extends AbstractMap<String, V> implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    private int longSize = 0;
+    private final Map<String, V> stringMap = new HashMap<String, V>();
+
+    public LongKeyedMap() {
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return this.longSize + this.stringMap.size();
+    }
+
+    public boolean containsKey(final Object key) {
+        return null != this.get(key);
+    }
+
+    public V get(final Object key) {
+        if (!(key instanceof String))
+            return null;
+        final String id = (String) key;
+        if (isLongKey(id)) {
+            final int slot = this.find(Long.parseLong(id));
+            return slot < 0 ? null : (V) this.values[slot];
+        } else {
+            return this.stringMap.get(id);
+        }
+    }
+
+    public V put(final String key, final V value) {
+        if (null == value)
+            throw new IllegalArgumentException("Null values are not supported");
+        if (!isLongKey(key))
+            return this.stringMap.put(key, value);
+
+        final long id = Long.parseLong(key);
+        int slot = this.slot(id);
+        while (null != this.values[slot]) {
+            if (this.keys[slot] == id) {
+                final V oldValue = (V) this.values[slot];
+                this.values[slot] = value;
+                return oldValue;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = id;
+        this.values[slot] = value;
+        if (++this.longSize > this.threshold)
+            this.resize();
+        return null;
+    }
+
+    public V remove(final Object key) {
+        if (!(key instanceof String))
+            return null;
+        final String id = (String) key;
+        if (!isLongKey(id))
+            return this.stringMap.remove(id);
+
+        final int slot = this.find(Long.parseLong(id));
+        if (slot < 0)
+            return null;
+        final V oldValue = (V) this.values[slot];
+        this.removeSlot(slot);
+        this.longSize--;
+        return oldValue;
+    }
+
+    public void clear() {
+        this.stringMap.clear();
+        this.longSize = 0;
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            public Iterator<V> iterator() {
+                return new SlotIterator<V>() {
+                    protected V slotValue(final int slot) {
+                        return (V) values[slot];
+                    }
+
+                    protected V stringValue(final Entry<String, V> entry) {
+                        return entry.getValue();
+                    }
+                };
+            }
+
+            public int size() {
+                return LongKeyedMap.this.size();
+            }
+        };
+    }
+
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            public Iterator<Entry<String, V>> iterator() {
+                return new SlotIterator<Entry<String, V>>() {
+                    protected Entry<String, V> slotValue(final int slot) {
+                        return new SlotEntry(Long.toString(keys[slot]), (V) values[slot]);
+                    }
+
+                    protected Entry<String, V> stringValue(final Entry<String, V> entry) {
+                        return entry;
+                    }
+                };
+            }
+
+            public int size() {
+                return LongKeyedMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Determines whether the key is the canonical string representation of a long, i.e. Long.toString(Long.parseLong(key)).equals(key).
+     * Only such keys can be stored as longs without changing the set of keys of the map.
+     */
+    protected static boolean isLongKey(final String key) {
+        final int length = key.length();
+        if (length == 0 || length > 20)
+            return false;
+        int start = 0;
+        if (key.charAt(0) == '-') {
+            if (length == 1)
+                return false;
+            start = 1;
+        }
+        if (key.charAt(start) == '0')
+            return length == 1;
+        for (int i = start; i < length; i++) {
+            final char c = key.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        if (length - start < 19)
+            return true;
+        try {
+            Long.parseLong(key);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        final long[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        this.allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (null != oldValues[i]) {
+                int slot = this.slot(oldKeys[i]);
+                while (null != this.values[slot]) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(final long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private int find(final long key) {
+        int slot = this.slot(key);
+        while (null != this.values[slot]) {
+            if (this.keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry at the slot by shifting back the entries of its probe sequence (no tombstones are left behind).
+     */
+    private void removeSlot(final int slot) {
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & this.mask;
+            if (null == this.values[current])
+                break;
+            final int home = this.slot(this.keys[current]);
+            final boolean movable = current > gap ? (home <= gap || home > current) : (home <= gap && home > current);
+            if (movable) {
+                this.keys[gap] = this.keys[current];
+                this.values[gap] = this.values[current];
+                gap = current;
+            }
+        }
+        this.keys[gap] = 0l;
+        this.values[gap] = null;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int slot = 0;
+        private Iterator<Entry<String, V>> stringIterator = null;
+
+        protected abstract T slotValue(final int slot);
+
+        protected abstract T stringValue(final Entry<String, V> entry);
+
+        public boolean hasNext() {
+            while (this.slot < values.length) {
+                if (null != values[this.slot])
+                    return true;
+                this.slot++;
+            }
+            if (null == this.stringIterator)
+                this.stringIterator = stringMap.entrySet().iterator();
+            return this.stringIterator.hasNext();
+        }
+
+        public T next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+            if (this.slot < values.length)
+                return this.slotValue(this.slot++);
+            else
+                return this.stringValue(this.stringIterator.next());
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class SlotEntry extends SimpleEntry<String, V> {
+        public SlotEntry(final String key, final V value) {
+            super(key, value);
+        }
+
+        public V setValue(final V value) {
+            put(this.getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.StringFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 
@@ -14,6 +16,8 @@ import java.io.Serializable;
  */
 class TinkerEdge extends TinkerElement implements Edge, Serializable {
 
+    private static final long serialVersionUID = 868340606500353560L;
+
     private final String label;
     private final Vertex inVertex;
     private final Vertex outVertex;
@@ -23,7 +27,6 @@ class TinkerEdge extends TinkerElement implements Edge, Serializable {
         this.label = label;
         this.outVertex = outVertex;
         this.inVertex = inVertex;
-        this.graph.edgeKeyIndex.autoUpdate(StringFactory.LABEL, this.label, null, this);
     }
 
     public String getLabel() {
@@ -42,4 +45,12 @@ class TinkerEdge extends TinkerElement implements Edge, Serializable {
     public String toString() {
         return StringFactory.edgeString(this);
     }
+
+    /**
+     * Has the id of the edge set before its vertices are read, as the edge sets of the vertices hash the edge.
+     * Without a readObject() method, recent JVMs set the fields of the whole class hierarchy only once all of them are read.
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+    }
 }
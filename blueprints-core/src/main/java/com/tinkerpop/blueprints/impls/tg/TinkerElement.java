@@ -9,6 +9,7 @@ import com.tinkerpop.blueprints.util.StringFactory;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -17,6 +18,8 @@ import java.util.Set;
  */
 abstract class TinkerElement implements Element, Serializable {
 
+    private static final long serialVersionUID = 1879436292563621305L;
+
     protected Map<String, Object> properties = new HashMap<String, Object>();
     protected final String id;
     protected final TinkerGraph graph;
@@ -27,10 +30,20 @@ abstract class TinkerElement implements Element, Serializable {
     }
 
     public Set<String> getPropertyKeys() {
+        if (this.graph.storage == TinkerGraph.Storage.CONCURRENT) {
+            synchronized (this) {
+                return new HashSet<String>(this.properties.keySet());
+            }
+        }
         return this.properties.keySet();
     }
 
     public Object getProperty(final String key) {
+        if (this.graph.storage == TinkerGraph.Storage.CONCURRENT) {
+            synchronized (this) {
+                return this.properties.get(key);
+            }
+        }
         return this.properties.get(key);
     }
 
@@ -40,20 +53,46 @@ abstract class TinkerElement implements Element, Serializable {
         if (key.equals(StringFactory.LABEL) && this instanceof Edge)
             throw ExceptionFactory.propertyKeyLabelIsReservedForEdges();
 
-        Object oldValue = this.properties.put(key, value);
-        if (this instanceof TinkerVertex)
-            this.graph.vertexKeyIndex.autoUpdate(key, value, oldValue, (TinkerVertex) this);
-        else
-            this.graph.edgeKeyIndex.autoUpdate(key, value, oldValue, (TinkerEdge) this);
+        // the property and its key index entry are updated under the lock of the element so they agree under concurrent updates
+        synchronized (this) {
+            Object oldValue = this.properties.put(key, value);
+            if (this instanceof TinkerVertex)
+                this.graph.vertexKeyIndex.autoUpdate(key, value, oldValue, (TinkerVertex) this);
+            else {
+                this.graph.edgeKeyIndex.autoUpdate(key, value, oldValue, (TinkerEdge) this);
+                this.graph.updateVertexCentricIndices(key, value, oldValue, (TinkerEdge) this);
+            }
+            if (null != this.graph.log)
+                this.graph.log.setProperty(this, key, value);
+        }
     }
 
     public Object removeProperty(final String key) {
-        Object oldValue = this.properties.remove(key);
-        if (this instanceof TinkerVertex)
-            this.graph.vertexKeyIndex.autoRemove(key, oldValue, (TinkerVertex) this);
-        else
-            this.graph.edgeKeyIndex.autoRemove(key, oldValue, (TinkerEdge) this);
-        return oldValue;
+        synchronized (this) {
+            Object oldValue = this.properties.remove(key);
+            if (this instanceof TinkerVertex)
+                this.graph.vertexKeyIndex.autoRemove(key, oldValue, (TinkerVertex) this);
+            else {
+                this.graph.edgeKeyIndex.autoRemove(key, oldValue, (TinkerEdge) this);
+                this.graph.updateVertexCentricIndices(key, null, oldValue, (TinkerEdge) this);
+            }
+            if (null != this.graph.log)
+                this.graph.log.removeProperty(this, key);
+            return oldValue;
+        }
+    }
+
+    /**
+     * Adds the current value of the property to the key index of the element.
+     */
+    protected synchronized void reIndexProperty(final String key) {
+        final Object value = this.properties.get(key);
+        if (null != value) {
+            if (this instanceof TinkerVertex)
+                this.graph.vertexKeyIndex.autoUpdate(key, value, null, (TinkerVertex) this);
+            else
+                this.graph.edgeKeyIndex.autoUpdate(key, value, null, (TinkerEdge) this);
+        }
     }
 
 
@@ -5,10 +5,12 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.KeyIndexableGraphHelper;
@@ -18,17 +20,23 @@ import com.tinkerpop.blueprints.util.StringFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An in-memory, reference implementation of the property graph interfaces provided by Blueprints.
@@ -37,16 +45,107 @@ import java.util.Set;
  */
 public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializable {
 
-    private Long currentId = 0l;
-    protected Map<String, Vertex> vertices = new HashMap<String, Vertex>();
-    protected Map<String, Edge> edges = new HashMap<String, Edge>();
-    protected Map<String, TinkerIndex> indices = new HashMap<String, TinkerIndex>();
+    /**
+     * The layout used to store elements and the adjacency of vertices.
+     */
+    public enum Storage {
+        /**
+         * Elements are stored in HashMaps keyed by their id and the edges of a vertex are stored in a HashSet per label.
+         */
+        DEFAULT,
+        /**
+         * Numeric ids are stored as primitive longs, edge labels are interned and the edges of a vertex are stored in a growable array per label.
+         * This trades linear time edge removal for a much smaller memory footprint per element.
+         */
+        COMPACT,
+        /**
+         * Elements, adjacency and indices are stored in concurrent maps and sets so that the graph can be shared across threads.
+         * Structural changes to a vertex are serialized by a striped lock and property changes by a lock on the element,
+         * which keeps the adjacency of vertices and the key indices consistent with the elements. Lazy iteration is not supported.
+         */
+        CONCURRENT
+    }
 
-    protected TinkerKeyIndex<TinkerVertex> vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this);
-    protected TinkerKeyIndex<TinkerEdge> edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this);
+    /**
+     * The file format used to persist a graph that is constructed with a directory.
+     * A graph is loaded from the file of the other format if there is no file of its own format in the directory,
+     * and the file of the other format is deleted when the graph is saved.
+     */
+    public enum FileType {
+        /**
+         * The graph object is written to tinkergraph.dat with Java serialization.
+         * This is the format of the constructors that take no file type.
+         */
+        JAVA,
+        /**
+         * The graph is written to tinkergraph.bin in a binary snapshot format and read in one streaming pass through a buffered channel.
+         */
+        BINARY,
+        /**
+         * The same file as BINARY, read through memory mapped regions of the file.
+         * Some platforms do not allow replacing the file until the mapped regions have been garbage collected.
+         */
+        BINARY_MAPPED,
+        /**
+         * The same file as BINARY, plus an append-only log of every mutation in tinkergraph.N.log that is forced to disk
+         * in batches within milliseconds of the mutation. The log is compacted into the snapshot by periodic checkpoints,
+         * which run in the background for the concurrent storage, and on shutdown.
+         */
+        LOGGED
+    }
 
-    private final String directory;
+    /**
+     * The key of the parameter of createKeyIndex() that selects the type of a key index.
+     */
+    public static final String KEY_INDEX_TYPE = "type";
+    /**
+     * The type of a key index that also keeps the values of the key in order, so that getVertices() and getEdges()
+     * look up ranges, prefixes and the lowest or highest values of the key in logarithmic time rather than by a scan.
+     */
+    public static final String SORTED_KEY_INDEX = "sorted";
+
+    private static final long serialVersionUID = 2408485431345293423L;
+
+    /**
+     * The serialized form of a graph, which keeps the id counter as a Long so that the files written by
+     * earlier versions of TinkerGraph can still be read. The storage and file type are not part of it.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("currentId", Long.class),
+            new ObjectStreamField("vertices", Map.class),
+            new ObjectStreamField("edges", Map.class),
+            new ObjectStreamField("indices", Map.class),
+            new ObjectStreamField("vertexKeyIndex", TinkerKeyIndex.class),
+            new ObjectStreamField("edgeKeyIndex", TinkerKeyIndex.class),
+            new ObjectStreamField("vertexCentricKeys", Set.class),
+            new ObjectStreamField("directory", String.class)
+    };
+
+    protected AtomicLong currentId = new AtomicLong(0l);
+    protected Storage storage;
+    protected Map<String, Vertex> vertices;
+    protected Map<String, Edge> edges;
+    protected Map<String, String> labels = new HashMap<String, String>();
+    protected Map<String, TinkerIndex> indices;
+
+    protected TinkerKeyIndex<TinkerVertex> vertexKeyIndex;
+    protected TinkerKeyIndex<TinkerEdge> edgeKeyIndex;
+    protected Set<String> vertexCentricKeys;
+
+    private transient Object[] locks;
+    private static final int LOCK_STRIPES = 64;
+
+    protected transient TinkerLog log;
+
+    private boolean lazyIteration = false;
+    private transient LiveIterable.LiveIterator[] liveIterators;
+    private transient int liveIteratorCount = 0;
+    private static final int MAX_LIVE_ITERATORS = 64;
+
+    private String directory;
+    private FileType fileType;
     private static final String GRAPH_FILE = "/tinkergraph.dat";
+    private static final String SNAPSHOT_FILE = "/tinkergraph.bin";
 
     private static final Features FEATURES = new Features();
     private static final Features PERSISTENT_FEATURES;
@@ -87,31 +186,154 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     }
 
     public TinkerGraph(final String directory) {
+        this(directory, Storage.DEFAULT, FileType.JAVA);
+    }
+
+    public TinkerGraph(final String directory, final Storage storage) {
+        this(directory, storage, FileType.JAVA);
+    }
+
+    public TinkerGraph(final String directory, final FileType fileType) {
+        this(directory, Storage.DEFAULT, fileType);
+    }
+
+    public TinkerGraph(final String directory, final Storage storage, final FileType fileType) {
         this.directory = directory;
+        this.storage = storage;
+        this.fileType = fileType;
+        this.initialize();
         try {
             final File file = new File(directory);
+            final File snapshot = new File(directory + SNAPSHOT_FILE);
+            TinkerSnapshot.recover(snapshot);
+            final boolean logged = TinkerLog.hasSegments(directory);
             if (!file.exists()) {
                 if (!file.mkdirs()) {
                     throw new RuntimeException("Could not create directory");
                 }
-            } else {
+            } else if (snapshot.exists() && (fileType != FileType.JAVA || !new File(directory + GRAPH_FILE).exists())) {
+                TinkerSnapshot.load(this, snapshot, fileType == FileType.BINARY_MAPPED, logged);
+            } else if (!logged || new File(directory + GRAPH_FILE).exists()) {
                 ObjectInputStream input = new ObjectInputStream(new FileInputStream(directory + GRAPH_FILE));
                 TinkerGraph temp = (TinkerGraph) input.readObject();
                 input.close();
-                this.currentId = temp.currentId;
-                this.vertices = temp.vertices;
-                this.edges = temp.edges;
-                this.indices = temp.indices;
-                this.vertexKeyIndex = temp.vertexKeyIndex;
-                this.edgeKeyIndex = temp.edgeKeyIndex;
+                this.load(temp);
+            }
+            // the log of a graph that was not shut down is replayed whatever the file type
+            if (logged)
+                TinkerLog.replay(this, directory);
+            if (fileType == FileType.LOGGED) {
+                this.log = new TinkerLog(this, directory, snapshot);
+                for (final TinkerIndex index : this.indices.values()) {
+                    index.log = this.log;
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Creates the elements and indices of a deserialized graph in this graph, rather than taking over its collections,
+     * so that they use the storage of this graph and the elements belong to this graph rather than to the deserialized one.
+     */
+    private void load(final TinkerGraph temp) {
+        for (final String key : temp.vertexKeyIndex.getIndexedKeys()) {
+            this.createKeyIndex(key, Vertex.class, keyIndexParameters(temp.vertexKeyIndex.isSortedKey(key)));
+        }
+        for (final String key : temp.edgeKeyIndex.getIndexedKeys()) {
+            this.createKeyIndex(key, Edge.class, keyIndexParameters(temp.edgeKeyIndex.isSortedKey(key)));
+        }
+        for (final String key : temp.vertexCentricKeys) {
+            this.createVertexCentricIndex(key);
+        }
+        for (final Vertex vertex : temp.vertices.values()) {
+            final Vertex copy = this.addVertex(vertex.getId());
+            for (final Map.Entry<String, Object> property : ((TinkerElement) vertex).properties.entrySet()) {
+                copy.setProperty(property.getKey(), property.getValue());
+            }
+        }
+        for (final Edge edge : temp.edges.values()) {
+            final Edge copy = this.addEdge(edge.getId(),
+                    this.vertices.get(edge.getVertex(Direction.OUT).getId().toString()),
+                    this.vertices.get(edge.getVertex(Direction.IN).getId().toString()), edge.getLabel());
+            for (final Map.Entry<String, Object> property : ((TinkerElement) edge).properties.entrySet()) {
+                copy.setProperty(property.getKey(), property.getValue());
+            }
+        }
+        for (final TinkerIndex<? extends Element> index : temp.indices.values()) {
+            final TinkerIndex copy = (TinkerIndex) this.createIndex(index.getIndexName(), index.getIndexClass());
+            final boolean vertexIndex = Vertex.class.isAssignableFrom(index.getIndexClass());
+            for (final Map.Entry<String, ? extends Map<Object, ? extends Set<? extends Element>>> key : index.index.entrySet()) {
+                for (final Map.Entry<Object, ? extends Set<? extends Element>> value : key.getValue().entrySet()) {
+                    for (final Element element : value.getValue()) {
+                        final String id = element.getId().toString();
+                        copy.put(key.getKey(), value.getKey(), vertexIndex ? this.vertices.get(id) : this.edges.get(id));
+                    }
+                }
+            }
+        }
+        this.currentId.set(temp.currentId.get());
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("currentId", Long.valueOf(this.currentId.get()));
+        fields.put("vertices", this.vertices);
+        fields.put("edges", this.edges);
+        fields.put("indices", this.indices);
+        fields.put("vertexKeyIndex", this.vertexKeyIndex);
+        fields.put("edgeKeyIndex", this.edgeKeyIndex);
+        fields.put("vertexCentricKeys", this.vertexCentricKeys);
+        fields.put("directory", this.directory);
+        out.writeFields();
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final ObjectInputStream.GetField fields = in.readFields();
+        final Long id = (Long) fields.get("currentId", null);
+        this.currentId = new AtomicLong(null == id ? 0l : id);
+        this.vertices = (Map<String, Vertex>) fields.get("vertices", null);
+        this.edges = (Map<String, Edge>) fields.get("edges", null);
+        this.indices = (Map<String, TinkerIndex>) fields.get("indices", null);
+        this.vertexKeyIndex = (TinkerKeyIndex<TinkerVertex>) fields.get("vertexKeyIndex", null);
+        this.edgeKeyIndex = (TinkerKeyIndex<TinkerEdge>) fields.get("edgeKeyIndex", null);
+        // graphs written before vertex-centric indices have none
+        this.vertexCentricKeys = (Set<String>) fields.get("vertexCentricKeys", null);
+        if (null == this.vertexCentricKeys)
+            this.vertexCentricKeys = new HashSet<String>();
+        this.directory = (String) fields.get("directory", null);
+        this.storage = Storage.DEFAULT;
+        this.fileType = null == this.directory ? null : FileType.JAVA;
+        this.labels = new HashMap<String, String>();
+    }
+
     public TinkerGraph() {
+        this(Storage.DEFAULT);
+    }
+
+    public TinkerGraph(final Storage storage) {
         this.directory = null;
+        this.fileType = null;
+        this.storage = storage;
+        this.initialize();
+    }
+
+    private void initialize() {
+        this.vertices = this.createElementMap();
+        this.edges = this.createElementMap();
+        if (this.storage == Storage.CONCURRENT) {
+            this.indices = new ConcurrentHashMap<String, TinkerIndex>();
+            this.locks = new Object[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                this.locks[i] = new Object();
+            }
+        } else {
+            this.indices = new HashMap<String, TinkerIndex>();
+        }
+        this.vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this);
+        this.edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this);
+        this.vertexCentricKeys = this.createKeySet();
     }
 
     public Iterable<Vertex> getVertices(final String key, final Object value) {
@@ -130,11 +352,205 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
+    public GraphQuery query() {
+        return new TinkerGraphQuery(this);
+    }
+
+    /**
+     * Get the vertices whose value of the key compares to the value as specified, in the order of their values
+     * unless the comparison is EQUAL or NOT_EQUAL. Numbers of all classes compare by their numeric value, as they do in
+     * the constraints of query(), and other values are only in a range of values of their class.
+     * A range is looked up in a sorted key index if there is one.
+     *
+     * @param key     the key of the property
+     * @param value   the value to compare against
+     * @param compare the comparison to make
+     * @return the vertices with a value of the key that satisfies the comparison
+     */
+    public <T extends Comparable<T>> Iterable<Vertex> getVertices(final String key, final T value, final Query.Compare compare) {
+        if (compare == Query.Compare.EQUAL)
+            return this.getVertices(key, value);
+        return (Iterable) this.getElements(this.vertexKeyIndex, this.getVertices(), key, value, compare);
+    }
+
+    /**
+     * Get the edges whose value of the key compares to the value as specified.
+     *
+     * @see #getVertices(String, Comparable, com.tinkerpop.blueprints.Query.Compare)
+     */
+    public <T extends Comparable<T>> Iterable<Edge> getEdges(final String key, final T value, final Query.Compare compare) {
+        if (compare == Query.Compare.EQUAL)
+            return this.getEdges(key, value);
+        return (Iterable) this.getElements(this.edgeKeyIndex, this.getEdges(), key, value, compare);
+    }
+
+    /**
+     * Get the vertices whose value of the key is within the interval, in the order of their values.
+     *
+     * @param key        the key of the property
+     * @param startValue the inclusive start value of the interval
+     * @param endValue   the exclusive end value of the interval
+     * @return the vertices with a value of the key within the interval
+     */
+    public <T extends Comparable<T>> Iterable<Vertex> getVerticesInInterval(final String key, final T startValue, final T endValue) {
+        return (Iterable) this.getRange(this.vertexKeyIndex, this.getVertices(), key, startValue, true, endValue, false);
+    }
+
+    /**
+     * Get the edges whose value of the key is within the interval, in the order of their values.
+     *
+     * @see #getVerticesInInterval(String, Comparable, Comparable)
+     */
+    public <T extends Comparable<T>> Iterable<Edge> getEdgesInInterval(final String key, final T startValue, final T endValue) {
+        return (Iterable) this.getRange(this.edgeKeyIndex, this.getEdges(), key, startValue, true, endValue, false);
+    }
+
+    /**
+     * Get the vertices whose value of the key is a string that starts with the prefix, in the order of their values.
+     */
+    public Iterable<Vertex> getVerticesWithPrefix(final String key, final String prefix) {
+        return (Iterable) this.getPrefix(this.vertexKeyIndex, this.getVertices(), key, prefix);
+    }
+
+    /**
+     * Get the edges whose value of the key is a string that starts with the prefix, in the order of their values.
+     */
+    public Iterable<Edge> getEdgesWithPrefix(final String key, final String prefix) {
+        return (Iterable) this.getPrefix(this.edgeKeyIndex, this.getEdges(), key, prefix);
+    }
+
+    /**
+     * Get the vertices with the lowest or highest values of the key, in the order of their values.
+     * Values are grouped by their class, with all numbers being of one class.
+     *
+     * @param key        the key of the property
+     * @param descending whether to get the vertices with the highest values rather than the lowest
+     * @param limit      the maximum number of vertices to get
+     * @return the vertices with the lowest or highest values of the key
+     */
+    public Iterable<Vertex> getVerticesOrderedBy(final String key, final boolean descending, final int limit) {
+        return (Iterable) this.getFirst(this.vertexKeyIndex, this.getVertices(), key, descending, limit);
+    }
+
+    /**
+     * Get the edges with the lowest or highest values of the key, in the order of their values.
+     *
+     * @see #getVerticesOrderedBy(String, boolean, int)
+     */
+    public Iterable<Edge> getEdgesOrderedBy(final String key, final boolean descending, final int limit) {
+        return (Iterable) this.getFirst(this.edgeKeyIndex, this.getEdges(), key, descending, limit);
+    }
+
+    private List<? extends Element> getElements(final TinkerKeyIndex index, final Iterable<? extends Element> elements, final String key, final Object value, final Query.Compare compare) {
+        switch (compare) {
+            case NOT_EQUAL:
+                final List<Element> list = new ArrayList<Element>();
+                for (final Element element : elements) {
+                    if (null == value ? null != element.getProperty(key) : !value.equals(element.getProperty(key)))
+                        list.add(element);
+                }
+                return list;
+            case GREATER_THAN:
+                return this.getRange(index, elements, key, value, false, null, false);
+            case GREATER_THAN_EQUAL:
+                return this.getRange(index, elements, key, value, true, null, false);
+            case LESS_THAN:
+                return this.getRange(index, elements, key, null, false, value, false);
+            case LESS_THAN_EQUAL:
+                return this.getRange(index, elements, key, null, false, value, true);
+            default:
+                throw new IllegalArgumentException("Invalid state as no valid filter was provided");
+        }
+    }
+
+    private List<? extends Element> getRange(final TinkerKeyIndex index, final Iterable<? extends Element> elements, final String key,
+                                             final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive) {
+        final List<? extends Element> range = index.getRange(key, startValue, startInclusive, endValue, endInclusive);
+        if (null != range)
+            return range;
+        final Object lowerBound = ValueComparator.lowerBound(startValue, startInclusive, endValue);
+        final Object upperBound = ValueComparator.upperBound(endValue, endInclusive, startValue);
+        final List<Element> list = new ArrayList<Element>();
+        for (final Element element : elements) {
+            final Object value = element.getProperty(key);
+            if (ValueComparator.isSortable(value) && ValueComparator.INSTANCE.compare(value, lowerBound) > 0 && ValueComparator.INSTANCE.compare(value, upperBound) < 0)
+                list.add(element);
+        }
+        Collections.sort(list, new PropertyComparator(key, false));
+        return list;
+    }
+
+    private List<? extends Element> getPrefix(final TinkerKeyIndex index, final Iterable<? extends Element> elements, final String key, final String prefix) {
+        final List<? extends Element> range = index.getPrefix(key, prefix);
+        if (null != range)
+            return range;
+        final List<Element> list = new ArrayList<Element>();
+        for (final Element element : elements) {
+            final Object value = element.getProperty(key);
+            if (value instanceof String && ((String) value).startsWith(prefix))
+                list.add(element);
+        }
+        Collections.sort(list, new PropertyComparator(key, false));
+        return list;
+    }
+
+    private List<? extends Element> getFirst(final TinkerKeyIndex index, final Iterable<? extends Element> elements, final String key, final boolean descending, final int limit) {
+        final List<? extends Element> first = index.getFirst(key, descending, limit);
+        if (null != first)
+            return first;
+        final List<Element> list = new ArrayList<Element>();
+        for (final Element element : elements) {
+            if (ValueComparator.isSortable(element.getProperty(key)))
+                list.add(element);
+        }
+        Collections.sort(list, new PropertyComparator(key, descending));
+        return list.size() > limit ? list.subList(0, limit) : list;
+    }
+
     public <T extends Element> void createKeyIndex(final String key, final Class<T> elementClass) {
+        this.createKeyIndex(key, elementClass, keyIndexParameters(false));
+    }
+
+    /**
+     * Create a key index, which is sorted if the parameters include a KEY_INDEX_TYPE parameter with the value SORTED_KEY_INDEX.
+     * An existing key index becomes sorted if a sorted key index is created for its key.
+     *
+     * @param key             the key to create the index for
+     * @param elementClass    the element class that the index is for
+     * @param indexParameters the parameters of the index
+     */
+    public <T extends Element> void createKeyIndex(final String key, final Class<T> elementClass, final Parameter... indexParameters) {
+        boolean sorted = false;
+        for (final Parameter parameter : indexParameters) {
+            if (KEY_INDEX_TYPE.equals(parameter.getKey()) && SORTED_KEY_INDEX.equals(parameter.getValue()))
+                sorted = true;
+        }
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            this.vertexKeyIndex.createKeyIndex(key, sorted);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            this.edgeKeyIndex.createKeyIndex(key, sorted);
+        } else {
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+        }
+        if (null != this.log)
+            this.log.createKeyIndex(key, elementClass, sorted);
+    }
+
+    static Parameter[] keyIndexParameters(final boolean sorted) {
+        if (sorted)
+            return new Parameter[]{new Parameter<String, String>(KEY_INDEX_TYPE, SORTED_KEY_INDEX)};
+        else
+            return new Parameter[0];
+    }
+
+    /**
+     * Whether there is a sorted key index for the key.
+     */
+    public <T extends Element> boolean isSortedKeyIndex(final String key, final Class<T> elementClass) {
         if (Vertex.class.isAssignableFrom(elementClass)) {
-            this.vertexKeyIndex.createKeyIndex(key);
+            return this.vertexKeyIndex.isSortedKey(key);
         } else if (Edge.class.isAssignableFrom(elementClass)) {
-            this.edgeKeyIndex.createKeyIndex(key);
+            return this.edgeKeyIndex.isSortedKey(key);
         } else {
             throw ExceptionFactory.classIsNotIndexable(elementClass);
         }
@@ -148,6 +564,8 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         } else {
             throw ExceptionFactory.classIsNotIndexable(elementClass);
         }
+        if (null != this.log)
+            this.log.dropKeyIndex(key, elementClass);
     }
 
     public <T extends Element> Set<String> getIndexedKeys(final Class<T> elementClass) {
@@ -160,12 +578,61 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
+    /**
+     * Create a vertex-centric index of an edge key. Every vertex keeps the values of the key of its edges in a sorted index
+     * per direction and label, which Vertex.query() uses to answer equality and range constraints on the key
+     * in time logarithmic in the degree of the vertex rather than linear.
+     *
+     * @param key the edge key to index
+     */
+    public void createVertexCentricIndex(final String key) {
+        if (!this.vertexCentricKeys.add(key))
+            return;
+        for (final Edge edge : this.getEdges()) {
+            // edges are indexed under their lock so that concurrent property changes are not lost
+            synchronized (edge) {
+                this.updateVertexCentricIndices(key, ((TinkerEdge) edge).properties.get(key), null, (TinkerEdge) edge);
+            }
+        }
+        if (null != this.log)
+            this.log.createVertexCentricIndex(key);
+    }
+
+    public void dropVertexCentricIndex(final String key) {
+        if (!this.vertexCentricKeys.remove(key))
+            return;
+        for (final Vertex vertex : this.vertices.values()) {
+            ((TinkerVertex) vertex).dropEdgeIndexKey(key);
+        }
+        if (null != this.log)
+            this.log.dropVertexCentricIndex(key);
+    }
+
+    public Set<String> getVertexCentricIndexedKeys() {
+        return new HashSet<String>(this.vertexCentricKeys);
+    }
+
+    /**
+     * Moves the edge from the old to the new value of the key in the vertex-centric indices of its vertices.
+     */
+    protected void updateVertexCentricIndices(final String key, final Object newValue, final Object oldValue, final TinkerEdge edge) {
+        if ((null != newValue || null != oldValue) && this.vertexCentricKeys.contains(key)) {
+            ((TinkerVertex) edge.getVertex(Direction.OUT)).updateEdgeIndex(Direction.OUT, key, newValue, oldValue, edge);
+            ((TinkerVertex) edge.getVertex(Direction.IN)).updateEdgeIndex(Direction.IN, key, newValue, oldValue, edge);
+        }
+    }
+
     public <T extends Element> Index<T> createIndex(final String indexName, final Class<T> indexClass, final Parameter... indexParameters) {
         if (this.indices.containsKey(indexName))
             throw ExceptionFactory.indexAlreadyExists(indexName);
 
-        final TinkerIndex index = new TinkerIndex(indexName, indexClass);
-        this.indices.put(index.getIndexName(), index);
+        final TinkerIndex index = new TinkerIndex(indexName, indexClass, this.storage == Storage.CONCURRENT);
+        if (!this.putElement(this.indices, index.getIndexName(), index))
+            throw ExceptionFactory.indexAlreadyExists(indexName);
+        if (null != this.log) {
+            this.log.createIndex(index);
+            index.log = this.log;
+        }
         return index;
     }
 
@@ -189,32 +656,53 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
 
     public void dropIndex(final String indexName) {
         this.indices.remove(indexName);
+        if (null != this.log)
+            this.log.dropIndex(indexName);
     }
 
 
     public Vertex addVertex(final Object id) {
-        String idString = null;
-        Vertex vertex;
+        this.snapshotLiveIterators();
         if (null != id) {
-            idString = id.toString();
-            vertex = this.vertices.get(idString);
-            if (null != vertex) {
+            final String idString = id.toString();
+            final TinkerVertex vertex = new TinkerVertex(idString, this);
+            if (!this.putVertex(vertex))
                 throw ExceptionFactory.vertexWithIdAlreadyExists(id);
-            }
+            return vertex;
         } else {
-            boolean done = false;
-            while (!done) {
-                idString = this.getNextId();
-                vertex = this.vertices.get(idString);
-                if (null == vertex)
-                    done = true;
+            while (true) {
+                final String idString = this.getNextId();
+                if (null == this.vertices.get(idString)) {
+                    final TinkerVertex vertex = new TinkerVertex(idString, this);
+                    if (this.putVertex(vertex))
+                        return vertex;
+                }
             }
         }
+    }
 
-        vertex = new TinkerVertex(idString, this);
-        this.vertices.put(vertex.getId().toString(), vertex);
-        return vertex;
+    /**
+     * Puts a new vertex in the graph and logs it. Under concurrent storage this happens under the lock of the vertex
+     * and the vertex itself, which adding an edge and setting a property take, so the log records the vertex before
+     * anything another thread does to it.
+     */
+    private boolean putVertex(final TinkerVertex vertex) {
+        if (this.storage == Storage.CONCURRENT) {
+            synchronized (this.getLock(vertex)) {
+                synchronized (vertex) {
+                    return this.putVertexUnlocked(vertex);
+                }
+            }
+        }
+        return this.putVertexUnlocked(vertex);
+    }
 
+    private boolean putVertexUnlocked(final TinkerVertex vertex) {
+        if (!this.putElement(this.vertices, vertex.getId().toString(), vertex))
+            return false;
+        if (null != this.log)
+            this.log.addVertex(vertex);
+        return true;
     }
 
     public Vertex getVertex(final Object id) {
@@ -234,31 +722,86 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     }
 
 
+    /**
+     * With lazy iteration the vertices are those of the graph at the time an iterator of the returned iterable is created,
+     * rather than at the time of this call.
+     */
     public Iterable<Vertex> getVertices() {
-        return new ArrayList<Vertex>(this.vertices.values());
+        if (this.lazyIteration)
+            return new LiveIterable<Vertex>(this, Collections.singletonList(this.vertices.values()));
+        else
+            return new ArrayList<Vertex>(this.vertices.values());
     }
 
+    /**
+     * With lazy iteration the edges are those of the graph at the time an iterator of the returned iterable is created,
+     * rather than at the time of this call.
+     */
     public Iterable<Edge> getEdges() {
-        return new ArrayList<Edge>(this.edges.values());
+        if (this.lazyIteration)
+            return new LiveIterable<Edge>(this, Collections.singletonList(this.edges.values()));
+        else
+            return new ArrayList<Edge>(this.edges.values());
     }
 
     public void removeVertex(final Vertex vertex) {
-        for (Edge edge : vertex.getEdges(Direction.BOTH)) {
-            this.removeEdge(edge);
+        this.snapshotLiveIterators();
+        if (this.storage == Storage.CONCURRENT) {
+            // edges are removed without holding the lock of the vertex as removing an edge locks both of its vertices
+            while (true) {
+                for (Edge edge : vertex.getEdges(Direction.BOTH)) {
+                    this.removeEdge(edge);
+                }
+                synchronized (this.getLock(vertex)) {
+                    if (!vertex.getEdges(Direction.BOTH).iterator().hasNext()) {
+                        if (this.vertices.remove(vertex.getId().toString()) == null)
+                            return;
+                        // the vertex leaves the indices and the log under its lock, like the other structural changes to it
+                        this.removeVertexFromIndices((TinkerVertex) vertex);
+                        if (null != this.log)
+                            this.log.removeVertex(vertex);
+                        return;
+                    }
+                }
+            }
+        } else {
+            for (Edge edge : vertex.getEdges(Direction.BOTH)) {
+                this.removeEdge(edge);
+            }
+            this.removeVertexFromIndices((TinkerVertex) vertex);
+            this.vertices.remove(vertex.getId().toString());
+            if (null != this.log)
+                this.log.removeVertex(vertex);
         }
+    }
 
-        this.vertexKeyIndex.removeElement((TinkerVertex) vertex);
+    private void removeVertexFromIndices(final TinkerVertex vertex) {
+        this.vertexKeyIndex.removeElement(vertex);
         for (Index index : this.getIndices()) {
             if (Vertex.class.isAssignableFrom(index.getIndexClass())) {
                 TinkerIndex<TinkerVertex> idx = (TinkerIndex<TinkerVertex>) index;
-                idx.removeElement((TinkerVertex) vertex);
+                idx.removeElement(vertex);
             }
         }
-
-        this.vertices.remove(vertex.getId().toString());
     }
 
     public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+        this.snapshotLiveIterators();
+        if (this.storage == Storage.CONCURRENT) {
+            final Object[] locks = this.getLocks(outVertex, inVertex);
+            synchronized (locks[0]) {
+                synchronized (locks[1]) {
+                    if (this.vertices.get(outVertex.getId().toString()) != outVertex || this.vertices.get(inVertex.getId().toString()) != inVertex)
+                        throw new IllegalStateException("The vertices of the edge have been removed from the graph");
+                    return this.addEdgeUnlocked(id, outVertex, inVertex, label);
+                }
+            }
+        } else {
+            return this.addEdgeUnlocked(id, outVertex, inVertex, label);
+        }
+    }
+
+    private Edge addEdgeUnlocked(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
         String idString = null;
         Edge edge;
         if (null != id) {
@@ -277,17 +820,44 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             }
         }
 
-        edge = new TinkerEdge(idString, outVertex, inVertex, label, this);
-        this.edges.put(edge.getId().toString(), edge);
-        final TinkerVertex out = (TinkerVertex) outVertex;
-        final TinkerVertex in = (TinkerVertex) inVertex;
-        out.addOutEdge(label, edge);
-        in.addInEdge(label, edge);
+        final String edgeLabel = this.internLabel(label);
+        edge = new TinkerEdge(idString, outVertex, inVertex, edgeLabel, this);
+        // the new edge is locked until it is logged so that no property set on it by another thread is logged first
+        synchronized (edge) {
+            if (!this.putElement(this.edges, idString, edge)) {
+                if (null != id)
+                    throw ExceptionFactory.edgeWithIdAlreadyExist(id);
+                return this.addEdgeUnlocked(null, outVertex, inVertex, label);
+            }
+            this.edgeKeyIndex.autoUpdate(StringFactory.LABEL, edgeLabel, null, (TinkerEdge) edge);
+            final TinkerVertex out = (TinkerVertex) outVertex;
+            final TinkerVertex in = (TinkerVertex) inVertex;
+            out.addOutEdge(edgeLabel, edge);
+            in.addInEdge(edgeLabel, edge);
+            if (null != this.log)
+                this.log.addEdge(edge);
+        }
         return edge;
 
     }
 
     public void removeEdge(final Edge edge) {
+        this.snapshotLiveIterators();
+        if (this.storage == Storage.CONCURRENT) {
+            final Object[] locks = this.getLocks(edge.getVertex(Direction.OUT), edge.getVertex(Direction.IN));
+            synchronized (locks[0]) {
+                synchronized (locks[1]) {
+                    if (this.edges.get(edge.getId().toString()) != edge)
+                        return;
+                    this.removeEdgeUnlocked(edge);
+                }
+            }
+        } else {
+            this.removeEdgeUnlocked(edge);
+        }
+    }
+
+    private void removeEdgeUnlocked(final Edge edge) {
         TinkerVertex outVertex = (TinkerVertex) edge.getVertex(Direction.OUT);
         TinkerVertex inVertex = (TinkerVertex) edge.getVertex(Direction.IN);
         if (null != outVertex && null != outVertex.outEdges) {
@@ -300,6 +870,9 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             if (null != edges)
                 edges.remove(edge);
         }
+        for (final String key : this.vertexCentricKeys) {
+            this.updateVertexCentricIndices(key, null, edge.getProperty(key), (TinkerEdge) edge);
+        }
 
 
         this.edgeKeyIndex.removeElement((TinkerEdge) edge);
@@ -311,6 +884,8 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
 
         this.edges.remove(edge.getId().toString());
+        if (null != this.log)
+            this.log.removeEdge(edge);
     }
 
 
@@ -322,24 +897,48 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     }
 
     public void clear() {
+        this.snapshotLiveIterators();
         this.vertices.clear();
         this.edges.clear();
         this.indices.clear();
-        this.currentId = 0l;
+        this.labels.clear();
+        this.currentId.set(0l);
         this.vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this);
         this.edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this);
+        this.vertexCentricKeys = this.createKeySet();
+        if (null != this.log)
+            this.log.clear();
     }
 
     public void shutdown() {
         if (null != this.directory) {
             try {
-                File file = new File(this.directory + GRAPH_FILE);
-                if (file.exists()) {
-                    file.delete();
+                final File file = new File(this.directory + GRAPH_FILE);
+                final File snapshot = new File(this.directory + SNAPSHOT_FILE);
+                if (null != this.log) {
+                    this.log.close();
+                    this.log = null;
+                    for (final TinkerIndex index : this.indices.values()) {
+                        index.log = null;
+                    }
+                }
+                if (this.fileType == FileType.JAVA) {
+                    if (file.exists()) {
+                        file.delete();
+                    }
+                    ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(this.directory + GRAPH_FILE));
+                    out.writeObject(this);
+                    out.close();
+                    if (snapshot.exists()) {
+                        snapshot.delete();
+                    }
+                } else {
+                    TinkerSnapshot.save(this, snapshot);
+                    if (file.exists()) {
+                        file.delete();
+                    }
                 }
-                ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(this.directory + GRAPH_FILE));
-                out.writeObject(this);
-                out.close();
+                TinkerLog.deleteSegments(this.directory);
             } catch (Exception e) {
                 throw new RuntimeException(e.getMessage(), e);
             }
@@ -349,14 +948,132 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     private String getNextId() {
         String idString;
         while (true) {
-            idString = this.currentId.toString();
-            this.currentId++;
-            if (null == this.vertices.get(idString) || null == this.edges.get(idString) || this.currentId == Long.MAX_VALUE)
+            final long id = this.currentId.getAndIncrement();
+            idString = Long.toString(id);
+            if (null == this.vertices.get(idString) || null == this.edges.get(idString) || id + 1 == Long.MAX_VALUE)
                 break;
         }
         return idString;
     }
 
+    /**
+     * Get the storage layout of this graph.
+     *
+     * @return the storage layout used for elements and adjacency
+     */
+    public Storage getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Get the file format used to persist this graph.
+     *
+     * @return the file format or null if the graph is not persisted
+     */
+    public FileType getFileType() {
+        return this.fileType;
+    }
+
+    /**
+     * Determines whether getVertices(), getEdges() and Vertex.getEdges() copy their elements on every call (the default)
+     * or return views that iterate the underlying collections in place.
+     * Views copy their remaining elements only if the graph is structurally modified while they are being iterated,
+     * so an iterator sees the elements of the graph at the time the iterator was created. This is not the time the
+     * view was returned: a view that is iterated after the graph was modified sees the modified graph, while a copy
+     * sees the graph at the time of the call. The iterators of the views do not support remove().
+     *
+     * @param lazyIteration whether to return views instead of copies
+     */
+    public void setLazyIteration(final boolean lazyIteration) {
+        if (lazyIteration && this.storage == Storage.CONCURRENT)
+            throw new UnsupportedOperationException("Lazy iteration is not supported by the concurrent storage");
+        this.lazyIteration = lazyIteration;
+    }
+
+    public boolean isLazyIteration() {
+        return this.lazyIteration;
+    }
+
+    protected void registerLiveIterator(final LiveIterable.LiveIterator iterator) {
+        if (null == this.liveIterators)
+            this.liveIterators = new LiveIterable.LiveIterator[MAX_LIVE_ITERATORS];
+        else if (this.liveIteratorCount == MAX_LIVE_ITERATORS)
+            // iterators that are never exhausted are not unregistered, so bound their number by copying them
+            this.snapshotLiveIterators();
+        this.liveIterators[this.liveIteratorCount++] = iterator;
+    }
+
+    protected void unregisterLiveIterator(final LiveIterable.LiveIterator iterator) {
+        for (int i = this.liveIteratorCount - 1; i >= 0; i--) {
+            if (this.liveIterators[i] == iterator) {
+                System.arraycopy(this.liveIterators, i + 1, this.liveIterators, i, this.liveIteratorCount - i - 1);
+                this.liveIterators[--this.liveIteratorCount] = null;
+                return;
+            }
+        }
+    }
+
+    private void snapshotLiveIterators() {
+        for (int i = 0; i < this.liveIteratorCount; i++) {
+            this.liveIterators[i].snapshot();
+            this.liveIterators[i] = null;
+        }
+        this.liveIteratorCount = 0;
+    }
+
+    protected <T> Map<String, T> createElementMap() {
+        if (this.storage == Storage.COMPACT)
+            return new LongKeyedMap<T>();
+        else if (this.storage == Storage.CONCURRENT)
+            return new ConcurrentHashMap<String, T>();
+        else
+            return new HashMap<String, T>();
+    }
+
+    private Set<String> createKeySet() {
+        if (this.storage == Storage.CONCURRENT)
+            return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        else
+            return new HashSet<String>();
+    }
+
+    /**
+     * Puts the element into the map unless the id is already taken (atomically so for the concurrent storage).
+     *
+     * @return whether the element was put into the map
+     */
+    protected <T> boolean putElement(final Map<String, T> map, final String id, final T element) {
+        if (map instanceof ConcurrentMap)
+            return null == ((ConcurrentMap<String, T>) map).putIfAbsent(id, element);
+        if (map.containsKey(id))
+            return false;
+        map.put(id, element);
+        return true;
+    }
+
+    private Object getLock(final Vertex vertex) {
+        return this.locks[(vertex.getId().hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * Gets the locks of two vertices in a global order so that they can be acquired without deadlocks.
+     */
+    private Object[] getLocks(final Vertex vertexA, final Vertex vertexB) {
+        final int a = (vertexA.getId().hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES;
+        final int b = (vertexB.getId().hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES;
+        return new Object[]{this.locks[Math.min(a, b)], this.locks[Math.max(a, b)]};
+    }
+
+    protected String internLabel(final String label) {
+        if (this.storage != Storage.COMPACT || null == label)
+            return label;
+        final String interned = this.labels.get(label);
+        if (null != interned)
+            return interned;
+        this.labels.put(label, label);
+        return label;
+    }
+
     public Features getFeatures() {
         if (null == directory)
             return FEATURES;
@@ -366,12 +1083,15 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
 
     protected class TinkerKeyIndex<T extends TinkerElement> extends TinkerIndex<T> implements Serializable {
 
-        private final Set<String> indexedKeys = new HashSet<String>();
+        private static final long serialVersionUID = -9089393694678720810L;
+
+        private final Set<String> indexedKeys;
         private TinkerGraph graph;
 
         public TinkerKeyIndex(final Class<T> indexClass, final TinkerGraph graph) {
-            super(null, indexClass);
+            super(null, indexClass, graph.storage == Storage.CONCURRENT);
             this.graph = graph;
+            this.indexedKeys = this.concurrent ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()) : new HashSet<String>();
         }
 
         public void autoUpdate(final String key, final Object newValue, final Object oldValue, final T element) {
@@ -388,13 +1108,24 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             }
         }
 
-        public void createKeyIndex(final String key) {
-            if (this.indexedKeys.contains(key))
+        public void createKeyIndex(final String key, final boolean sorted) {
+            if (this.indexedKeys.contains(key)) {
+                if (sorted)
+                    this.sortKey(key);
                 return;
+            }
 
+            if (sorted)
+                this.sortKey(key);
             this.indexedKeys.add(key);
 
-            if (TinkerVertex.class.equals(this.indexClass)) {
+            if (this.concurrent) {
+                // elements are indexed under their lock so that concurrent property changes are not lost
+                final Iterable<? extends Element> elements = TinkerVertex.class.equals(this.indexClass) ? graph.getVertices() : graph.getEdges();
+                for (final Element element : elements) {
+                    ((TinkerElement) element).reIndexProperty(key);
+                }
+            } else if (TinkerVertex.class.equals(this.indexClass)) {
                 KeyIndexableGraphHelper.reIndexElements(graph, graph.getVertices(), new HashSet<String>(Arrays.asList(key)));
             } else {
                 KeyIndexableGraphHelper.reIndexElements(graph, graph.getEdges(), new HashSet<String>(Arrays.asList(key)));
@@ -407,6 +1138,7 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
 
             this.indexedKeys.remove(key);
             this.index.remove(key);
+            this.unsortKey(key);
 
         }
 
@@ -418,4 +1150,19 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
+    private static class PropertyComparator implements Comparator<Element> {
+
+        private final String key;
+        private final boolean descending;
+
+        public PropertyComparator(final String key, final boolean descending) {
+            this.key = key;
+            this.descending = descending;
+        }
+
+        public int compare(final Element a, final Element b) {
+            final int c = ValueComparator.INSTANCE.compare(a.getProperty(this.key), b.getProperty(this.key));
+            return this.descending ? -c : c;
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.HasContainer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A graph query that is planned against the key indices of TinkerGraph. The exact number of elements with a value is known
+ * for every key index, and the number of elements within a range is counted for a sorted key index, so the query is answered
+ * from the equality or range constraint that matches the fewest elements. The remaining constraints are checked lazily.
+ */
+class TinkerGraphQuery extends DefaultGraphQuery {
+
+    public TinkerGraphQuery(final TinkerGraph graph) {
+        super(graph);
+    }
+
+    @Override
+    protected Iterable<? extends Element> getCandidates(final Class<? extends Element> elementClass) {
+        final TinkerGraph graph = (TinkerGraph) this.graph;
+        final boolean forVertex = Vertex.class.isAssignableFrom(elementClass);
+        final TinkerIndex index = forVertex ? graph.vertexKeyIndex : graph.edgeKeyIndex;
+        final Set<String> indexedKeys = forVertex ? graph.vertexKeyIndex.getIndexedKeys() : graph.edgeKeyIndex.getIndexedKeys();
+
+        HasContainer bestEquality = null;
+        long bestCount = Long.MAX_VALUE;
+        final Map<String, Range> ranges = new LinkedHashMap<String, Range>();
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (!indexedKeys.contains(hasContainer.key))
+                continue;
+            if (hasContainer.compare == Query.Compare.EQUAL) {
+                final long count = index.count(hasContainer.key, hasContainer.value);
+                if (count < bestCount) {
+                    bestEquality = hasContainer;
+                    bestCount = count;
+                }
+            } else if (hasContainer.compare != Query.Compare.NOT_EQUAL && null != hasContainer.value && index.isSortedKey(hasContainer.key)) {
+                Range range = ranges.get(hasContainer.key);
+                if (null == range) {
+                    range = new Range();
+                    ranges.put(hasContainer.key, range);
+                }
+                range.add(hasContainer);
+            }
+        }
+        if (bestCount == 0)
+            return Collections.emptyList();
+
+        String bestKey = null;
+        Range bestRange = null;
+        for (final Map.Entry<String, Range> entry : ranges.entrySet()) {
+            final Range range = entry.getValue();
+            final long count = index.countRange(entry.getKey(), range.startValue, range.startInclusive, range.endValue, range.endInclusive, bestCount);
+            if (count < bestCount) {
+                bestKey = entry.getKey();
+                bestRange = range;
+                bestCount = count;
+            }
+        }
+        if (null != bestRange)
+            return index.iterateRange(bestKey, bestRange.startValue, bestRange.startInclusive, bestRange.endValue, bestRange.endInclusive);
+        if (null != bestEquality)
+            return index.get(bestEquality.key, bestEquality.value);
+        return forVertex ? graph.getVertices() : graph.getEdges();
+    }
+
+    /**
+     * The bounds of a key from the range constraints on it, which are all checked again on the elements.
+     */
+    static class Range {
+        Object startValue = null;
+        boolean startInclusive = false;
+        Object endValue = null;
+        boolean endInclusive = false;
+
+        public void add(final HasContainer hasContainer) {
+            switch (hasContainer.compare) {
+                case GREATER_THAN:
+                case GREATER_THAN_EQUAL:
+                    if (null == this.startValue) {
+                        this.startValue = hasContainer.value;
+                        this.startInclusive = hasContainer.compare == Query.Compare.GREATER_THAN_EQUAL;
+                    }
+                    break;
+                default:
+                    if (null == this.endValue) {
+                        this.endValue = hasContainer.value;
+                        this.endInclusive = hasContainer.compare == Query.Compare.LESS_THAN_EQUAL;
+                    }
+            }
+        }
+    }
+}
@@ -11,21 +11,51 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 class TinkerIndex<T extends Element> implements Index<T>, Serializable {
 
-    protected Map<String, Map<Object, Set<T>>> index = new HashMap<String, Map<Object, Set<T>>>();
+    private static final long serialVersionUID = 539822656793902585L;
+
+    protected Map<String, Map<Object, Set<T>>> index;
+    // the sorted keys also map their comparable values, in the order of ValueComparator, to the same sets as the index
+    protected Map<String, NavigableMap<Object, Set<T>>> sortedIndex;
     protected final String indexName;
     protected final Class<T> indexClass;
+    protected final boolean concurrent;
+    protected transient TinkerLog log;
 
     public TinkerIndex(final String indexName, final Class<T> indexClass) {
+        this(indexName, indexClass, false);
+    }
+
+    /**
+     * @param concurrent whether the index is shared across threads, in which case concurrent maps are used
+     *                   and the values of a key are modified under the lock of the key's map
+     */
+    public TinkerIndex(final String indexName, final Class<T> indexClass, final boolean concurrent) {
         this.indexName = indexName;
         this.indexClass = indexClass;
+        this.concurrent = concurrent;
+        if (concurrent) {
+            this.index = new ConcurrentHashMap<String, Map<Object, Set<T>>>();
+            this.sortedIndex = new ConcurrentHashMap<String, NavigableMap<Object, Set<T>>>();
+        } else {
+            this.index = new HashMap<String, Map<Object, Set<T>>>();
+            this.sortedIndex = new HashMap<String, NavigableMap<Object, Set<T>>>();
+        }
     }
 
     public String getIndexName() {
@@ -37,18 +67,232 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
     }
 
     public void put(final String key, final Object value, final T element) {
-        Map<Object, Set<T>> keyMap = this.index.get(key);
-        if (keyMap == null) {
-            keyMap = new HashMap<Object, Set<T>>();
-            this.index.put(key, keyMap);
+        final Map<Object, Set<T>> keyMap = this.getKeyMap(key);
+        if (this.concurrent) {
+            synchronized (keyMap) {
+                this.put(keyMap, this.getSortedKeyMap(key), value, element);
+                if (null != this.log)
+                    this.log.indexPut(this, key, value, element);
+            }
+        } else {
+            this.put(keyMap, this.getSortedKeyMap(key), value, element);
+            if (null != this.log)
+                this.log.indexPut(this, key, value, element);
         }
+    }
+
+    private void put(final Map<Object, Set<T>> keyMap, final NavigableMap<Object, Set<T>> sortedKeyMap, final Object value, final T element) {
         Set<T> objects = keyMap.get(value);
         if (null == objects) {
-            objects = new HashSet<T>();
+            objects = this.concurrent ? Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>()) : new HashSet<T>();
             keyMap.put(value, objects);
+            if (null != sortedKeyMap && ValueComparator.isSortable(value))
+                sortedKeyMap.put(value, objects);
         }
         objects.add(element);
+    }
 
+    private Map<Object, Set<T>> getKeyMap(final String key) {
+        Map<Object, Set<T>> keyMap = this.index.get(key);
+        if (keyMap == null) {
+            if (this.concurrent) {
+                keyMap = new ConcurrentHashMap<Object, Set<T>>();
+                final Map<Object, Set<T>> existing = ((ConcurrentMap<String, Map<Object, Set<T>>>) this.index).putIfAbsent(key, keyMap);
+                if (null != existing)
+                    keyMap = existing;
+            } else {
+                keyMap = new HashMap<Object, Set<T>>();
+                this.index.put(key, keyMap);
+            }
+        }
+        return keyMap;
+    }
+
+    private NavigableMap<Object, Set<T>> getSortedKeyMap(final String key) {
+        // an index read with Java serialization from a graph saved before sorted keys existed has no sorted index
+        return null == this.sortedIndex ? null : this.sortedIndex.get(key);
+    }
+
+    /**
+     * Keeps the values of the key in order, so that ranges, prefixes and the first values of the key can be looked up in logarithmic time.
+     */
+    protected void sortKey(final String key) {
+        if (null == this.sortedIndex) {
+            if (this.concurrent)
+                this.sortedIndex = new ConcurrentHashMap<String, NavigableMap<Object, Set<T>>>();
+            else
+                this.sortedIndex = new HashMap<String, NavigableMap<Object, Set<T>>>();
+        }
+        if (this.isSortedKey(key))
+            return;
+        final Map<Object, Set<T>> keyMap = this.getKeyMap(key);
+        final NavigableMap<Object, Set<T>> sortedKeyMap;
+        if (this.concurrent)
+            sortedKeyMap = new ConcurrentSkipListMap<Object, Set<T>>(ValueComparator.INSTANCE);
+        else
+            sortedKeyMap = new TreeMap<Object, Set<T>>(ValueComparator.INSTANCE);
+        if (this.concurrent) {
+            synchronized (keyMap) {
+                this.sortKey(key, keyMap, sortedKeyMap);
+            }
+        } else {
+            this.sortKey(key, keyMap, sortedKeyMap);
+        }
+    }
+
+    private void sortKey(final String key, final Map<Object, Set<T>> keyMap, final NavigableMap<Object, Set<T>> sortedKeyMap) {
+        for (final Map.Entry<Object, Set<T>> entry : keyMap.entrySet()) {
+            if (ValueComparator.isSortable(entry.getKey()))
+                sortedKeyMap.put(entry.getKey(), entry.getValue());
+        }
+        this.sortedIndex.put(key, sortedKeyMap);
+    }
+
+    protected void unsortKey(final String key) {
+        if (null != this.sortedIndex)
+            this.sortedIndex.remove(key);
+    }
+
+    public boolean isSortedKey(final String key) {
+        return null != this.getSortedKeyMap(key);
+    }
+
+    /**
+     * Get the elements whose value of the key is within the range, in the order of their values.
+     * An open end of the range is bounded by the class of the value at the other end, with all numbers being of one class.
+     *
+     * @param startValue     the start value of the range, or null for no start
+     * @param startInclusive whether the elements with the start value are in the range
+     * @param endValue       the end value of the range, or null for no end
+     * @param endInclusive   whether the elements with the end value are in the range
+     * @return the elements in the range, or null if the key is not sorted
+     */
+    public List<T> getRange(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive) {
+        final NavigableMap<Object, Set<T>> sortedKeyMap = this.getSortedKeyMap(key);
+        if (null == sortedKeyMap)
+            return null;
+        final List<T> elements = new ArrayList<T>();
+        for (final Set<T> set : getRange(sortedKeyMap, startValue, startInclusive, endValue, endInclusive).values()) {
+            elements.addAll(set);
+        }
+        return elements;
+    }
+
+    /**
+     * Count the elements whose value of the key is within the range, up to the maximum.
+     *
+     * @return the number of elements in the range or the maximum if there are more, or -1 if the key is not sorted
+     * @see #getRange(String, Object, boolean, Object, boolean)
+     */
+    public long countRange(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive, final long max) {
+        final NavigableMap<Object, Set<T>> sortedKeyMap = this.getSortedKeyMap(key);
+        if (null == sortedKeyMap)
+            return -1;
+        long count = 0;
+        for (final Set<T> set : getRange(sortedKeyMap, startValue, startInclusive, endValue, endInclusive).values()) {
+            count = count + set.size();
+            if (count >= max)
+                return max;
+        }
+        return count;
+    }
+
+    /**
+     * Iterate the elements whose value of the key is within the range, in the order of their values, without copying the range.
+     * The iteration steps from value to value of the sorted key, so changes to the index do not invalidate it.
+     *
+     * @return the elements in the range, or null if the key is not sorted
+     * @see #getRange(String, Object, boolean, Object, boolean)
+     */
+    public Iterable<T> iterateRange(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive) {
+        final NavigableMap<Object, Set<T>> sortedKeyMap = this.getSortedKeyMap(key);
+        if (null == sortedKeyMap)
+            return null;
+        final Object lowerBound = ValueComparator.lowerBound(startValue, startInclusive, endValue);
+        final Object upperBound = ValueComparator.upperBound(endValue, endInclusive, startValue);
+        return new Iterable<T>() {
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private Object value = lowerBound;
+                    private Iterator<T> elements = Collections.<T>emptyList().iterator();
+
+                    public boolean hasNext() {
+                        while (!this.elements.hasNext()) {
+                            if (null == this.value)
+                                return false;
+                            final Map.Entry<Object, Set<T>> entry = sortedKeyMap.higherEntry(this.value);
+                            if (null == entry || ValueComparator.INSTANCE.compare(entry.getKey(), upperBound) >= 0) {
+                                this.value = null;
+                                return false;
+                            }
+                            this.value = entry.getKey();
+                            this.elements = new ArrayList<T>(entry.getValue()).iterator();
+                        }
+                        return true;
+                    }
+
+                    public T next() {
+                        if (!this.hasNext())
+                            throw new NoSuchElementException();
+                        return this.elements.next();
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    private static <T> Map<Object, Set<T>> getRange(final NavigableMap<Object, Set<T>> sortedKeyMap, final Object startValue, final boolean startInclusive,
+                                                    final Object endValue, final boolean endInclusive) {
+        final Object lowerBound = ValueComparator.lowerBound(startValue, startInclusive, endValue);
+        final Object upperBound = ValueComparator.upperBound(endValue, endInclusive, startValue);
+        if (ValueComparator.INSTANCE.compare(lowerBound, upperBound) < 0)
+            return sortedKeyMap.subMap(lowerBound, true, upperBound, true);
+        else
+            return Collections.emptyMap();
+    }
+
+    /**
+     * Get the elements whose value of the key is a string that starts with the prefix, in the order of their values.
+     *
+     * @return the elements with the prefix, or null if the key is not sorted
+     */
+    public List<T> getPrefix(final String key, final String prefix) {
+        final NavigableMap<Object, Set<T>> sortedKeyMap = this.getSortedKeyMap(key);
+        if (null == sortedKeyMap)
+            return null;
+        final List<T> elements = new ArrayList<T>();
+        for (final Map.Entry<Object, Set<T>> entry : sortedKeyMap.tailMap(ValueComparator.lowerBound(prefix, true, null), true).entrySet()) {
+            if (!(entry.getKey() instanceof String) || !((String) entry.getKey()).startsWith(prefix))
+                break;
+            elements.addAll(entry.getValue());
+        }
+        return elements;
+    }
+
+    /**
+     * Get the elements with the lowest or the highest values of the key.
+     *
+     * @param descending whether to get the elements with the highest values rather than the lowest
+     * @param limit      the maximum number of elements to get
+     * @return the elements in the order of their values, or null if the key is not sorted
+     */
+    public List<T> getFirst(final String key, final boolean descending, final int limit) {
+        final NavigableMap<Object, Set<T>> sortedKeyMap = this.getSortedKeyMap(key);
+        if (null == sortedKeyMap)
+            return null;
+        final List<T> elements = new ArrayList<T>();
+        for (final Set<T> set : (descending ? sortedKeyMap.descendingMap() : sortedKeyMap).values()) {
+            for (final T element : set) {
+                if (elements.size() >= limit)
+                    return elements;
+                elements.add(element);
+            }
+        }
+        return elements;
     }
 
     public CloseableIterable<T> get(final String key, final Object value) {
@@ -84,12 +328,28 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
     public void remove(final String key, final Object value, final T element) {
         final Map<Object, Set<T>> keyMap = this.index.get(key);
         if (null != keyMap) {
-            Set<T> objects = keyMap.get(value);
-            if (null != objects) {
-                objects.remove(element);
-                if (objects.size() == 0) {
-                    keyMap.remove(value);
+            if (this.concurrent) {
+                synchronized (keyMap) {
+                    this.remove(keyMap, this.getSortedKeyMap(key), value, element);
+                    if (null != this.log)
+                        this.log.indexRemove(this, key, value, element);
                 }
+            } else {
+                this.remove(keyMap, this.getSortedKeyMap(key), value, element);
+                if (null != this.log)
+                    this.log.indexRemove(this, key, value, element);
+            }
+        }
+    }
+
+    private void remove(final Map<Object, Set<T>> keyMap, final NavigableMap<Object, Set<T>> sortedKeyMap, final Object value, final T element) {
+        Set<T> objects = keyMap.get(value);
+        if (null != objects) {
+            objects.remove(element);
+            if (objects.size() == 0) {
+                keyMap.remove(value);
+                if (null != sortedKeyMap && ValueComparator.isSortable(value))
+                    sortedKeyMap.remove(value);
             }
         }
     }
@@ -97,13 +357,23 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
     public void removeElement(final T element) {
         if (this.indexClass.isAssignableFrom(element.getClass())) {
             for (Map<Object, Set<T>> map : index.values()) {
-                for (Set<T> set : map.values()) {
-                    set.remove(element);
+                if (this.concurrent) {
+                    synchronized (map) {
+                        this.removeElement(map, element);
+                    }
+                } else {
+                    this.removeElement(map, element);
                 }
             }
         }
     }
 
+    private void removeElement(final Map<Object, Set<T>> keyMap, final T element) {
+        for (Set<T> set : keyMap.values()) {
+            set.remove(element);
+        }
+    }
+
     public String toString() {
         return StringFactory.indexString(this);
     }
@@ -0,0 +1,632 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the mutations of a persistent TinkerGraph, which makes every change durable without rewriting the graph.
+ * Mutations are encoded by the thread that makes them and appended to a buffer, which a writer thread writes and forces
+ * to the current log segment in batches, so one fsync covers all the mutations of a sync interval (group commit).
+ * <p/>
+ * Once the log has grown beyond the size of the snapshot, a checkpoint starts a new segment, writes a snapshot and deletes
+ * the older segments. With the concurrent storage, the checkpoint runs in the background while the graph is being modified,
+ * so the snapshot reflects every mutation of the older segments and possibly some of the later ones. As every log record
+ * is idempotent and replay skips the records of missing elements, replaying the later segments on top of such a snapshot
+ * yields the graph. The other storages can not be read while they are being modified, so their checkpoint runs in the
+ * thread that makes the next mutation. On startup, the snapshot is loaded and the segments are replayed in order,
+ * up to the first torn or corrupt record of each segment.
+ */
+class TinkerLog {
+
+    private static final String SEGMENT_PREFIX = "tinkergraph.";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long SYNC_INTERVAL = 10l;
+    private static final long MIN_CHECKPOINT_SIZE = 16l * 1024l * 1024l;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_SIZE = 16 * 1024 * 1024;
+
+    private static final byte ADD_VERTEX = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte REMOVE_VERTEX = 3;
+    private static final byte REMOVE_EDGE = 4;
+    private static final byte SET_VERTEX_PROPERTY = 5;
+    private static final byte SET_EDGE_PROPERTY = 6;
+    private static final byte REMOVE_VERTEX_PROPERTY = 7;
+    private static final byte REMOVE_EDGE_PROPERTY = 8;
+    private static final byte CREATE_VERTEX_KEY_INDEX = 9;
+    private static final byte CREATE_EDGE_KEY_INDEX = 10;
+    private static final byte DROP_VERTEX_KEY_INDEX = 11;
+    private static final byte DROP_EDGE_KEY_INDEX = 12;
+    private static final byte CREATE_VERTEX_INDEX = 13;
+    private static final byte CREATE_EDGE_INDEX = 14;
+    private static final byte DROP_INDEX = 15;
+    private static final byte INDEX_PUT = 16;
+    private static final byte INDEX_REMOVE = 17;
+    private static final byte CLEAR = 18;
+    private static final byte CREATE_VERTEX_CENTRIC_INDEX = 19;
+    private static final byte DROP_VERTEX_CENTRIC_INDEX = 20;
+
+    private final TinkerGraph graph;
+    private final String directory;
+    private final File snapshot;
+    private final Thread writer;
+
+    // the channel, the segment and the log size are guarded by the channel lock, everything else by the log itself
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    private long segment;
+    private long logSize;
+
+    private final RecordOutput record = new RecordOutput();
+    private final CRC32 checksum = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appended = 0l;
+    private long synced = 0l;
+    private long checkpointSize;
+    private boolean idle = false;
+    private boolean syncRequested = false;
+    private boolean closed = false;
+    private boolean checkpointDue = false;
+    private boolean checkpointRunning = false;
+    private IOException failure = null;
+
+    /**
+     * Starts a new log segment for the graph, after the segments that are already in the directory.
+     * These must have been replayed into the graph before.
+     */
+    public TinkerLog(final TinkerGraph graph, final String directory, final File snapshot) throws IOException {
+        this.graph = graph;
+        this.directory = directory;
+        this.snapshot = snapshot;
+        long logSize = 0l;
+        long last = 0l;
+        for (final long segment : segments(directory)) {
+            logSize = logSize + segmentFile(directory, segment).length();
+            last = segment;
+        }
+        this.segment = last + 1;
+        this.logSize = logSize;
+        this.channel = openSegment(directory, this.segment);
+        this.checkpointSize = Math.max(MIN_CHECKPOINT_SIZE, snapshot.length());
+        this.writer = new Thread(new Runnable() {
+            public void run() {
+                TinkerLog.this.write();
+            }
+        }, "tinkergraph-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void addVertex(final Vertex vertex) {
+        this.append(ADD_VERTEX, this.graph.currentId.get(), vertex.getId().toString());
+    }
+
+    public void addEdge(final Edge edge) {
+        this.append(ADD_EDGE, this.graph.currentId.get(), edge.getId().toString(), edge.getVertex(Direction.OUT).getId().toString(),
+                edge.getVertex(Direction.IN).getId().toString(), edge.getLabel());
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        this.append(REMOVE_VERTEX, null, vertex.getId().toString());
+    }
+
+    public void removeEdge(final Edge edge) {
+        this.append(REMOVE_EDGE, null, edge.getId().toString());
+    }
+
+    public void setProperty(final Element element, final String key, final Object value) {
+        this.append(element instanceof Vertex ? SET_VERTEX_PROPERTY : SET_EDGE_PROPERTY, value, element.getId().toString(), key);
+    }
+
+    public void removeProperty(final Element element, final String key) {
+        this.append(element instanceof Vertex ? REMOVE_VERTEX_PROPERTY : REMOVE_EDGE_PROPERTY, null, element.getId().toString(), key);
+    }
+
+    public void createKeyIndex(final String key, final Class<? extends Element> elementClass, final boolean sorted) {
+        this.append(Vertex.class.isAssignableFrom(elementClass) ? CREATE_VERTEX_KEY_INDEX : CREATE_EDGE_KEY_INDEX, sorted ? Boolean.TRUE : null, key);
+    }
+
+    public void dropKeyIndex(final String key, final Class<? extends Element> elementClass) {
+        this.append(Vertex.class.isAssignableFrom(elementClass) ? DROP_VERTEX_KEY_INDEX : DROP_EDGE_KEY_INDEX, null, key);
+    }
+
+    public void createVertexCentricIndex(final String key) {
+        this.append(CREATE_VERTEX_CENTRIC_INDEX, null, key);
+    }
+
+    public void dropVertexCentricIndex(final String key) {
+        this.append(DROP_VERTEX_CENTRIC_INDEX, null, key);
+    }
+
+    public void createIndex(final TinkerIndex index) {
+        this.append(Vertex.class.isAssignableFrom(index.getIndexClass()) ? CREATE_VERTEX_INDEX : CREATE_EDGE_INDEX, null, index.getIndexName());
+    }
+
+    public void dropIndex(final String indexName) {
+        this.append(DROP_INDEX, null, indexName);
+    }
+
+    public void indexPut(final TinkerIndex index, final String key, final Object value, final Element element) {
+        this.append(INDEX_PUT, value, index.getIndexName(), key, element.getId().toString());
+    }
+
+    public void indexRemove(final TinkerIndex index, final String key, final Object value, final Element element) {
+        this.append(INDEX_REMOVE, value, index.getIndexName(), key, element.getId().toString());
+    }
+
+    public void clear() {
+        this.append(CLEAR, null);
+    }
+
+    /**
+     * Appends a record of the operation, its strings and its value, framed by its length and checksum.
+     */
+    private void append(final byte operation, final Object value, final String... strings) {
+        try {
+            synchronized (this) {
+                this.checkFailure();
+                try {
+                    this.encode(operation, value, strings);
+                } catch (NotSerializableException e) {
+                    if (operation != SET_VERTEX_PROPERTY && operation != SET_EDGE_PROPERTY)
+                        throw e;
+                    // the property is logged as removed, while saving the snapshot fails as long as the value is there
+                    this.encode(operation == SET_VERTEX_PROPERTY ? REMOVE_VERTEX_PROPERTY : REMOVE_EDGE_PROPERTY, null, strings);
+                }
+
+                final int length = this.record.buffer.position();
+                this.checksum.reset();
+                this.checksum.update(this.record.buffer.array(), 0, length);
+                if (this.pending.remaining() < length + 8) {
+                    final ByteBuffer buffer = ByteBuffer.allocate(Math.max(this.pending.capacity() * 2, this.pending.position() + length + 8));
+                    this.pending.flip();
+                    buffer.put(this.pending);
+                    this.pending = buffer;
+                }
+                this.pending.putInt(length);
+                this.pending.putInt((int) this.checksum.getValue());
+                this.pending.put(this.record.buffer.array(), 0, length);
+                this.appended++;
+
+                if (this.pending.position() > MAX_PENDING_SIZE) {
+                    // the log is written slower than the graph is modified
+                    this.syncRequested = true;
+                    this.notifyAll();
+                    while (this.pending.position() > MAX_PENDING_SIZE && null == this.failure && !this.closed) {
+                        this.wait();
+                    }
+                } else if (this.idle) {
+                    this.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        this.checkpointIfDue();
+    }
+
+    private void encode(final byte operation, final Object value, final String... strings) throws IOException {
+        this.record.buffer.clear();
+        this.record.writeByte(operation);
+        this.record.writeVarLong(strings.length);
+        for (final String string : strings) {
+            this.record.writeId(string);
+        }
+        this.record.writeValue(value);
+    }
+
+    /**
+     * Blocks until all the records appended so far are forced to disk.
+     */
+    public void sync() {
+        try {
+            synchronized (this) {
+                final long target = this.appended;
+                this.syncRequested = true;
+                this.notifyAll();
+                while (this.synced < target && null == this.failure) {
+                    this.wait();
+                }
+                this.checkFailure();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the graph and deletes the log segments it covers.
+     */
+    public void checkpoint() {
+        synchronized (this) {
+            while (this.checkpointRunning) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+            this.checkpointRunning = true;
+            this.checkpointDue = false;
+        }
+        this.runCheckpoint();
+    }
+
+    /**
+     * Stops the writer thread after all the records appended so far are forced to disk and closes the current segment.
+     * The caller is expected to save the graph and then delete the segments.
+     */
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+            this.notifyAll();
+        }
+        try {
+            this.writer.join();
+            synchronized (this) {
+                while (this.checkpointRunning) {
+                    this.wait();
+                }
+            }
+            synchronized (this.channelLock) {
+                this.flush();
+                this.channel.close();
+            }
+            synchronized (this) {
+                this.checkFailure();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (this.appended == this.synced && !this.closed) {
+                        this.idle = true;
+                        this.wait();
+                    }
+                    this.idle = false;
+                    if (this.closed)
+                        return;
+                    // collect the records of other mutations until the end of the sync interval
+                    if (!this.syncRequested)
+                        this.wait(SYNC_INTERVAL);
+                    this.syncRequested = false;
+                }
+                final boolean checkpoint;
+                synchronized (this.channelLock) {
+                    this.flush();
+                    checkpoint = this.logSize > this.checkpointSize;
+                }
+                if (checkpoint)
+                    this.requestCheckpoint();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * Writes the pending records to the current segment and forces them to disk. Must be called with the channel lock held.
+     */
+    private void flush() throws IOException {
+        final ByteBuffer buffer;
+        final long target;
+        synchronized (this) {
+            buffer = this.pending;
+            this.pending = this.spare;
+            target = this.appended;
+        }
+        buffer.flip();
+        final int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        if (size > 0)
+            this.channel.force(false);
+        buffer.clear();
+        this.logSize = this.logSize + size;
+        synchronized (this) {
+            this.spare = buffer;
+            this.synced = target;
+            this.notifyAll();
+        }
+    }
+
+    private void requestCheckpoint() {
+        synchronized (this) {
+            if (this.checkpointRunning || this.checkpointDue || this.closed)
+                return;
+            if (this.graph.storage != TinkerGraph.Storage.CONCURRENT) {
+                this.checkpointDue = true;
+                return;
+            }
+            this.checkpointRunning = true;
+        }
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                TinkerLog.this.runCheckpoint();
+            }
+        }, "tinkergraph-checkpoint");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void checkpointIfDue() {
+        synchronized (this) {
+            if (!this.checkpointDue || this.checkpointRunning)
+                return;
+            this.checkpointDue = false;
+            this.checkpointRunning = true;
+        }
+        this.runCheckpoint();
+    }
+
+    private void runCheckpoint() {
+        try {
+            final long firstSegment;
+            synchronized (this.channelLock) {
+                this.flush();
+                this.channel.close();
+                this.segment++;
+                this.channel = openSegment(this.directory, this.segment);
+                this.logSize = 0l;
+                firstSegment = this.segment;
+            }
+            TinkerSnapshot.save(this.graph, this.snapshot);
+            for (final long segment : segments(this.directory)) {
+                if (segment < firstSegment)
+                    segmentFile(this.directory, segment).delete();
+            }
+            synchronized (this) {
+                this.checkpointSize = Math.max(MIN_CHECKPOINT_SIZE, this.snapshot.length());
+            }
+        } catch (IOException e) {
+            this.fail(e);
+        } finally {
+            synchronized (this) {
+                this.checkpointRunning = false;
+                this.notifyAll();
+            }
+        }
+    }
+
+    private synchronized void fail(final IOException e) {
+        if (null == this.failure)
+            this.failure = e;
+        this.notifyAll();
+    }
+
+    private void checkFailure() throws IOException {
+        if (null != this.failure)
+            throw new IOException("The log of the graph could not be written: " + this.failure.getMessage(), this.failure);
+    }
+
+    /**
+     * Replays the log segments in the directory into the graph, which must not be logging itself.
+     */
+    public static void replay(final TinkerGraph graph, final String directory) throws IOException {
+        for (final long segment : segments(directory)) {
+            final FileInputStream stream = new FileInputStream(segmentFile(directory, segment));
+            try {
+                final FileChannel channel = stream.getChannel();
+                final TinkerSnapshot.Input input = new TinkerSnapshot.Input(channel);
+                final CRC32 checksum = new CRC32();
+                long position = 0l;
+                while (position + 8 <= channel.size()) {
+                    final int length = input.readInt();
+                    final int expected = input.readInt();
+                    position = position + 8 + length;
+                    if (length < 0 || position > channel.size())
+                        break;
+                    final byte[] bytes = new byte[length];
+                    input.readBytes(bytes, 0, length);
+                    checksum.reset();
+                    checksum.update(bytes, 0, length);
+                    if ((int) checksum.getValue() != expected)
+                        break;
+                    apply(graph, new TinkerSnapshot.Input(null, ByteBuffer.wrap(bytes)));
+                }
+            } catch (EOFException e) {
+                // a torn record at the end of the segment
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    private static void apply(final TinkerGraph graph, final TinkerSnapshot.Input input) throws IOException {
+        final byte operation = input.readByte();
+        final String[] strings = new String[(int) input.readVarLong()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = input.readId();
+        }
+        final Object value = input.readValue();
+
+        switch (operation) {
+            case ADD_VERTEX:
+                if (null == graph.getVertex(strings[0]))
+                    graph.addVertex(strings[0]);
+                advanceId(graph, (Long) value);
+                break;
+            case ADD_EDGE: {
+                final Vertex outVertex = graph.getVertex(strings[1]);
+                final Vertex inVertex = graph.getVertex(strings[2]);
+                if (null == graph.getEdge(strings[0]) && null != outVertex && null != inVertex)
+                    graph.addEdge(strings[0], outVertex, inVertex, strings[3]);
+                advanceId(graph, (Long) value);
+                break;
+            }
+            case REMOVE_VERTEX: {
+                final Vertex vertex = graph.getVertex(strings[0]);
+                if (null != vertex)
+                    graph.removeVertex(vertex);
+                break;
+            }
+            case REMOVE_EDGE: {
+                final Edge edge = graph.getEdge(strings[0]);
+                if (null != edge)
+                    graph.removeEdge(edge);
+                break;
+            }
+            case SET_VERTEX_PROPERTY:
+            case SET_EDGE_PROPERTY: {
+                final Element element = operation == SET_VERTEX_PROPERTY ? graph.getVertex(strings[0]) : graph.getEdge(strings[0]);
+                if (null != element)
+                    element.setProperty(strings[1], value);
+                break;
+            }
+            case REMOVE_VERTEX_PROPERTY:
+            case REMOVE_EDGE_PROPERTY: {
+                final Element element = operation == REMOVE_VERTEX_PROPERTY ? graph.getVertex(strings[0]) : graph.getEdge(strings[0]);
+                if (null != element)
+                    element.removeProperty(strings[1]);
+                break;
+            }
+            case CREATE_VERTEX_KEY_INDEX:
+                graph.createKeyIndex(strings[0], Vertex.class, TinkerGraph.keyIndexParameters(Boolean.TRUE.equals(value)));
+                break;
+            case CREATE_EDGE_KEY_INDEX:
+                graph.createKeyIndex(strings[0], Edge.class, TinkerGraph.keyIndexParameters(Boolean.TRUE.equals(value)));
+                break;
+            case DROP_VERTEX_KEY_INDEX:
+                graph.dropKeyIndex(strings[0], Vertex.class);
+                break;
+            case DROP_EDGE_KEY_INDEX:
+                graph.dropKeyIndex(strings[0], Edge.class);
+                break;
+            case CREATE_VERTEX_CENTRIC_INDEX:
+                graph.createVertexCentricIndex(strings[0]);
+                break;
+            case DROP_VERTEX_CENTRIC_INDEX:
+                graph.dropVertexCentricIndex(strings[0]);
+                break;
+            case CREATE_VERTEX_INDEX:
+                if (!graph.indices.containsKey(strings[0]))
+                    graph.createIndex(strings[0], Vertex.class);
+                break;
+            case CREATE_EDGE_INDEX:
+                if (!graph.indices.containsKey(strings[0]))
+                    graph.createIndex(strings[0], Edge.class);
+                break;
+            case DROP_INDEX:
+                graph.dropIndex(strings[0]);
+                break;
+            case INDEX_PUT:
+            case INDEX_REMOVE: {
+                final TinkerIndex index = graph.indices.get(strings[0]);
+                if (null == index)
+                    break;
+                final Element element = Vertex.class.isAssignableFrom(index.getIndexClass()) ? graph.getVertex(strings[2]) : graph.getEdge(strings[2]);
+                if (null == element)
+                    break;
+                if (operation == INDEX_PUT)
+                    index.put(strings[1], value, element);
+                else
+                    index.remove(strings[1], value, element);
+                break;
+            }
+            case CLEAR:
+                graph.clear();
+                break;
+            default:
+                throw new IOException("Unknown log record: " + operation);
+        }
+    }
+
+    private static void advanceId(final TinkerGraph graph, final long currentId) {
+        if (graph.currentId.get() < currentId)
+            graph.currentId.set(currentId);
+    }
+
+    /**
+     * Determines whether the directory holds log segments, in which case its snapshot may have been written by a checkpoint.
+     */
+    public static boolean hasSegments(final String directory) {
+        return !segments(directory).isEmpty();
+    }
+
+    public static void deleteSegments(final String directory) {
+        for (final long segment : segments(directory)) {
+            segmentFile(directory, segment).delete();
+        }
+    }
+
+    private static List<Long> segments(final String directory) {
+        final String[] names = new File(directory).list(new FilenameFilter() {
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                        && LongKeyedMap.isLongKey(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            }
+        });
+        final List<Long> segments = new ArrayList<Long>();
+        if (null != names) {
+            for (final String name : names) {
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static File segmentFile(final String directory, final long segment) {
+        return new File(directory, SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    private static FileChannel openSegment(final String directory, final long segment) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(segmentFile(directory, segment), "rw");
+        file.setLength(0l);
+        return file.getChannel();
+    }
+
+    /**
+     * Encodes a record into a heap buffer that grows as needed.
+     */
+    private static class RecordOutput extends TinkerSnapshot.Output {
+
+        public RecordOutput() {
+            super(null, ByteBuffer.allocate(256));
+        }
+
+        protected void require(final int length) {
+            if (this.buffer.remaining() < length) {
+                final ByteBuffer buffer = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + length));
+                this.buffer.flip();
+                buffer.put(this.buffer);
+                this.buffer = buffer;
+            }
+        }
+    }
+}
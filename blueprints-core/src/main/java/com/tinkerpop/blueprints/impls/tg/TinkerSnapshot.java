@@ -0,0 +1,709 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the binary snapshot format of a persistent TinkerGraph.
+ * A snapshot holds the id counter, the keys of the key indices and whether they are sorted, the keys of the vertex-centric indices, the vertices and edges with their properties and the named indices.
+ * It is written through a buffered file channel and read in a single streaming pass, either through a buffered file channel
+ * or through memory mapped regions of the file. Unlike Java serialization, no object graph is traversed recursively
+ * and the key indices are rebuilt while the elements are read rather than being stored.
+ * <p/>
+ * Ids that are the canonical string form of a long are stored as variable length longs, property keys, labels and
+ * index names are stored once and referenced by number thereafter, and property values of the common types are stored natively.
+ * Any other property value falls back to Java serialization of the value alone.
+ */
+class TinkerSnapshot {
+
+    private static final int MAGIC = 0x54475342;
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte END = 0;
+    private static final byte NEXT = 1;
+
+    private static final byte VERTEX_INDEX = 0;
+    private static final byte EDGE_INDEX = 1;
+
+    private static final byte HASHED_KEY = 0;
+    private static final byte SORTED_KEY = 1;
+
+    private static final byte LONG_ID = 0;
+    private static final byte STRING_ID = 1;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte INTEGER_VALUE = 2;
+    private static final byte LONG_VALUE = 3;
+    private static final byte FLOAT_VALUE = 4;
+    private static final byte DOUBLE_VALUE = 5;
+    private static final byte BOOLEAN_VALUE = 6;
+    private static final byte SHORT_VALUE = 7;
+    private static final byte BYTE_VALUE = 8;
+    private static final byte LIST_VALUE = 9;
+    private static final byte MAP_VALUE = 10;
+    private static final byte SERIALIZED_VALUE = 11;
+
+    private TinkerSnapshot() {
+    }
+
+    /**
+     * Writes the graph to the file. The snapshot is written to a temporary file first which is then renamed over the file,
+     * so a failure while saving leaves the previous snapshot intact.
+     */
+    public static void save(final TinkerGraph graph, final File file) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        final FileOutputStream stream = new FileOutputStream(temp);
+        try {
+            final FileChannel channel = stream.getChannel();
+            final Output output = new Output(channel);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeVarLong(graph.currentId.get());
+            writeKeys(output, graph, Vertex.class);
+            writeKeys(output, graph, Edge.class);
+            writeVertexCentricKeys(output, graph);
+
+            for (final Vertex vertex : graph.vertices.values()) {
+                output.writeByte(NEXT);
+                output.writeId(vertex.getId().toString());
+                writeProperties(output, (TinkerElement) vertex);
+            }
+            output.writeByte(END);
+
+            for (final Edge edge : graph.edges.values()) {
+                output.writeByte(NEXT);
+                output.writeId(edge.getId().toString());
+                output.writeId(edge.getVertex(Direction.OUT).getId().toString());
+                output.writeId(edge.getVertex(Direction.IN).getId().toString());
+                output.writeSymbol(edge.getLabel());
+                writeProperties(output, (TinkerElement) edge);
+            }
+            output.writeByte(END);
+
+            for (final TinkerIndex index : graph.indices.values()) {
+                output.writeByte(NEXT);
+                writeIndex(output, index);
+            }
+            output.writeByte(END);
+
+            output.writeInt(MAGIC);
+            output.flush();
+            channel.force(false);
+        } finally {
+            stream.close();
+        }
+        // renaming replaces the file atomically on POSIX, elsewhere the file is removed first and recover() completes an interrupted save
+        if (!temp.renameTo(file)) {
+            if (file.exists() && !file.delete())
+                throw new IOException("Could not replace " + file);
+            if (!temp.renameTo(file))
+                throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * Completes a save that was interrupted between removing the previous snapshot and renaming the temporary file,
+     * by renaming the temporary file when there is no snapshot and the temporary file holds a complete one.
+     */
+    public static void recover(final File file) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        if (file.exists() || !temp.exists() || !isComplete(temp))
+            return;
+        if (!temp.renameTo(file))
+            throw new IOException("Could not rename " + temp + " to " + file);
+    }
+
+    private static boolean isComplete(final File file) throws IOException {
+        if (file.length() < 8)
+            return false;
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            if (input.readInt() != MAGIC)
+                return false;
+            input.seek(file.length() - 4);
+            return input.readInt() == MAGIC;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Reads the snapshot in the file into the graph, which is expected to be empty.
+     *
+     * @param mapped  whether to read the file through memory mapped regions rather than a buffered channel
+     * @param lenient whether to skip edges and index entries that reference missing elements, as the snapshot
+     *                written by a checkpoint of a graph that is modified concurrently may contain them
+     */
+    public static void load(final TinkerGraph graph, final File file, final boolean mapped, final boolean lenient) throws IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            final Input input = mapped ? new MappedInput(channel) : new Input(channel);
+            if (input.readInt() != MAGIC)
+                throw new IOException("Not a TinkerGraph snapshot: " + file);
+            final int version = input.readInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported TinkerGraph snapshot version: " + version);
+            graph.currentId.set(input.readVarLong());
+            readKeys(input, version, graph, Vertex.class);
+            readKeys(input, version, graph, Edge.class);
+            if (version > 2)
+                readVertexCentricKeys(input, graph);
+
+            while (input.readByte() == NEXT) {
+                final TinkerVertex vertex = new TinkerVertex(input.readId(), graph);
+                readProperties(input, vertex);
+                graph.vertices.put(vertex.getId(), vertex);
+                for (final Map.Entry<String, Object> property : vertex.properties.entrySet()) {
+                    graph.vertexKeyIndex.autoUpdate(property.getKey(), property.getValue(), null, vertex);
+                }
+            }
+
+            while (input.readByte() == NEXT) {
+                final String id = input.readId();
+                final TinkerVertex outVertex = getVertex(graph, input.readId(), lenient);
+                final TinkerVertex inVertex = getVertex(graph, input.readId(), lenient);
+                final String label = graph.internLabel(input.readSymbol());
+                final TinkerEdge edge = new TinkerEdge(id, outVertex, inVertex, label, graph);
+                readProperties(input, edge);
+                if (null == outVertex || null == inVertex)
+                    continue;
+                graph.edges.put(id, edge);
+                outVertex.addOutEdge(label, edge);
+                inVertex.addInEdge(label, edge);
+                graph.edgeKeyIndex.autoUpdate(StringFactory.LABEL, label, null, edge);
+                for (final Map.Entry<String, Object> property : edge.properties.entrySet()) {
+                    graph.edgeKeyIndex.autoUpdate(property.getKey(), property.getValue(), null, edge);
+                    graph.updateVertexCentricIndices(property.getKey(), property.getValue(), null, edge);
+                }
+            }
+
+            while (input.readByte() == NEXT) {
+                readIndex(input, graph, lenient);
+            }
+
+            if (input.readInt() != MAGIC)
+                throw new IOException("Corrupt TinkerGraph snapshot: " + file);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static TinkerVertex getVertex(final TinkerGraph graph, final String id, final boolean lenient) throws IOException {
+        final Vertex vertex = graph.vertices.get(id);
+        if (null == vertex && !lenient)
+            throw new IOException("The snapshot references a missing vertex: " + id);
+        return (TinkerVertex) vertex;
+    }
+
+    private static void writeKeys(final Output output, final TinkerGraph graph, final Class<? extends Element> elementClass) throws IOException {
+        final Set<String> keys = graph.getIndexedKeys(elementClass);
+        output.writeVarLong(keys.size());
+        for (final String key : keys) {
+            output.writeSymbol(key);
+            output.writeByte(graph.isSortedKeyIndex(key, elementClass) ? SORTED_KEY : HASHED_KEY);
+        }
+    }
+
+    private static void readKeys(final Input input, final int version, final TinkerGraph graph, final Class<? extends Element> elementClass) throws IOException {
+        final int size = (int) input.readVarLong();
+        for (int i = 0; i < size; i++) {
+            final String key = input.readSymbol();
+            // the first version only had hashed key indices
+            final boolean sorted = version > 1 && input.readByte() == SORTED_KEY;
+            graph.createKeyIndex(key, elementClass, TinkerGraph.keyIndexParameters(sorted));
+        }
+    }
+
+    private static void writeVertexCentricKeys(final Output output, final TinkerGraph graph) throws IOException {
+        final Set<String> keys = graph.getVertexCentricIndexedKeys();
+        output.writeVarLong(keys.size());
+        for (final String key : keys) {
+            output.writeSymbol(key);
+        }
+    }
+
+    private static void readVertexCentricKeys(final Input input, final TinkerGraph graph) throws IOException {
+        final int size = (int) input.readVarLong();
+        for (int i = 0; i < size; i++) {
+            graph.createVertexCentricIndex(input.readSymbol());
+        }
+    }
+
+    private static void writeProperties(final Output output, final TinkerElement element) throws IOException {
+        if (element.graph.storage == TinkerGraph.Storage.CONCURRENT) {
+            synchronized (element) {
+                writeProperties(output, element.properties);
+            }
+        } else {
+            writeProperties(output, element.properties);
+        }
+    }
+
+    private static void writeProperties(final Output output, final Map<String, Object> properties) throws IOException {
+        output.writeVarLong(properties.size());
+        for (final Map.Entry<String, Object> property : properties.entrySet()) {
+            output.writeSymbol(property.getKey());
+            output.writeValue(property.getValue());
+        }
+    }
+
+    private static void readProperties(final Input input, final TinkerElement element) throws IOException {
+        final int size = (int) input.readVarLong();
+        for (int i = 0; i < size; i++) {
+            final String key = input.readSymbol();
+            element.properties.put(key, input.readValue());
+        }
+    }
+
+    private static <T extends Element> void writeIndex(final Output output, final TinkerIndex<T> index) throws IOException {
+        output.writeSymbol(index.getIndexName());
+        output.writeByte(Vertex.class.isAssignableFrom(index.getIndexClass()) ? VERTEX_INDEX : EDGE_INDEX);
+        for (final Map.Entry<String, Map<Object, Set<T>>> key : index.index.entrySet()) {
+            output.writeByte(NEXT);
+            output.writeSymbol(key.getKey());
+            for (final Map.Entry<Object, Set<T>> value : key.getValue().entrySet()) {
+                output.writeByte(NEXT);
+                output.writeValue(value.getKey());
+                for (final T element : value.getValue()) {
+                    output.writeByte(NEXT);
+                    output.writeId(element.getId().toString());
+                }
+                output.writeByte(END);
+            }
+            output.writeByte(END);
+        }
+        output.writeByte(END);
+    }
+
+    private static void readIndex(final Input input, final TinkerGraph graph, final boolean lenient) throws IOException {
+        final String name = input.readSymbol();
+        final boolean vertexIndex = input.readByte() == VERTEX_INDEX;
+        final Index index = vertexIndex ? graph.createIndex(name, Vertex.class) : graph.createIndex(name, Edge.class);
+        while (input.readByte() == NEXT) {
+            final String key = input.readSymbol();
+            while (input.readByte() == NEXT) {
+                final Object value = input.readValue();
+                while (input.readByte() == NEXT) {
+                    final String id = input.readId();
+                    final Element element = vertexIndex ? graph.vertices.get(id) : graph.edges.get(id);
+                    if (null != element)
+                        index.put(key, value, element);
+                    else if (!lenient)
+                        throw new IOException("The index " + name + " references a missing element: " + id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the primitives of the snapshot format to a channel through a direct buffer.
+     */
+    protected static class Output {
+
+        private final WritableByteChannel channel;
+        protected ByteBuffer buffer;
+        private final Map<String, Integer> symbols = new HashMap<String, Integer>();
+
+        public Output(final WritableByteChannel channel) {
+            this(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+
+        protected Output(final WritableByteChannel channel, final ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        public void writeByte(final int value) throws IOException {
+            this.require(1);
+            this.buffer.put((byte) value);
+        }
+
+        public void writeInt(final int value) throws IOException {
+            this.require(4);
+            this.buffer.putInt(value);
+        }
+
+        public void writeLong(final long value) throws IOException {
+            this.require(8);
+            this.buffer.putLong(value);
+        }
+
+        /**
+         * Writes a long in 7 bit groups, so small non-negative values take few bytes.
+         */
+        public void writeVarLong(long value) throws IOException {
+            this.require(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer.put((byte) ((value & 0x7F) | 0x80));
+                value = value >>> 7;
+            }
+            this.buffer.put((byte) value);
+        }
+
+        /**
+         * Writes a long in 7 bit groups after zig-zag encoding it, so small negative values take few bytes as well.
+         */
+        public void writeSignedVarLong(final long value) throws IOException {
+            this.writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        public void writeString(final String value) throws IOException {
+            final int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii && length <= BUFFER_SIZE - 10) {
+                this.writeVarLong(length);
+                this.require(length);
+                for (int i = 0; i < length; i++) {
+                    this.buffer.put((byte) value.charAt(i));
+                }
+            } else {
+                final byte[] bytes = value.getBytes(UTF8);
+                this.writeVarLong(bytes.length);
+                this.writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        public void writeBytes(final byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                this.require(1);
+                final int count = Math.min(length, this.buffer.remaining());
+                this.buffer.put(bytes, offset, count);
+                offset = offset + count;
+                length = length - count;
+            }
+        }
+
+        public void writeId(final String id) throws IOException {
+            if (LongKeyedMap.isLongKey(id)) {
+                this.writeByte(LONG_ID);
+                this.writeSignedVarLong(Long.parseLong(id));
+            } else {
+                this.writeByte(STRING_ID);
+                this.writeString(id);
+            }
+        }
+
+        /**
+         * Writes a string that is expected to repeat, such as a property key or a label.
+         * The first occurrence is written in full and later occurrences as its number.
+         */
+        public void writeSymbol(final String symbol) throws IOException {
+            final Integer number = this.symbols.get(symbol);
+            if (null == number) {
+                this.writeVarLong(0);
+                this.writeString(symbol);
+                this.symbols.put(symbol, this.symbols.size() + 1);
+            } else {
+                this.writeVarLong(number);
+            }
+        }
+
+        public void writeValue(final Object value) throws IOException {
+            if (null == value) {
+                this.writeByte(NULL_VALUE);
+            } else if (value instanceof String) {
+                this.writeByte(STRING_VALUE);
+                this.writeString((String) value);
+            } else if (value instanceof Integer) {
+                this.writeByte(INTEGER_VALUE);
+                this.writeSignedVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                this.writeByte(LONG_VALUE);
+                this.writeSignedVarLong((Long) value);
+            } else if (value instanceof Float) {
+                this.writeByte(FLOAT_VALUE);
+                this.writeInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Double) {
+                this.writeByte(DOUBLE_VALUE);
+                this.writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Boolean) {
+                this.writeByte(BOOLEAN_VALUE);
+                this.writeByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof Short) {
+                this.writeByte(SHORT_VALUE);
+                this.writeSignedVarLong((Short) value);
+            } else if (value instanceof Byte) {
+                this.writeByte(BYTE_VALUE);
+                this.writeByte((Byte) value);
+            } else if (value.getClass().equals(ArrayList.class)) {
+                this.writeList((List) value);
+            } else if (value.getClass().equals(HashMap.class)) {
+                this.writeMap((Map<Object, Object>) value);
+            } else {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try {
+                    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+                    out.writeObject(value);
+                    out.close();
+                } catch (NotSerializableException e) {
+                    // lists and maps of other classes are kept as long as their items are, e.g. anonymous subclasses
+                    if (value instanceof List) {
+                        this.writeList((List) value);
+                        return;
+                    } else if (value instanceof Map) {
+                        this.writeMap((Map<Object, Object>) value);
+                        return;
+                    }
+                    throw e;
+                }
+                this.writeByte(SERIALIZED_VALUE);
+                this.writeVarLong(bytes.size());
+                this.writeBytes(bytes.toByteArray(), 0, bytes.size());
+            }
+        }
+
+        private void writeList(final List list) throws IOException {
+            this.writeByte(LIST_VALUE);
+            this.writeVarLong(list.size());
+            for (final Object item : list) {
+                this.writeValue(item);
+            }
+        }
+
+        private void writeMap(final Map<Object, Object> map) throws IOException {
+            this.writeByte(MAP_VALUE);
+            this.writeVarLong(map.size());
+            for (final Map.Entry<Object, Object> entry : map.entrySet()) {
+                this.writeValue(entry.getKey());
+                this.writeValue(entry.getValue());
+            }
+        }
+
+        public void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        /**
+         * Makes room for at least the given number of bytes in the buffer.
+         */
+        protected void require(final int length) throws IOException {
+            if (this.buffer.remaining() < length)
+                this.flush();
+        }
+    }
+
+    /**
+     * Reads the primitives of the snapshot format from a file channel through a direct buffer.
+     */
+    protected static class Input {
+
+        protected final FileChannel channel;
+        protected ByteBuffer buffer;
+        private final List<String> symbols = new ArrayList<String>();
+        private byte[] bytes = new byte[256];
+
+        public Input(final FileChannel channel) {
+            this(channel, (ByteBuffer) ByteBuffer.allocateDirect(BUFFER_SIZE).flip());
+        }
+
+        protected Input(final FileChannel channel, final ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        public byte readByte() throws IOException {
+            this.require(1);
+            return this.buffer.get();
+        }
+
+        public int readInt() throws IOException {
+            this.require(4);
+            return this.buffer.getInt();
+        }
+
+        public long readLong() throws IOException {
+            this.require(8);
+            return this.buffer.getLong();
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0l;
+            int shift = 0;
+            byte b;
+            do {
+                this.require(1);
+                b = this.buffer.get();
+                value = value | ((long) (b & 0x7F) << shift);
+                shift = shift + 7;
+            } while (b < 0);
+            return value;
+        }
+
+        public long readSignedVarLong() throws IOException {
+            final long value = this.readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        public String readString() throws IOException {
+            final int length = (int) this.readVarLong();
+            if (this.bytes.length < length)
+                this.bytes = new byte[Math.max(length, this.bytes.length * 2)];
+            this.readBytes(this.bytes, 0, length);
+            return new String(this.bytes, 0, length, UTF8);
+        }
+
+        public void readBytes(final byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!this.buffer.hasRemaining())
+                    this.fill(1);
+                final int count = Math.min(length, this.buffer.remaining());
+                this.buffer.get(bytes, offset, count);
+                offset = offset + count;
+                length = length - count;
+            }
+        }
+
+        public String readId() throws IOException {
+            if (this.readByte() == LONG_ID)
+                return Long.toString(this.readSignedVarLong());
+            else
+                return this.readString();
+        }
+
+        public String readSymbol() throws IOException {
+            final int number = (int) this.readVarLong();
+            if (number == 0) {
+                final String symbol = this.readString();
+                this.symbols.add(symbol);
+                return symbol;
+            } else {
+                return this.symbols.get(number - 1);
+            }
+        }
+
+        public Object readValue() throws IOException {
+            final byte type = this.readByte();
+            switch (type) {
+                case NULL_VALUE:
+                    return null;
+                case STRING_VALUE:
+                    return this.readString();
+                case INTEGER_VALUE:
+                    return (int) this.readSignedVarLong();
+                case LONG_VALUE:
+                    return this.readSignedVarLong();
+                case FLOAT_VALUE:
+                    return Float.intBitsToFloat(this.readInt());
+                case DOUBLE_VALUE:
+                    return Double.longBitsToDouble(this.readLong());
+                case BOOLEAN_VALUE:
+                    return this.readByte() != 0;
+                case SHORT_VALUE:
+                    return (short) this.readSignedVarLong();
+                case BYTE_VALUE:
+                    return this.readByte();
+                case LIST_VALUE: {
+                    final int size = (int) this.readVarLong();
+                    final List<Object> list = new ArrayList<Object>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(this.readValue());
+                    }
+                    return list;
+                }
+                case MAP_VALUE: {
+                    final int size = (int) this.readVarLong();
+                    final Map<Object, Object> map = new HashMap<Object, Object>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(this.readValue(), this.readValue());
+                    }
+                    return map;
+                }
+                case SERIALIZED_VALUE: {
+                    final byte[] bytes = new byte[(int) this.readVarLong()];
+                    this.readBytes(bytes, 0, bytes.length);
+                    final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                    try {
+                        return in.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException(e.getMessage());
+                    } finally {
+                        in.close();
+                    }
+                }
+                default:
+                    throw new IOException("Unknown value type: " + type);
+            }
+        }
+
+        /**
+         * Makes at least the given number of bytes available in the buffer.
+         */
+        protected void fill(final int length) throws IOException {
+            if (null == this.channel)
+                throw new EOFException();
+            this.buffer.compact();
+            while (this.buffer.position() < length) {
+                if (this.channel.read(this.buffer) < 0)
+                    throw new EOFException();
+            }
+            this.buffer.flip();
+        }
+
+        private void require(final int length) throws IOException {
+            if (this.buffer.remaining() < length)
+                this.fill(length);
+        }
+    }
+
+    /**
+     * Reads the snapshot format through successive memory mapped regions of a file, which saves copying the file into a buffer.
+     */
+    protected static class MappedInput extends Input {
+
+        private final long size;
+        private long regionStart = 0l;
+
+        public MappedInput(final FileChannel channel) throws IOException {
+            super(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0l, Math.min(MAPPED_REGION_SIZE, channel.size())));
+            this.size = channel.size();
+        }
+
+        protected void fill(final int length) throws IOException {
+            final long start = this.regionStart + this.buffer.position();
+            if (this.size - start < length)
+                throw new EOFException();
+            this.regionStart = start;
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAPPED_REGION_SIZE, this.size - start));
+        }
+    }
+}
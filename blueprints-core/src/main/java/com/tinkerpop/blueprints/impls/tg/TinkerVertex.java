@@ -4,11 +4,13 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.blueprints.util.DefaultQuery;
+import com.tinkerpop.blueprints.util.DegreeVertex;
 import com.tinkerpop.blueprints.util.MultiIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.VerticesFromEdgesIterable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,17 +21,33 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
-class TinkerVertex extends TinkerElement implements Vertex, Serializable {
+class TinkerVertex extends TinkerElement implements Vertex, DegreeVertex, Serializable {
 
-    protected Map<String, Set<Edge>> outEdges = new HashMap<String, Set<Edge>>();
-    protected Map<String, Set<Edge>> inEdges = new HashMap<String, Set<Edge>>();
+    private static final long serialVersionUID = 8362060158076225251L;
+
+    protected Map<String, Set<Edge>> outEdges;
+    protected Map<String, Set<Edge>> inEdges;
+    // the edges by label with their values of the vertex-centric keys of the graph, created once an edge has such a value
+    protected Map<String, TinkerIndex<TinkerEdge>> outEdgeIndices;
+    protected Map<String, TinkerIndex<TinkerEdge>> inEdgeIndices;
 
     protected TinkerVertex(final String id, final TinkerGraph graph) {
         super(id, graph);
+        if (graph.storage == TinkerGraph.Storage.COMPACT) {
+            this.outEdges = new LabelMap<Set<Edge>>();
+            this.inEdges = new LabelMap<Set<Edge>>();
+        } else if (graph.storage == TinkerGraph.Storage.CONCURRENT) {
+            this.outEdges = new ConcurrentHashMap<String, Set<Edge>>();
+            this.inEdges = new ConcurrentHashMap<String, Set<Edge>>();
+        } else {
+            this.outEdges = new HashMap<String, Set<Edge>>();
+            this.inEdges = new HashMap<String, Set<Edge>>();
+        }
     }
 
     public Iterable<Edge> getEdges(final Direction direction, final String... labels) {
@@ -47,14 +65,44 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
     }
 
     private Iterable<Edge> getInEdges(final String... labels) {
+        return this.getEdges(this.inEdges, labels);
+    }
+
+    private Iterable<Edge> getOutEdges(final String... labels) {
+        return this.getEdges(this.outEdges, labels);
+    }
+
+    private Iterable<Edge> getEdges(final Map<String, Set<Edge>> labeledEdges, final String... labels) {
+        if (this.graph.isLazyIteration()) {
+            if (labels.length == 0) {
+                return new LiveIterable<Edge>(this.graph, labeledEdges.values());
+            } else if (labels.length == 1) {
+                final Set<Edge> edges = labeledEdges.get(labels[0]);
+                if (null == edges) {
+                    return Collections.emptyList();
+                } else {
+                    return new LiveIterable<Edge>(this.graph, Collections.singletonList(edges));
+                }
+            } else {
+                final List<Set<Edge>> totalEdges = new ArrayList<Set<Edge>>(labels.length);
+                for (final String label : labels) {
+                    final Set<Edge> edges = labeledEdges.get(label);
+                    if (null != edges) {
+                        totalEdges.add(edges);
+                    }
+                }
+                return new LiveIterable<Edge>(this.graph, totalEdges);
+            }
+        }
+
         if (labels.length == 0) {
             final List<Edge> totalEdges = new ArrayList<Edge>();
-            for (final Collection<Edge> edges : this.inEdges.values()) {
+            for (final Collection<Edge> edges : labeledEdges.values()) {
                 totalEdges.addAll(edges);
             }
             return totalEdges;
         } else if (labels.length == 1) {
-            final Set<Edge> edges = this.inEdges.get(labels[0]);
+            final Set<Edge> edges = labeledEdges.get(labels[0]);
             if (null == edges) {
                 return Collections.emptyList();
             } else {
@@ -63,7 +111,7 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
         } else {
             final List<Edge> totalEdges = new ArrayList<Edge>();
             for (final String label : labels) {
-                final Set<Edge> edges = this.inEdges.get(label);
+                final Set<Edge> edges = labeledEdges.get(label);
                 if (null != edges) {
                     totalEdges.addAll(edges);
                 }
@@ -72,34 +120,62 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
         }
     }
 
-    private Iterable<Edge> getOutEdges(final String... labels) {
+    public long getDegree(final Direction direction, final String... labels) {
+        if (direction.equals(Direction.OUT))
+            return getDegree(this.outEdges, labels);
+        else if (direction.equals(Direction.IN))
+            return getDegree(this.inEdges, labels);
+        else
+            return getDegree(this.inEdges, labels) + getDegree(this.outEdges, labels);
+    }
+
+    private static long getDegree(final Map<String, Set<Edge>> labeledEdges, final String... labels) {
+        long degree = 0;
         if (labels.length == 0) {
-            final List<Edge> totalEdges = new ArrayList<Edge>();
-            for (final Collection<Edge> edges : this.outEdges.values()) {
-                totalEdges.addAll(edges);
+            for (final Set<Edge> edges : labeledEdges.values()) {
+                degree = degree + edges.size();
             }
-            return totalEdges;
-        } else if (labels.length == 1) {
-            final Set<Edge> edges = this.outEdges.get(labels[0]);
-            if (null == edges) {
-                return Collections.emptyList();
-            } else {
-                return new ArrayList<Edge>(edges);
+        } else {
+            for (final String label : labels) {
+                final Set<Edge> edges = labeledEdges.get(label);
+                if (null != edges)
+                    degree = degree + edges.size();
+            }
+        }
+        return degree;
+    }
+
+    public List<Object> getAdjacentVertexIds(final Direction direction, final String... labels) {
+        final List<Object> ids = new ArrayList<Object>((int) Math.min(Integer.MAX_VALUE, this.getDegree(direction, labels)));
+        if (!direction.equals(Direction.OUT))
+            addAdjacentVertexIds(ids, this.inEdges, Direction.OUT, labels);
+        if (!direction.equals(Direction.IN))
+            addAdjacentVertexIds(ids, this.outEdges, Direction.IN, labels);
+        return ids;
+    }
+
+    private static void addAdjacentVertexIds(final List<Object> ids, final Map<String, Set<Edge>> labeledEdges, final Direction adjacent, final String... labels) {
+        // the edges keep their vertices, so an id is read from the edge without looking the vertex up
+        if (labels.length == 0) {
+            for (final Set<Edge> edges : labeledEdges.values()) {
+                for (final Edge edge : edges) {
+                    ids.add(edge.getVertex(adjacent).getId());
+                }
             }
         } else {
-            final List<Edge> totalEdges = new ArrayList<Edge>();
             for (final String label : labels) {
-                final Set<Edge> edges = this.outEdges.get(label);
+                final Set<Edge> edges = labeledEdges.get(label);
                 if (null != edges) {
-                    totalEdges.addAll(edges);
+                    for (final Edge edge : edges) {
+                        ids.add(edge.getVertex(adjacent).getId());
+                    }
                 }
             }
-            return totalEdges;
         }
     }
 
     public Query query() {
-        return new DefaultQuery(this);
+        return new TinkerVertexQuery(this);
     }
 
     public String toString() {
@@ -109,7 +185,7 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
     protected void addOutEdge(final String label, final Edge edge) {
         Set<Edge> edges = this.outEdges.get(label);
         if (null == edges) {
-            edges = new HashSet<Edge>();
+            edges = this.createEdgeSet();
             this.outEdges.put(label, edges);
         }
         edges.add(edge);
@@ -118,9 +194,87 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
     protected void addInEdge(final String label, final Edge edge) {
         Set<Edge> edges = this.inEdges.get(label);
         if (null == edges) {
-            edges = new HashSet<Edge>();
+            edges = this.createEdgeSet();
             this.inEdges.put(label, edges);
         }
         edges.add(edge);
     }
+
+    /**
+     * Get the vertex-centric indices of the edges of the direction by label.
+     *
+     * @return the indices, or null if no edge of the direction has a value of a vertex-centric key
+     */
+    protected synchronized Map<String, TinkerIndex<TinkerEdge>> getEdgeIndices(final Direction direction) {
+        return direction.equals(Direction.OUT) ? this.outEdgeIndices : this.inEdgeIndices;
+    }
+
+    /**
+     * Moves the edge of the direction from the old to the new value of a vertex-centric key.
+     */
+    protected void updateEdgeIndex(final Direction direction, final String key, final Object newValue, final Object oldValue, final TinkerEdge edge) {
+        final TinkerIndex<TinkerEdge> index = this.getEdgeIndex(direction, edge.getLabel(), null != newValue);
+        if (null == index)
+            return;
+        if (null != oldValue)
+            index.remove(key, oldValue, edge);
+        if (null != newValue) {
+            if (!index.isSortedKey(key))
+                index.sortKey(key);
+            index.put(key, newValue, edge);
+        }
+    }
+
+    private synchronized TinkerIndex<TinkerEdge> getEdgeIndex(final Direction direction, final String label, final boolean create) {
+        Map<String, TinkerIndex<TinkerEdge>> indices = direction.equals(Direction.OUT) ? this.outEdgeIndices : this.inEdgeIndices;
+        if (null == indices) {
+            if (!create)
+                return null;
+            if (this.graph.storage == TinkerGraph.Storage.CONCURRENT)
+                indices = new ConcurrentHashMap<String, TinkerIndex<TinkerEdge>>();
+            else
+                indices = new HashMap<String, TinkerIndex<TinkerEdge>>();
+            if (direction.equals(Direction.OUT))
+                this.outEdgeIndices = indices;
+            else
+                this.inEdgeIndices = indices;
+        }
+        TinkerIndex<TinkerEdge> index = indices.get(label);
+        if (null == index && create) {
+            index = new TinkerIndex<TinkerEdge>(null, TinkerEdge.class, this.graph.storage == TinkerGraph.Storage.CONCURRENT);
+            indices.put(label, index);
+        }
+        return index;
+    }
+
+    /**
+     * Removes a key from the vertex-centric indices of the edges of the vertex.
+     */
+    protected synchronized void dropEdgeIndexKey(final String key) {
+        for (final Map<String, TinkerIndex<TinkerEdge>> indices : Arrays.asList(this.outEdgeIndices, this.inEdgeIndices)) {
+            if (null != indices) {
+                for (final TinkerIndex<TinkerEdge> index : indices.values()) {
+                    index.index.remove(key);
+                    index.unsortKey(key);
+                }
+            }
+        }
+    }
+
+    private Set<Edge> createEdgeSet() {
+        if (this.graph.storage == TinkerGraph.Storage.COMPACT)
+            return new ArraySet<Edge>();
+        else if (this.graph.storage == TinkerGraph.Storage.CONCURRENT)
+            return Collections.newSetFromMap(new ConcurrentHashMap<Edge, Boolean>());
+        else
+            return new HashSet<Edge>();
+    }
+
+    /**
+     * Has the id of the vertex set before its edges are read, as the edge sets and indices of other vertices hash the vertex.
+     * Without a readObject() method, recent JVMs set the fields of the whole class hierarchy only once all of them are read.
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+    }
 }
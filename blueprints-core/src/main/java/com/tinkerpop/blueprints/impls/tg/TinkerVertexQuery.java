@@ -0,0 +1,117 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.util.DefaultQuery;
+import com.tinkerpop.blueprints.util.HasContainer;
+import com.tinkerpop.blueprints.util.MultiIterable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query of the edges of a vertex that is planned against the vertex-centric indices of TinkerGraph.
+ * For every direction and label of the query, the edges are drawn from the equality or range constraint on a vertex-centric key
+ * that matches the fewest edges of that label, so that constraints and limits are answered without visiting every incident edge.
+ * The edges of a range are visited in the order of their values. The remaining constraints are checked lazily.
+ */
+class TinkerVertexQuery extends DefaultQuery {
+
+    /**
+     * Ranges are compared by counting their edges up to this number, so larger ranges are deemed equally selective.
+     */
+    private static final long PROBE_LIMIT = 1000l;
+
+    private static final Direction[] BOTH_DIRECTIONS = new Direction[]{Direction.IN, Direction.OUT};
+
+    public TinkerVertexQuery(final TinkerVertex vertex) {
+        super(vertex);
+    }
+
+    @Override
+    protected Iterable<Edge> getCandidates() {
+        final TinkerVertex vertex = (TinkerVertex) this.vertex;
+        final Set<String> keys = vertex.graph.vertexCentricKeys;
+        if (null == keys || keys.isEmpty())
+            return super.getCandidates();
+
+        final List<HasContainer> equalities = new ArrayList<HasContainer>();
+        final Map<String, TinkerGraphQuery.Range> ranges = new LinkedHashMap<String, TinkerGraphQuery.Range>();
+        for (final HasContainer hasContainer : this.hasContainers) {
+            // an edge without a value of the key is not in the index, but it satisfies no constraint other than one on null or inequality
+            if (null == hasContainer.value || !keys.contains(hasContainer.key))
+                continue;
+            if (hasContainer.compare == Compare.EQUAL) {
+                equalities.add(hasContainer);
+            } else if (hasContainer.compare != Compare.NOT_EQUAL) {
+                TinkerGraphQuery.Range range = ranges.get(hasContainer.key);
+                if (null == range) {
+                    range = new TinkerGraphQuery.Range();
+                    ranges.put(hasContainer.key, range);
+                }
+                range.add(hasContainer);
+            }
+        }
+        if (equalities.isEmpty() && ranges.isEmpty())
+            return super.getCandidates();
+
+        final List<Iterable<Edge>> candidates = new ArrayList<Iterable<Edge>>();
+        for (final Direction direction : this.direction.equals(Direction.BOTH) ? BOTH_DIRECTIONS : new Direction[]{this.direction}) {
+            final Map<String, TinkerIndex<TinkerEdge>> indices = vertex.getEdgeIndices(direction);
+            if (null == indices)
+                continue;
+            for (final String label : this.labels.length == 0 ? new ArrayList<String>(indices.keySet()) : Arrays.asList(this.labels)) {
+                final TinkerIndex<TinkerEdge> index = indices.get(label);
+                if (null != index)
+                    candidates.add((Iterable) this.getCandidates(index, equalities, ranges));
+            }
+        }
+        return new MultiIterable<Edge>(candidates);
+    }
+
+    private Iterable<TinkerEdge> getCandidates(final TinkerIndex<TinkerEdge> index, final List<HasContainer> equalities, final Map<String, TinkerGraphQuery.Range> ranges) {
+        HasContainer bestEquality = null;
+        long bestCount = Long.MAX_VALUE;
+        for (final HasContainer hasContainer : equalities) {
+            final long count = index.count(hasContainer.key, hasContainer.value);
+            if (count < bestCount) {
+                bestEquality = hasContainer;
+                bestCount = count;
+            }
+        }
+        if (bestCount == 0)
+            return Collections.emptyList();
+
+        String bestKey = null;
+        TinkerGraphQuery.Range bestRange = null;
+        for (final Map.Entry<String, TinkerGraphQuery.Range> entry : ranges.entrySet()) {
+            final TinkerGraphQuery.Range range = entry.getValue();
+            if (!index.isSortedKey(entry.getKey()))
+                return Collections.emptyList();
+            // a single range is not counted, so that it is only visited as far as the query is iterated
+            if (null == bestEquality && ranges.size() == 1) {
+                bestKey = entry.getKey();
+                bestRange = range;
+                break;
+            }
+            // a range is counted as far as the edges of the best equality, as they would be visited instead
+            final long max = null == bestEquality ? Math.min(bestCount, PROBE_LIMIT) : bestCount;
+            final long count = index.countRange(entry.getKey(), range.startValue, range.startInclusive, range.endValue, range.endInclusive, max);
+            if (count == 0)
+                return Collections.emptyList();
+            if (count < bestCount) {
+                bestKey = entry.getKey();
+                bestRange = range;
+                bestCount = count;
+            }
+        }
+        if (null != bestRange)
+            return index.iterateRange(bestKey, bestRange.startValue, bestRange.startInclusive, bestRange.endValue, bestRange.endInclusive);
+        return index.get(bestEquality.key, bestEquality.value);
+    }
+}
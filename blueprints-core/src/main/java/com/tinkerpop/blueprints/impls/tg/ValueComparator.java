@@ -0,0 +1,132 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * The order of the property values in the sorted key indices of TinkerGraph.
+ * Values are grouped by their class and ordered within a class by their natural order, except that all numbers
+ * form one group ordered by their numeric value, so that a range of integers also covers longs and doubles.
+ * Numbers of equal value and different classes are told apart by their class name, which keeps the order consistent with equals.
+ * <p/>
+ * A range is expressed with two bounds, which compare before or after all the values that are equal to their value.
+ * A bound without a value compares before or after all the values of its group.
+ */
+class ValueComparator implements Comparator<Object>, Serializable {
+
+    public static final ValueComparator INSTANCE = new ValueComparator();
+
+    private static final String NUMBER = Number.class.getName();
+
+    public int compare(final Object a, final Object b) {
+        if (b instanceof Bound)
+            return compareToBound(a, (Bound) b);
+        if (a instanceof Bound)
+            return -compareToBound(b, (Bound) a);
+
+        int c = group(a).compareTo(group(b));
+        if (c != 0)
+            return c;
+        c = compareWithinGroup(a, b);
+        if (c != 0 || a.equals(b))
+            return c;
+        c = a.getClass().getName().compareTo(b.getClass().getName());
+        return c != 0 ? c : a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Whether the value can be kept in a sorted key index.
+     */
+    public static boolean isSortable(final Object value) {
+        return value instanceof Comparable;
+    }
+
+    /**
+     * The bound below the values of a range that starts at the value.
+     *
+     * @param value     the start value, or null to start at the first value of the group of the end value
+     * @param inclusive whether the values equal to the start value are in the range
+     * @param end       the end value of the range, used for the group of an open start
+     */
+    public static Bound lowerBound(final Object value, final boolean inclusive, final Object end) {
+        if (null == value)
+            return new Bound(group(end), null, -1);
+        return new Bound(group(value), value, inclusive ? -1 : 1);
+    }
+
+    /**
+     * The bound above the values of a range that ends at the value.
+     *
+     * @param value     the end value, or null to end at the last value of the group of the start value
+     * @param inclusive whether the values equal to the end value are in the range
+     * @param start     the start value of the range, used for the group of an open end
+     */
+    public static Bound upperBound(final Object value, final boolean inclusive, final Object start) {
+        if (null == value)
+            return new Bound(group(start), null, 1);
+        return new Bound(group(value), value, inclusive ? 1 : -1);
+    }
+
+    private static int compareToBound(final Object value, final Bound bound) {
+        if (value instanceof Bound) {
+            final Bound other = (Bound) value;
+            int c = other.group.compareTo(bound.group);
+            if (c != 0)
+                return c;
+            if (null != other.value && null != bound.value) {
+                c = compareWithinGroup(other.value, bound.value);
+                if (c != 0)
+                    return c;
+            } else if (null != other.value) {
+                return -bound.side;
+            } else if (null != bound.value) {
+                return other.side;
+            }
+            return other.side - bound.side;
+        }
+        int c = group(value).compareTo(bound.group);
+        if (c != 0)
+            return c;
+        if (null != bound.value) {
+            c = compareWithinGroup(value, bound.value);
+            if (c != 0)
+                return c;
+        }
+        return -bound.side;
+    }
+
+    private static String group(final Object value) {
+        return value instanceof Number ? NUMBER : value.getClass().getName();
+    }
+
+    private static int compareWithinGroup(final Object a, final Object b) {
+        if (a instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                final long x = ((Number) a).longValue();
+                final long y = ((Number) b).longValue();
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * A bound of a range, which is never equal to a value.
+     */
+    static class Bound {
+        private final String group;
+        private final Object value;
+        private final int side;
+
+        private Bound(final String group, final Object value, final int side) {
+            this.group = group;
+            this.value = value;
+            this.side = side;
+        }
+    }
+}
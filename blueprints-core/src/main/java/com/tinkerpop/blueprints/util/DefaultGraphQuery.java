@@ -0,0 +1,180 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * For those graph engines that do not support the low-level querying of their elements, then DefaultGraphQuery can be used.
+ * If the graph is a KeyIndexableGraph, the elements are drawn from the key index of the equality constraint that matches
+ * the fewest elements, else from all the elements of the graph, and are lazily filtered by every constraint of the query.
+ * Graph engines with richer indices can push constraints down to the engine by overriding getCandidates().
+ */
+public class DefaultGraphQuery implements GraphQuery {
+
+    /**
+     * Key indices are compared by counting their elements up to this number, so larger indices are deemed equally selective.
+     */
+    protected static final long PROBE_LIMIT = 1000l;
+
+    protected final Graph graph;
+    public long limit = Long.MAX_VALUE;
+    public List<HasContainer> hasContainers = new ArrayList<HasContainer>();
+
+    public DefaultGraphQuery(final Graph graph) {
+        this.graph = graph;
+    }
+
+    public GraphQuery has(final String key, final Object value) {
+        this.hasContainers.add(new HasContainer(key, value, Query.Compare.EQUAL));
+        return this;
+    }
+
+    public <T extends Comparable<T>> GraphQuery has(final String key, final T value, final Query.Compare compare) {
+        this.hasContainers.add(new HasContainer(key, value, compare));
+        return this;
+    }
+
+    public <T extends Comparable<T>> GraphQuery interval(final String key, final T startValue, final T endValue) {
+        this.hasContainers.add(new HasContainer(key, startValue, Query.Compare.GREATER_THAN_EQUAL));
+        this.hasContainers.add(new HasContainer(key, endValue, Query.Compare.LESS_THAN));
+        return this;
+    }
+
+    public GraphQuery limit(final long max) {
+        this.limit = max;
+        return this;
+    }
+
+    public Iterable<Edge> edges() {
+        return new DefaultGraphQueryIterable<Edge>(Edge.class);
+    }
+
+    public Iterable<Vertex> vertices() {
+        return new DefaultGraphQueryIterable<Vertex>(Vertex.class);
+    }
+
+    /**
+     * Get the elements that are filtered by the constraints of the query, which must include every element that satisfies them.
+     *
+     * @param elementClass the class of the elements to get, either Vertex or Edge
+     * @return the elements to filter
+     */
+    protected Iterable<? extends Element> getCandidates(final Class<? extends Element> elementClass) {
+        final boolean forVertex = Vertex.class.isAssignableFrom(elementClass);
+        if (this.graph instanceof KeyIndexableGraph && (forVertex ? this.graph.getFeatures().supportsVertexKeyIndex : this.graph.getFeatures().supportsEdgeKeyIndex)) {
+            final Set<String> indexedKeys = ((KeyIndexableGraph) this.graph).getIndexedKeys(elementClass);
+            HasContainer best = null;
+            long bestCount = Long.MAX_VALUE;
+            for (final HasContainer hasContainer : this.hasContainers) {
+                if (hasContainer.compare == Query.Compare.EQUAL && indexedKeys.contains(hasContainer.key)) {
+                    final long count = count(this.getElements(forVertex, hasContainer.key, hasContainer.value), Math.min(bestCount, PROBE_LIMIT));
+                    if (count == 0)
+                        return Collections.emptyList();
+                    if (count < bestCount) {
+                        best = hasContainer;
+                        bestCount = count;
+                    }
+                }
+            }
+            if (null != best)
+                return this.getElements(forVertex, best.key, best.value);
+        }
+        return forVertex ? this.graph.getVertices() : this.graph.getEdges();
+    }
+
+    private Iterable<? extends Element> getElements(final boolean forVertex, final String key, final Object value) {
+        return forVertex ? this.graph.getVertices(key, value) : this.graph.getEdges(key, value);
+    }
+
+    private static long count(final Iterable<? extends Element> iterable, final long max) {
+        long count = 0;
+        final Iterator<? extends Element> itty = iterable.iterator();
+        while (count < max && itty.hasNext()) {
+            itty.next();
+            count++;
+        }
+        if (iterable instanceof CloseableIterable)
+            ((CloseableIterable) iterable).close();
+        return count;
+    }
+
+    private class DefaultGraphQueryIterable<T extends Element> implements Iterable<T> {
+
+        private final Class<? extends Element> elementClass;
+
+        public DefaultGraphQueryIterable(final Class<? extends Element> elementClass) {
+            this.elementClass = elementClass;
+        }
+
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                T nextElement = null;
+                final Iterable<? extends Element> iterable = getCandidates(elementClass);
+                final Iterator<? extends Element> itty = iterable.iterator();
+                long count = 0;
+
+                public boolean hasNext() {
+                    if (null != this.nextElement) {
+                        return true;
+                    } else {
+                        return this.loadNext();
+                    }
+                }
+
+                public T next() {
+                    while (true) {
+                        if (this.nextElement != null) {
+                            final T temp = this.nextElement;
+                            this.nextElement = null;
+                            return temp;
+                        }
+
+                        if (!this.loadNext())
+                            throw new NoSuchElementException();
+                    }
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                private boolean loadNext() {
+                    this.nextElement = null;
+                    if (count < limit) {
+                        while (this.itty.hasNext()) {
+                            final Element element = this.itty.next();
+                            boolean filter = false;
+                            for (final HasContainer hasContainer : hasContainers) {
+                                if (!hasContainer.isLegal(element)) {
+                                    filter = true;
+                                    break;
+                                }
+                            }
+                            if (!filter) {
+                                this.nextElement = (T) element;
+                                this.count++;
+                                return true;
+                            }
+                        }
+                    }
+                    if (this.iterable instanceof CloseableIterable)
+                        ((CloseableIterable) this.iterable).close();
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -14,6 +14,8 @@ import java.util.NoSuchElementException;
 /**
  * For those graph engines that do not support the low-level querying of the edges of a vertex, then DefaultQuery can be used.
  * DefaultQuery assumes, at minimum, that Vertex.getOutEdges() and Vertex.getInEdges() is implemented by the respective Graph.
+ * Graph engines with vertex-centric indices can narrow the edges that are filtered by overriding getCandidates(),
+ * and vertices that are a DegreeVertex answer count() and vertexIds() of a query without constraints from their adjacency.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
@@ -21,7 +23,7 @@ public class DefaultQuery implements Query {
 
     private static final String[] EMPTY_LABELS = new String[]{};
 
-    private final Vertex vertex;
+    protected final Vertex vertex;
     public Direction direction = Direction.BOTH;
     public String[] labels = EMPTY_LABELS;
     public long limit = Long.MAX_VALUE;
@@ -71,6 +73,8 @@ public class DefaultQuery implements Query {
     }
 
     public long count() {
+        if (this.hasContainers.isEmpty() && this.vertex instanceof DegreeVertex)
+            return Math.min(this.limit, ((DegreeVertex) this.vertex).getDegree(this.direction, this.labels));
         long count = 0;
         for (final Edge edge : this.edges()) {
             count++;
@@ -79,6 +83,11 @@ public class DefaultQuery implements Query {
     }
 
     public Object vertexIds() {
+        if (this.hasContainers.isEmpty() && this.vertex instanceof DegreeVertex) {
+            final List<Object> ids = ((DegreeVertex) this.vertex).getAdjacentVertexIds(this.direction, this.labels);
+            if (null != ids)
+                return ids.size() > this.limit ? ids.subList(0, (int) this.limit) : ids;
+        }
         final List<Object> list = new ArrayList<Object>();
         for (final Vertex vertex : this.vertices()) {
             list.add(vertex.getId());
@@ -86,48 +95,13 @@ public class DefaultQuery implements Query {
         return list;
     }
 
-    private class HasContainer {
-        public String key;
-        public Object value;
-        public Compare compare;
-
-        public HasContainer(final String key, final Object value, final Compare compare) {
-            this.key = key;
-            this.value = value;
-            this.compare = compare;
-        }
-
-        public boolean isLegal(final Element element) {
-            final Object elementValue = element.getProperty(key);
-            switch (compare) {
-                case EQUAL:
-                    if (null == elementValue)
-                        return value == null;
-                    return elementValue.equals(value);
-                case NOT_EQUAL:
-                    if (null == elementValue)
-                        return value != null;
-                    return !elementValue.equals(value);
-                case GREATER_THAN:
-                    if (null == elementValue || value == null)
-                        return false;
-                    return ((Comparable) elementValue).compareTo(value) >= 1;
-                case LESS_THAN:
-                    if (null == elementValue || value == null)
-                        return false;
-                    return ((Comparable) elementValue).compareTo(value) <= -1;
-                case GREATER_THAN_EQUAL:
-                    if (null == elementValue || value == null)
-                        return false;
-                    return ((Comparable) elementValue).compareTo(value) >= 0;
-                case LESS_THAN_EQUAL:
-                    if (null == elementValue || value == null)
-                        return false;
-                    return ((Comparable) elementValue).compareTo(value) <= 0;
-                default:
-                    throw new IllegalArgumentException("Invalid state as no valid filter was provided");
-            }
-        }
+    /**
+     * Get the edges of the direction and labels that are filtered by the constraints of the query, which must include every edge that satisfies them.
+     *
+     * @return the edges to filter
+     */
+    protected Iterable<Edge> getCandidates() {
+        return this.vertex.getEdges(this.direction, this.labels);
     }
 
     private class DefaultQueryIterable<T extends Element> implements Iterable<T> {
@@ -137,7 +111,7 @@ public class DefaultQuery implements Query {
 
         public DefaultQueryIterable(final boolean forVertex) {
             this.forVertex = forVertex;
-            this.iterable = vertex.getEdges(direction, labels);
+            this.iterable = getCandidates();
         }
 
         public Iterator<T> iterator() {
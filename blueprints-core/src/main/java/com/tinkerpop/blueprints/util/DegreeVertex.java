@@ -0,0 +1,31 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.List;
+
+/**
+ * A DegreeVertex is a vertex whose graph engine can tell the number of its edges, and possibly the ids of the vertices
+ * at their other end, from its adjacency structures without creating an element per edge.
+ * DefaultQuery uses it for count() and vertexIds() when the query has no property constraints.
+ */
+public interface DegreeVertex {
+
+    /**
+     * Get the number of edges of the vertex.
+     *
+     * @param direction the direction of the edges, where both directions count a self-loop twice as Vertex.getEdges() does
+     * @param labels    the labels of the edges, or none for all labels
+     * @return the number of edges
+     */
+    public long getDegree(final Direction direction, final String... labels);
+
+    /**
+     * Get the ids of the vertices at the other end of the edges of the vertex, one per edge.
+     *
+     * @param direction the direction of the edges
+     * @param labels    the labels of the edges, or none for all labels
+     * @return the ids of the adjacent vertices, or null if they can not be read without creating the edges
+     */
+    public List<Object> getAdjacentVertexIds(final Direction direction, final String... labels);
+}
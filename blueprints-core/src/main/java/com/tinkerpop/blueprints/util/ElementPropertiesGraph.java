@@ -0,0 +1,35 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.Map;
+
+/**
+ * An ElementPropertiesGraph is a graph whose graph engine can create a vertex or an edge together with all of its
+ * properties in a single write, rather than one write for the element and one for each of its properties.
+ * BatchGraph uses it when it buffers the properties of the elements it loads.
+ */
+public interface ElementPropertiesGraph {
+
+    /**
+     * Create a new vertex with the provided properties.
+     *
+     * @param id         the recommended object identifier
+     * @param properties the properties of the vertex
+     * @return the newly created vertex
+     */
+    public Vertex addVertex(final Object id, final Map<String, Object> properties);
+
+    /**
+     * Create a new edge with the provided properties.
+     *
+     * @param id         the recommended object identifier
+     * @param outVertex  the vertex on the tail of the edge
+     * @param inVertex   the vertex on the head of the edge
+     * @param label      the label associated with the edge
+     * @param properties the properties of the edge
+     * @return the newly created edge
+     */
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label, final Map<String, Object> properties);
+}
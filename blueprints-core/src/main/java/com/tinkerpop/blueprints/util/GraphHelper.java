@@ -53,6 +53,7 @@ public class GraphHelper {
      * Copy the vertex/edges of one graph over to another graph.
      * The id of the elements in the from graph are attempted to be used in the to graph.
      * This method only works for graphs where the user can control the element ids.
+     * See {@link #copyGraph(Graph, Graph, long, int)} for graphs that ignore supplied ids and for large graphs.
      *
      * @param from the graph to copy from
      * @param to   the graph to copy to
@@ -69,4 +70,18 @@ public class GraphHelper {
             ElementHelper.copyProperties(fromEdge, toEdge);
         }
     }
+
+    /**
+     * Copy the vertex/edges of one graph over to another graph with a {@link ParallelGraphCopier}.
+     * The vertices are copied in transactions of bufferSize vertices and the edges by the given number of threads.
+     * The id of the elements in the from graph are used in the to graph unless it ignores supplied ids.
+     *
+     * @param from       the graph to copy from
+     * @param to         the graph to copy to
+     * @param bufferSize the number of elements copied in a transaction (only valid for TransactionalGraphs)
+     * @param threads    the number of threads copying the edges, which requires the to graph to accept concurrent writers if more than one
+     */
+    public static void copyGraph(final Graph from, final Graph to, final long bufferSize, final int threads) {
+        ParallelGraphCopier.copyGraph(from, to, bufferSize, threads);
+    }
 }
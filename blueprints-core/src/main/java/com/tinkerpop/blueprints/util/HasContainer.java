@@ -0,0 +1,91 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Query;
+
+/**
+ * A HasContainer is a constraint on the value of a property of an element, as used by DefaultQuery and DefaultGraphQuery.
+ * A range comparison holds for a value of the element that is Comparable and of a class of which the value of the
+ * constraint is an instance, or that is a number like the value of the constraint. Numbers of different classes compare
+ * by their numeric value, so that an Integer satisfies a range over Long values, as in the sorted key indices of TinkerGraph.
+ */
+public class HasContainer {
+
+    public String key;
+    public Object value;
+    public Query.Compare compare;
+
+    public HasContainer(final String key, final Object value, final Query.Compare compare) {
+        this.key = key;
+        this.value = value;
+        this.compare = compare;
+    }
+
+    public boolean isLegal(final Element element) {
+        return this.isLegalValue(element.getProperty(key));
+    }
+
+    /**
+     * Whether the value of the property of an element satisfies the constraint, for graph engines that read properties
+     * without creating an element.
+     *
+     * @param elementValue the value of the property, or null if the element does not have the property
+     * @return whether the constraint holds
+     */
+    public boolean isLegalValue(final Object elementValue) {
+        switch (compare) {
+            case EQUAL:
+                if (null == elementValue)
+                    return value == null;
+                return elementValue.equals(value);
+            case NOT_EQUAL:
+                if (null == elementValue)
+                    return value != null;
+                return !elementValue.equals(value);
+            case GREATER_THAN:
+                if (!this.isComparable(elementValue))
+                    return false;
+                return this.compareTo(elementValue) >= 1;
+            case LESS_THAN:
+                if (!this.isComparable(elementValue))
+                    return false;
+                return this.compareTo(elementValue) <= -1;
+            case GREATER_THAN_EQUAL:
+                if (!this.isComparable(elementValue))
+                    return false;
+                return this.compareTo(elementValue) >= 0;
+            case LESS_THAN_EQUAL:
+                if (!this.isComparable(elementValue))
+                    return false;
+                return this.compareTo(elementValue) <= 0;
+            default:
+                throw new IllegalArgumentException("Invalid state as no valid filter was provided");
+        }
+    }
+
+    /**
+     * Whether the value of the element can be compared to the value of the constraint without a ClassCastException.
+     */
+    private boolean isComparable(final Object elementValue) {
+        if (null == elementValue || null == value)
+            return false;
+        if (elementValue instanceof Number && value instanceof Number)
+            return true;
+        return elementValue instanceof Comparable && elementValue.getClass().isInstance(value);
+    }
+
+    private int compareTo(final Object elementValue) {
+        if (elementValue instanceof Comparable && elementValue.getClass().isInstance(value))
+            return ((Comparable) elementValue).compareTo(value);
+        if (isIntegral(elementValue) && isIntegral(value)) {
+            final long x = ((Number) elementValue).longValue();
+            final long y = ((Number) value).longValue();
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+        return Double.compare(((Number) elementValue).doubleValue(), ((Number) value).doubleValue());
+    }
+
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+}
@@ -0,0 +1,337 @@
+package com.tinkerpop.blueprints.util;
+
+import cern.colt.map.OpenLongObjectHashMap;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ParallelGraphCopier copies the vertices and edges of one graph to another graph, which may ignore supplied ids.
+ * <p/>
+ * The vertices are copied first by the calling thread, committing a transaction every bufferSize vertices if the
+ * target graph is transactional. The id each vertex received in the target graph is remembered by the id of its
+ * source vertex, in a primitive long keyed map for numeric source ids. The edges are then copied by a number of
+ * threads, each of which takes batches of source vertices and copies their outgoing edges in its own transactions,
+ * so that every edge is copied exactly once. The ids of the edge's vertices in the target graph are looked up in the
+ * id map, and each target vertex is retrieved from the target graph once per transaction.
+ * <p/>
+ * With more than one thread the target graph must accept concurrent writers, each in its own transaction, and the
+ * source graph must accept concurrent readers. A transaction of a transactional target graph that fails, e.g. as it
+ * deadlocks with the transaction of another thread, is rolled back and copied again a few times.
+ * A failure of a thread beyond that fails the copy and is thrown by it.
+ */
+public class ParallelGraphCopier {
+
+    /**
+     * Default number of elements copied in a transaction
+     */
+    public static final long DEFAULT_BUFFER_SIZE = 1000;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final List<Vertex> END = new ArrayList<Vertex>(0);
+
+    private final Graph from;
+    private final Graph to;
+    private long bufferSize = DEFAULT_BUFFER_SIZE;
+    private int threads = 1;
+
+    /**
+     * @param from the graph to copy from
+     * @param to   the graph to copy to
+     */
+    public ParallelGraphCopier(final Graph from, final Graph to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param bufferSize the number of elements copied in a transaction (only valid for TransactionalGraphs)
+     */
+    public void setBufferSize(final long bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("Buffer size must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param threads the number of threads copying the edges
+     */
+    public void setThreads(final int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * Copy the vertices and edges of the source graph to the target graph.
+     * The ids of the source elements are supplied to the target graph, unless it ignores supplied ids.
+     */
+    public void copyGraph() {
+        final IdMap ids = copyVertices();
+        copyEdges(ids);
+    }
+
+    /**
+     * Copy the vertices and edges of one graph to another graph.
+     *
+     * @param from       the graph to copy from
+     * @param to         the graph to copy to
+     * @param bufferSize the number of elements copied in a transaction (only valid for TransactionalGraphs)
+     * @param threads    the number of threads copying the edges
+     */
+    public static void copyGraph(final Graph from, final Graph to, final long bufferSize, final int threads) {
+        final ParallelGraphCopier copier = new ParallelGraphCopier(from, to);
+        copier.setBufferSize(bufferSize);
+        copier.setThreads(threads);
+        copier.copyGraph();
+    }
+
+    private IdMap copyVertices() {
+        final boolean ignoresSuppliedIds = to.getFeatures().ignoresSuppliedIds;
+        final IdMap ids = new IdMap();
+        final Transaction transaction = new Transaction(to, bufferSize);
+        // the vertices of a transaction are kept until it is committed, as their ids may only be final then
+        final List<Object> sourceIds = new ArrayList<Object>();
+        final List<Vertex> vertices = new ArrayList<Vertex>();
+
+        transaction.begin();
+        try {
+            for (final Vertex fromVertex : from.getVertices()) {
+                final Vertex toVertex = transaction.graph.addVertex(ignoresSuppliedIds ? null : fromVertex.getId());
+                ElementHelper.copyProperties(fromVertex, toVertex);
+                sourceIds.add(fromVertex.getId());
+                vertices.add(toVertex);
+                if (transaction.nextElement()) {
+                    transaction.commit();
+                    ids.putAll(sourceIds, vertices);
+                    transaction.begin();
+                }
+            }
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+        transaction.commit();
+        ids.putAll(sourceIds, vertices);
+        return ids;
+    }
+
+    private void copyEdges(final IdMap ids) {
+        final EdgeCopy copy = new EdgeCopy(ids);
+        final Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(copy, "ParallelGraphCopier-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        boolean completed = false;
+        try {
+            List<Vertex> batch = new ArrayList<Vertex>(BATCH_SIZE);
+            for (final Vertex fromVertex : from.getVertices()) {
+                if (copy.aborted) break;
+                batch.add(fromVertex);
+                if (batch.size() == BATCH_SIZE) {
+                    copy.queue.put(batch);
+                    batch = new ArrayList<Vertex>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) copy.queue.put(batch);
+            for (int i = 0; i < threads; i++) {
+                copy.queue.put(END);
+            }
+            for (final Thread worker : workers) {
+                worker.join();
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            if (!completed) {
+                copy.aborted = true;
+                for (final Thread worker : workers) {
+                    worker.interrupt();
+                }
+            }
+        }
+
+        if (copy.failure instanceof RuntimeException) {
+            throw (RuntimeException) copy.failure;
+        } else if (copy.failure instanceof Error) {
+            throw (Error) copy.failure;
+        } else if (copy.failure != null) {
+            throw new RuntimeException(copy.failure.getMessage(), copy.failure);
+        }
+    }
+
+    /**
+     * Copies the outgoing edges of the batches of source vertices taken from the queue.
+     */
+    private class EdgeCopy implements Runnable {
+        private final IdMap ids;
+        private final boolean ignoresSuppliedIds = to.getFeatures().ignoresSuppliedIds;
+        private final BlockingQueue<List<Vertex>> queue = new ArrayBlockingQueue<List<Vertex>>(threads * 2);
+        private volatile boolean aborted = false;
+        private volatile Throwable failure = null;
+
+        private EdgeCopy(final IdMap ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public void run() {
+            final Transaction transaction = new Transaction(to, bufferSize);
+            try {
+                List<Vertex> batch;
+                while ((batch = queue.take()) != END) {
+                    if (aborted) continue;
+                    copyEdges(batch, transaction);
+                }
+            } catch (InterruptedException e) {
+                aborted = true;
+            } catch (Throwable t) {
+                synchronized (this) {
+                    if (failure == null) failure = t;
+                }
+                aborted = true;
+                // keep taking batches so that the vertices are not blocked on a full queue
+                try {
+                    while (queue.take() != END) ;
+                } catch (InterruptedException e) {
+                    // the copy is aborted
+                }
+            }
+        }
+
+        private void copyEdges(final List<Vertex> batch, final Transaction transaction) {
+            // the source edges of a transaction are kept until it is committed, so that it can be copied again
+            final List<Edge> edges = new ArrayList<Edge>();
+            for (final Vertex fromVertex : batch) {
+                for (final Edge fromEdge : fromVertex.getEdges(Direction.OUT)) {
+                    edges.add(fromEdge);
+                    if (edges.size() >= bufferSize) {
+                        copyTransaction(edges, transaction);
+                        edges.clear();
+                    }
+                }
+            }
+            if (!edges.isEmpty()) copyTransaction(edges, transaction);
+        }
+
+        private void copyTransaction(final List<Edge> edges, final Transaction transaction) {
+            for (int attempt = 1; ; attempt++) {
+                if (aborted) return;
+                transaction.begin();
+                try {
+                    for (final Edge fromEdge : edges) {
+                        final Vertex outVertex = getVertex(transaction, fromEdge.getVertex(Direction.OUT).getId());
+                        final Vertex inVertex = getVertex(transaction, fromEdge.getVertex(Direction.IN).getId());
+                        final Edge toEdge = transaction.graph.addEdge(ignoresSuppliedIds ? null : fromEdge.getId(), outVertex, inVertex, fromEdge.getLabel());
+                        ElementHelper.copyProperties(fromEdge, toEdge);
+                    }
+                    transaction.commit();
+                    return;
+                } catch (RuntimeException e) {
+                    transaction.rollback();
+                    if (!(to instanceof TransactionalGraph) || attempt == MAX_ATTEMPTS) throw e;
+                }
+            }
+        }
+
+        private Vertex getVertex(final Transaction transaction, final Object sourceId) {
+            final Object id = ids.get(sourceId);
+            Vertex vertex = null == id ? null : transaction.vertices.get(id);
+            if (null == vertex && null != id) {
+                vertex = transaction.graph.getVertex(id);
+                if (null != vertex) transaction.vertices.put(id, vertex);
+            }
+            if (null == vertex)
+                throw new IllegalStateException("The vertex " + sourceId + " of an edge was not copied");
+            return vertex;
+        }
+    }
+
+    /**
+     * The transactions of a thread on the target graph, which are those of a thread transaction for a
+     * {@link ThreadedTransactionalGraph} and the ones bound to the thread for any other {@link TransactionalGraph}.
+     */
+    private static class Transaction {
+        private final Graph target;
+        private final long bufferSize;
+        private Graph graph;
+        private long remainingBufferSize;
+        // the target vertices retrieved in the transaction by their ids, as they may not be valid in the next one
+        private final Map<Object, Vertex> vertices = new HashMap<Object, Vertex>();
+
+        private Transaction(final Graph target, final long bufferSize) {
+            this.target = target;
+            this.bufferSize = bufferSize;
+            this.graph = target;
+        }
+
+        private void begin() {
+            if (target instanceof ThreadedTransactionalGraph) {
+                graph = ((ThreadedTransactionalGraph) target).startThreadTransaction();
+            } else if (target instanceof TransactionalGraph) {
+                ((TransactionalGraph) target).startTransaction();
+            }
+            remainingBufferSize = bufferSize;
+            vertices.clear();
+        }
+
+        /**
+         * @return whether the transaction is full and should be committed
+         */
+        private boolean nextElement() {
+            return --remainingBufferSize <= 0;
+        }
+
+        private void commit() {
+            if (graph instanceof TransactionalGraph)
+                ((TransactionalGraph) graph).stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+        }
+
+        private void rollback() {
+            if (graph instanceof TransactionalGraph)
+                ((TransactionalGraph) graph).stopTransaction(TransactionalGraph.Conclusion.FAILURE);
+        }
+    }
+
+    /**
+     * Maps the ids of the source vertices to the ids of the target vertices. Integral source ids are kept in a long
+     * keyed map without boxing them, and any other ids in a hash map. It is only read once the vertices are copied.
+     */
+    private static class IdMap {
+        private final OpenLongObjectHashMap longIds = new OpenLongObjectHashMap(1000);
+        private final Map<Object, Object> objectIds = new HashMap<Object, Object>();
+
+        private void putAll(final List<Object> sourceIds, final List<Vertex> vertices) {
+            for (int i = 0; i < sourceIds.size(); i++) {
+                final Object sourceId = sourceIds.get(i);
+                final Object id = vertices.get(i).getId();
+                if (isIntegral(sourceId)) longIds.put(((Number) sourceId).longValue(), id);
+                else objectIds.put(sourceId, id);
+            }
+            sourceIds.clear();
+            vertices.clear();
+        }
+
+        private Object get(final Object sourceId) {
+            return isIntegral(sourceId) ? longIds.get(((Number) sourceId).longValue()) : objectIds.get(sourceId);
+        }
+
+        private static boolean isIntegral(final Object id) {
+            return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.tinkerpop.blueprints.util.io;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * GraphElementMigrator copies the elements of one graph to another graph without serializing them.
+ * <p/>
+ * A producer thread iterates over the vertices and then the edges of the source graph, and hands copies of them in
+ * batches through a bounded queue to the calling thread. The calling thread adds them to the target graph through a
+ * BatchGraph, which with more than one worker executes the writes on that many worker threads (in which case the
+ * target graph must accept concurrent writers). The source graph is hence read while the target graph is written, and
+ * the queue bounds the memory held between them.
+ * <p/>
+ * The progress of a migration can be followed with a {@link ProgressListener}, which is notified on the calling
+ * thread every progressInterval elements and once the migration completes.
+ */
+public class GraphElementMigrator {
+
+    /**
+     * Default number of batches of elements queued between the producer and the target graph
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final List<ElementCopy> END = new ArrayList<ElementCopy>(0);
+
+    private final Graph fromGraph;
+    private final Graph toGraph;
+    private long bufferSize = 1000;
+    private int workers = 1;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private ProgressListener listener = null;
+    private long progressInterval = 100000;
+
+    /**
+     * @param fromGraph the graph to take data from
+     * @param toGraph   the graph to take data to
+     */
+    public GraphElementMigrator(final Graph fromGraph, final Graph toGraph) {
+        this.fromGraph = fromGraph;
+        this.toGraph = toGraph;
+    }
+
+    /**
+     * @param bufferSize the amount of elements to hold in memory before committing a transaction (only valid for TransactionalGraphs)
+     */
+    public void setBufferSize(final long bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("Buffer size must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param workers the number of threads writing to the target graph, which must accept concurrent writers if more than one
+     */
+    public void setWorkers(final int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Number of workers must be positive");
+        this.workers = workers;
+    }
+
+    /**
+     * @param queueSize the number of batches of elements queued between the producer and the target graph
+     */
+    public void setQueueSize(final int queueSize) {
+        if (queueSize < 1) throw new IllegalArgumentException("Queue size must be positive");
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @param listener         the listener notified of the progress of the migration
+     * @param progressInterval the number of elements migrated between notifications
+     */
+    public void setProgressListener(final ProgressListener listener, final long progressInterval) {
+        if (progressInterval < 1) throw new IllegalArgumentException("Progress interval must be positive");
+        this.listener = listener;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Copy the vertices and edges of the source graph to the target graph.
+     * If the target graph is already a BatchGraph it is used as it is configured and its transaction is stopped once
+     * the migration succeeds. Otherwise the BatchGraph that wraps the target graph is finished when the migration
+     * completes or fails, which commits the elements added and stops its workers but leaves the target graph open.
+     *
+     * @return the final progress of the migration
+     * @throws IOException thrown if reading the source graph or writing the target graph fails
+     */
+    public Progress migrateGraph() throws IOException {
+        final BatchGraph graph = workers > 1 ? BatchGraph.wrap(toGraph, bufferSize, workers) : BatchGraph.wrap(toGraph, bufferSize);
+        final boolean wrapped = graph != toGraph;
+        if (wrapped) graph.setPropertyBuffering(true);
+
+        final Producer producer = new Producer(fromGraph, new ArrayBlockingQueue<List<ElementCopy>>(queueSize));
+        final Thread thread = new Thread(producer, "GraphElementMigrator");
+        thread.setDaemon(true);
+
+        final long start = System.nanoTime();
+        long vertices = 0;
+        long edges = 0;
+        long nextProgress = progressInterval;
+        boolean completed = false;
+        boolean migrated = false;
+        thread.start();
+        try {
+            List<ElementCopy> batch;
+            while ((batch = producer.queue.take()) != END) {
+                for (final ElementCopy element : batch) {
+                    if (element.addTo(graph)) vertices++;
+                    else edges++;
+                }
+                if (null != listener && vertices + edges >= nextProgress) {
+                    listener.progress(new Progress(vertices, edges, System.nanoTime() - start, false));
+                    nextProgress = vertices + edges + progressInterval;
+                }
+            }
+            completed = true;
+
+            if (producer.failure instanceof IOException) {
+                throw (IOException) producer.failure;
+            } else if (producer.failure != null) {
+                throw new IOException(producer.failure.getMessage(), producer.failure);
+            }
+
+            if (wrapped) graph.finish();
+            else graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+            migrated = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } finally {
+            if (!completed) {
+                producer.aborted = true;
+                thread.interrupt();
+            }
+            if (wrapped && !migrated) {
+                try {
+                    graph.finish();
+                } catch (RuntimeException e) {
+                    // the failure of the migration is thrown rather than the one of finishing the BatchGraph
+                }
+            }
+        }
+
+        final Progress progress = new Progress(vertices, edges, System.nanoTime() - start, true);
+        if (null != listener) listener.progress(progress);
+        return progress;
+    }
+
+    /**
+     * Copy the vertices and edges of the source graph to the target graph.
+     *
+     * @param fromGraph the graph to take data from
+     * @param toGraph   the graph to take data to
+     * @return the final progress of the migration
+     * @throws IOException thrown if reading the source graph or writing the target graph fails
+     */
+    public static Progress migrateGraph(final Graph fromGraph, final Graph toGraph) throws IOException {
+        return new GraphElementMigrator(fromGraph, toGraph).migrateGraph();
+    }
+
+    /**
+     * Notified of the progress of a migration.
+     */
+    public interface ProgressListener {
+        void progress(Progress progress);
+    }
+
+    /**
+     * The number of elements migrated so far and the time it took.
+     */
+    public static class Progress {
+        private final long vertices;
+        private final long edges;
+        private final long elapsedNanos;
+        private final boolean done;
+
+        Progress(final long vertices, final long edges, final long elapsedNanos, final boolean done) {
+            this.vertices = vertices;
+            this.edges = edges;
+            this.elapsedNanos = elapsedNanos;
+            this.done = done;
+        }
+
+        public long getVertices() {
+            return vertices;
+        }
+
+        public long getEdges() {
+            return edges;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return whether the migration has completed
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return the average number of elements migrated per second
+         */
+        public double getElementsPerSecond() {
+            return elapsedNanos == 0 ? 0.0d : (vertices + edges) * 1000000000.0d / elapsedNanos;
+        }
+
+        public String toString() {
+            return "progress[vertices:" + vertices + ", edges:" + edges + ", seconds:" + Math.round(elapsedNanos / 1000000.0d) / 1000.0d
+                    + ", elements/s:" + Math.round(getElementsPerSecond()) + (done ? ", done" : "") + "]";
+        }
+    }
+
+    /**
+     * Iterates over the source graph and queues copies of its elements in batches.
+     */
+    private static class Producer implements Runnable {
+        private final Graph graph;
+        private final BlockingQueue<List<ElementCopy>> queue;
+        private volatile boolean aborted = false;
+        private volatile Throwable failure = null;
+
+        private Producer(final Graph graph, final BlockingQueue<List<ElementCopy>> queue) {
+            this.graph = graph;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<ElementCopy> batch = new ArrayList<ElementCopy>(BATCH_SIZE);
+                for (final Vertex vertex : graph.getVertices()) {
+                    if (aborted) return;
+                    batch = add(batch, new ElementCopy(vertex, null, null, null));
+                }
+                for (final Edge edge : graph.getEdges()) {
+                    if (aborted) return;
+                    batch = add(batch, new ElementCopy(edge, edge.getVertex(Direction.OUT).getId(), edge.getVertex(Direction.IN).getId(), edge.getLabel()));
+                }
+                if (!batch.isEmpty()) queue.put(batch);
+            } catch (InterruptedException e) {
+                aborted = true;
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                try {
+                    if (!aborted) queue.put(END);
+                } catch (InterruptedException e) {
+                    // the migration is aborted
+                }
+            }
+        }
+
+        private List<ElementCopy> add(final List<ElementCopy> batch, final ElementCopy element) throws InterruptedException {
+            batch.add(element);
+            if (batch.size() < BATCH_SIZE) return batch;
+            queue.put(batch);
+            return new ArrayList<ElementCopy>(BATCH_SIZE);
+        }
+    }
+
+    /**
+     * A copy of the id, properties and, for an edge, the vertex ids and label of an element.
+     */
+    private static class ElementCopy {
+        private final Object id;
+        private final Object outId;
+        private final Object inId;
+        private final String label;
+        private final String[] keys;
+        private final Object[] values;
+
+        private ElementCopy(final Element element, final Object outId, final Object inId, final String label) {
+            this.id = element.getId();
+            this.outId = outId;
+            this.inId = inId;
+            this.label = label;
+            this.keys = element.getPropertyKeys().toArray(new String[0]);
+            this.values = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = element.getProperty(keys[i]);
+            }
+        }
+
+        /**
+         * @return whether the element is a vertex
+         */
+        private boolean addTo(final BatchGraph graph) {
+            final Element element;
+            if (null == label) {
+                element = graph.addVertex(id);
+            } else {
+                final Vertex outVertex = graph.getVertex(outId);
+                final Vertex inVertex = graph.getVertex(inId);
+                if (null == outVertex || null == inVertex)
+                    throw new IllegalStateException("Edge " + id + " refers to a vertex that was not migrated");
+                element = graph.addEdge(id, outVertex, inVertex, label);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                element.setProperty(keys[i], values[i]);
+            }
+            return null == label;
+        }
+    }
+}
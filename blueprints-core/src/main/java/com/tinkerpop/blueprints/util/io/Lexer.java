@@ -0,0 +1,455 @@
+package com.tinkerpop.blueprints.util.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lexer is the tokenizer shared by the readers of the text graph formats (GML, NET, TLP and DOT).
+ * <p/>
+ * It follows the syntax and token types of java.io.StreamTokenizer, so that a parser can be moved from one to the
+ * other by substituting the class, but is built for throughput on large inputs: characters are read in blocks into a
+ * char buffer which the lexer walks with a cursor, numbers are parsed into the primitive nval without creating any
+ * objects, and words and quoted strings are looked up in a direct mapped cache of recent strings, so that repeated
+ * keys and labels are returned as the same String instance rather than allocated anew for every occurrence.
+ * <p/>
+ * As with StreamTokenizer, numbers are parsed as an optional minus sign, digits and at most one decimal point, and
+ * exponents are not recognized. Unlike StreamTokenizer the syntax is the one of resetSyntax() until configured.
+ */
+public class Lexer {
+
+    public static final int TT_EOF = -1;
+    public static final int TT_EOL = '\n';
+    public static final int TT_NUMBER = -2;
+    public static final int TT_WORD = -3;
+    private static final int TT_NOTHING = -4;
+
+    /**
+     * Default number of chars read from the reader at a time
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int MAX_CACHED_LENGTH = 64;
+
+    private static final byte CT_WHITESPACE = 1;
+    private static final byte CT_DIGIT = 2;
+    private static final byte CT_ALPHA = 4;
+    private static final byte CT_QUOTE = 8;
+    private static final byte CT_COMMENT = 16;
+
+    private static final int NEED_CHAR = Integer.MAX_VALUE;
+    private static final int SKIP_LF = Integer.MAX_VALUE - 1;
+
+    /**
+     * The type of the last token: TT_EOF, TT_EOL, TT_NUMBER, TT_WORD, a quote character for a quoted string or the
+     * character itself for an ordinary character.
+     */
+    public int ttype = TT_NOTHING;
+
+    /**
+     * The value of the last word or quoted string token
+     */
+    public String sval;
+
+    /**
+     * The value of the last number token
+     */
+    public double nval;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    private final byte[] ctype = new byte[256];
+    private boolean eolIsSignificant = false;
+    private boolean slashStarComments = false;
+    private boolean slashSlashComments = false;
+
+    private char[] token = new char[128];
+    private final String[] cache = new String[CACHE_SIZE];
+
+    private int peekc = NEED_CHAR;
+    private boolean pushedBack = false;
+    private int lineno = 1;
+
+    public Lexer(final Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Lexer(final Reader reader, final int bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("Buffer size must be positive");
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Makes all characters ordinary.
+     */
+    public void resetSyntax() {
+        for (int i = 0; i < this.ctype.length; i++) {
+            this.ctype[i] = 0;
+        }
+    }
+
+    /**
+     * Sets the syntax of java.io.StreamTokenizer: letters and the characters above 160 are word characters, the
+     * characters up to the space are whitespace, '/' is a comment character, '"' and '\'' are quote characters and
+     * numbers are parsed.
+     */
+    public void defaultSyntax() {
+        resetSyntax();
+        wordChars('a', 'z');
+        wordChars('A', 'Z');
+        wordChars(128 + 32, 255);
+        whitespaceChars(0, ' ');
+        commentChar('/');
+        quoteChar('"');
+        quoteChar('\'');
+        parseNumbers();
+    }
+
+    public void wordChars(int low, int high) {
+        if (low < 0) low = 0;
+        if (high >= this.ctype.length) high = this.ctype.length - 1;
+        while (low <= high) {
+            this.ctype[low++] |= CT_ALPHA;
+        }
+    }
+
+    public void whitespaceChars(int low, int high) {
+        if (low < 0) low = 0;
+        if (high >= this.ctype.length) high = this.ctype.length - 1;
+        while (low <= high) {
+            this.ctype[low++] = CT_WHITESPACE;
+        }
+    }
+
+    public void ordinaryChar(final int c) {
+        if (c >= 0 && c < this.ctype.length) this.ctype[c] = 0;
+    }
+
+    public void commentChar(final int c) {
+        if (c >= 0 && c < this.ctype.length) this.ctype[c] = CT_COMMENT;
+    }
+
+    public void quoteChar(final int c) {
+        if (c >= 0 && c < this.ctype.length) this.ctype[c] = CT_QUOTE;
+    }
+
+    /**
+     * Makes the digits, '.' and '-' start numbers.
+     */
+    public void parseNumbers() {
+        for (int i = '0'; i <= '9'; i++) {
+            this.ctype[i] |= CT_DIGIT;
+        }
+        this.ctype['.'] |= CT_DIGIT;
+        this.ctype['-'] |= CT_DIGIT;
+    }
+
+    public void eolIsSignificant(final boolean flag) {
+        this.eolIsSignificant = flag;
+    }
+
+    public void slashStarComments(final boolean flag) {
+        this.slashStarComments = flag;
+    }
+
+    public void slashSlashComments(final boolean flag) {
+        this.slashSlashComments = flag;
+    }
+
+    /**
+     * @return the current line number
+     */
+    public int lineno() {
+        return this.lineno;
+    }
+
+    /**
+     * Causes the next call to nextToken to return the current token again.
+     */
+    public void pushBack() {
+        if (this.ttype != TT_NOTHING) this.pushedBack = true;
+    }
+
+    /**
+     * @return the type of the next token, which is also stored in ttype
+     */
+    public int nextToken() throws IOException {
+        if (this.pushedBack) {
+            this.pushedBack = false;
+            return this.ttype;
+        }
+        this.sval = null;
+
+        int c = this.peekc;
+        if (c < 0) c = NEED_CHAR;
+        if (c == SKIP_LF) {
+            c = read();
+            if (c < 0) return this.ttype = TT_EOF;
+            if (c == '\n') c = NEED_CHAR;
+        }
+        if (c == NEED_CHAR) {
+            c = read();
+            if (c < 0) return this.ttype = TT_EOF;
+        }
+        this.ttype = c;
+        this.peekc = NEED_CHAR;
+
+        int type = c < 256 ? this.ctype[c] : CT_ALPHA;
+        while ((type & CT_WHITESPACE) != 0) {
+            if (c == '\r') {
+                this.lineno++;
+                if (this.eolIsSignificant) {
+                    this.peekc = SKIP_LF;
+                    return this.ttype = TT_EOL;
+                }
+                c = read();
+                if (c == '\n') c = read();
+            } else {
+                if (c == '\n') {
+                    this.lineno++;
+                    if (this.eolIsSignificant) return this.ttype = TT_EOL;
+                }
+                c = read();
+            }
+            if (c < 0) return this.ttype = TT_EOF;
+            type = c < 256 ? this.ctype[c] : CT_ALPHA;
+        }
+
+        if ((type & CT_DIGIT) != 0) return readNumber(c);
+        if ((type & CT_ALPHA) != 0) return readWord(c);
+        if ((type & CT_QUOTE) != 0) return readQuoted(c);
+
+        if (c == '/' && (this.slashSlashComments || this.slashStarComments)) {
+            c = read();
+            if (c == '*' && this.slashStarComments) {
+                int previous = 0;
+                while ((c = read()) != '/' || previous != '*') {
+                    if (c < 0) return this.ttype = TT_EOF;
+                    if (c == '\r') {
+                        this.lineno++;
+                        if (peek() == '\n') read();
+                    } else if (c == '\n') {
+                        this.lineno++;
+                    }
+                    previous = c;
+                }
+                return nextToken();
+            } else if (c == '/' && this.slashSlashComments) {
+                skipLine();
+                return nextToken();
+            } else if ((this.ctype['/'] & CT_COMMENT) != 0) {
+                if (c != '\n' && c != '\r' && c >= 0) skipLine();
+                else this.peekc = c;
+                return nextToken();
+            } else {
+                this.peekc = c;
+                return this.ttype = '/';
+            }
+        }
+
+        if ((type & CT_COMMENT) != 0) {
+            skipLine();
+            return nextToken();
+        }
+
+        return this.ttype = c;
+    }
+
+    /**
+     * Reads the remainder of the current line, including a character held after the last token, and moves to the
+     * beginning of the next line. A token that was pushed back is discarded.
+     *
+     * @return the remainder of the line without its line terminator or null at the end of the stream
+     */
+    public String readLine() throws IOException {
+        this.pushedBack = false;
+        this.sval = null;
+        int c = this.peekc;
+        this.peekc = NEED_CHAR;
+        if (c == SKIP_LF) {
+            c = read();
+            if (c == '\n') c = read();
+        } else if (c == NEED_CHAR) {
+            c = read();
+        }
+        if (c < 0) {
+            this.ttype = TT_EOF;
+            return null;
+        }
+
+        int length = 0;
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (length == this.token.length) growToken();
+            this.token[length++] = (char) c;
+            c = read();
+        }
+        this.lineno++;
+        if (c == '\r' && peek() == '\n') read();
+        this.ttype = TT_EOL;
+        return new String(this.token, 0, length);
+    }
+
+    /**
+     * @return the String of the chars, which is the same instance as for an equal String returned recently
+     */
+    public String intern(final char[] chars, final int offset, final int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return intern(chars, offset, length, hash);
+    }
+
+    private String intern(final char[] chars, final int offset, final int length, final int hash) {
+        if (length > MAX_CACHED_LENGTH) return new String(chars, offset, length);
+        final int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        final String cached = this.cache[slot];
+        if (null != cached && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == chars[offset + i]) {
+                i++;
+            }
+            if (i == length) return cached;
+        }
+        final String string = new String(chars, offset, length);
+        this.cache[slot] = string;
+        return string;
+    }
+
+    private int readNumber(int c) throws IOException {
+        boolean negative = false;
+        if (c == '-') {
+            c = read();
+            if (c != '.' && (c < '0' || c > '9')) {
+                this.peekc = c;
+                return this.ttype = '-';
+            }
+            negative = true;
+        }
+        double value = 0;
+        int decimals = 0;
+        boolean seenDot = false;
+        while (true) {
+            if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else if ('0' <= c && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (seenDot) decimals++;
+            } else {
+                break;
+            }
+            c = read();
+        }
+        this.peekc = c;
+        if (decimals != 0) {
+            double denominator = 10;
+            while (--decimals > 0) {
+                denominator *= 10;
+            }
+            value = value / denominator;
+        }
+        this.nval = negative ? -value : value;
+        return this.ttype = TT_NUMBER;
+    }
+
+    private int readWord(int c) throws IOException {
+        int length = 0;
+        int hash = 0;
+        int type;
+        do {
+            if (length == this.token.length) growToken();
+            this.token[length++] = (char) c;
+            hash = 31 * hash + c;
+            c = read();
+            type = c < 0 ? CT_WHITESPACE : c < 256 ? this.ctype[c] : CT_ALPHA;
+        } while ((type & (CT_ALPHA | CT_DIGIT)) != 0);
+        this.peekc = c;
+        this.sval = intern(this.token, 0, length, hash);
+        return this.ttype = TT_WORD;
+    }
+
+    private int readQuoted(final int quote) throws IOException {
+        this.ttype = quote;
+        int length = 0;
+        int hash = 0;
+        int d = read();
+        while (d >= 0 && d != quote && d != '\n' && d != '\r') {
+            int c;
+            if (d == '\\') {
+                c = read();
+                final int first = c;
+                if (c >= '0' && c <= '7') {
+                    c = c - '0';
+                    int c2 = read();
+                    if ('0' <= c2 && c2 <= '7') {
+                        c = (c << 3) + (c2 - '0');
+                        c2 = read();
+                        if ('0' <= c2 && c2 <= '7' && first <= '3') {
+                            c = (c << 3) + (c2 - '0');
+                            d = read();
+                        } else {
+                            d = c2;
+                        }
+                    } else {
+                        d = c2;
+                    }
+                } else {
+                    if (c == 'a') c = 0x7;
+                    else if (c == 'b') c = '\b';
+                    else if (c == 'f') c = 0xC;
+                    else if (c == 'n') c = '\n';
+                    else if (c == 'r') c = '\r';
+                    else if (c == 't') c = '\t';
+                    else if (c == 'v') c = 0xB;
+                    d = read();
+                }
+            } else {
+                c = d;
+                d = read();
+            }
+            if (length == this.token.length) growToken();
+            this.token[length++] = (char) c;
+            hash = 31 * hash + (char) c;
+        }
+        this.peekc = d == quote ? NEED_CHAR : d;
+        this.sval = intern(this.token, 0, length, hash);
+        return this.ttype;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != '\n' && c != '\r' && c >= 0) ;
+        this.peekc = c;
+    }
+
+    private void growToken() {
+        final char[] grown = new char[this.token.length * 2];
+        System.arraycopy(this.token, 0, grown, 0, this.token.length);
+        this.token = grown;
+    }
+
+    private int read() throws IOException {
+        if (this.position == this.limit && !fill()) return -1;
+        return this.buffer[this.position++];
+    }
+
+    private int peek() throws IOException {
+        if (this.position == this.limit && !fill()) return -1;
+        return this.buffer[this.position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = this.reader.read(this.buffer, 0, this.buffer.length);
+        } while (read == 0);
+        if (read < 0) return false;
+        this.position = 0;
+        this.limit = read;
+        return true;
+    }
+}
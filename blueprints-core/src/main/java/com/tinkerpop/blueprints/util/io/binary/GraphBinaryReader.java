@@ -0,0 +1,408 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * GraphBinaryReader reads the data of a binary stream written by {@link GraphBinaryWriter} to a graph.
+ * <p/>
+ * The checksum of every block is verified before its records are read. The elements are added through a
+ * {@link BatchGraph}, which buffers the properties of each element so that it is created with all of them.
+ */
+public class GraphBinaryReader {
+
+    private final Graph graph;
+
+    /**
+     * @param graph the graph to populate with the binary data
+     */
+    public GraphBinaryReader(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     * In practice, usually the provided graph is empty.
+     *
+     * @param binaryInputStream an InputStream of binary data
+     * @throws IOException thrown when the binary data is not correctly formatted
+     */
+    public void inputGraph(final InputStream binaryInputStream) throws IOException {
+        GraphBinaryReader.inputGraph(this.graph, binaryInputStream, 1000);
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     * In practice, usually the provided graph is empty.
+     *
+     * @param binaryInputStream an InputStream of binary data
+     * @param bufferSize        the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @throws IOException thrown when the binary data is not correctly formatted
+     */
+    public void inputGraph(final InputStream binaryInputStream, final int bufferSize) throws IOException {
+        GraphBinaryReader.inputGraph(this.graph, binaryInputStream, bufferSize);
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     * In practice, usually the provided graph is empty.
+     *
+     * @param graph             the graph to populate with the binary data
+     * @param binaryInputStream an InputStream of binary data
+     * @throws IOException thrown when the binary data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final InputStream binaryInputStream) throws IOException {
+        GraphBinaryReader.inputGraph(graph, binaryInputStream, 1000);
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     * More control over how data is streamed is provided by this method.
+     * <p/>
+     * If the provided graph is already a BatchGraph it is used as it is configured, otherwise the properties of each
+     * element are buffered so that the element is created together with them.
+     *
+     * @param inputGraph        the graph to populate with the binary data
+     * @param binaryInputStream an InputStream of binary data
+     * @param bufferSize        the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @throws IOException thrown when the binary data is not correctly formatted
+     */
+    public static void inputGraph(final Graph inputGraph, final InputStream binaryInputStream, final int bufferSize) throws IOException {
+        final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
+        if (graph != inputGraph) graph.setPropertyBuffering(true);
+
+        final DataInputStream in = new DataInputStream(binaryInputStream);
+        if (in.readInt() != GraphBinaryTokens.MAGIC)
+            throw new IOException("Expected the binary data to start with the graph binary magic number");
+        final int version = in.readUnsignedByte();
+        if (version != GraphBinaryTokens.VERSION)
+            throw new IOException("Unsupported graph binary version: " + version);
+
+        final BlockReader reader = new BlockReader(graph);
+        final Inflater inflater = new Inflater();
+        final CRC32 checksum = new CRC32();
+        byte[] stored = new byte[0];
+        try {
+            int block;
+            while ((block = in.readUnsignedByte()) != GraphBinaryTokens.BLOCK_END) {
+                if (block != GraphBinaryTokens.BLOCK_DATA)
+                    throw new IOException("Unknown block type: " + block);
+                final int compression = in.readUnsignedByte();
+                final int rawLength = readVarInt(in);
+                final int storedLength = readVarInt(in);
+                final int expectedChecksum = in.readInt();
+
+                if (stored.length < storedLength) stored = new byte[storedLength];
+                in.readFully(stored, 0, storedLength);
+
+                final byte[] raw = reader.prepare(rawLength);
+                if (compression == GraphBinaryTokens.COMPRESSION_NONE) {
+                    if (storedLength != rawLength) throw new IOException("Block length does not match its data");
+                    System.arraycopy(stored, 0, raw, 0, rawLength);
+                } else if (compression == GraphBinaryTokens.COMPRESSION_DEFLATE) {
+                    inflater.reset();
+                    inflater.setInput(stored, 0, storedLength);
+                    try {
+                        if (inflater.inflate(raw, 0, rawLength) != rawLength || !inflater.finished())
+                            throw new IOException("Block length does not match its data");
+                    } catch (DataFormatException e) {
+                        throw new IOException("Block data is corrupted", e);
+                    }
+                } else {
+                    throw new IOException("Unknown block compression: " + compression);
+                }
+
+                checksum.reset();
+                checksum.update(raw, 0, rawLength);
+                if ((int) checksum.getValue() != expectedChecksum)
+                    throw new IOException("Block checksum does not match its data");
+
+                reader.readRecords();
+            }
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of the binary data", e);
+        } finally {
+            inflater.end();
+        }
+
+        graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+    }
+
+    private static int readVarInt(final DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads the records of a block, holding the string table across blocks.
+     */
+    private static class BlockReader {
+        private final BatchGraph graph;
+        private final List<String> strings = new ArrayList<String>();
+        private byte[] data = new byte[0];
+        private int position;
+        private int limit;
+        private char[] chars = new char[64];
+
+        BlockReader(final BatchGraph graph) {
+            this.graph = graph;
+        }
+
+        byte[] prepare(final int length) {
+            if (this.data.length < length) this.data = new byte[length];
+            this.position = 0;
+            this.limit = length;
+            return this.data;
+        }
+
+        void readRecords() throws IOException {
+            while (this.position < this.limit) {
+                final int record = readByte();
+                if (record == GraphBinaryTokens.RECORD_STRING) {
+                    this.strings.add(readString());
+                } else if (record == GraphBinaryTokens.RECORD_VERTEX) {
+                    final Vertex vertex = this.graph.addVertex(readValue());
+                    readProperties(vertex);
+                } else if (record == GraphBinaryTokens.RECORD_EDGE) {
+                    final Object id = readValue();
+                    final Object outId = readValue();
+                    final Object inId = readValue();
+                    final String label = readTableString();
+                    final Vertex outVertex = this.graph.getVertex(outId);
+                    final Vertex inVertex = this.graph.getVertex(inId);
+                    if (outVertex == null || inVertex == null)
+                        throw new IOException("Edge " + id + " refers to a vertex that has not been read");
+                    final Edge edge = this.graph.addEdge(id, outVertex, inVertex, label);
+                    readProperties(edge);
+                } else {
+                    throw new IOException("Unknown record type: " + record);
+                }
+            }
+        }
+
+        private void readProperties(final Element element) throws IOException {
+            final int count = readVarInt();
+            for (int i = 0; i < count; i++) {
+                final String key = readTableString();
+                final Object value = readValue();
+                if (value != null) element.setProperty(key, value);
+            }
+        }
+
+        private String readTableString() throws IOException {
+            final int index = readVarInt();
+            if (index >= this.strings.size()) throw new IOException("Unknown string table index: " + index);
+            return this.strings.get(index);
+        }
+
+        private Object readValue() throws IOException {
+            final int type = readByte();
+            switch (type) {
+                case GraphBinaryTokens.TYPE_NULL:
+                    return null;
+                case GraphBinaryTokens.TYPE_FALSE:
+                    return Boolean.FALSE;
+                case GraphBinaryTokens.TYPE_TRUE:
+                    return Boolean.TRUE;
+                case GraphBinaryTokens.TYPE_INTEGER:
+                    return unzigzag(readVarInt());
+                case GraphBinaryTokens.TYPE_LONG:
+                    return unzigzag(readVarLong());
+                case GraphBinaryTokens.TYPE_FLOAT:
+                    return Float.intBitsToFloat(readInt());
+                case GraphBinaryTokens.TYPE_DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case GraphBinaryTokens.TYPE_STRING:
+                    return readString();
+                case GraphBinaryTokens.TYPE_NUMERIC_STRING:
+                    return String.valueOf(unzigzag(readVarLong()));
+                case GraphBinaryTokens.TYPE_LIST: {
+                    final int length = readLength();
+                    final List<Object> list = new ArrayList<Object>(length);
+                    for (int i = 0; i < length; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case GraphBinaryTokens.TYPE_MAP: {
+                    final int length = readLength();
+                    final Map<Object, Object> map = new HashMap<Object, Object>();
+                    for (int i = 0; i < length; i++) {
+                        final Object key = readValue();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                case GraphBinaryTokens.TYPE_BOOLEAN_ARRAY: {
+                    final boolean[] array = new boolean[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readByte() == GraphBinaryTokens.TYPE_TRUE;
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_INTEGER_ARRAY: {
+                    final int[] array = new int[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = unzigzag(readVarInt());
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_LONG_ARRAY: {
+                    final long[] array = new long[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = unzigzag(readVarLong());
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_FLOAT_ARRAY: {
+                    final float[] array = new float[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = Float.intBitsToFloat(readInt());
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_DOUBLE_ARRAY: {
+                    final double[] array = new double[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = Double.longBitsToDouble(readLong());
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_STRING_ARRAY: {
+                    final String[] array = new String[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = (String) readValue();
+                    }
+                    return array;
+                }
+                case GraphBinaryTokens.TYPE_SERIALIZABLE: {
+                    final int length = readLength();
+                    final ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(this.data, this.position, length));
+                    this.position += length;
+                    try {
+                        return objects.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException("Cannot read the serialized property value", e);
+                    } finally {
+                        objects.close();
+                    }
+                }
+                default:
+                    throw new IOException("Unknown value type: " + type);
+            }
+        }
+
+        private static int unzigzag(final int value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private static long unzigzag(final long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private void require(final int length) throws IOException {
+            if (length < 0 || this.position + length > this.limit)
+                throw new IOException("Record extends beyond the end of its block");
+        }
+
+        private int readByte() throws IOException {
+            require(1);
+            return this.data[this.position++] & 0xFF;
+        }
+
+        /**
+         * @return a length which is checked against the data left in the block, as every item takes at least a byte
+         */
+        private int readLength() throws IOException {
+            final int length = readVarInt();
+            require(length);
+            return length;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            final byte[] d = this.data;
+            final int p = this.position;
+            this.position += 4;
+            return ((d[p] & 0xFF) << 24) | ((d[p + 1] & 0xFF) << 16) | ((d[p + 2] & 0xFF) << 8) | (d[p + 3] & 0xFF);
+        }
+
+        private long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        private String readString() throws IOException {
+            final int length = readLength();
+            if (this.chars.length < length) this.chars = Arrays.copyOf(this.chars, Math.max(length, this.chars.length * 2));
+            final byte[] d = this.data;
+            final int end = this.position + length;
+            int count = 0;
+            int p = this.position;
+            while (p < end) {
+                final int b = d[p++] & 0xFF;
+                if (b < 0x80) {
+                    this.chars[count++] = (char) b;
+                } else if (b < 0xE0) {
+                    if (p >= end) throw new IOException("Malformed string");
+                    this.chars[count++] = (char) (((b & 0x1F) << 6) | (d[p++] & 0x3F));
+                } else if (b < 0xF0) {
+                    if (p + 1 >= end) throw new IOException("Malformed string");
+                    this.chars[count++] = (char) (((b & 0x0F) << 12) | ((d[p] & 0x3F) << 6) | (d[p + 1] & 0x3F));
+                    p += 2;
+                } else {
+                    if (p + 2 >= end) throw new IOException("Malformed string");
+                    final int codePoint = ((b & 0x07) << 18) | ((d[p] & 0x3F) << 12) | ((d[p + 1] & 0x3F) << 6) | (d[p + 2] & 0x3F);
+                    if (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT) throw new IOException("Malformed string");
+                    count += Character.toChars(codePoint, this.chars, count);
+                    p += 3;
+                }
+            }
+            this.position = end;
+            return new String(this.chars, 0, count);
+        }
+    }
+}
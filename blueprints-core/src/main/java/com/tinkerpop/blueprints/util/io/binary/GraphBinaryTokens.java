@@ -0,0 +1,45 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+/**
+ * A collection of tokens used for the binary graph format.
+ * <p/>
+ * A stream starts with MAGIC and VERSION, followed by blocks. A block is its type, its compression, the varint
+ * lengths of its data uncompressed and as stored, the CRC32 of the uncompressed data and the stored data. The data
+ * of a block is a sequence of records, each starting with its type: a STRING record adds a label or property key to
+ * the string table, a VERTEX record is the vertex id and its properties, and an EDGE record is the edge id, the ids
+ * of its out and in vertex, the string table index of its label and its properties. Properties are the number of
+ * properties followed by the string table index of each key and its value. Ids and values start with their type.
+ */
+public class GraphBinaryTokens {
+    public static final int MAGIC = 0x42504742;
+    public static final byte VERSION = 1;
+
+    public static final byte BLOCK_END = 0;
+    public static final byte BLOCK_DATA = 1;
+
+    public static final byte COMPRESSION_NONE = 0;
+    public static final byte COMPRESSION_DEFLATE = 1;
+
+    public static final byte RECORD_STRING = 1;
+    public static final byte RECORD_VERTEX = 2;
+    public static final byte RECORD_EDGE = 3;
+
+    public static final byte TYPE_NULL = 0;
+    public static final byte TYPE_FALSE = 1;
+    public static final byte TYPE_TRUE = 2;
+    public static final byte TYPE_INTEGER = 3;
+    public static final byte TYPE_LONG = 4;
+    public static final byte TYPE_FLOAT = 5;
+    public static final byte TYPE_DOUBLE = 6;
+    public static final byte TYPE_STRING = 7;
+    public static final byte TYPE_NUMERIC_STRING = 8;
+    public static final byte TYPE_LIST = 9;
+    public static final byte TYPE_MAP = 10;
+    public static final byte TYPE_BOOLEAN_ARRAY = 11;
+    public static final byte TYPE_INTEGER_ARRAY = 12;
+    public static final byte TYPE_LONG_ARRAY = 13;
+    public static final byte TYPE_FLOAT_ARRAY = 14;
+    public static final byte TYPE_DOUBLE_ARRAY = 15;
+    public static final byte TYPE_STRING_ARRAY = 16;
+    public static final byte TYPE_SERIALIZABLE = 17;
+}
@@ -0,0 +1,421 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GraphBinaryWriter writes a Graph to a compact binary OutputStream, as described in {@link GraphBinaryTokens}.
+ * <p/>
+ * Labels and property keys are written once into a string table and referred to by their index, ids and numbers are
+ * varint encoded, and the records are written in blocks which are compressed and checksummed individually.
+ * The vertices are written before the edges, so that the stream can be loaded in a single pass.
+ */
+public class GraphBinaryWriter {
+
+    /**
+     * Default size of the uncompressed data of a block in bytes
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final Graph graph;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private byte[] buffer;
+    private int size;
+    private DataOutputStream out;
+    private Deflater deflater;
+    private final CRC32 checksum = new CRC32();
+    private byte[] compressed = new byte[0];
+
+    /**
+     * @param graph the Graph to pull the data from
+     */
+    public GraphBinaryWriter(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @param compressionLevel the Deflater level the blocks are compressed with, Deflater.NO_COMPRESSION to store them uncompressed
+     */
+    public void setCompressionLevel(final int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param blockSize the size of the uncompressed data after which a block is written
+     */
+    public void setBlockSize(final int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Write the data in a Graph to a binary OutputStream.
+     *
+     * @param binaryOutputStream the binary OutputStream to write the Graph data to
+     * @throws IOException thrown if there is an error generating the binary data
+     */
+    public void outputGraph(final OutputStream binaryOutputStream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(binaryOutputStream, 64 * 1024));
+        this.buffer = new byte[Math.min(this.blockSize, DEFAULT_BLOCK_SIZE) + 1024];
+        this.size = 0;
+        this.strings.clear();
+        this.deflater = this.compressionLevel == Deflater.NO_COMPRESSION ? null : new Deflater(this.compressionLevel);
+
+        try {
+            this.out.writeInt(GraphBinaryTokens.MAGIC);
+            this.out.writeByte(GraphBinaryTokens.VERSION);
+
+            for (final Vertex vertex : this.graph.getVertices()) {
+                final Set<String> keys = defineKeys(vertex);
+                writeByte(GraphBinaryTokens.RECORD_VERTEX);
+                writeValue(vertex.getId());
+                writeProperties(vertex, keys);
+                if (this.size >= this.blockSize) writeBlock();
+            }
+
+            for (final Edge edge : this.graph.getEdges()) {
+                final Set<String> keys = defineKeys(edge);
+                final int label = defineString(edge.getLabel());
+                writeByte(GraphBinaryTokens.RECORD_EDGE);
+                writeValue(edge.getId());
+                writeValue(edge.getVertex(Direction.OUT).getId());
+                writeValue(edge.getVertex(Direction.IN).getId());
+                writeVarInt(label);
+                writeProperties(edge, keys);
+                if (this.size >= this.blockSize) writeBlock();
+            }
+
+            if (this.size > 0) writeBlock();
+            this.out.writeByte(GraphBinaryTokens.BLOCK_END);
+            this.out.flush();
+        } finally {
+            if (this.deflater != null) this.deflater.end();
+            this.buffer = null;
+            this.out = null;
+        }
+    }
+
+    /**
+     * Write the data in a Graph to a binary OutputStream.
+     *
+     * @param graph              the Graph to pull the data from
+     * @param binaryOutputStream the binary OutputStream to write the Graph data to
+     * @throws IOException thrown if there is an error generating the binary data
+     */
+    public static void outputGraph(final Graph graph, final OutputStream binaryOutputStream) throws IOException {
+        new GraphBinaryWriter(graph).outputGraph(binaryOutputStream);
+    }
+
+    private Set<String> defineKeys(final Element element) {
+        final Set<String> keys = element.getPropertyKeys();
+        for (final String key : keys) {
+            defineString(key);
+        }
+        return keys;
+    }
+
+    /**
+     * @return the index of the string in the string table, which is added to it by a STRING record if it is new
+     */
+    private int defineString(final String string) {
+        final Integer index = this.strings.get(string);
+        if (index != null) return index;
+        final int newIndex = this.strings.size();
+        this.strings.put(string, newIndex);
+        writeByte(GraphBinaryTokens.RECORD_STRING);
+        writeString(string);
+        return newIndex;
+    }
+
+    private void writeProperties(final Element element, final Set<String> keys) throws IOException {
+        writeVarInt(keys.size());
+        for (final String key : keys) {
+            writeVarInt(this.strings.get(key));
+            writeValue(element.getProperty(key));
+        }
+    }
+
+    private void writeValue(final Object value) throws IOException {
+        if (value == null) {
+            writeByte(GraphBinaryTokens.TYPE_NULL);
+        } else if (value instanceof String) {
+            final String string = (String) value;
+            if (isNumeric(string)) {
+                writeByte(GraphBinaryTokens.TYPE_NUMERIC_STRING);
+                writeVarLong(zigzag(Long.parseLong(string)));
+            } else {
+                writeByte(GraphBinaryTokens.TYPE_STRING);
+                writeString(string);
+            }
+        } else if (value instanceof Integer) {
+            writeByte(GraphBinaryTokens.TYPE_INTEGER);
+            writeVarInt(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            writeByte(GraphBinaryTokens.TYPE_LONG);
+            writeVarLong(zigzag((Long) value));
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? GraphBinaryTokens.TYPE_TRUE : GraphBinaryTokens.TYPE_FALSE);
+        } else if (value instanceof Double) {
+            writeByte(GraphBinaryTokens.TYPE_DOUBLE);
+            writeLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Float) {
+            writeByte(GraphBinaryTokens.TYPE_FLOAT);
+            writeInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof List) {
+            final List list = (List) value;
+            writeByte(GraphBinaryTokens.TYPE_LIST);
+            writeVarInt(list.size());
+            for (final Object item : list) {
+                writeValue(item);
+            }
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            writeByte(GraphBinaryTokens.TYPE_MAP);
+            writeVarInt(map.size());
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof int[]) {
+            final int[] array = (int[]) value;
+            writeByte(GraphBinaryTokens.TYPE_INTEGER_ARRAY);
+            writeVarInt(array.length);
+            for (final int item : array) {
+                writeVarInt(zigzag(item));
+            }
+        } else if (value instanceof long[]) {
+            final long[] array = (long[]) value;
+            writeByte(GraphBinaryTokens.TYPE_LONG_ARRAY);
+            writeVarInt(array.length);
+            for (final long item : array) {
+                writeVarLong(zigzag(item));
+            }
+        } else if (value instanceof double[]) {
+            final double[] array = (double[]) value;
+            writeByte(GraphBinaryTokens.TYPE_DOUBLE_ARRAY);
+            writeVarInt(array.length);
+            for (final double item : array) {
+                writeLong(Double.doubleToLongBits(item));
+            }
+        } else if (value instanceof float[]) {
+            final float[] array = (float[]) value;
+            writeByte(GraphBinaryTokens.TYPE_FLOAT_ARRAY);
+            writeVarInt(array.length);
+            for (final float item : array) {
+                writeInt(Float.floatToIntBits(item));
+            }
+        } else if (value instanceof boolean[]) {
+            final boolean[] array = (boolean[]) value;
+            writeByte(GraphBinaryTokens.TYPE_BOOLEAN_ARRAY);
+            writeVarInt(array.length);
+            for (final boolean item : array) {
+                writeByte(item ? GraphBinaryTokens.TYPE_TRUE : GraphBinaryTokens.TYPE_FALSE);
+            }
+        } else if (value instanceof String[]) {
+            final String[] array = (String[]) value;
+            writeByte(GraphBinaryTokens.TYPE_STRING_ARRAY);
+            writeVarInt(array.length);
+            for (final String item : array) {
+                writeValue(item);
+            }
+        } else if (value instanceof Serializable) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream objects = new ObjectOutputStream(bytes);
+            objects.writeObject(value);
+            objects.close();
+            writeByte(GraphBinaryTokens.TYPE_SERIALIZABLE);
+            writeBytes(bytes.toByteArray());
+        } else {
+            writeByte(GraphBinaryTokens.TYPE_STRING);
+            writeString(value.toString());
+        }
+    }
+
+    /**
+     * @return whether the string is a long written without leading zeros, which is then written as a number
+     */
+    private static boolean isNumeric(final String string) {
+        final int length = string.length();
+        if (length == 0 || length > 20) return false;
+        final int start = string.charAt(0) == '-' ? 1 : 0;
+        if (start == length || (string.charAt(start) == '0' && (length > start + 1 || start == 1))) return false;
+        for (int i = start; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        if (length - start < 19) return true;
+        try {
+            Long.parseLong(string);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static int zigzag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeBlock() throws IOException {
+        this.checksum.reset();
+        this.checksum.update(this.buffer, 0, this.size);
+
+        byte compression = GraphBinaryTokens.COMPRESSION_NONE;
+        byte[] data = this.buffer;
+        int length = this.size;
+        if (this.deflater != null) {
+            this.deflater.reset();
+            this.deflater.setInput(this.buffer, 0, this.size);
+            this.deflater.finish();
+            if (this.compressed.length < this.size) this.compressed = new byte[this.buffer.length];
+            int compressedLength = 0;
+            while (!this.deflater.finished() && compressedLength < this.size) {
+                compressedLength += this.deflater.deflate(this.compressed, compressedLength, this.compressed.length - compressedLength);
+            }
+            // blocks that do not compress are stored as they are
+            if (this.deflater.finished() && compressedLength < this.size) {
+                compression = GraphBinaryTokens.COMPRESSION_DEFLATE;
+                data = this.compressed;
+                length = compressedLength;
+            }
+        }
+
+        this.out.writeByte(GraphBinaryTokens.BLOCK_DATA);
+        this.out.writeByte(compression);
+        writeVarInt(this.out, this.size);
+        writeVarInt(this.out, length);
+        this.out.writeInt((int) this.checksum.getValue());
+        this.out.write(data, 0, length);
+        this.size = 0;
+    }
+
+    private static void writeVarInt(final DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void ensureCapacity(final int length) {
+        if (this.size + length > this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + length));
+    }
+
+    private void writeByte(final int value) {
+        ensureCapacity(1);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    private void writeInt(final int value) {
+        ensureCapacity(4);
+        this.buffer[this.size++] = (byte) (value >>> 24);
+        this.buffer[this.size++] = (byte) (value >>> 16);
+        this.buffer[this.size++] = (byte) (value >>> 8);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    private void writeLong(final long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+        this.size += bytes.length;
+    }
+
+    /**
+     * Writes the varint length of the string in UTF-8 followed by its UTF-8 bytes. A surrogate pair is written as the
+     * four bytes of its code point, and an unpaired surrogate as three bytes so that it is read back unchanged.
+     */
+    private void writeString(final String string) {
+        final int length = string.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    utf8Length += 1;
+                } else if (isSurrogatePair(string, i)) {
+                    utf8Length += 2;
+                    i++;
+                } else {
+                    utf8Length += 2;
+                }
+            }
+        }
+        writeVarInt(utf8Length);
+        ensureCapacity(utf8Length);
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                this.buffer[this.size++] = (byte) c;
+            } else if (c < 0x800) {
+                this.buffer[this.size++] = (byte) (0xC0 | (c >> 6));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(string, i)) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                this.buffer[this.size++] = (byte) (0xF0 | (codePoint >> 18));
+                this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                this.buffer[this.size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                this.buffer[this.size++] = (byte) (0xE0 | (c >> 12));
+                this.buffer[this.size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static boolean isSurrogatePair(final String string, final int index) {
+        return Character.isHighSurrogate(string.charAt(index)) && index + 1 < string.length() && Character.isLowSurrogate(string.charAt(index + 1));
+    }
+}
@@ -4,10 +4,10 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
+import com.tinkerpop.blueprints.util.io.Lexer;
 
 import java.awt.*;
 import java.io.IOException;
-import java.io.StreamTokenizer;
 
 public class DOTParser {
 
@@ -35,33 +35,33 @@ public class DOTParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    private boolean hasNext(StreamTokenizer st) throws IOException {
-        return st.nextToken() != StreamTokenizer.TT_EOF;
+    private boolean hasNext(Lexer st) throws IOException {
+        return st.nextToken() != Lexer.TT_EOF;
     }
 
-    private String error(StreamTokenizer st) {
+    private String error(Lexer st) {
         return "DOT malformed line number " + st.lineno() + ": ";
     }
 
     private boolean notLineBreak(int type) {
-        return type != StreamTokenizer.TT_EOL;
+        return type != Lexer.TT_EOL;
     }
 
-    public void parse(StreamTokenizer st) throws IOException {
-        while (st.nextToken() != StreamTokenizer.TT_EOF) {
-            if (st.ttype == StreamTokenizer.TT_WORD) {
+    public void parse(Lexer st) throws IOException {
+        while (st.nextToken() != Lexer.TT_EOF) {
+            if (st.ttype == Lexer.TT_WORD) {
                 if (st.sval.equalsIgnoreCase(DOTTokens.DIRECTED) || st.sval.equalsIgnoreCase(DOTTokens.GRAPH)) {
                     directed = st.sval.equalsIgnoreCase(DOTTokens.DIRECTED);
 
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD) {
+                    if (st.ttype == Lexer.TT_WORD) {
                         //graphName = st.sval;
                         st.nextToken();
                     }
 
                     while (st.ttype != '{') {
                         st.nextToken();
-                        if (st.ttype == StreamTokenizer.TT_EOF) {
+                        if (st.ttype == Lexer.TT_EOF) {
                             return;
                         }
                     }
@@ -71,7 +71,7 @@ public class DOTParser {
         }
     }
 
-    private void parseGraph(StreamTokenizer st) throws IOException {
+    private void parseGraph(Lexer st) throws IOException {
         do {
             st.nextToken();
             String key = st.sval;
@@ -89,10 +89,10 @@ public class DOTParser {
                     nodeAttributes(st, node);
                 }
             }
-        } while (st.ttype != StreamTokenizer.TT_EOF);
+        } while (st.ttype != Lexer.TT_EOF);
     }
 
-    protected void edgeStructure(StreamTokenizer st, final Vertex node) throws IOException {
+    protected void edgeStructure(Lexer st, final Vertex node) throws IOException {
         st.nextToken();
         Edge edge = null;
         if (st.ttype == '>' || st.ttype == '-') {
@@ -120,7 +120,7 @@ public class DOTParser {
                 }
             }
         } else {
-            if (st.ttype == StreamTokenizer.TT_WORD) {
+            if (st.ttype == Lexer.TT_WORD) {
                 st.pushBack();
             }
             return;
@@ -135,18 +135,18 @@ public class DOTParser {
         }
     }
 
-    protected void nodeAttributes(StreamTokenizer st, final Vertex node) throws IOException {
+    protected void nodeAttributes(Lexer st, final Vertex node) throws IOException {
         st.nextToken();
 
-        if (st.ttype == ']' || st.ttype == StreamTokenizer.TT_EOF) {
+        if (st.ttype == ']' || st.ttype == Lexer.TT_EOF) {
             return;
-        } else if (st.ttype == StreamTokenizer.TT_WORD) {
+        } else if (st.ttype == Lexer.TT_WORD) {
             // attributes
             if (st.sval.equalsIgnoreCase(DOTTokens.LABEL)) {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         node.setProperty(BlueprintsTokens.LABEL, st.sval);
                     } else {
                         st.pushBack();
@@ -158,7 +158,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         if (DOTTokens.containsColor(st.sval)) {
                             node.setProperty(BlueprintsTokens.COLOR, DOTTokens.getColorFromName(st.sval));
                         } else {
@@ -179,7 +179,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         try {
                             String[] positions = st.sval.split(",");
                             if (positions.length == 2) {
@@ -203,7 +203,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         node.setProperty(BlueprintsTokens.STYLE, st.sval);
                     } else {
                         st.pushBack();
@@ -217,7 +217,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         node.setProperty(attributeName, st.sval);
                     } else {
                         st.pushBack();
@@ -231,16 +231,16 @@ public class DOTParser {
     }
 
 
-    protected void edgeAttributes(StreamTokenizer st, final Edge edge) throws IOException {
+    protected void edgeAttributes(Lexer st, final Edge edge) throws IOException {
         st.nextToken();
-        if (st.ttype == ']' || st.ttype == StreamTokenizer.TT_EOF) {
+        if (st.ttype == ']' || st.ttype == Lexer.TT_EOF) {
             return;
-        } else if (st.ttype == StreamTokenizer.TT_WORD) {
+        } else if (st.ttype == Lexer.TT_WORD) {
             String attributeName = st.sval;
             st.nextToken();
             if (st.ttype == '=') {
                 st.nextToken();
-                if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                     edge.setProperty(attributeName, st.sval);
                 } else {
                     st.pushBack();
@@ -254,7 +254,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         edge.setProperty(BlueprintsTokens.LABEL, st.sval);
                     } else {
                         st.pushBack();
@@ -266,7 +266,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         if (DOTTokens.containsColor(st.sval)) {
                             edge.setProperty(BlueprintsTokens.COLOR, DOTTokens.getColorFromName(st.sval));
                         } else {
@@ -287,7 +287,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') ;
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') ;
                     else {
                         edge.setProperty(BlueprintsTokens.STYLE, st.sval);
                     }
@@ -298,7 +298,7 @@ public class DOTParser {
                 st.nextToken();
                 if (st.ttype == '=') {
                     st.nextToken();
-                    if (st.ttype == StreamTokenizer.TT_WORD || st.ttype == '"') {
+                    if (st.ttype == Lexer.TT_WORD || st.ttype == '"') {
                         try {
                             Float weight = Float.parseFloat(st.sval);
                             edge.setProperty(BlueprintsTokens.WEIGHT, weight);
@@ -316,8 +316,8 @@ public class DOTParser {
         edgeAttributes(st, edge);
     }
 
-    protected String nodeID(StreamTokenizer st) {
-        if (st.ttype == '"' || st.ttype == StreamTokenizer.TT_WORD || (st.ttype >= 'a' && st.ttype <= 'z')
+    protected String nodeID(Lexer st) {
+        if (st.ttype == '"' || st.ttype == Lexer.TT_WORD || (st.ttype >= 'a' && st.ttype <= 'z')
                 || (st.ttype >= 'A' && st.ttype <= 'Z')) {
             return st.sval;
         } else {
@@ -2,6 +2,7 @@ package com.tinkerpop.blueprints.util.io.dot;
 
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.util.io.Lexer;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
 import java.io.*;
@@ -133,8 +134,7 @@ public class DOTReader {
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-        Reader r = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
-        StreamTokenizer st = new StreamTokenizer(r);
+        Lexer st = new Lexer(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
 
         try {
             st.resetSyntax();
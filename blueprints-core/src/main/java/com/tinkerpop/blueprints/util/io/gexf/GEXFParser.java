@@ -1,17 +1,50 @@
 package com.tinkerpop.blueprints.util.io.gexf;
 
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
 
 import javax.xml.stream.*;
-import javax.xml.stream.events.XMLEvent;
 import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses a GEXF document in a single pass with the StAX cursor API, holding no more than the element being parsed.
+ * <p/>
+ * Vertices and edges are added to the graph as their elements are read, with the values of their attvalues converted
+ * to the types declared by the attributes of the document, which are kept in a table per class of element. An edge
+ * with an endpoint which has not been read yet is written to a temporary spill file, and the spilled edges are added
+ * once the document has been read.
+ */
 public class GEXFParser {
 
+    private static final String ATTRIBUTE = "attribute";
+    private static final String ATTRIBUTE_CLASS = "class";
+    private static final String ATTRIBUTE_TITLE = "title";
+    private static final String ATTRIBUTE_DEFAULT = "default";
+    private static final String ATTVALUE = "attvalue";
+    private static final String ATTVALUE_FOR = "for";
+    private static final String ATTVALUE_VALUE = "value";
+    private static final String SIZE = "size";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String defaultEdgeLabel;
 
     private final Graph graph;
@@ -23,12 +56,22 @@ public class GEXFParser {
     private final String edgeLabelKey;
 
     private boolean directed = false;
-    private boolean cancel;
-    private XMLStreamReader xmlReader;
 
+    private final AttributeTable nodeAttributes = new AttributeTable();
+    private final AttributeTable edgeAttributes = new AttributeTable();
+    private AttributeTable attributes = null;
+    private int attribute = -1;
+
+    private final List<Vertex> nodes = new ArrayList<Vertex>();
+    private final PendingEdge edge = new PendingEdge();
+    private boolean inEdge = false;
+
+    private File spillFile = null;
+    private DataOutputStream spill = null;
+    private long spilledEdges = 0;
 
     public GEXFParser(final Graph graph, final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
-                     final String edgeLabelKey) {
+                      final String edgeLabelKey) {
         this.graph = graph;
         this.vertexIdKey = vertexIdKey;
         this.edgeIdKey = edgeIdKey;
@@ -36,92 +79,161 @@ public class GEXFParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    public void parse(BufferedReader reader) {
+    /**
+     * @return the number of edges which referred to a vertex read after them and were spilled to a temporary file
+     */
+    public long getSpilledEdges() {
+        return spilledEdges;
+    }
+
+    public void parse(final InputStream inputStream) throws IOException, XMLStreamException {
+        parse(createInputFactory().createXMLStreamReader(inputStream));
+    }
+
+    /**
+     * @deprecated use {@link #parse(InputStream)}, which lets the XML declaration of the document determine its
+     *             encoding and throws the checked exceptions of reading it rather than wrapping them
+     */
+    @Deprecated
+    public void parse(final BufferedReader reader) {
         try {
-            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-            if (inputFactory.isPropertySupported("javax.xml.stream.isValidating")) {
-                inputFactory.setProperty("javax.xml.stream.isValidating", Boolean.FALSE);
+            parse(createInputFactory().createXMLStreamReader(reader));
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        if (inputFactory.isPropertySupported(XMLInputFactory.IS_VALIDATING)) {
+            inputFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+        }
+        inputFactory.setXMLReporter(new XMLReporter() {
+
+            @Override
+            public void report(String message, String errorType, Object relatedInformation, Location location) throws XMLStreamException {
+                System.out.println("Error:" + errorType + ", message : " + message);
             }
-            inputFactory.setXMLReporter(new XMLReporter() {
+        });
+        return inputFactory;
+    }
 
-                @Override
-                public void report(String message, String errorType, Object relatedInformation, Location location) throws XMLStreamException {
-                    System.out.println("Error:" + errorType + ", message : " + message);
-                }
-            });
-            xmlReader = inputFactory.createXMLStreamReader(reader);
-
-            while (xmlReader.hasNext()) {
-
-                Integer eventType = xmlReader.next();
-                if (eventType.equals(XMLEvent.START_ELEMENT)) {
-                    String name = xmlReader.getLocalName();
-                    if (GEXFTokens.GEXF.equalsIgnoreCase(name)) {
-                        readGexf(xmlReader);
-                    } else if (GEXFTokens.GRAPH.equalsIgnoreCase(name)) {
-                        readGraph(xmlReader);
-                    } else if (GEXFTokens.NODE.equalsIgnoreCase(name)) {
-                        readNode(xmlReader, null);
-                    } else if (GEXFTokens.EDGE.equalsIgnoreCase(name)) {
-                        readEdge(xmlReader);
-                    } else if (GEXFTokens.ATTRIBUTES.equalsIgnoreCase(name)) {
-                        //readAttributes(xmlReader);
-                    }
-                } else if (eventType.equals(XMLStreamReader.END_ELEMENT)) {
-                    String name = xmlReader.getLocalName();
-                    if (GEXFTokens.NODE.equalsIgnoreCase(name)) {
+    private void parse(final XMLStreamReader reader) throws IOException, XMLStreamException {
+        try {
+            try {
+                while (reader.hasNext()) {
+                    final int eventType = reader.next();
+                    if (eventType == XMLStreamConstants.START_ELEMENT) {
+                        startElement(reader);
+                    } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                        endElement(reader.getLocalName());
                     }
                 }
+            } finally {
+                reader.close();
             }
-            xmlReader.close();
-        } catch (Exception e) {
-            if (e instanceof RuntimeException) {
-                throw (RuntimeException) e;
-            }
-            throw new RuntimeException(e);
+            addSpilledEdges();
+        } finally {
+            closeSpill();
         }
     }
 
-    private void readGexf(XMLStreamReader reader) throws Exception {
-        String version = "";
-
-        //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
-            if (GEXFTokens.GEXF_VERSION.equalsIgnoreCase(attName)) {
-                version = reader.getAttributeValue(i);
+    private void startElement(final XMLStreamReader reader) throws IOException, XMLStreamException {
+        final String name = reader.getLocalName();
+        if (GEXFTokens.NODE.equalsIgnoreCase(name)) {
+            readNode(reader);
+        } else if (GEXFTokens.EDGE.equalsIgnoreCase(name)) {
+            readEdge(reader);
+        } else if (ATTVALUE.equalsIgnoreCase(name)) {
+            readAttValue(reader);
+        } else if (GEXFTokens.COLOR.equalsIgnoreCase(name)) {
+            final Color color = readColor(reader);
+            if (inEdge) {
+                edge.setProperty(BlueprintsTokens.COLOR, color.getRGB());
+            } else if (currentNode() != null) {
+                currentNode().setProperty(BlueprintsTokens.COLOR, color.getRGB());
+            }
+        } else if (GEXFTokens.POS.equalsIgnoreCase(name)) {
+            if (!inEdge && currentNode() != null) readNodePosition(reader, currentNode());
+        } else if (SIZE.equalsIgnoreCase(name)) {
+            if (!inEdge && currentNode() != null) readNodeSize(reader, currentNode());
+        } else if (GEXFTokens.ATTRIBUTES.equalsIgnoreCase(name)) {
+            readAttributes(reader);
+        } else if (ATTRIBUTE.equalsIgnoreCase(name)) {
+            readAttribute(reader);
+        } else if (ATTRIBUTE_DEFAULT.equalsIgnoreCase(name)) {
+            // the cursor is left on the end element of the default
+            final String value = reader.getElementText();
+            if (attributes != null && attribute >= 0) {
+                attributes.setDefault(attribute, value);
             }
+        } else if (GEXFTokens.GRAPH.equalsIgnoreCase(name)) {
+            readGraph(reader);
         }
     }
 
-    private void readGraph(XMLStreamReader reader) throws Exception {
-        String mode = "";
-        String defaultEdgeType = "";
-        String start = "";
-        String end = "";
-        String timeFormat = "";
+    private void endElement(final String name) throws IOException {
+        if (GEXFTokens.NODE.equalsIgnoreCase(name)) {
+            if (!nodes.isEmpty()) nodes.remove(nodes.size() - 1);
+        } else if (GEXFTokens.EDGE.equalsIgnoreCase(name)) {
+            if (inEdge) addEdge();
+            inEdge = false;
+        } else if (GEXFTokens.ATTRIBUTES.equalsIgnoreCase(name)) {
+            attributes = null;
+        } else if (ATTRIBUTE.equalsIgnoreCase(name)) {
+            attribute = -1;
+        }
+    }
 
+    private void readGraph(final XMLStreamReader reader) {
         //Attributes
         for (int i = 0; i < reader.getAttributeCount(); i++) {
             String attName = reader.getAttributeName(i).getLocalPart();
             if (GEXFTokens.GRAPH_DEFAULT_EDGETYPE.equalsIgnoreCase(attName)) {
-                defaultEdgeType = reader.getAttributeValue(i);
+                String defaultEdgeType = reader.getAttributeValue(i);
                 if (!defaultEdgeType.isEmpty()) {
                     directed = defaultEdgeType.equalsIgnoreCase(GEXFTokens.DIRECTED);
                 }
-            } else if (GEXFTokens.ATTRIBUTES_TYPE2.equalsIgnoreCase(attName)) {
-                mode = reader.getAttributeValue(i);
-            } else if (GEXFTokens.START.equalsIgnoreCase(attName)) {
-                start = reader.getAttributeValue(i);
-            } else if (GEXFTokens.END.equalsIgnoreCase(attName)) {
-                end = reader.getAttributeValue(i);
-            } else if (GEXFTokens.GRAPH_TIMEFORMAT.equalsIgnoreCase(attName) || GEXFTokens.GRAPH_TIMEFORMAT2.equalsIgnoreCase(attName)) {
-                timeFormat = reader.getAttributeValue(i);
             }
         }
     }
 
-    private void readNode(XMLStreamReader reader, Vertex parent) throws Exception {
+    private void readAttributes(final XMLStreamReader reader) {
+        // attributes are of nodes unless their class is edge
+        attributes = nodeAttributes;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (ATTRIBUTE_CLASS.equalsIgnoreCase(reader.getAttributeName(i).getLocalPart())
+                    && GEXFTokens.EDGE.equalsIgnoreCase(reader.getAttributeValue(i))) {
+                attributes = edgeAttributes;
+            }
+        }
+    }
+
+    private void readAttribute(final XMLStreamReader reader) {
+        if (attributes == null) return;
+        String id = null;
+        String title = null;
+        String type = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attName = reader.getAttributeName(i).getLocalPart();
+            if (GEXFTokens.NODE_ID.equalsIgnoreCase(attName)) {
+                id = reader.getAttributeValue(i);
+            } else if (ATTRIBUTE_TITLE.equalsIgnoreCase(attName)) {
+                title = reader.getAttributeValue(i);
+            } else if (GEXFTokens.EDGE_TYPE.equalsIgnoreCase(attName)) {
+                type = reader.getAttributeValue(i);
+            }
+        }
+        if (id == null) {
+            System.err.println("importerGEXF_error_attributeid");
+            return;
+        }
+        attribute = attributes.add(id, title == null ? id : title, type);
+    }
+
+    private void readNode(final XMLStreamReader reader) {
         String id = "";
 
         //Attributes
@@ -134,15 +246,20 @@ public class GEXFParser {
 
         if (id.isEmpty()) {
             System.err.println("importerGEXF_error_nodeid");
+            // the attvalues of the node are ignored
+            nodes.add(null);
             return;
         }
 
-        Vertex node = null;
-        if (graph.getVertex(id) != null) {
-            node = graph.getVertex(id);
-        } else {
+        Vertex node = graph.getVertex(id);
+        if (node == null) {
             node = graph.addVertex(id);
         }
+        nodes.add(node);
+
+        for (int i = 0; i < nodeAttributes.size; i++) {
+            if (nodeAttributes.defaults[i] != null) node.setProperty(nodeAttributes.titles[i], nodeAttributes.defaults[i]);
+        }
 
         for (int i = 0; i < reader.getAttributeCount(); i++) {
             String attName = reader.getAttributeName(i).getLocalPart();
@@ -150,86 +267,134 @@ public class GEXFParser {
                 String attValue = reader.getAttributeValue(i);
                 if (attName.equalsIgnoreCase(GEXFTokens.LABEL)) {
                     node.setProperty(BlueprintsTokens.LABEL, attValue);
-                } else if (attName.equalsIgnoreCase(GEXFTokens.COLOR)) {
-                    Color color = readColor(reader);
-                    node.setProperty(BlueprintsTokens.COLOR, color.getRGB());
-                } else if (attName.equalsIgnoreCase(GEXFTokens.POS)) {
-                    readNodePosition(reader, node);
                 } else {
                     node.setProperty(attName, attValue);
                 }
             }
         }
+    }
 
-        boolean end = false;
-        while (reader.hasNext() && !end) {
-            int type = reader.next();
-
-            switch (type) {
-                case XMLStreamReader.START_ELEMENT:
-                    readNode(reader, node);
-                    break;
+    private void readEdge(final XMLStreamReader reader) {
+        edge.clear();
+        inEdge = true;
 
-                case XMLStreamReader.END_ELEMENT:
-                    if (GEXFTokens.NODE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
-            }
+        for (int i = 0; i < edgeAttributes.size; i++) {
+            if (edgeAttributes.defaults[i] != null) edge.setProperty(edgeAttributes.titles[i], edgeAttributes.defaults[i]);
         }
 
-    }
-
-    private void readEdge(XMLStreamReader reader) throws Exception {
-        String id = "";
-        String label = "";
-        String source = "";
-        String target = "";
-
         //Attributes
         for (int i = 0; i < reader.getAttributeCount(); i++) {
             String attName = reader.getAttributeName(i).getLocalPart();
+            String value = reader.getAttributeValue(i);
             if (GEXFTokens.EDGE_SOURCE.equalsIgnoreCase(attName)) {
-                source = reader.getAttributeValue(i);
+                edge.source = value;
             } else if (GEXFTokens.EDGE_TARGET.equalsIgnoreCase(attName)) {
-                target = reader.getAttributeValue(i);
+                edge.target = value;
             } else if (GEXFTokens.EDGE_ID.equalsIgnoreCase(attName)) {
-                id = reader.getAttributeValue(i);
+                edge.id = value;
             } else if (GEXFTokens.LABEL.equalsIgnoreCase(attName)) {
-                label = reader.getAttributeValue(i);
+                edge.label = value;
+            } else if (GEXFTokens.COLOR.equalsIgnoreCase(attName)) {
+                // the color of an edge is a child element
+            } else if (GEXFTokens.EDGE_WEIGHT.equalsIgnoreCase(attName)) {
+                edge.setProperty(BlueprintsTokens.WEIGHT, value);
+            } else if (GEXFTokens.EDGE_TYPE.equalsIgnoreCase(attName)) {
+                edge.setProperty(BlueprintsTokens.TYPE, value);
+            } else {
+                edge.setProperty(attName, value);
+            }
+        }
+    }
+
+    private void readAttValue(final XMLStreamReader reader) {
+        String id = null;
+        String value = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attName = reader.getAttributeName(i).getLocalPart();
+            // the attribute of an attvalue is referred to by id in GEXF 1.0
+            if (ATTVALUE_FOR.equalsIgnoreCase(attName) || GEXFTokens.NODE_ID.equalsIgnoreCase(attName)) {
+                id = reader.getAttributeValue(i);
+            } else if (ATTVALUE_VALUE.equalsIgnoreCase(attName)) {
+                value = reader.getAttributeValue(i);
             }
         }
+        if (id == null || value == null) {
+            System.err.println("importerGEXF_error_attvalue");
+            return;
+        }
+
+        final AttributeTable table = inEdge ? edgeAttributes : nodeAttributes;
+        final int index = table.indexOf(id);
+        final String key = index < 0 ? id : table.titles[index];
+        final Object converted = index < 0 ? value : table.convert(index, value);
+        if (inEdge) {
+            edge.setProperty(key, converted);
+        } else if (currentNode() != null) {
+            currentNode().setProperty(key, converted);
+        }
+    }
+
+    /**
+     * @return the vertex of the innermost node being parsed, which is null outside of a node or for a node without id
+     */
+    private Vertex currentNode() {
+        return nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+    }
 
-        Vertex n1 = graph.getVertex(source);
-        Vertex n2 = graph.getVertex(target);
-        Edge edge = null;
+    private void addEdge() throws IOException {
+        if (edgeLabelKey != null) {
+            final Object label = edge.removeProperty(edgeLabelKey);
+            if (label != null) edge.label = label.toString();
+        }
+        if (edgeIdKey != null) {
+            final Object id = edge.removeProperty(edgeIdKey);
+            if (id != null) edge.id = id.toString();
+        }
+
+        final Vertex n1 = graph.getVertex(edge.source);
+        final Vertex n2 = graph.getVertex(edge.target);
         if (n1 != null && n2 != null) {
-            edge = graph.addEdge(id,n1,n2,label);
+            edge.addTo(n1, n2);
         } else {
-            return;
+            spill(edge);
         }
-        if (directed) {
-            edge.setProperty(BlueprintsTokens.DIRECTED, directed);
+    }
+
+    private void spill(final PendingEdge pending) throws IOException {
+        if (spill == null) {
+            spillFile = File.createTempFile("gexf", ".edges");
+            spill = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile), BUFFER_SIZE));
         }
-        //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
-            if (!GEXFTokens.EDGE_SOURCE.equalsIgnoreCase(attName)
-                    && !GEXFTokens.EDGE_TARGET.equalsIgnoreCase(attName)
-                    && !GEXFTokens.EDGE_ID.equalsIgnoreCase(attName)
-                    && !GEXFTokens.LABEL.equalsIgnoreCase(attName)) {
-                String value = reader.getAttributeValue(i);
-                if (GEXFTokens.COLOR.equalsIgnoreCase(attName)) {
-                    Color color = readColor(reader);
-                    edge.setProperty(BlueprintsTokens.COLOR, color.getRGB());
-                } else if (GEXFTokens.EDGE_WEIGHT.equalsIgnoreCase(attName)) {
-                    edge.setProperty(BlueprintsTokens.WEIGHT, value);
-                } else if (GEXFTokens.EDGE_TYPE.equalsIgnoreCase(attName)) {
-                    edge.setProperty(BlueprintsTokens.TYPE, value);
-                } else {
-                    edge.setProperty(attName, value);
+        pending.write(spill);
+        spilledEdges++;
+    }
+
+    private void addSpilledEdges() throws IOException {
+        if (spill == null) return;
+        spill.close();
+        spill = null;
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile), BUFFER_SIZE));
+        try {
+            while (edge.read(in)) {
+                final Vertex n1 = graph.getVertex(edge.source);
+                final Vertex n2 = graph.getVertex(edge.target);
+                if (n1 != null && n2 != null) {
+                    edge.addTo(n1, n2);
                 }
             }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void closeSpill() throws IOException {
+        try {
+            if (spill != null) spill.close();
+        } finally {
+            spill = null;
+            if (spillFile != null) spillFile.delete();
+            spillFile = null;
         }
     }
 
@@ -303,13 +468,243 @@ public class GEXFParser {
     }
 
     private void readNodeSize(XMLStreamReader reader, Vertex node) {
-        String attName = reader.getAttributeName(0).getLocalPart();
-        if (GEXFTokens.SIZE.equalsIgnoreCase(attName)) {
-            String sizeStr = reader.getAttributeValue(0);
-            if (!sizeStr.isEmpty()) {
-                float size = Float.parseFloat(sizeStr);
-                node.setProperty(BlueprintsTokens.SIZE, size);
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attName = reader.getAttributeName(i).getLocalPart();
+            if (GEXFTokens.SIZE.equalsIgnoreCase(attName)) {
+                String sizeStr = reader.getAttributeValue(i);
+                if (!sizeStr.isEmpty()) {
+                    float size = Float.parseFloat(sizeStr);
+                    node.setProperty(BlueprintsTokens.SIZE, size);
+                }
+            }
+        }
+    }
+
+    /**
+     * The attributes declared for a class of elements. The title, type and default value of an attribute are kept in
+     * arrays at the index its id is mapped to, so that an attvalue is resolved with a single lookup.
+     */
+    private static class AttributeTable {
+        private static final byte STRING = 0;
+        private static final byte INTEGER = 1;
+        private static final byte LONG = 2;
+        private static final byte FLOAT = 3;
+        private static final byte DOUBLE = 4;
+        private static final byte BOOLEAN = 5;
+
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+        private String[] titles = new String[8];
+        private byte[] types = new byte[8];
+        private Object[] defaults = new Object[8];
+        private int size = 0;
+
+        private int add(final String id, final String title, final String type) {
+            final Integer existing = ids.get(id);
+            final int index = existing == null ? size++ : existing;
+            if (index == titles.length) {
+                final int capacity = titles.length * 2;
+                final String[] newTitles = new String[capacity];
+                final byte[] newTypes = new byte[capacity];
+                final Object[] newDefaults = new Object[capacity];
+                System.arraycopy(titles, 0, newTitles, 0, index);
+                System.arraycopy(types, 0, newTypes, 0, index);
+                System.arraycopy(defaults, 0, newDefaults, 0, index);
+                titles = newTitles;
+                types = newTypes;
+                defaults = newDefaults;
+            }
+            ids.put(id, index);
+            titles[index] = title;
+            types[index] = typeOf(type);
+            defaults[index] = null;
+            return index;
+        }
+
+        private int indexOf(final String id) {
+            final Integer index = ids.get(id);
+            return index == null ? -1 : index;
+        }
+
+        private void setDefault(final int index, final String value) {
+            defaults[index] = convert(index, value);
+        }
+
+        private Object convert(final int index, final String value) {
+            try {
+                switch (types[index]) {
+                    case INTEGER:
+                        return Integer.valueOf(value.trim());
+                    case LONG:
+                        return Long.valueOf(value.trim());
+                    case FLOAT:
+                        return Float.valueOf(value.trim());
+                    case DOUBLE:
+                        return Double.valueOf(value.trim());
+                    case BOOLEAN:
+                        return Boolean.valueOf(value.trim());
+                    default:
+                        return value;
+                }
+            } catch (NumberFormatException e) {
+                // a value which does not match the type of its attribute is kept as it is
+                return value;
             }
         }
+
+        private static byte typeOf(final String type) {
+            if ("integer".equalsIgnoreCase(type)) return INTEGER;
+            if ("long".equalsIgnoreCase(type)) return LONG;
+            if ("float".equalsIgnoreCase(type)) return FLOAT;
+            if ("double".equalsIgnoreCase(type)) return DOUBLE;
+            if ("boolean".equalsIgnoreCase(type)) return BOOLEAN;
+            return STRING;
+        }
+    }
+
+    /**
+     * The edge being parsed, which is either added to the graph or spilled once its element ends, and is reused for
+     * every edge as well as for reading back the spilled edges.
+     */
+    private class PendingEdge {
+        private static final byte STRING = 0;
+        private static final byte INTEGER = 1;
+        private static final byte LONG = 2;
+        private static final byte FLOAT = 3;
+        private static final byte DOUBLE = 4;
+        private static final byte BOOLEAN = 5;
+
+        private String id;
+        private String source;
+        private String target;
+        private String label;
+        private final List<String> keys = new ArrayList<String>();
+        private final List<Object> values = new ArrayList<Object>();
+
+        private void clear() {
+            id = null;
+            source = null;
+            target = null;
+            label = null;
+            keys.clear();
+            values.clear();
+        }
+
+        private void setProperty(final String key, final Object value) {
+            final int index = keys.indexOf(key);
+            if (index < 0) {
+                keys.add(key);
+                values.add(value);
+            } else {
+                values.set(index, value);
+            }
+        }
+
+        private Object removeProperty(final String key) {
+            final int index = keys.indexOf(key);
+            if (index < 0) return null;
+            keys.remove(index);
+            return values.remove(index);
+        }
+
+        private void addTo(final Vertex outVertex, final Vertex inVertex) {
+            final String edgeLabel = label == null || label.isEmpty() ? defaultEdgeLabel : label;
+            final Edge e = graph.addEdge(id == null || id.isEmpty() ? null : id, outVertex, inVertex, edgeLabel);
+            if (directed) {
+                e.setProperty(BlueprintsTokens.DIRECTED, directed);
+            }
+            setProperties(e);
+        }
+
+        private void setProperties(final Element element) {
+            for (int i = 0; i < keys.size(); i++) {
+                element.setProperty(keys.get(i), values.get(i));
+            }
+        }
+
+        private void write(final DataOutputStream out) throws IOException {
+            writeString(out, id);
+            writeString(out, source);
+            writeString(out, target);
+            writeString(out, label);
+            out.writeInt(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                writeString(out, keys.get(i));
+                final Object value = values.get(i);
+                if (value instanceof Integer) {
+                    out.writeByte(INTEGER);
+                    out.writeInt((Integer) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(LONG);
+                    out.writeLong((Long) value);
+                } else if (value instanceof Float) {
+                    out.writeByte(FLOAT);
+                    out.writeFloat((Float) value);
+                } else if (value instanceof Double) {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble((Double) value);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else {
+                    out.writeByte(STRING);
+                    writeString(out, value.toString());
+                }
+            }
+        }
+
+        /**
+         * @return whether an edge was read, which is not the case at the end of the stream
+         */
+        private boolean read(final DataInputStream in) throws IOException {
+            clear();
+            try {
+                id = readString(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            source = readString(in);
+            target = readString(in);
+            label = readString(in);
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                keys.add(readString(in));
+                final byte type = in.readByte();
+                if (type == INTEGER) {
+                    values.add(in.readInt());
+                } else if (type == LONG) {
+                    values.add(in.readLong());
+                } else if (type == FLOAT) {
+                    values.add(in.readFloat());
+                } else if (type == DOUBLE) {
+                    values.add(in.readDouble());
+                } else if (type == BOOLEAN) {
+                    values.add(in.readBoolean());
+                } else {
+                    values.add(readString(in));
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Strings are written as their length in UTF-8 followed by their bytes, as writeUTF is limited to 64KB.
+     */
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        if (null == string) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = string.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
     }
 }
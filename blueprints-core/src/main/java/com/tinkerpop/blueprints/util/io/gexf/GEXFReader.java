@@ -4,7 +4,6 @@ import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
 import java.io.*;
-import java.nio.charset.Charset;
 
 /**
  * A reader for the Gephi Format (GEXF).
@@ -12,6 +11,10 @@ import java.nio.charset.Charset;
  * GEXF definition taken from
  * (http://gexf.GEXF/format/)
  * <p/>
+ * The document is streamed through a {@link BatchGraph} in a single pass, so that the memory used does not grow
+ * with the size of the document other than for the vertex ids kept by the BatchGraph. Edges which refer to a vertex
+ * defined later in the document are spilled to a temporary file and added at its end.
+ * <p/>
  *
  * @author Jeff Gentes
  * @author Mathieu Bastian <mathieu.bastian@gephi.org> Templated Gephi GEXFImporter
@@ -118,6 +121,8 @@ public class GEXFReader {
 
     /**
      * Load the GEXF file into the Graph.
+     * If the provided graph is already a BatchGraph it is used as it is configured, otherwise the properties of each
+     * element are buffered so that the element is created together with them.
      *
      * @param inputGraph to receive the data
      * @param inputStream GEXF file
@@ -131,9 +136,9 @@ public class GEXFReader {
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
+        if (graph != inputGraph) graph.setPropertyBuffering(true);
         try {
-            new GEXFParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(reader);
+            new GEXFParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(inputStream);
             graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
         } catch (Exception e) {
             throw new IOException("GEXF malformed", e);
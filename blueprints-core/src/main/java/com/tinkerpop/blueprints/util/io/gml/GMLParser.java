@@ -4,9 +4,9 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.Lexer;
 
 import java.io.IOException;
-import java.io.StreamTokenizer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,6 +36,11 @@ class GMLParser {
 
     private int edgeCount = 0;
 
+    /**
+     * The properties of the node or edge being parsed, which are added to the element once it is parsed
+     */
+    private final Map<String, Object> elementMap = new HashMap<String, Object>();
+
     public GMLParser(final Graph graph, final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                      final String edgeLabelKey) {
         this.graph = graph;
@@ -45,7 +50,7 @@ class GMLParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    public void parse(final StreamTokenizer st) throws IOException {
+    public void parse(final Lexer st) throws IOException {
         while (hasNext(st)) {
             int type = st.ttype;
             if (notLineBreak(type)) {
@@ -61,7 +66,7 @@ class GMLParser {
         throw new IOException("Graph not complete");
     }
 
-    private void parseGraph(final StreamTokenizer st) throws IOException {
+    private void parseGraph(final Lexer st) throws IOException {
         checkValid(st, GMLTokens.GRAPH);
         while (hasNext(st)) {
             // st.nextToken();
@@ -179,20 +184,20 @@ class GMLParser {
         }
     }
 
-    private Object parseValue(final String key, final StreamTokenizer st) throws IOException {
+    private Object parseValue(final String key, final Lexer st) throws IOException {
         while (hasNext(st)) {
             final int type = st.ttype;
             if (notLineBreak(type)) {
-                if (type == StreamTokenizer.TT_NUMBER) {
-                    final Double doubleValue = Double.valueOf(st.nval);
-                    if (doubleValue.equals(Double.valueOf(doubleValue.intValue()))) {
-                        return doubleValue.intValue();
+                if (type == Lexer.TT_NUMBER) {
+                    final int intValue = (int) st.nval;
+                    if (intValue == st.nval) {
+                        return intValue;
                     } else {
-                        return doubleValue.floatValue();
+                        return (float) st.nval;
                     }
                 } else {
                     if (type == '[') {
-                        return parseMap(key, st);
+                        return parseMap(key, st, new HashMap<String, Object>());
                     } else if (type == '"') {
                         return st.sval;
                     }
@@ -202,11 +207,11 @@ class GMLParser {
         throw new IOException("value not found");
     }
 
-    private boolean parseBoolean(final StreamTokenizer st) throws IOException {
+    private boolean parseBoolean(final Lexer st) throws IOException {
         while (hasNext(st)) {
             final int type = st.ttype;
             if (notLineBreak(type)) {
-                if (type == StreamTokenizer.TT_NUMBER) {
+                if (type == Lexer.TT_NUMBER) {
                     return st.nval == 1.0;
                 }
             }
@@ -214,21 +219,21 @@ class GMLParser {
         throw new IOException("boolean not found");
     }
 
-    private Map<String, Object> parseNode(final StreamTokenizer st) throws IOException {
+    private Map<String, Object> parseNode(final Lexer st) throws IOException {
         return parseElement(st, GMLTokens.NODE);
     }
 
-    private Map<String, Object> parseEdge(final StreamTokenizer st) throws IOException {
+    private Map<String, Object> parseEdge(final Lexer st) throws IOException {
         return parseElement(st, GMLTokens.EDGE);
     }
 
-    private Map<String, Object> parseElement(final StreamTokenizer st, final String node) throws IOException {
+    private Map<String, Object> parseElement(final Lexer st, final String node) throws IOException {
         checkValid(st, node);
-        return parseMap(node, st);
+        elementMap.clear();
+        return parseMap(node, st, elementMap);
     }
 
-    private Map<String, Object> parseMap(final String node, final StreamTokenizer st) throws IOException {
-        final Map<String, Object> map = new HashMap<String, Object>();
+    private Map<String, Object> parseMap(final String node, final Lexer st, final Map<String, Object> map) throws IOException {
         while (hasNext(st)) {
             final int type = st.ttype;
             if (notLineBreak(type)) {
@@ -244,17 +249,17 @@ class GMLParser {
         throw new IOException(node + " incomplete");
     }
 
-    private void checkValid(final StreamTokenizer st, final String token) throws IOException {
+    private void checkValid(final Lexer st, final String token) throws IOException {
         if (st.nextToken() != '[') {
             throw new IOException(token + " not followed by [");
         }
     }
 
-    private boolean hasNext(final StreamTokenizer st) throws IOException {
-        return st.nextToken() != StreamTokenizer.TT_EOF;
+    private boolean hasNext(final Lexer st) throws IOException {
+        return st.nextToken() != Lexer.TT_EOF;
     }
 
     private boolean notLineBreak(final int type) {
-        return type != StreamTokenizer.TT_EOL;
+        return type != Lexer.TT_EOL;
     }
 }
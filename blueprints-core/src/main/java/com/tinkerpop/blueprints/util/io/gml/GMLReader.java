@@ -2,14 +2,12 @@ package com.tinkerpop.blueprints.util.io.gml;
 
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.util.io.Lexer;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StreamTokenizer;
 import java.nio.charset.Charset;
 
 /**
@@ -136,10 +134,10 @@ public class GMLReader {
                                   final String edgeLabelKey) throws IOException {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
 
-        final Reader r = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
-        final StreamTokenizer st = new StreamTokenizer(r);
+        final Lexer st = new Lexer(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
 
         try {
+            st.defaultSyntax();
             st.commentChar(GMLTokens.COMMENT_CHAR);
             st.ordinaryChar('[');
             st.ordinaryChar(']');
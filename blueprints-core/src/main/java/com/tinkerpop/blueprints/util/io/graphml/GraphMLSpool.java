@@ -0,0 +1,272 @@
+package com.tinkerpop.blueprints.util.io.graphml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A temporary file of the elements written by {@link GraphMLWriter} in single pass mode, which allows the key
+ * headers to be written after the graph has been traversed.
+ * <p/>
+ * A sorted spool returns its records in lexicographical order of their ids with an external merge sort: up to
+ * sortBufferSize records are sorted in memory at a time and written to a run file, and the runs are merged when the
+ * records are read. A spool that fits in a single run never touches the disk.
+ */
+class GraphMLSpool {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Comparator<Record> ID_COMPARATOR = new Comparator<Record>() {
+        public int compare(final Record a, final Record b) {
+            return a.id.compareTo(b.id);
+        }
+    };
+
+    /**
+     * A vertex or edge: its id, for an edge its source, target and label, and its keys with the string form of their values.
+     */
+    static class Record {
+        final String id;
+        final String source;
+        final String target;
+        final String label;
+        final String[] keys;
+        final String[] values;
+
+        Record(final String id, final String source, final String target, final String label, final String[] keys, final String[] values) {
+            this.id = id;
+            this.source = source;
+            this.target = target;
+            this.label = label;
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    private final boolean sorted;
+    private final int sortBufferSize;
+    private final List<Record> buffer = new ArrayList<Record>();
+    private final List<File> files = new ArrayList<File>();
+    private DataOutputStream out = null;
+
+    /**
+     * @param sorted         whether the records are read in lexicographical order of their ids
+     * @param sortBufferSize the number of records sorted in memory at a time
+     */
+    GraphMLSpool(final boolean sorted, final int sortBufferSize) {
+        if (sortBufferSize < 1) throw new IllegalArgumentException("Sort buffer size must be positive");
+        this.sorted = sorted;
+        this.sortBufferSize = sortBufferSize;
+    }
+
+    void add(final Record record) throws IOException {
+        if (this.sorted) {
+            this.buffer.add(record);
+            if (this.buffer.size() >= this.sortBufferSize) writeRun();
+        } else {
+            if (null == this.out) this.out = createFile();
+            writeRecord(this.out, record);
+        }
+    }
+
+    /**
+     * @return an iterator over the records, which must be used before the spool is closed
+     */
+    RecordIterator records() throws IOException {
+        if (null != this.out) {
+            this.out.close();
+            this.out = null;
+        }
+        if (!this.sorted) {
+            return this.files.isEmpty() ? new MemoryIterator(Collections.<Record>emptyList()) : new FileIterator(this.files.get(0));
+        }
+        if (this.files.isEmpty()) {
+            Collections.sort(this.buffer, ID_COMPARATOR);
+            return new MemoryIterator(this.buffer);
+        }
+        if (!this.buffer.isEmpty()) writeRun();
+        return new MergeIterator(this.files);
+    }
+
+    /**
+     * Deletes the files of the spool.
+     */
+    void close() throws IOException {
+        try {
+            if (null != this.out) this.out.close();
+        } finally {
+            this.out = null;
+            this.buffer.clear();
+            for (final File file : this.files) {
+                file.delete();
+            }
+            this.files.clear();
+        }
+    }
+
+    private void writeRun() throws IOException {
+        Collections.sort(this.buffer, ID_COMPARATOR);
+        final DataOutputStream run = createFile();
+        try {
+            for (final Record record : this.buffer) {
+                writeRecord(run, record);
+            }
+        } finally {
+            run.close();
+        }
+        this.buffer.clear();
+    }
+
+    private DataOutputStream createFile() throws IOException {
+        final File file = File.createTempFile("graphml", ".spool");
+        this.files.add(file);
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    private static void writeRecord(final DataOutputStream out, final Record record) throws IOException {
+        writeString(out, record.id);
+        writeString(out, record.source);
+        writeString(out, record.target);
+        writeString(out, record.label);
+        out.writeInt(record.keys.length);
+        for (int i = 0; i < record.keys.length; i++) {
+            writeString(out, record.keys[i]);
+            writeString(out, record.values[i]);
+        }
+    }
+
+    private static Record readRecord(final DataInputStream in) throws IOException {
+        final String id;
+        try {
+            id = readString(in);
+        } catch (EOFException e) {
+            return null;
+        }
+        final String source = readString(in);
+        final String target = readString(in);
+        final String label = readString(in);
+        final int size = in.readInt();
+        final String[] keys = new String[size];
+        final String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = readString(in);
+            values[i] = readString(in);
+        }
+        return new Record(id, source, target, label, keys, values);
+    }
+
+    /**
+     * Strings are written as their length in UTF-8 followed by their bytes, as writeUTF is limited to 64KB.
+     */
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        if (null == string) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = string.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Iterates over the records of a spool, returning null once they are exhausted.
+     */
+    interface RecordIterator {
+        Record next() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static class MemoryIterator implements RecordIterator {
+        private final Iterator<Record> records;
+
+        MemoryIterator(final List<Record> records) {
+            this.records = records.iterator();
+        }
+
+        public Record next() {
+            return this.records.hasNext() ? this.records.next() : null;
+        }
+
+        public void close() {
+        }
+    }
+
+    private static class FileIterator implements RecordIterator {
+        private final DataInputStream in;
+        private Record current;
+
+        FileIterator(final File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        public Record next() throws IOException {
+            this.current = readRecord(this.in);
+            return this.current;
+        }
+
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    /**
+     * Merges sorted runs by repeatedly taking the smallest head record among them.
+     */
+    private static class MergeIterator implements RecordIterator {
+        private final List<FileIterator> runs = new ArrayList<FileIterator>();
+        private final PriorityQueue<FileIterator> heads;
+
+        MergeIterator(final List<File> files) throws IOException {
+            this.heads = new PriorityQueue<FileIterator>(files.size(), new Comparator<FileIterator>() {
+                public int compare(final FileIterator a, final FileIterator b) {
+                    return ID_COMPARATOR.compare(a.current, b.current);
+                }
+            });
+            try {
+                for (final File file : files) {
+                    final FileIterator run = new FileIterator(file);
+                    this.runs.add(run);
+                    if (null != run.next()) this.heads.add(run);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public Record next() throws IOException {
+            final FileIterator run = this.heads.poll();
+            if (null == run) return null;
+            final Record record = run.current;
+            if (null != run.next()) this.heads.add(run);
+            return record;
+        }
+
+        public void close() throws IOException {
+            for (final FileIterator run : this.runs) {
+                run.close();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.tinkerpop.blueprints.util.io.graphml;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.LexicographicalElementComparator;
@@ -12,6 +13,7 @@ import javax.xml.stream.XMLStreamWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,6 +30,9 @@ public class GraphMLWriter {
 
     private final Graph graph;
     private boolean normalize = false;
+    private boolean singlePass = false;
+    private int sortBufferSize = 100000;
+
     private Map<String, String> vertexKeyTypes = null;
     private Map<String, String> edgeKeyTypes = null;
 
@@ -41,12 +46,32 @@ public class GraphMLWriter {
     /**
      * @param normalize whether to normalize the output. Normalized output is deterministic with respect to the order of
      *                  elements and properties in the resulting XML document, and is compatible with line diff-based tools
-     *                  such as Git. Note: normalized output is memory-intensive and is not appropriate for very large graphs.
+     *                  such as Git. Note: normalized output is memory-intensive and is not appropriate for very large graphs,
+     *                  unless it is written in single pass mode, which sorts the elements on disk.
      */
     public void setNormalize(final boolean normalize) {
         this.normalize = normalize;
     }
 
+    /**
+     * In single pass mode the graph is traversed once: the vertices and edges are spooled to temporary files while
+     * the types of their keys are inferred, and the spools are copied to the output after the key headers.
+     * Normalized output is then sorted with an external merge sort rather than in memory.
+     *
+     * @param singlePass whether to write the graph in a single traversal
+     */
+    public void setSinglePass(final boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * @param sortBufferSize the number of vertices or edges sorted in memory at a time by normalized single pass output
+     */
+    public void setSortBufferSize(final int sortBufferSize) {
+        if (sortBufferSize < 1) throw new IllegalArgumentException("Sort buffer size must be positive");
+        this.sortBufferSize = sortBufferSize;
+    }
+
     /**
      * @param vertexKeyTypes a Map of the data types of the vertex keys
      */
@@ -68,6 +93,10 @@ public class GraphMLWriter {
      * @throws IOException thrown if there is an error generating the GraphML data
      */
     public void outputGraph(final OutputStream graphMLOutputStream) throws IOException {
+        if (singlePass) {
+            outputGraphSinglePass(graphMLOutputStream);
+            return;
+        }
 
         if (null == vertexKeyTypes || null == edgeKeyTypes) {
             Map<String, String> vertexKeyTypes = new HashMap<String, String>();
@@ -97,52 +126,8 @@ public class GraphMLWriter {
             }
         }
 
-        XMLOutputFactory inputFactory = XMLOutputFactory.newInstance();
         try {
-            XMLStreamWriter writer = inputFactory.createXMLStreamWriter(graphMLOutputStream, "UTF8");
-            if (normalize) {
-                writer = new GraphMLWriterHelper.IndentingXMLStreamWriter(writer);
-                ((GraphMLWriterHelper.IndentingXMLStreamWriter) writer).setIndentStep("    ");
-            }
-
-            writer.writeStartDocument();
-            writer.writeStartElement(GraphMLTokens.GRAPHML);
-            writer.writeAttribute(GraphMLTokens.XMLNS, GraphMLTokens.GRAPHML_XMLNS);
-
-            // <key id="weight" for="edge" attr.name="weight" attr.type="float"/>
-            Collection<String> keyset;
-
-            if (normalize) {
-                keyset = new ArrayList<String>();
-                keyset.addAll(vertexKeyTypes.keySet());
-                Collections.sort((List<String>) keyset);
-            } else {
-                keyset = vertexKeyTypes.keySet();
-            }
-            for (String key : keyset) {
-                writer.writeStartElement(GraphMLTokens.KEY);
-                writer.writeAttribute(GraphMLTokens.ID, key);
-                writer.writeAttribute(GraphMLTokens.FOR, GraphMLTokens.NODE);
-                writer.writeAttribute(GraphMLTokens.ATTR_NAME, key);
-                writer.writeAttribute(GraphMLTokens.ATTR_TYPE, vertexKeyTypes.get(key));
-                writer.writeEndElement();
-            }
-
-            if (normalize) {
-                keyset = new ArrayList<String>();
-                keyset.addAll(edgeKeyTypes.keySet());
-                Collections.sort((List<String>) keyset);
-            } else {
-                keyset = edgeKeyTypes.keySet();
-            }
-            for (String key : keyset) {
-                writer.writeStartElement(GraphMLTokens.KEY);
-                writer.writeAttribute(GraphMLTokens.ID, key);
-                writer.writeAttribute(GraphMLTokens.FOR, GraphMLTokens.EDGE);
-                writer.writeAttribute(GraphMLTokens.ATTR_NAME, key);
-                writer.writeAttribute(GraphMLTokens.ATTR_TYPE, edgeKeyTypes.get(key));
-                writer.writeEndElement();
-            }
+            final XMLStreamWriter writer = createWriter(graphMLOutputStream);
 
             writer.writeStartElement(GraphMLTokens.GRAPH);
             writer.writeAttribute(GraphMLTokens.ID, GraphMLTokens.G);
@@ -246,6 +231,150 @@ public class GraphMLWriter {
         }
     }
 
+    private void outputGraphSinglePass(final OutputStream graphMLOutputStream) throws IOException {
+        final Map<String, String> vertexKeyTypes = null == this.vertexKeyTypes ? new HashMap<String, String>() : null;
+        final Map<String, String> edgeKeyTypes = null == this.edgeKeyTypes ? new HashMap<String, String>() : null;
+
+        final GraphMLSpool vertices = new GraphMLSpool(normalize, sortBufferSize);
+        final GraphMLSpool edges = new GraphMLSpool(normalize, sortBufferSize);
+        try {
+            for (Vertex vertex : graph.getVertices()) {
+                vertices.add(createRecord(vertex, null, null, null, vertexKeyTypes));
+                for (Edge edge : vertex.getEdges(Direction.OUT)) {
+                    edges.add(createRecord(edge, edge.getVertex(Direction.OUT).getId().toString(),
+                            edge.getVertex(Direction.IN).getId().toString(), edge.getLabel(), edgeKeyTypes));
+                }
+            }
+
+            if (null == this.vertexKeyTypes) {
+                this.vertexKeyTypes = vertexKeyTypes;
+            }
+
+            if (null == this.edgeKeyTypes) {
+                this.edgeKeyTypes = edgeKeyTypes;
+            }
+
+            final XMLStreamWriter writer = createWriter(graphMLOutputStream);
+
+            writer.writeStartElement(GraphMLTokens.GRAPH);
+            writer.writeAttribute(GraphMLTokens.ID, GraphMLTokens.G);
+            writer.writeAttribute(GraphMLTokens.EDGEDEFAULT, GraphMLTokens.DIRECTED);
+
+            writeRecords(writer, vertices.records(), GraphMLTokens.NODE);
+            writeRecords(writer, edges.records(), GraphMLTokens.EDGE);
+
+            writer.writeEndElement(); // graph
+            writer.writeEndElement(); // graphml
+            writer.writeEndDocument();
+
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException xse) {
+            throw new IOException(xse);
+        } finally {
+            vertices.close();
+            edges.close();
+        }
+    }
+
+    private GraphMLSpool.Record createRecord(final Element element, final String source, final String target, final String label,
+                                             final Map<String, String> keyTypes) {
+        final String[] keys = element.getPropertyKeys().toArray(new String[0]);
+        if (normalize) {
+            Arrays.sort(keys);
+        }
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final Object value = element.getProperty(keys[i]);
+            if (null != keyTypes && !keyTypes.containsKey(keys[i])) {
+                keyTypes.put(keys[i], GraphMLWriter.getStringType(value));
+            }
+            if (null != value) {
+                values[i] = value.toString();
+            }
+        }
+        return new GraphMLSpool.Record(element.getId().toString(), source, target, label, keys, values);
+    }
+
+    private static void writeRecords(final XMLStreamWriter writer, final GraphMLSpool.RecordIterator records, final String elementName) throws IOException, XMLStreamException {
+        try {
+            GraphMLSpool.Record record;
+            while (null != (record = records.next())) {
+                writer.writeStartElement(elementName);
+                writer.writeAttribute(GraphMLTokens.ID, record.id);
+                if (null != record.source) {
+                    writer.writeAttribute(GraphMLTokens.SOURCE, record.source);
+                    writer.writeAttribute(GraphMLTokens.TARGET, record.target);
+                    writer.writeAttribute(GraphMLTokens.LABEL, record.label);
+                }
+                for (int i = 0; i < record.keys.length; i++) {
+                    writer.writeStartElement(GraphMLTokens.DATA);
+                    writer.writeAttribute(GraphMLTokens.KEY, record.keys[i]);
+                    if (null != record.values[i]) {
+                        writer.writeCharacters(record.values[i]);
+                    }
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+            }
+        } finally {
+            records.close();
+        }
+    }
+
+    /**
+     * Creates the writer and writes the start of the document along with the key headers.
+     */
+    private XMLStreamWriter createWriter(final OutputStream graphMLOutputStream) throws XMLStreamException {
+        XMLOutputFactory inputFactory = XMLOutputFactory.newInstance();
+        XMLStreamWriter writer = inputFactory.createXMLStreamWriter(graphMLOutputStream, "UTF8");
+        if (normalize) {
+            writer = new GraphMLWriterHelper.IndentingXMLStreamWriter(writer);
+            ((GraphMLWriterHelper.IndentingXMLStreamWriter) writer).setIndentStep("    ");
+        }
+
+        writer.writeStartDocument();
+        writer.writeStartElement(GraphMLTokens.GRAPHML);
+        writer.writeAttribute(GraphMLTokens.XMLNS, GraphMLTokens.GRAPHML_XMLNS);
+
+        // <key id="weight" for="edge" attr.name="weight" attr.type="float"/>
+        Collection<String> keyset;
+
+        if (normalize) {
+            keyset = new ArrayList<String>();
+            keyset.addAll(vertexKeyTypes.keySet());
+            Collections.sort((List<String>) keyset);
+        } else {
+            keyset = vertexKeyTypes.keySet();
+        }
+        for (String key : keyset) {
+            writer.writeStartElement(GraphMLTokens.KEY);
+            writer.writeAttribute(GraphMLTokens.ID, key);
+            writer.writeAttribute(GraphMLTokens.FOR, GraphMLTokens.NODE);
+            writer.writeAttribute(GraphMLTokens.ATTR_NAME, key);
+            writer.writeAttribute(GraphMLTokens.ATTR_TYPE, vertexKeyTypes.get(key));
+            writer.writeEndElement();
+        }
+
+        if (normalize) {
+            keyset = new ArrayList<String>();
+            keyset.addAll(edgeKeyTypes.keySet());
+            Collections.sort((List<String>) keyset);
+        } else {
+            keyset = edgeKeyTypes.keySet();
+        }
+        for (String key : keyset) {
+            writer.writeStartElement(GraphMLTokens.KEY);
+            writer.writeAttribute(GraphMLTokens.ID, key);
+            writer.writeAttribute(GraphMLTokens.FOR, GraphMLTokens.EDGE);
+            writer.writeAttribute(GraphMLTokens.ATTR_NAME, key);
+            writer.writeAttribute(GraphMLTokens.ATTR_TYPE, edgeKeyTypes.get(key));
+            writer.writeEndElement();
+        }
+
+        return writer;
+    }
+
     /**
      * Write the data in a Graph to a GraphML OutputStream.
      *
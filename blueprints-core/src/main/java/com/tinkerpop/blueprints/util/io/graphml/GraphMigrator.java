@@ -1,6 +1,8 @@
 package com.tinkerpop.blueprints.util.io.graphml;
 
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.util.io.binary.GraphBinaryReader;
+import com.tinkerpop.blueprints.util.io.binary.GraphBinaryWriter;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
@@ -9,6 +11,7 @@ import java.io.PipedOutputStream;
 
 /**
  * GraphMigrator takes the data in one graph and pipes it to another graph.
+ * {@link com.tinkerpop.blueprints.util.io.GraphElementMigrator} copies the elements directly, without serializing them.
  *
  * @author Alex Averbuch (alex.averbuch@gmail.com)
  */
@@ -56,4 +59,69 @@ public class GraphMigrator {
 
         GraphMLReader.inputGraph(toGraph, inPipe);
     }
-}
\ No newline at end of file
+
+    /**
+     * Pipe the data from one graph to another graph in the binary format of {@link GraphBinaryWriter}, which is
+     * considerably smaller and faster to write and read than GraphML. The elements are loaded through a BatchGraph.
+     * A failure of writing the data of the first graph is thrown from this method.
+     *
+     * @param fromGraph the graph to take data from
+     * @param toGraph   the graph to take data to
+     * @throws IOException thrown if there is an error in steam between the two graphs
+     */
+    public static void migrateGraphBinary(final Graph fromGraph, final Graph toGraph) throws IOException {
+        final PipedInputStream inPipe = new PipedInputStream(64 * 1024);
+        final PipedOutputStream outPipe = new PipedOutputStream(inPipe);
+        final Throwable[] writeFailure = new Throwable[1];
+
+        final Thread writer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    GraphBinaryWriter.outputGraph(fromGraph, outPipe);
+                } catch (Throwable t) {
+                    writeFailure[0] = t;
+                } finally {
+                    try {
+                        outPipe.close();
+                    } catch (IOException e) {
+                        if (writeFailure[0] == null) writeFailure[0] = e;
+                    }
+                }
+            }
+        });
+        writer.start();
+
+        try {
+            GraphBinaryReader.inputGraph(toGraph, inPipe);
+        } catch (IOException e) {
+            // closing the pipe releases the writer, and a failed writer is the cause worth reporting
+            inPipe.close();
+            joinWriter(writer);
+            if (writeFailure[0] != null) rethrow(writeFailure[0]);
+            throw e;
+        } catch (RuntimeException e) {
+            inPipe.close();
+            throw e;
+        }
+
+        inPipe.close();
+        joinWriter(writer);
+        if (writeFailure[0] != null) rethrow(writeFailure[0]);
+    }
+
+    private static void rethrow(final Throwable failure) throws IOException {
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        throw new IOException(failure.getMessage(), failure);
+    }
+
+    private static void joinWriter(final Thread writer) throws IOException {
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the graph to be written", e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ArrayNode;
@@ -99,6 +100,107 @@ public final class GraphSONFactory {
         return jsonElement;
     }
 
+    /**
+     * Writes a graph element field by field to a Jackson JsonGenerator. The JSON written is that of
+     * createJSONElementAsObjectNode, but no ObjectNode is created for the element or its properties.
+     *
+     * @param jsonGenerator the generator to write the element to.
+     * @param element       the graph element to convert to JSON.
+     * @param propertyKeys  The property keys at the root of the element to serialize.  If null, then all keys are serialized.
+     * @param showTypes     Data types are written to the JSON explicitly if true.
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public static void writeJSONElement(final JsonGenerator jsonGenerator, final Element element, final List<String> propertyKeys, final boolean showTypes) throws IOException {
+        jsonGenerator.writeStartObject();
+
+        if (propertyKeys == null) {
+            for (String key : element.getPropertyKeys()) {
+                jsonGenerator.writeFieldName(key);
+                writeValue(jsonGenerator, element.getProperty(key), propertyKeys, showTypes);
+            }
+        } else {
+            for (String key : propertyKeys) {
+                final Object value = element.getProperty(key);
+                if (value != null) {
+                    jsonGenerator.writeFieldName(key);
+                    writeValue(jsonGenerator, value, propertyKeys, showTypes);
+                }
+            }
+        }
+
+        jsonGenerator.writeFieldName(GraphSONTokens._ID);
+        writeObject(jsonGenerator, element.getId());
+
+        if (element instanceof Vertex) {
+            jsonGenerator.writeStringField(GraphSONTokens._TYPE, GraphSONTokens.VERTEX);
+        } else if (element instanceof Edge) {
+            final Edge edge = (Edge) element;
+            jsonGenerator.writeStringField(GraphSONTokens._TYPE, GraphSONTokens.EDGE);
+            jsonGenerator.writeFieldName(GraphSONTokens._OUT_V);
+            writeObject(jsonGenerator, edge.getVertex(Direction.OUT).getId());
+            jsonGenerator.writeFieldName(GraphSONTokens._IN_V);
+            writeObject(jsonGenerator, edge.getVertex(Direction.IN).getId());
+            jsonGenerator.writeStringField(GraphSONTokens._LABEL, edge.getLabel());
+        }
+
+        jsonGenerator.writeEndObject();
+    }
+
+    private static void writeValue(final JsonGenerator jsonGenerator, final Object value, final List<String> propertyKeys, final boolean showTypes) throws IOException {
+        if (showTypes) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStringField(GraphSONTokens.TYPE, determineType(value));
+            jsonGenerator.writeFieldName(GraphSONTokens.VALUE);
+        }
+
+        if (value instanceof List) {
+            jsonGenerator.writeStartArray();
+            for (Object item : (List) value) {
+                writeValue(jsonGenerator, item, propertyKeys, showTypes);
+            }
+            jsonGenerator.writeEndArray();
+        } else if (value instanceof Map) {
+            jsonGenerator.writeStartObject();
+            for (Object entry : ((Map) value).entrySet()) {
+                jsonGenerator.writeFieldName(((Map.Entry) entry).getKey().toString());
+                writeValue(jsonGenerator, ((Map.Entry) entry).getValue(), propertyKeys, showTypes);
+            }
+            jsonGenerator.writeEndObject();
+        } else if (value instanceof Element) {
+            writeJSONElement(jsonGenerator, (Element) value, propertyKeys, showTypes);
+        } else if (value != null && value.getClass().isArray()) {
+            jsonGenerator.writeStartArray();
+            for (Object item : convertArrayToList(value)) {
+                writeValue(jsonGenerator, item, propertyKeys, showTypes);
+            }
+            jsonGenerator.writeEndArray();
+        } else {
+            writeObject(jsonGenerator, value);
+        }
+
+        if (showTypes) {
+            jsonGenerator.writeEndObject();
+        }
+    }
+
+    private static void writeObject(final JsonGenerator jsonGenerator, final Object value) throws IOException {
+        if (value == null) {
+            jsonGenerator.writeNull();
+        } else if (value instanceof Boolean) {
+            jsonGenerator.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            jsonGenerator.writeNumber((Long) value);
+        } else if (value instanceof Integer) {
+            jsonGenerator.writeNumber((Integer) value);
+        } else if (value instanceof Float) {
+            jsonGenerator.writeNumber((Float) value);
+        } else if (value instanceof Double) {
+            jsonGenerator.writeNumber((Double) value);
+        } else {
+            jsonGenerator.writeString(value.toString());
+        }
+    }
+
     private static ArrayNode createJSONList(final List list, final List<String> propertyKeys, final boolean showTypes) {
         final ArrayNode jsonList = jsonNodeFactory.arrayNode();
         for (Object item : list) {
@@ -342,9 +444,9 @@ public final class GraphSONFactory {
             type = GraphSONTokens.TYPE_LONG;
         } else if (value instanceof Boolean) {
             type = GraphSONTokens.TYPE_BOOLEAN;
-        } else if (value instanceof ArrayNode) {
+        } else if (value instanceof ArrayNode || value instanceof List || value.getClass().isArray()) {
             type = GraphSONTokens.TYPE_LIST;
-        } else if (value instanceof ObjectNode) {
+        } else if (value instanceof ObjectNode || value instanceof Map || value instanceof Element) {
             type = GraphSONTokens.TYPE_MAP;
         }
 
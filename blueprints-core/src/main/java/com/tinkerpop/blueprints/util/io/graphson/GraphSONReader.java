@@ -1,6 +1,7 @@
 package com.tinkerpop.blueprints.util.io.graphson;
 
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
@@ -14,8 +15,8 @@ import org.codehaus.jackson.map.MappingJsonFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -72,6 +73,10 @@ public class GraphSONReader {
     /**
      * Input the JSON stream data into the graph.
      * More control over how data is streamed is provided by this method.
+     * <p/>
+     * The elements are read token by token, without materializing a JSON tree for them. Properties that precede
+     * the identifying fields of their element (e.g. the _id, which GraphSONWriter writes last) are buffered until
+     * the element can be created and then set on it.
      *
      * @param inputGraph      the graph to populate with the JSON data
      * @param jsonInputStream an InputStream of JSON data
@@ -79,135 +84,315 @@ public class GraphSONReader {
      * @throws IOException thrown when the JSON data is not correctly formatted
      */
     public static void inputGraph(final Graph inputGraph, final InputStream jsonInputStream, int bufferSize) throws IOException {
-        boolean hasEmbeddedTypes = false;
         final JsonFactory jsonFactory = new MappingJsonFactory();
         final JsonParser jp = jsonFactory.createJsonParser(jsonInputStream);
 
         // if this is a transactional graph then we're buffering
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-        //final Map<String, Object> vertexIdMap = new HashMap<String, Object>();
+        final ElementReader reader = new ElementReader(jp, graph);
 
-        while (jp.nextToken() != JsonToken.END_OBJECT) {
-            final String fieldname = jp.getCurrentName() == null ? "" : jp.getCurrentName();
+        if (jp.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected the GraphSON data to start with an object");
+        }
+
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldname = jp.getCurrentName();
+            final JsonToken token = jp.nextToken();
             if (fieldname.equals(GraphSONTokens.EMBEDDED_TYPES)) {
-                jp.nextToken();
-                hasEmbeddedTypes = jp.getBooleanValue();
-            } else if (fieldname.equals(GraphSONTokens.VERTICES)) {
-                jp.nextToken();
+                reader.hasEmbeddedTypes = jp.getBooleanValue();
+            } else if (fieldname.equals(GraphSONTokens.VERTICES) && token == JsonToken.START_ARRAY) {
                 while (jp.nextToken() != JsonToken.END_ARRAY) {
-                    final JsonNode node = jp.readValueAsTree();
-                    final Map<String, Object> props = readProperties(node, true, hasEmbeddedTypes);
-
-                    final String vertexId = node.get(GraphSONTokens._ID).getValueAsText();
-                    final Vertex v = graph.addVertex(vertexId);
-
-                    for (Map.Entry<String, Object> entry : props.entrySet()) {
-                        v.setProperty(entry.getKey(), entry.getValue());
-                    }
+                    reader.readVertex();
                 }
-            } else if (fieldname.equals(GraphSONTokens.EDGES)) {
-                jp.nextToken();
+            } else if (fieldname.equals(GraphSONTokens.EDGES) && token == JsonToken.START_ARRAY) {
                 while (jp.nextToken() != JsonToken.END_ARRAY) {
-                    final JsonNode node = jp.readValueAsTree();
-                    final Map<String, Object> props = readProperties(node, true, hasEmbeddedTypes);
+                    reader.readEdge();
+                }
+            } else {
+                jp.skipChildren();
+            }
+        }
+
+        jp.close();
 
-                    final String edgeId = node.get(GraphSONTokens._ID).getValueAsText();
-                    final String label = node.get(GraphSONTokens._LABEL).getValueAsText();
+        graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+    }
 
-                    final Vertex inV = graph.getVertex(node.get(GraphSONTokens._IN_V).getValueAsText());
-                    final Vertex outV = graph.getVertex(node.get(GraphSONTokens._OUT_V).getValueAsText());
+    private static boolean isReservedKey(final String key) {
+        return key.equals(GraphSONTokens._ID) || key.equals(GraphSONTokens._TYPE) || key.equals(GraphSONTokens._LABEL)
+                || key.equals(GraphSONTokens._OUT_V) || key.equals(GraphSONTokens._IN_V);
+    }
 
-                    final Edge e = graph.addEdge(edgeId, outV, inV, label);
+    /**
+     * Reads the property value whose first token is the current token of the parser.
+     *
+     * @param parser           the parser positioned on the first token of the value
+     * @param hasEmbeddedTypes whether the value is written with its type
+     * @return the value of the property
+     */
+    static Object readProperty(final JsonParser parser, final boolean hasEmbeddedTypes) throws IOException {
+        if (hasEmbeddedTypes && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            return readTypedProperty(parser);
+        }
 
-                    for (Map.Entry<String, Object> entry : props.entrySet()) {
-                        e.setProperty(entry.getKey(), entry.getValue());
-                    }
+        switch (parser.getCurrentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return parser.getIntValue();
+                    case LONG:
+                        return parser.getLongValue();
+                    default:
+                        return parser.getText();
                 }
+            case START_ARRAY:
+                return readList(parser, hasEmbeddedTypes);
+            case START_OBJECT:
+                return readMap(parser, hasEmbeddedTypes);
+            default:
+                return parser.getText();
+        }
+    }
+
+    /**
+     * Reads a {"type":..., "value":...} object. The GraphSONWriter writes the type ahead of the value, which is
+     * then read straight from the parser. Should the value come first, it is held as a tree until the type is
+     * known.
+     */
+    private static Object readTypedProperty(final JsonParser parser) throws IOException {
+        PropertyType type = null;
+        boolean hasType = false;
+        Object value = null;
+        JsonNode untypedValue = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            parser.nextToken();
+            if (key.equals(GraphSONTokens.TYPE)) {
+                type = PropertyType.forName(parser.getText());
+                hasType = true;
+            } else if (key.equals(GraphSONTokens.VALUE) && hasType) {
+                value = readTypedValue(parser, type);
+            } else if (key.equals(GraphSONTokens.VALUE)) {
+                untypedValue = parser.readValueAsTree();
+            } else {
+                parser.skipChildren();
             }
         }
 
-        jp.close();
+        if (untypedValue != null && hasType) {
+            final JsonParser treeParser = untypedValue.traverse();
+            treeParser.setCodec(parser.getCodec());
+            treeParser.nextToken();
+            value = readTypedValue(treeParser, type);
+        }
 
-        graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+        return value;
     }
 
-    private static Map<String, Object> readProperties(final JsonNode node, final boolean ignoreReservedKeys, final boolean hasEmbeddedTypes) {
-        final Map<String, Object> map = new HashMap<String, Object>();
+    private static Object readTypedValue(final JsonParser parser, final PropertyType type) throws IOException {
+        if (type == null) {
+            // types other than those written by GraphSONWriter are not supported
+            parser.skipChildren();
+            return null;
+        }
 
-        final Iterator<Map.Entry<String, JsonNode>> iterator = node.getFields();
-        while (iterator.hasNext()) {
-            final Map.Entry<String, JsonNode> entry = iterator.next();
+        final JsonToken token = parser.getCurrentToken();
+        switch (type) {
+            case UNKNOWN:
+                parser.skipChildren();
+                return null;
+            case BOOLEAN:
+                return token == JsonToken.VALUE_TRUE;
+            case FLOAT:
+                return Float.parseFloat(parser.getText());
+            case DOUBLE:
+                return token == JsonToken.VALUE_STRING ? Double.parseDouble(parser.getText()) : parser.getDoubleValue();
+            case INTEGER:
+                return token == JsonToken.VALUE_STRING ? Integer.parseInt(parser.getText()) : parser.getIntValue();
+            case LONG:
+                return token == JsonToken.VALUE_STRING ? Long.parseLong(parser.getText()) : parser.getLongValue();
+            case LIST:
+                return readList(parser, true);
+            case MAP:
+                return readMap(parser, true);
+            case STRING:
+            default:
+                if (token == JsonToken.VALUE_NULL || token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    return null;
+                }
+                return parser.getText();
+        }
+    }
 
-            if (!ignoreReservedKeys || (ignoreReservedKeys && !isReservedKey(entry.getKey()))) {
-                map.put(entry.getKey(), readProperty(entry.getValue(), hasEmbeddedTypes));
-            }
+    private static List<Object> readList(final JsonParser parser, final boolean hasEmbeddedTypes) throws IOException {
+        final List<Object> list = new ArrayList<Object>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readProperty(parser, hasEmbeddedTypes));
         }
+        return list;
+    }
 
+    private static Map<String, Object> readMap(final JsonParser parser, final boolean hasEmbeddedTypes) throws IOException {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            parser.nextToken();
+            map.put(key, readProperty(parser, hasEmbeddedTypes));
+        }
         return map;
     }
 
-    private static boolean isReservedKey(final String key) {
-        return key.equals(GraphSONTokens._ID) || key.equals(GraphSONTokens._TYPE) || key.equals(GraphSONTokens._LABEL)
-                || key.equals(GraphSONTokens._OUT_V) || key.equals(GraphSONTokens._IN_V);
+    /**
+     * The data types of properties with embedded types, so that they are dispatched with a switch rather than by
+     * comparing the type against every known type.
+     */
+    private static enum PropertyType {
+        UNKNOWN, BOOLEAN, FLOAT, DOUBLE, INTEGER, LONG, STRING, LIST, MAP;
+
+        private static final Map<String, PropertyType> TYPES = new HashMap<String, PropertyType>();
+
+        static {
+            TYPES.put(GraphSONTokens.TYPE_UNKNOWN, UNKNOWN);
+            TYPES.put(GraphSONTokens.TYPE_BOOLEAN, BOOLEAN);
+            TYPES.put(GraphSONTokens.TYPE_FLOAT, FLOAT);
+            TYPES.put(GraphSONTokens.TYPE_DOUBLE, DOUBLE);
+            TYPES.put(GraphSONTokens.TYPE_INTEGER, INTEGER);
+            TYPES.put(GraphSONTokens.TYPE_LONG, LONG);
+            TYPES.put(GraphSONTokens.TYPE_STRING, STRING);
+            TYPES.put(GraphSONTokens.TYPE_LIST, LIST);
+            TYPES.put(GraphSONTokens.TYPE_MAP, MAP);
+        }
+
+        private static PropertyType forName(final String type) {
+            return TYPES.get(type);
+        }
     }
 
-    private static Object readProperty(final JsonNode node, final boolean hasEmbeddedTypes) {
-        final Object propertyValue;
-
-        if (hasEmbeddedTypes) {
-            if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_UNKNOWN)) {
-                propertyValue = null;
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_BOOLEAN)) {
-                propertyValue = node.get(GraphSONTokens.VALUE).getBooleanValue();
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_FLOAT)) {
-                propertyValue = Float.parseFloat(node.get(GraphSONTokens.VALUE).getValueAsText());
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_DOUBLE)) {
-                propertyValue = node.get(GraphSONTokens.VALUE).getDoubleValue();
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_INTEGER)) {
-                propertyValue = node.get(GraphSONTokens.VALUE).getIntValue();
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_LONG)) {
-                propertyValue = node.get(GraphSONTokens.VALUE).getLongValue();
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_STRING)) {
-                propertyValue = node.get(GraphSONTokens.VALUE).getTextValue();
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_LIST)) {
-                propertyValue = readProperties(node.get(GraphSONTokens.VALUE).getElements(), hasEmbeddedTypes);
-            } else if (node.get(GraphSONTokens.TYPE).getValueAsText().equals(GraphSONTokens.TYPE_MAP)) {
-                propertyValue = readProperties(node.get(GraphSONTokens.VALUE), false, hasEmbeddedTypes);
-            } else {
-                propertyValue = node.getValueAsText();
+    /**
+     * Reads the vertices and edges from the parser. The properties read ahead of an element's creation are kept in
+     * arrays which are reused for every element.
+     */
+    private static class ElementReader {
+
+        private final JsonParser jp;
+        private final Graph graph;
+        private boolean hasEmbeddedTypes = false;
+
+        private String[] keys = new String[8];
+        private Object[] values = new Object[8];
+        private int size = 0;
+
+        private ElementReader(final JsonParser jp, final Graph graph) {
+            this.jp = jp;
+            this.graph = graph;
+        }
+
+        /**
+         * Reads the vertex whose START_OBJECT token is the current token.
+         */
+        private void readVertex() throws IOException {
+            Vertex vertex = null;
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                final String key = jp.getCurrentName();
+                jp.nextToken();
+                if (key.equals(GraphSONTokens._ID)) {
+                    vertex = graph.addVertex(jp.getText());
+                    setBufferedProperties(vertex);
+                } else if (isReservedKey(key)) {
+                    jp.skipChildren();
+                } else if (vertex == null) {
+                    bufferProperty(key, readProperty(jp, hasEmbeddedTypes));
+                } else {
+                    vertex.setProperty(key, readProperty(jp, hasEmbeddedTypes));
+                }
             }
-        } else {
-            if (node.isNull()) {
-                propertyValue = null;
-            } else if (node.isBoolean()) {
-                propertyValue = node.getBooleanValue();
-            } else if (node.isDouble()) {
-                propertyValue = node.getDoubleValue();
-            } else if (node.isInt()) {
-                propertyValue = node.getIntValue();
-            } else if (node.isLong()) {
-                propertyValue = node.getLongValue();
-            } else if (node.isTextual()) {
-                propertyValue = node.getTextValue();
-            } else if (node.isArray()) {
-                propertyValue = readProperties(node.getElements(), hasEmbeddedTypes);
-            } else if (node.isObject()) {
-                propertyValue = readProperties(node, false, hasEmbeddedTypes);
-            } else {
-                propertyValue = node.getValueAsText();
+
+            if (vertex == null) {
+                clearBufferedProperties();
+                throw new IOException("Vertex is missing its " + GraphSONTokens._ID);
             }
         }
 
-        return propertyValue;
-    }
+        /**
+         * Reads the edge whose START_OBJECT token is the current token.
+         */
+        private void readEdge() throws IOException {
+            String id = null;
+            String label = null;
+            String outId = null;
+            String inId = null;
+            Edge edge = null;
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                final String key = jp.getCurrentName();
+                jp.nextToken();
+                if (key.equals(GraphSONTokens._ID)) {
+                    id = jp.getText();
+                } else if (key.equals(GraphSONTokens._LABEL)) {
+                    label = jp.getText();
+                } else if (key.equals(GraphSONTokens._OUT_V)) {
+                    outId = jp.getText();
+                } else if (key.equals(GraphSONTokens._IN_V)) {
+                    inId = jp.getText();
+                } else if (key.equals(GraphSONTokens._TYPE)) {
+                    jp.skipChildren();
+                } else if (edge == null) {
+                    bufferProperty(key, readProperty(jp, hasEmbeddedTypes));
+                } else {
+                    edge.setProperty(key, readProperty(jp, hasEmbeddedTypes));
+                }
 
-    private static List readProperties(final Iterator<JsonNode> listOfNodes, final boolean hasEmbeddedTypes) {
-        final List array = new ArrayList();
+                if (edge == null && id != null && label != null && outId != null && inId != null) {
+                    edge = addEdge(id, outId, inId, label);
+                }
+            }
 
-        while (listOfNodes.hasNext()) {
-            array.add(readProperty(listOfNodes.next(), hasEmbeddedTypes));
+            if (edge == null) {
+                clearBufferedProperties();
+                throw new IOException("Edge is missing one of " + GraphSONTokens._ID + ", " + GraphSONTokens._LABEL
+                        + ", " + GraphSONTokens._OUT_V + " or " + GraphSONTokens._IN_V);
+            }
         }
 
-        return array;
+        private Edge addEdge(final String id, final String outId, final String inId, final String label) {
+            final Vertex outV = graph.getVertex(outId);
+            final Vertex inV = graph.getVertex(inId);
+            final Edge edge = graph.addEdge(id, outV, inV, label);
+            setBufferedProperties(edge);
+            return edge;
+        }
+
+        private void bufferProperty(final String key, final Object value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        private void setBufferedProperties(final Element element) {
+            for (int i = 0; i < size; i++) {
+                element.setProperty(keys[i], values[i]);
+            }
+            clearBufferedProperties();
+        }
+
+        private void clearBufferedProperties() {
+            for (int i = 0; i < size; i++) {
+                keys[i] = null;
+                values[i] = null;
+            }
+            size = 0;
+        }
     }
 }
@@ -7,10 +7,12 @@ import com.tinkerpop.blueprints.Vertex;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.MappingJsonFactory;
+import org.codehaus.jackson.util.MinimalPrettyPrinter;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * GraphSONWriter writes a Graph to a TinkerPop JSON OutputStream.
@@ -18,6 +20,8 @@ import java.util.List;
  * @author Stephen Mallette
  */
 public class GraphSONWriter {
+    private static final int COMPRESSION_BUFFER_SIZE = 65536;
+
     private final Graph graph;
 
     /**
@@ -37,9 +41,25 @@ public class GraphSONWriter {
      * @throws IOException thrown if there is an error generating the JSON data
      */
     public void outputGraph(final OutputStream jsonOutputStream, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes) throws IOException {
+        this.outputGraph(jsonOutputStream, edgePropertyKeys, vertexPropertyKeys, showTypes, false);
+    }
+
+    /**
+     * Write the data in a Graph to a JSON OutputStream.
+     * The elements are written field by field to the JSON stream, without building a JSON tree for each of them.
+     *
+     * @param jsonOutputStream   the JSON OutputStream to write the Graph data to
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param showTypes          determines if types are written explicitly to the JSON
+     * @param compress           determines if the JSON is gzip compressed (read it back through a GZIPInputStream)
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraph(final OutputStream jsonOutputStream, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes, final boolean compress) throws IOException {
 
+        final OutputStream outputStream = compress ? new GZIPOutputStream(jsonOutputStream, COMPRESSION_BUFFER_SIZE) : jsonOutputStream;
         JsonFactory jsonFactory = new MappingJsonFactory();
-        JsonGenerator jg = jsonFactory.createJsonGenerator(jsonOutputStream);
+        JsonGenerator jg = jsonFactory.createJsonGenerator(outputStream);
 
         jg.writeStartObject();
 
@@ -49,14 +69,14 @@ public class GraphSONWriter {
 
         jg.writeArrayFieldStart(GraphSONTokens.VERTICES);
         for (Vertex v : this.graph.getVertices()) {
-            jg.writeTree(GraphSONFactory.createJSONElementAsObjectNode(v, vertexPropertyKeys, showTypes));
+            GraphSONFactory.writeJSONElement(jg, v, vertexPropertyKeys, showTypes);
         }
 
         jg.writeEndArray();
 
         jg.writeArrayFieldStart(GraphSONTokens.EDGES);
         for (Edge e : this.graph.getEdges()) {
-            jg.writeTree(GraphSONFactory.createJSONElementAsObjectNode(e, edgePropertyKeys, showTypes));
+            GraphSONFactory.writeJSONElement(jg, e, edgePropertyKeys, showTypes);
         }
         jg.writeEndArray();
 
@@ -66,6 +86,43 @@ public class GraphSONWriter {
         jg.close();
     }
 
+    /**
+     * Write the data in a Graph to a line-delimited JSON OutputStream, with one element per line: first all the
+     * vertices, then all the edges. If types are shown, they are declared by a first line {"embeddedTypes":true}.
+     * Line-delimited JSON is read in parallel by the ParallelGraphSONReader.
+     *
+     * @param jsonOutputStream   the JSON OutputStream to write the Graph data to
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param showTypes          determines if types are written explicitly to the JSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraphLines(final OutputStream jsonOutputStream, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes) throws IOException {
+
+        JsonFactory jsonFactory = new MappingJsonFactory();
+        JsonGenerator jg = jsonFactory.createJsonGenerator(jsonOutputStream);
+        jg.setPrettyPrinter(new LinePrettyPrinter());
+
+        if (showTypes) {
+            jg.writeStartObject();
+            jg.writeBooleanField(GraphSONTokens.EMBEDDED_TYPES, showTypes);
+            jg.writeEndObject();
+        }
+
+        for (Vertex v : this.graph.getVertices()) {
+            GraphSONFactory.writeJSONElement(jg, v, vertexPropertyKeys, showTypes);
+        }
+
+        for (Edge e : this.graph.getEdges()) {
+            GraphSONFactory.writeJSONElement(jg, e, edgePropertyKeys, showTypes);
+        }
+
+        jg.writeRaw('\n');
+
+        jg.flush();
+        jg.close();
+    }
+
     /**
      * Write the data in a Graph to a JSON OutputStream. All keys are written to JSON.
      *
@@ -106,4 +163,45 @@ public class GraphSONWriter {
         writer.outputGraph(jsonOutputStream, edgePropertyKeys, vertexPropertyKeys, showTypes);
     }
 
+    /**
+     * Write the data in a Graph to a JSON OutputStream.
+     *
+     * @param graph              the graph to serialize to JSON
+     * @param jsonOutputStream   the JSON OutputStream to write the Graph data to
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param showTypes          determines if types are explicitly defined in the JSON
+     * @param compress           determines if the JSON is gzip compressed
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public static void outputGraph(final Graph graph, final OutputStream jsonOutputStream, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes, final boolean compress) throws IOException {
+        GraphSONWriter writer = new GraphSONWriter(graph);
+        writer.outputGraph(jsonOutputStream, edgePropertyKeys, vertexPropertyKeys, showTypes, compress);
+    }
+
+    /**
+     * Write the data in a Graph to a line-delimited JSON OutputStream, with one element per line.
+     *
+     * @param graph              the graph to serialize to JSON
+     * @param jsonOutputStream   the JSON OutputStream to write the Graph data to
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param showTypes          determines if types are explicitly defined in the JSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public static void outputGraphLines(final Graph graph, final OutputStream jsonOutputStream, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes) throws IOException {
+        GraphSONWriter writer = new GraphSONWriter(graph);
+        writer.outputGraphLines(jsonOutputStream, edgePropertyKeys, vertexPropertyKeys, showTypes);
+    }
+
+    /**
+     * Writes compact JSON with a line break rather than a space between the top level values.
+     */
+    private static class LinePrettyPrinter extends MinimalPrettyPrinter {
+        @Override
+        public void writeRootValueSeparator(final JsonGenerator jg) throws IOException {
+            jg.writeRaw('\n');
+        }
+    }
+
 }
@@ -0,0 +1,448 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.MappingJsonFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParallelGraphSONReader reads line-delimited TinkerPop JSON, as written by GraphSONWriter.outputGraphLines, to a
+ * graph.
+ * <p/>
+ * The file is split at line breaks into chunks, which are memory mapped and parsed by a number of worker threads.
+ * The workers hand the parsed elements through a bounded queue to the calling thread, which adds them to the graph
+ * through a BatchGraph. As an edge can only be added once its vertices are, all the vertices are loaded before the
+ * edges. The vertex lines hence have to precede the edge lines: the chunks are parsed for vertices up to the first
+ * edge line, and from that line on for edges.
+ */
+public class ParallelGraphSONReader {
+
+    /**
+     * Default size of the chunks the file is split into, in bytes
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final List<ParsedElement> END = new ArrayList<ParsedElement>(0);
+
+    private final Graph graph;
+
+    /**
+     * @param graph the graph to populate with the JSON data
+     */
+    public ParallelGraphSONReader(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Input the line-delimited JSON file into the graph, parsing it with a thread per processor.
+     *
+     * @param file a file of line-delimited JSON data
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final File file) throws IOException {
+        ParallelGraphSONReader.inputGraph(this.graph, file);
+    }
+
+    /**
+     * Input the line-delimited JSON file into the graph.
+     *
+     * @param file       a file of line-delimited JSON data
+     * @param bufferSize the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @param threads    the number of threads parsing the file
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final File file, final int bufferSize, final int threads) throws IOException {
+        ParallelGraphSONReader.inputGraph(this.graph, file, bufferSize, threads);
+    }
+
+    /**
+     * Input the line-delimited JSON file into the graph, parsing it with a thread per processor.
+     *
+     * @param graph the graph to populate with the JSON data
+     * @param file  a file of line-delimited JSON data
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final File file) throws IOException {
+        ParallelGraphSONReader.inputGraph(graph, file, 1000, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Input the line-delimited JSON file into the graph.
+     *
+     * @param graph      the graph to populate with the JSON data
+     * @param file       a file of line-delimited JSON data
+     * @param bufferSize the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @param threads    the number of threads parsing the file
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final File file, final int bufferSize, final int threads) throws IOException {
+        ParallelGraphSONReader.inputGraph(graph, file, bufferSize, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Input the line-delimited JSON file into the graph.
+     * More control over how the file is split is provided by this method.
+     *
+     * @param inputGraph the graph to populate with the JSON data
+     * @param file       a file of line-delimited JSON data
+     * @param bufferSize the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @param threads    the number of threads parsing the file
+     * @param chunkSize  the size of the chunks the file is split into, in bytes
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public static void inputGraph(final Graph inputGraph, final File file, final int bufferSize, final int threads, final int chunkSize) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive");
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final long length = channel.size();
+
+            // if this is a transactional graph then we're buffering
+            final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
+
+            // a first line without an element declares whether the properties have embedded types
+            final long firstLineEnd = nextLine(channel, 0, length);
+            final Boolean embeddedTypes = readEmbeddedTypes(channel, firstLineEnd);
+            final boolean hasEmbeddedTypes = embeddedTypes != null && embeddedTypes;
+            final long start = embeddedTypes == null ? 0 : firstLineEnd;
+
+            final Load vertices = new Load(channel, split(channel, start, length, chunkSize), hasEmbeddedTypes, true);
+            vertices.run(graph, threads);
+            if (vertices.edgesStart < length) {
+                final Load edges = new Load(channel, split(channel, vertices.edgesStart, length, chunkSize), hasEmbeddedTypes, false);
+                edges.run(graph, threads);
+            }
+
+            graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @return the value of the embeddedTypes field if the line up to the given position is no element, else null
+     */
+    private static Boolean readEmbeddedTypes(final FileChannel channel, final long end) throws IOException {
+        final JsonParser jp = new JsonFactory().createJsonParser(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, end)));
+        try {
+            Boolean embeddedTypes = null;
+            if (jp.nextToken() == JsonToken.START_OBJECT) {
+                while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                    if (!jp.getCurrentName().equals(GraphSONTokens.EMBEDDED_TYPES)) return null;
+                    jp.nextToken();
+                    embeddedTypes = jp.getBooleanValue();
+                }
+            }
+            return embeddedTypes;
+        } finally {
+            jp.close();
+        }
+    }
+
+    /**
+     * Splits the given range of the file into chunks of about the given size which end with a line break.
+     *
+     * @return the start positions of the chunks followed by the end of the range
+     */
+    private static long[] split(final FileChannel channel, final long start, final long end, final int chunkSize) throws IOException {
+        long[] bounds = new long[16];
+        int size = 0;
+        bounds[size++] = start;
+        long position = start;
+        while (position < end) {
+            position = position + chunkSize >= end ? end : nextLine(channel, position + chunkSize - 1, end);
+            if (size == bounds.length) bounds = Arrays.copyOf(bounds, size * 2);
+            bounds[size++] = position;
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+
+    /**
+     * @return the position after the first line break at or after the given position, or the end
+     */
+    private static long nextLine(final FileChannel channel, final long start, final long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Loads either the vertices or the edges of the chunks.
+     */
+    private static class Load {
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final boolean hasEmbeddedTypes;
+        private final boolean vertices;
+
+        private final JsonFactory jsonFactory = new MappingJsonFactory();
+        private final AtomicInteger nextChunk = new AtomicInteger(0);
+        private BlockingQueue<List<ParsedElement>> queue;
+        private volatile boolean aborted = false;
+        private volatile Throwable failure = null;
+        private long edgesStart = Long.MAX_VALUE;
+
+        private Load(final FileChannel channel, final long[] bounds, final boolean hasEmbeddedTypes, final boolean vertices) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.hasEmbeddedTypes = hasEmbeddedTypes;
+            this.vertices = vertices;
+        }
+
+        private void run(final Graph graph, final int threads) throws IOException {
+            final int numWorkers = Math.max(1, Math.min(threads, bounds.length - 1));
+            queue = new ArrayBlockingQueue<List<ParsedElement>>(numWorkers * 2);
+            final Thread[] workers = new Thread[numWorkers];
+            for (int i = 0; i < numWorkers; i++) {
+                workers[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        parseChunks();
+                    }
+                }, "ParallelGraphSONReader-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+
+            boolean completed = false;
+            try {
+                int running = numWorkers;
+                while (running > 0) {
+                    final List<ParsedElement> batch = queue.take();
+                    if (batch == END) {
+                        running--;
+                    } else if (failure == null) {
+                        for (ParsedElement element : batch) {
+                            element.addTo(graph);
+                        }
+                    }
+                }
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } finally {
+                if (!completed) {
+                    aborted = true;
+                    for (Thread worker : workers) {
+                        worker.interrupt();
+                    }
+                }
+            }
+
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure != null) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+        }
+
+        private void parseChunks() {
+            try {
+                int chunk;
+                while (!aborted && (chunk = nextChunk.getAndIncrement()) < bounds.length - 1) {
+                    parseChunk(bounds[chunk], bounds[chunk + 1]);
+                }
+            } catch (InterruptedException e) {
+                aborted = true;
+            } catch (Throwable e) {
+                failure = e;
+                aborted = true;
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    // the reader is aborted
+                }
+            }
+        }
+
+        private void parseChunk(final long start, final long end) throws IOException, InterruptedException {
+            final JsonParser jp = jsonFactory.createJsonParser(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            final ElementParser parser = new ElementParser(jp, hasEmbeddedTypes);
+            List<ParsedElement> batch = new ArrayList<ParsedElement>(BATCH_SIZE);
+            while (!aborted && jp.nextToken() == JsonToken.START_OBJECT) {
+                final long position = start + jp.getTokenLocation().getByteOffset();
+                final ParsedElement element = parser.readElement();
+                if (element.isVertex != vertices) {
+                    if (vertices) {
+                        foundEdges(position);
+                        break;
+                    }
+                    throw new IOException("Vertex at byte " + position + " follows the first edge, vertices have to precede edges");
+                }
+                batch.add(element);
+                if (batch.size() == BATCH_SIZE) {
+                    queue.put(batch);
+                    batch = new ArrayList<ParsedElement>(BATCH_SIZE);
+                }
+            }
+            jp.close();
+            if (!batch.isEmpty()) queue.put(batch);
+        }
+
+        private synchronized void foundEdges(final long position) {
+            edgesStart = Math.min(edgesStart, position);
+        }
+    }
+
+    /**
+     * Reads elements from a parser, reusing the arrays that hold the properties of an element while it is read.
+     */
+    private static class ElementParser {
+
+        private final JsonParser jp;
+        private final boolean hasEmbeddedTypes;
+
+        private String[] keys = new String[8];
+        private Object[] values = new Object[8];
+
+        private ElementParser(final JsonParser jp, final boolean hasEmbeddedTypes) {
+            this.jp = jp;
+            this.hasEmbeddedTypes = hasEmbeddedTypes;
+        }
+
+        /**
+         * Reads the element whose START_OBJECT token is the current token.
+         */
+        private ParsedElement readElement() throws IOException {
+            String id = null;
+            String type = null;
+            String label = null;
+            String outId = null;
+            String inId = null;
+            int size = 0;
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                final String key = jp.getCurrentName();
+                jp.nextToken();
+                if (key.equals(GraphSONTokens._ID)) {
+                    id = jp.getText();
+                } else if (key.equals(GraphSONTokens._TYPE)) {
+                    type = jp.getText();
+                } else if (key.equals(GraphSONTokens._LABEL)) {
+                    label = jp.getText();
+                } else if (key.equals(GraphSONTokens._OUT_V)) {
+                    outId = jp.getText();
+                } else if (key.equals(GraphSONTokens._IN_V)) {
+                    inId = jp.getText();
+                } else {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                        values = Arrays.copyOf(values, size * 2);
+                    }
+                    keys[size] = key;
+                    values[size] = GraphSONReader.readProperty(jp, hasEmbeddedTypes);
+                    size++;
+                }
+            }
+
+            final boolean isVertex = type == null ? outId == null : type.equals(GraphSONTokens.VERTEX);
+            if (id == null) {
+                throw new IOException((isVertex ? "Vertex" : "Edge") + " is missing its " + GraphSONTokens._ID);
+            } else if (!isVertex && (label == null || outId == null || inId == null)) {
+                throw new IOException("Edge " + id + " is missing one of " + GraphSONTokens._LABEL + ", "
+                        + GraphSONTokens._OUT_V + " or " + GraphSONTokens._IN_V);
+            }
+
+            final ParsedElement element = new ParsedElement(isVertex, id, label, outId, inId,
+                    Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+            Arrays.fill(values, 0, size, null);
+            return element;
+        }
+    }
+
+    /**
+     * An element read by a worker which is yet to be added to the graph.
+     */
+    private static class ParsedElement {
+
+        private final boolean isVertex;
+        private final String id;
+        private final String label;
+        private final String outId;
+        private final String inId;
+        private final String[] keys;
+        private final Object[] values;
+
+        private ParsedElement(final boolean isVertex, final String id, final String label, final String outId,
+                              final String inId, final String[] keys, final Object[] values) {
+            this.isVertex = isVertex;
+            this.id = id;
+            this.label = label;
+            this.outId = outId;
+            this.inId = inId;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private void addTo(final Graph graph) {
+            final Element element = isVertex ? graph.addVertex(id)
+                    : graph.addEdge(id, graph.getVertex(outId), graph.getVertex(inId), label);
+            for (int i = 0; i < keys.length; i++) {
+                element.setProperty(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a memory mapped chunk of the file.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            final int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -4,8 +4,8 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
+import com.tinkerpop.blueprints.util.io.Lexer;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -44,13 +44,13 @@ public class NETParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    public void parse(final BufferedReader reader) throws IOException {
+    public void parse(final Lexer lexer) throws IOException {
 
         try {
             // ignore everything until we see '*Vertices'
             String curLine = null;
             try {
-                curLine = skip(reader, NETTokens.NODES);
+                curLine = skip(lexer, NETTokens.NODES);
             } catch (Exception e) {
                 e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
             }
@@ -71,13 +71,11 @@ public class NETParser {
                 node.setProperty(BlueprintsTokens.LABEL, label);
             }
 
-            curLine = null;
-            while (reader.ready()) {
+            while (true) {
                 if (cancel) {
-                    reader.close();
                     return;
                 }
-                curLine = reader.readLine();
+                curLine = lexer.readLine();
                 if (curLine == null || curLine.startsWith("*")) {
                     break;
                 }
@@ -86,20 +84,14 @@ public class NETParser {
                     continue;
                 }
 
-                try {
-                    readVertex(curLine, num_vertices);
-                } catch (IllegalArgumentException iae) {
-                    reader.close();
-                    throw iae;
-                }
+                readVertex(curLine, num_vertices);
             }
 
             //Get arcs
-            curLine = readArcsOrEdges(curLine, reader);
+            curLine = readArcsOrEdges(curLine, lexer);
 
             //Get edges
-            readArcsOrEdges(curLine, reader);
-            reader.close();
+            readArcsOrEdges(curLine, lexer);
         } catch (Exception e) {
             throw new IOException("NET malformed", e);
         }
@@ -200,8 +192,17 @@ public class NETParser {
         }
     }
 
-    private String readArcsOrEdges(String curLine, BufferedReader br) throws Exception {
+    /**
+     * Reads the lines of an arcs or edges section with the lexer up to the header of the next section.
+     * The vertex indices and weights are parsed from the text of their words, as the lexer does not read exponents.
+     *
+     * @return the header of the next section or null at the end of the stream
+     */
+    private String readArcsOrEdges(String curLine, Lexer lexer) throws Exception {
         String nextLine = curLine;
+        if (nextLine == null) {
+            return null;
+        }
 
         boolean reading_arcs = false;
         boolean reading_edges = false;
@@ -221,61 +222,104 @@ public class NETParser {
             is_list = true;
         }
 
-        while (br.ready()) {
+        while (true) {
             if (cancel) {
                 return nextLine;
             }
-            nextLine = br.readLine();
-            if (nextLine == null || nextLine.startsWith(NETTokens.NEXT)) {
-                break;
+            lexer.nextToken();
+            if (lexer.ttype == Lexer.TT_EOF) {
+                return null;
             }
-            if (nextLine.equals("")) { // skip blank lines
+            if (lexer.ttype == Lexer.TT_EOL) { // skip blank lines
                 System.err.println("importerNET_error_dataformat2");
                 continue;
             }
+            if (lexer.ttype == Lexer.TT_WORD && lexer.sval.startsWith(NETTokens.NEXT)) {
+                return lexer.sval + lexer.readLine();
+            }
 
-            StringTokenizer st = new StringTokenizer(nextLine.trim());
-
-            int vid1 = Integer.parseInt(st.nextToken()) - 1;
+            int vid1 = vertexIndex(lexer);
             Vertex nodeFrom = graph.getVertex(vid1);
 
             if (is_list) // one source, multiple destinations
             {
                 do {
-                    int vid2 = Integer.parseInt(st.nextToken()) - 1;
+                    lexer.nextToken();
+                    int vid2 = vertexIndex(lexer);
                     Vertex nodeTo = getOrCreateNode(vid2);
 
                     Edge edge = graph.addEdge(edgeCount, nodeFrom, nodeTo, defaultEdgeLabel);
                     edgeCount++;
-                } while (st.hasMoreTokens());
+                } while (hasMoreTokens(lexer));
             } else // one source, one destination, at most one weight
             {
-                int vid2 = Integer.parseInt(st.nextToken()) - 1;
+                lexer.nextToken();
+                int vid2 = vertexIndex(lexer);
                 Vertex nodeTo = getOrCreateNode(vid2);
 
                 Edge edge = graph.addEdge(edgeCount, nodeFrom, nodeTo, defaultEdgeLabel);
                 edgeCount++;
                 // get the edge weight
-                if (st.hasMoreTokens()) {
+                if (hasMoreTokens(lexer)) {
                     float edgeWeight = 1f;
+                    lexer.nextToken();
                     try {
-                        edgeWeight = new Float(st.nextToken());
-                    } catch (Exception e) {
+                        edgeWeight = parseFloat(lexer);
+                    } catch (NumberFormatException e) {
                         System.err.println("importerNET_error_dataformat7");
                     }
 
                     edge.setProperty(BlueprintsTokens.WEIGHT, edgeWeight);
                 }
-                if (st.hasMoreTokens()) {
-                    String key = st.nextToken();
-                    if (key.equalsIgnoreCase(NETTokens.ECOLOR)) {
-                        String value = st.nextToken();
-                        edge.setProperty(BlueprintsTokens.COLOR, value);
+                if (hasMoreTokens(lexer)) {
+                    lexer.nextToken();
+                    if (lexer.ttype == Lexer.TT_WORD && lexer.sval.equalsIgnoreCase(NETTokens.ECOLOR)) {
+                        if (hasMoreTokens(lexer) && lexer.nextToken() == Lexer.TT_WORD) {
+                            edge.setProperty(BlueprintsTokens.COLOR, lexer.sval);
+                        }
                     }
                 }
             }
+            // skip the remainder of the line, the line break of which has not been consumed
+            int type;
+            do {
+                type = lexer.nextToken();
+            } while (type != Lexer.TT_EOL && type != Lexer.TT_EOF);
+        }
+    }
+
+    private int vertexIndex(final Lexer lexer) throws IOException {
+        // go from 1-based to 0-based index
+        if (lexer.ttype == Lexer.TT_NUMBER) {
+            return (int) lexer.nval - 1;
+        }
+        if (lexer.ttype == Lexer.TT_WORD) {
+            try {
+                return Integer.parseInt(lexer.sval) - 1;
+            } catch (NumberFormatException e) {
+                throw new IOException("Vertex index expected on line " + lexer.lineno(), e);
+            }
         }
-        return nextLine;
+        throw new IOException("Vertex index expected on line " + lexer.lineno());
+    }
+
+    /**
+     * Parses the current token, which is a word unless the lexer was configured to parse numbers.
+     */
+    private float parseFloat(final Lexer lexer) {
+        if (lexer.ttype == Lexer.TT_NUMBER) {
+            return (float) lexer.nval;
+        }
+        if (lexer.ttype != Lexer.TT_WORD) {
+            throw new NumberFormatException("Number expected on line " + lexer.lineno());
+        }
+        return Float.parseFloat(lexer.sval);
+    }
+
+    private boolean hasMoreTokens(final Lexer lexer) throws IOException {
+        final int type = lexer.nextToken();
+        lexer.pushBack();
+        return type != Lexer.TT_EOL && type != Lexer.TT_EOF;
     }
 
     protected Vertex getOrCreateNode(int id) {
@@ -285,9 +329,9 @@ public class NETParser {
         return graph.getVertex(id);
     }
 
-    private String skip(BufferedReader br, String str) throws Exception {
-        while (br.ready()) {
-            String curLine = br.readLine();
+    private String skip(Lexer lexer, String str) throws Exception {
+        while (true) {
+            String curLine = lexer.readLine();
             if (curLine == null) {
                 break;
             }
@@ -2,9 +2,9 @@ package com.tinkerpop.blueprints.util.io.net;
 
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.util.io.Lexer;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -132,9 +132,12 @@ public class NETReader {
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
+        final Lexer lexer = new Lexer(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
+        lexer.whitespaceChars(0, ' ');
+        lexer.wordChars(' ' + 1, '\u00ff');
+        lexer.eolIsSignificant(true);
         try {
-            new NETParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(reader);
+            new NETParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(lexer);
             graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
         } catch (IOException e) {
             throw new IOException("NET malformed", e);
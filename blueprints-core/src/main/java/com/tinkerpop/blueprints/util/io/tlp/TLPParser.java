@@ -4,11 +4,12 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
+import com.tinkerpop.blueprints.util.io.Lexer;
 
 import java.awt.*;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 public class TLPParser {
     private final String defaultEdgeLabel;
@@ -31,16 +32,16 @@ public class TLPParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    public void parse(final BufferedReader reader) throws IOException {
+    public void parse(final Lexer lexer) throws IOException {
         int state = 0; // 0=topology, 1=properties
         String property = null;
         String nodeDefault = "";
         String edgeDefault = "";
         boolean cancel = false;
-        while (reader.ready() && !cancel) {
-            String line = reader.readLine();
+        String line;
+        while (!cancel && (line = lexer.readLine()) != null) {
             if (!isComment(line)) {
-                String[] tokens = customSplit(line);
+                String[] tokens = customSplit(lexer, line);
                 if (tokens.length > 0) {
                     if (state == 0) {
                         // topology
@@ -140,24 +141,37 @@ public class TLPParser {
         }
     }
 
-    private static String[] customSplit(final String input) {
-        ArrayList<String> elements = new ArrayList<String>();
-        StringBuilder elementBuilder = new StringBuilder();
+    /**
+     * Splits a line on the spaces and closing parentheses outside of quotes, interning the trimmed tokens so that the
+     * repeated keywords and values of a file share their instances.
+     */
+    private static String[] customSplit(final Lexer lexer, final String input) {
+        final List<String> elements = new ArrayList<String>();
+        final char[] chars = input.toCharArray();
+        int start = 0;
 
         boolean isQuoted = false;
-        for (char c : input.toCharArray()) {
+        for (int i = 0; i < chars.length; i++) {
+            final char c = chars[i];
             if (c == '\"') {
                 isQuoted = !isQuoted;
-                // continue;        // changed according to the OP comment - \" shall not be skipped
             }
-            if ((c == ' ' && !isQuoted) || c == ')' && !isQuoted) {
-                elements.add(elementBuilder.toString().trim());
-                elementBuilder = new StringBuilder();
-                continue;
+            if ((c == ' ' || c == ')') && !isQuoted) {
+                elements.add(trim(lexer, chars, start, i));
+                start = i + 1;
             }
-            elementBuilder.append(c);
         }
-        elements.add(elementBuilder.toString().trim());
+        elements.add(trim(lexer, chars, start, chars.length));
         return elements.toArray(new String[elements.size()]);
     }
+
+    private static String trim(final Lexer lexer, final char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (start < end && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return lexer.intern(chars, start, end - start);
+    }
 }
@@ -2,9 +2,9 @@ package com.tinkerpop.blueprints.util.io.tlp;
 
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.util.io.Lexer;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -130,10 +130,10 @@ public class TLPReader {
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
+        final Lexer lexer = new Lexer(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
 
         try {
-            new TLPParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(reader);
+            new TLPParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(lexer);
             graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
         } catch (Exception e) {
             throw new IOException(e);
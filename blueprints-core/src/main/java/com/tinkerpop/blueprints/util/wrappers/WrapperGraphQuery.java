@@ -0,0 +1,44 @@
+package com.tinkerpop.blueprints.util.wrappers;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * A WrapperGraphQuery is useful for wrapping the construction and results of a Graph.query().
+ * Any necessary Iterable wrapping must occur when GraphQuery.vertices() or GraphQuery.edges() is called.
+ */
+public abstract class WrapperGraphQuery implements GraphQuery {
+
+    protected final GraphQuery query;
+
+    public WrapperGraphQuery(final GraphQuery query) {
+        this.query = query;
+    }
+
+    public GraphQuery has(final String key, final Object value) {
+        this.query.has(key, value);
+        return this;
+    }
+
+    public <T extends Comparable<T>> GraphQuery has(final String key, final T value, final Query.Compare compare) {
+        this.query.has(key, value, compare);
+        return this;
+    }
+
+    public <T extends Comparable<T>> GraphQuery interval(final String key, final T startValue, final T endValue) {
+        this.query.interval(key, startValue, endValue);
+        return this;
+    }
+
+    public GraphQuery limit(final long limit) {
+        this.query.limit(limit);
+        return this;
+    }
+
+    public abstract Iterable<Edge> edges();
+
+    public abstract Iterable<Vertex> vertices();
+
+}
@@ -4,18 +4,33 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ElementPropertiesGraph;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.StringFactory;
+import com.tinkerpop.blueprints.util.wrappers.batch.ParallelBatchLoader.ElementCall;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.CompactStringIDVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.LongIDVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.ObjectIDVertexCache;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.OffHeapVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.StringIDVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.URLCompression;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
 import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -40,6 +55,18 @@ import java.util.Set;
  * BatchGraph can also automatically set the provided element ids as properties on the respective element. Use
  * {@link #setVertexIdKey(String)} and {@link #setEdgeIdKey(String)} to set the keys for the vertex and edge properties
  * respectively. This allows to make the loaded graph compatible for later wrapping with {@link IdGraph}.
+ * <br />
+ * For graphs that accept concurrent writers, such as graphs with thread bound transactions or a
+ * {@link com.tinkerpop.blueprints.ThreadedTransactionalGraph}, BatchGraph can load with a number of worker threads
+ * (see {@link #BatchGraph(TransactionalGraph, IdType, long, int)}). The calling thread then only hands vertices, edges
+ * and their properties to the workers, each of which loads a partition of the vertices and the edges going out of
+ * them in its own transactions. Readers that wrap their graph with {@link #wrap(Graph, long)} load in parallel when
+ * given such a BatchGraph.
+ * <br />
+ * By default, BatchGraph assumes that it loads into an empty graph. To load a delta into a graph that already contains
+ * some of the vertices, use {@link #setLoadingFromScratch(boolean)}. BatchGraph then looks up the vertices that it has
+ * not seen before in the wrapped graph, once for each id, and merges the properties of the vertices added again into
+ * the existing ones.
  *
  * @author Matthias Broecheler (http://www.matthiasb.com)
  */
@@ -54,12 +81,16 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
     /**
      * Type of vertex ids expected by BatchGraph. The default is IdType.OBJECT.
      * Use the IdType that best matches the used vertex id types in order to save memory.
+     * OFF_HEAP accepts the same ids as OBJECT but keeps them outside of the Java heap, spilling to disk when needed,
+     * for loads with more vertices than the heap can hold. Use {@link OffHeapVertexCache} directly to configure it.
+     * COMPACT_STRING accepts String ids like STRING but keeps them in a fraction of its memory, at the expense of some
+     * speed, see {@link CompactStringIDVertexCache}.
      */
     public static enum IdType {
 
-        OBJECT, NUMBER, STRING, URL;
+        OBJECT, NUMBER, STRING, URL, OFF_HEAP, COMPACT_STRING;
 
-        private VertexCache getVertexCache(Graph g) {
+        VertexCache getVertexCache(Graph g) {
             switch (this) {
                 case OBJECT:
                     return new ObjectIDVertexCache(g);
@@ -69,6 +100,10 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
                     return new StringIDVertexCache(g);
                 case URL:
                     return new StringIDVertexCache(g, new URLCompression());
+                case OFF_HEAP:
+                    return new OffHeapVertexCache(g);
+                case COMPACT_STRING:
+                    return new CompactStringIDVertexCache(g);
                 default:
                     throw new IllegalArgumentException("Unrecognized ID type: " + this);
             }
@@ -82,6 +117,7 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
     private String edgeIdKey;
 
     private final VertexCache cache;
+    private final ParallelBatchLoader parallel;
 
     private long bufferSize = DEFAULT_BUFFER_SIZE;
     private long remainingBufferSize;
@@ -89,6 +125,17 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
     private BatchEdge currentEdge = null;
     private Edge currentEdgeCached = null;
 
+    private boolean bufferProperties = false;
+    private PendingElement pending = null;
+
+    private boolean loadingFromScratch = true;
+    private final List<PendingElement> batch = new ArrayList<PendingElement>();
+    private final Map<Object, PendingElement> batchVertices = new HashMap<Object, PendingElement>();
+    // ids looked up in vain during the current transaction
+    private final Set<Object> absentVertices = new HashSet<Object>();
+
+    private boolean finished = false;
+
     /**
      * Constructs a BatchGraph wrapping the provided graph, using the specified buffer size and expecting vertex ids of
      * the specified IdType. Supplying vertex ids which do not match this type will throw exceptions.
@@ -98,8 +145,20 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
      * @param bufferSize Defines the number of vertices and edges loaded before starting a new transaction. The larger this value, the more memory is required but the faster the loading process.
      */
     public BatchGraph(final T graph, final IdType type, final long bufferSize) {
+        this(graph, getVertexCache(graph, type), bufferSize);
+    }
+
+    /**
+     * Constructs a BatchGraph wrapping the provided graph, using the specified buffer size and the provided vertex cache,
+     * which must have been constructed for the same graph.
+     *
+     * @param graph      Graph to be wrapped
+     * @param cache      VertexCache mapping the vertex ids to the vertices of the wrapped graph
+     * @param bufferSize Defines the number of vertices and edges loaded before starting a new transaction. The larger this value, the more memory is required but the faster the loading process.
+     */
+    public BatchGraph(final T graph, final VertexCache cache, final long bufferSize) {
         if (graph == null) throw new IllegalArgumentException("Graph may not be null");
-        if (type == null) throw new IllegalArgumentException("Type may not be null");
+        if (cache == null) throw new IllegalArgumentException("Cache may not be null");
         if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
         this.graph = graph;
         this.bufferSize = bufferSize;
@@ -107,12 +166,51 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         vertexIdKey = null;
         edgeIdKey = null;
 
-        cache = type.getVertexCache(this.graph);
+        this.cache = cache;
+        this.parallel = null;
 
         graph.startTransaction();
         remainingBufferSize = this.bufferSize;
     }
 
+    /**
+     * Constructs a BatchGraph wrapping the provided graph which loads with the specified number of worker threads,
+     * each of which commits its own transaction after the specified buffer size. The wrapped graph must accept
+     * concurrent writers. With a single worker, this is the same as {@link #BatchGraph(TransactionalGraph, IdType, long)}.
+     *
+     * @param graph      Graph to be wrapped
+     * @param type       Type of vertex id expected. This information is used to optimize the vertex cache memory footprint.
+     * @param bufferSize Defines the number of vertices and edges loaded by a worker before starting a new transaction.
+     * @param workers    Number of worker threads
+     */
+    public BatchGraph(final T graph, final IdType type, final long bufferSize, final int workers) {
+        if (graph == null) throw new IllegalArgumentException("Graph may not be null");
+        if (type == null) throw new IllegalArgumentException("Type may not be null");
+        if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
+        if (workers <= 0) throw new IllegalArgumentException("Workers must be positive");
+        this.graph = graph;
+        this.bufferSize = bufferSize;
+
+        vertexIdKey = null;
+        edgeIdKey = null;
+
+        if (workers == 1) {
+            this.cache = type.getVertexCache(this.graph);
+            this.parallel = null;
+            graph.startTransaction();
+            remainingBufferSize = this.bufferSize;
+        } else {
+            this.cache = null;
+            this.parallel = new ParallelBatchLoader(this.graph, type, bufferSize, workers, ParallelBatchLoader.DEFAULT_QUEUE_SIZE);
+        }
+    }
+
+    private static VertexCache getVertexCache(final Graph graph, final IdType type) {
+        if (graph == null) throw new IllegalArgumentException("Graph may not be null");
+        if (type == null) throw new IllegalArgumentException("Type may not be null");
+        return type.getVertexCache(graph);
+    }
+
     /**
      * Constructs a BatchGraph wrapping the provided graph.
      *
@@ -148,6 +246,22 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         else return new BatchGraph(new WritethroughGraph(graph), IdType.OBJECT, buffer);
     }
 
+    /**
+     * Constructs a BatchGraph wrapping the provided graph which loads with the specified number of worker threads.
+     * Immediately returns the graph if its a BatchGraph and wraps non-transactional graphs, which must then be safe
+     * for concurrent writers, in an additional {@link WritethroughGraph}.
+     *
+     * @param graph   Graph to be wrapped
+     * @param buffer  Size of the buffer of each worker
+     * @param workers Number of worker threads
+     */
+    public static BatchGraph wrap(final Graph graph, final long buffer, final int workers) {
+        if (graph instanceof BatchGraph) return (BatchGraph) graph;
+        else if (graph instanceof TransactionalGraph)
+            return new BatchGraph((TransactionalGraph) graph, IdType.OBJECT, buffer, workers);
+        else return new BatchGraph(new WritethroughGraph(graph), IdType.OBJECT, buffer, workers);
+    }
+
     /**
      * Sets the key to be used when setting the vertex id as a property on the respective vertex.
      * If the key is null, then no property will be set.
@@ -156,6 +270,8 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
      * @param key Key to be used.
      */
     public void setVertexIdKey(final String key) {
+        if (!loadingFromScratch && key == null && graph.getFeatures().ignoresSuppliedIds)
+            throw new IllegalStateException("Cannot set vertex id key to null when not loading from scratch while ids are ignored");
         this.vertexIdKey = key;
     }
 
@@ -170,11 +286,65 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         this.edgeIdKey = key;
     }
 
+    /**
+     * Sets whether the properties of a vertex or an edge are buffered until the next element is added, so that the
+     * element is created together with all of its properties. If the wrapped graph is an {@link ElementPropertiesGraph},
+     * that is a single write rather than one for the element and one for each of its properties.
+     * A buffered vertex is created when the next element is added, a vertex is retrieved or the transaction is stopped.
+     * A buffered edge is also created when its id, label or vertices are requested.
+     * By default, properties are not buffered.
+     *
+     * @param buffer whether to buffer the properties of the element last added
+     */
+    public void setPropertyBuffering(final boolean buffer) {
+        if (!buffer) flushPending();
+        this.bufferProperties = buffer;
+    }
+
+    /**
+     * Sets whether the wrapped graph is loaded from scratch, which is the default, or already contains vertices.
+     * <br />
+     * When not loading from scratch, the vertices and edges of a transaction are kept in memory until it is committed.
+     * The vertices with ids which have not been seen before are then looked up in the wrapped graph, by the
+     * vertex id key if one is set (which should be indexed) and by their id otherwise. A vertex that exists is
+     * updated with the properties of the added vertex instead of being duplicated, and a vertex that is not found is
+     * remembered as absent, so that each id is looked up only once. Edges are always added.
+     * {@link #getVertex(Object)} looks up an id that has not been seen before immediately.
+     * <br />
+     * Loading not from scratch requires the vertex id key to be set if the wrapped graph ignores supplied ids, and is not
+     * supported with multiple workers.
+     *
+     * @param fromScratch whether the wrapped graph is loaded from scratch
+     */
+    public void setLoadingFromScratch(final boolean fromScratch) {
+        if (!fromScratch) {
+            if (parallel != null)
+                throw new IllegalStateException("Cannot load not from scratch with multiple workers");
+            if (vertexIdKey == null && graph.getFeatures().ignoresSuppliedIds)
+                throw new IllegalStateException("Cannot load not from scratch without a vertex id key while ids are ignored");
+        } else {
+            flushPending();
+            flushBatch();
+        }
+        this.loadingFromScratch = fromScratch;
+    }
+
+    /**
+     * @return whether the wrapped graph is loaded from scratch
+     */
+    public boolean isLoadingFromScratch() {
+        return loadingFromScratch;
+    }
+
     private void nextElement() {
+        flushPending();
         currentEdge = null;
         currentEdgeCached = null;
+        if (parallel != null) return;
         if (remainingBufferSize <= 0) {
+            flushBatch();
             graph.stopTransaction(Conclusion.SUCCESS);
+            absentVertices.clear();
             cache.newTransaction();
             graph.startTransaction();
             remainingBufferSize = bufferSize;
@@ -201,18 +371,52 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
     @Override
     public void stopTransaction(final Conclusion conclusion) {
         if (conclusion != Conclusion.SUCCESS) throw new IllegalArgumentException("Cannot abort batch loading");
+        flushPending();
+        flushBatch();
         currentEdge = null;
         currentEdgeCached = null;
+        if (parallel != null) {
+            parallel.synchronize();
+            return;
+        }
         remainingBufferSize = 0;
         graph.stopTransaction(Conclusion.SUCCESS);
+        absentVertices.clear();
+    }
+
+    /**
+     * Commits the loaded elements and releases what the loading holds, which are the worker threads when loading in
+     * parallel and the vertex cache, without shutting down the wrapped graph. BatchGraph cannot be used to load
+     * afterwards, and finishing it again has no effect. The resources are released even if committing fails.
+     */
+    public void finish() {
+        if (finished) return;
+        finished = true;
+        try {
+            flushPending();
+            flushBatch();
+        } finally {
+            currentEdge = null;
+            currentEdgeCached = null;
+            try {
+                if (parallel != null) parallel.shutdown();
+                else graph.stopTransaction(Conclusion.SUCCESS);
+            } finally {
+                if (cache instanceof Closeable) {
+                    try {
+                        ((Closeable) cache).close();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void shutdown() {
-        graph.stopTransaction(Conclusion.SUCCESS);
+        finish();
         graph.shutdown();
-        currentEdge = null;
-        currentEdgeCached = null;
     }
 
     @Override
@@ -239,21 +443,43 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
 
     @Override
     public Vertex getVertex(final Object id) {
+        flushPending();
+        if (parallel != null) return parallel.containsVertex(id) ? new BatchVertex(id) : null;
+        if (!loadingFromScratch) return containsVertex(id) ? new BatchVertex(id) : null;
         Vertex v = cache.getVertex(id);
         if (v == null) return null;
         else return new BatchVertex(id);
     }
 
+    private boolean containsVertex(final Object id) {
+        if (batchVertices.containsKey(id) || cache.getVertex(id) != null) return true;
+        if (absentVertices.contains(id)) return false;
+        final Vertex v = lookupVertex(id);
+        if (v == null) {
+            absentVertices.add(id);
+            return false;
+        }
+        cache.add(v, id);
+        return true;
+    }
+
+    private Vertex lookupVertex(final Object id) {
+        if (vertexIdKey == null) return graph.getVertex(id);
+        final Iterator<Vertex> vertices = graph.getVertices(vertexIdKey, id).iterator();
+        return vertices.hasNext() ? vertices.next() : null;
+    }
+
     @Override
     public Vertex addVertex(final Object id) {
         if (id == null) throw ExceptionFactory.vertexIdCanNotBeNull();
         nextElement();
 
-        Vertex v = graph.addVertex(id);
+        final Map<String, Object> properties = new HashMap<String, Object>();
         if (vertexIdKey != null) {
-            v.setProperty(vertexIdKey, id);
+            properties.put(vertexIdKey, id);
         }
-        cache.add(v, id);
+        if (bufferProperties || !loadingFromScratch) pending = new PendingElement(id, null, null, null, properties);
+        else writeVertex(id, properties);
         return new BatchVertex(id);
     }
 
@@ -262,17 +488,134 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         if (!BatchVertex.class.isInstance(outVertex) || !BatchVertex.class.isInstance(inVertex))
             throw new IllegalArgumentException("Given element was not created in this graph");
         nextElement();
-        final Vertex ov = getCachedVertex(outVertex.getId());
-        final Vertex iv = getCachedVertex(inVertex.getId());
-        currentEdgeCached = graph.addEdge(id, ov, iv, label);
+
+        // the vertices of the wrapped graph, or the vertex ids when loading in parallel or not from scratch
+        final Object ov, iv;
+        if (parallel != null || !loadingFromScratch) {
+            ov = outVertex.getId();
+            iv = inVertex.getId();
+        } else {
+            ov = getCachedVertex(outVertex.getId());
+            iv = getCachedVertex(inVertex.getId());
+        }
+        final Map<String, Object> properties = new HashMap<String, Object>();
         if (edgeIdKey != null && id != null) {
-            currentEdgeCached.setProperty(edgeIdKey, id);
+            properties.put(edgeIdKey, id);
         }
+        if (bufferProperties || !loadingFromScratch) pending = new PendingElement(id, ov, iv, label, properties);
+        else writeEdge(id, ov, iv, label, properties);
 
         currentEdge = new BatchEdge();
         return currentEdge;
     }
 
+    private void writeVertex(final Object id, final Map<String, Object> properties) {
+        if (parallel != null) parallel.addVertex(id, properties);
+        else cache.add(createVertex(graph, id, properties), id);
+    }
+
+    private void writeEdge(final Object id, final Object outVertex, final Object inVertex, final String label, final Map<String, Object> properties) {
+        if (parallel != null) parallel.addEdge(id, outVertex, inVertex, label, properties);
+        else currentEdgeCached = createEdge(graph, id, (Vertex) outVertex, (Vertex) inVertex, label, properties);
+    }
+
+    private void flushPending() {
+        if (pending == null) return;
+        final PendingElement element = pending;
+        pending = null;
+        if (!loadingFromScratch) addToBatch(element);
+        else if (element.outVertex == null) writeVertex(element.id, element.properties);
+        else writeEdge(element.id, element.outVertex, element.inVertex, element.label, element.properties);
+    }
+
+    private void addToBatch(final PendingElement element) {
+        if (element.outVertex == null) {
+            final PendingElement vertex = batchVertices.get(element.id);
+            if (vertex != null) {
+                vertex.properties.putAll(element.properties);
+                return;
+            }
+            batchVertices.put(element.id, element);
+        }
+        batch.add(element);
+    }
+
+    /**
+     * Looks up the vertices of the batch which have not been seen before, then updates those that exist, adds the
+     * others and adds the edges.
+     */
+    private void flushBatch() {
+        if (batch.isEmpty()) return;
+        for (final Object id : batchVertices.keySet()) {
+            if (cache.getVertex(id) == null && !absentVertices.contains(id)) {
+                final Vertex v = lookupVertex(id);
+                if (v != null) cache.add(v, id);
+            }
+        }
+        for (final PendingElement element : batch) {
+            if (element.outVertex == null) {
+                final Vertex v = cache.getVertex(element.id);
+                if (v == null) {
+                    cache.add(createVertex(graph, element.id, element.properties), element.id);
+                    absentVertices.remove(element.id);
+                } else {
+                    // only the changed properties are written and, as when creating, null values are skipped
+                    for (final Map.Entry<String, Object> property : element.properties.entrySet()) {
+                        final Object value = property.getValue();
+                        if (value != null && !value.equals(v.getProperty(property.getKey())))
+                            v.setProperty(property.getKey(), value);
+                    }
+                }
+            } else {
+                currentEdgeCached = createEdge(graph, element.id, getCachedVertex(element.outVertex), getCachedVertex(element.inVertex), element.label, element.properties);
+            }
+        }
+        batch.clear();
+        batchVertices.clear();
+    }
+
+    /**
+     * Creates a vertex with the properties in a single write if the graph is an {@link ElementPropertiesGraph}.
+     */
+    static Vertex createVertex(final Graph graph, final Object id, final Map<String, Object> properties) {
+        if (graph instanceof ElementPropertiesGraph)
+            return ((ElementPropertiesGraph) graph).addVertex(id, properties);
+        final Vertex vertex = graph.addVertex(id);
+        ElementHelper.setProperties(vertex, properties);
+        return vertex;
+    }
+
+    /**
+     * Creates an edge with the properties in a single write if the graph is an {@link ElementPropertiesGraph}.
+     */
+    static Edge createEdge(final Graph graph, final Object id, final Vertex outVertex, final Vertex inVertex, final String label, final Map<String, Object> properties) {
+        if (graph instanceof ElementPropertiesGraph)
+            return ((ElementPropertiesGraph) graph).addEdge(id, outVertex, inVertex, label, properties);
+        final Edge edge = graph.addEdge(id, outVertex, inVertex, label);
+        ElementHelper.setProperties(edge, properties);
+        return edge;
+    }
+
+    /**
+     * A vertex or, if it has an out vertex, an edge whose creation is deferred until all of its properties are set.
+     */
+    private static class PendingElement {
+
+        private final Object id;
+        private final Object outVertex;
+        private final Object inVertex;
+        private final String label;
+        private final Map<String, Object> properties;
+
+        private PendingElement(final Object id, final Object outVertex, final Object inVertex, final String label, final Map<String, Object> properties) {
+            this.id = id;
+            this.outVertex = outVertex;
+            this.inVertex = inVertex;
+            this.label = label;
+            this.properties = properties;
+        }
+    }
+
     // ################### Unsupported Graph Methods ####################
 
     @Override
@@ -310,6 +653,11 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         throw retrievalNotSupported();
     }
 
+    @Override
+    public GraphQuery query() {
+        throw retrievalNotSupported();
+    }
+
     private class BatchVertex implements Vertex {
 
         private final Object externalID;
@@ -336,7 +684,12 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
 
         @Override
         public void setProperty(String key, Object value) {
-            getCachedVertex(externalID).setProperty(key, value);
+            Map<String, Object> properties = getBufferedProperties();
+            if (properties != null) {
+                if (key.equals(StringFactory.ID)) throw ExceptionFactory.propertyKeyIdIsReserved();
+                properties.put(key, value);
+            } else if (parallel != null) parallel.applyToVertex(externalID, ElementCall.setProperty(key, value));
+            else getCachedVertex(externalID).setProperty(key, value);
         }
 
         @Override
@@ -346,62 +699,124 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
 
         @Override
         public Object getProperty(String key) {
+            Map<String, Object> properties = getReadableProperties();
+            if (properties != null) return properties.get(key);
+            if (parallel != null) return parallel.callVertex(externalID, ElementCall.getProperty(key));
             return getCachedVertex(externalID).getProperty(key);
         }
 
         @Override
         public Set<String> getPropertyKeys() {
+            Map<String, Object> properties = getReadableProperties();
+            if (properties != null) return new HashSet<String>(properties.keySet());
+            if (parallel != null) return (Set<String>) parallel.callVertex(externalID, ElementCall.GET_PROPERTY_KEYS);
             return getCachedVertex(externalID).getPropertyKeys();
         }
 
         @Override
         public Object removeProperty(String key) {
+            Map<String, Object> properties = getReadableProperties();
+            if (properties != null) return properties.remove(key);
+            if (parallel != null) return parallel.callVertex(externalID, ElementCall.removeProperty(key));
             return getCachedVertex(externalID).removeProperty(key);
         }
+
+        private Map<String, Object> getBufferedProperties() {
+            if (pending != null && pending.outVertex == null && pending.id.equals(externalID)) return pending.properties;
+            final PendingElement vertex = batchVertices.get(externalID);
+            if (vertex != null) return vertex.properties;
+            else return null;
+        }
+
+        /**
+         * The buffered properties are all properties of the vertex only when loading from scratch.
+         */
+        private Map<String, Object> getReadableProperties() {
+            if (loadingFromScratch) return getBufferedProperties();
+            flushPending();
+            flushBatch();
+            return null;
+        }
     }
 
     private class BatchEdge implements Edge {
 
         @Override
         public Vertex getVertex(Direction direction) throws IllegalArgumentException {
+            if (parallel != null) return (Vertex) callWrappedEdge(ElementCall.getVertex(direction));
             return getWrappedEdge().getVertex(direction);
         }
 
         @Override
         public String getLabel() {
+            if (parallel != null) return (String) callWrappedEdge(ElementCall.GET_LABEL);
             return getWrappedEdge().getLabel();
         }
 
         @Override
         public void setProperty(String key, Object value) {
-            getWrappedEdge().setProperty(key, value);
+            Map<String, Object> properties = getBufferedProperties();
+            if (properties != null) {
+                if (key.equals(StringFactory.ID)) throw ExceptionFactory.propertyKeyIdIsReserved();
+                if (key.equals(StringFactory.LABEL)) throw ExceptionFactory.propertyKeyLabelIsReservedForEdges();
+                properties.put(key, value);
+            } else if (parallel != null) parallel.applyToEdge(ElementCall.setProperty(key, value));
+            else getWrappedEdge().setProperty(key, value);
         }
 
         @Override
         public Object getId() {
+            if (parallel != null) return callWrappedEdge(ElementCall.GET_ID);
             return getWrappedEdge().getId();
         }
 
         @Override
         public Object getProperty(String key) {
+            Map<String, Object> properties = getBufferedProperties();
+            if (properties != null) return properties.get(key);
+            if (parallel != null) return callWrappedEdge(ElementCall.getProperty(key));
             return getWrappedEdge().getProperty(key);
         }
 
         @Override
         public Set<String> getPropertyKeys() {
+            Map<String, Object> properties = getBufferedProperties();
+            if (properties != null) return new HashSet<String>(properties.keySet());
+            if (parallel != null) return (Set<String>) callWrappedEdge(ElementCall.GET_PROPERTY_KEYS);
             return getWrappedEdge().getPropertyKeys();
         }
 
         @Override
         public Object removeProperty(String key) {
+            Map<String, Object> properties = getBufferedProperties();
+            if (properties != null) return properties.remove(key);
+            if (parallel != null) return callWrappedEdge(ElementCall.removeProperty(key));
             return getWrappedEdge().removeProperty(key);
         }
 
+        private Map<String, Object> getBufferedProperties() {
+            checkScope();
+            if (pending != null && pending.outVertex != null) return pending.properties;
+            else return null;
+        }
+
         private Edge getWrappedEdge() {
+            checkScope();
+            flushPending();
+            flushBatch();
+            return currentEdgeCached;
+        }
+
+        private Object callWrappedEdge(ElementCall call) {
+            checkScope();
+            flushPending();
+            return parallel.callEdge(call);
+        }
+
+        private void checkScope() {
             if (this != currentEdge) {
                 throw new UnsupportedOperationException("This edge is no longer in scope");
             }
-            return currentEdgeCached;
         }
     }
 
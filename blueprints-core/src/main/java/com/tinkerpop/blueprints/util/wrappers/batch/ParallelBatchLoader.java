@@ -0,0 +1,450 @@
+package com.tinkerpop.blueprints.util.wrappers.batch;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * ParallelBatchLoader executes the mutations of a {@link BatchGraph} on a number of worker threads.
+ * <br />
+ * Vertices are partitioned by the hash of their id. Each worker owns the vertex cache of one partition, loads the
+ * vertices of its partition and the edges whose out vertex is in its partition, and commits its own transaction
+ * every bufferSize elements. Each worker transaction is either a thread transaction of a
+ * {@link ThreadedTransactionalGraph} or the transaction that the wrapped graph binds to the worker thread.
+ * The calling thread hands the mutations to the workers through bounded queues, so it is blocked while they catch up.
+ * <br />
+ * An edge can only be added by a worker once its in vertex is committed. The loader remembers the ids of the vertices
+ * added since all workers last committed, and when an edge refers to one of them in another partition, or bufferSize
+ * of them have been added, it synchronizes by having all workers commit. Loading all vertices before the edges hence
+ * requires just one such synchronization when the edges start.
+ * <br />
+ * A failure of a worker fails the load and is thrown by the next call of the loader.
+ */
+
+class ParallelBatchLoader {
+
+    /**
+     * Default number of mutations queued for each worker
+     */
+    static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private final TransactionalGraph graph;
+    private final BatchGraph.IdType type;
+    private final long bufferSize;
+    private final Worker[] workers;
+
+    private final Set<Object> unsynchronized = new HashSet<Object>();
+    private int edgeWorker = -1;
+    private volatile Throwable failure = null;
+
+    ParallelBatchLoader(final TransactionalGraph graph, final BatchGraph.IdType type, final long bufferSize, final int numWorkers, final int queueSize) {
+        this.graph = graph;
+        this.type = type;
+        this.bufferSize = bufferSize;
+        this.workers = new Worker[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new Worker(i, queueSize);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    void addVertex(final Object id, final Map<String, Object> properties) {
+        final Object key = getKey(id);
+        if (unsynchronized.size() >= bufferSize) synchronize();
+        unsynchronized.add(key);
+        edgeWorker = -1;
+        submit(getPartition(key), new Operation() {
+            @Override
+            void execute(final Worker worker) {
+                worker.nextElement();
+                final Vertex v = BatchGraph.createVertex(worker.transaction, id, properties);
+                synchronized (worker.cache) {
+                    worker.cache.add(v, id);
+                }
+            }
+        });
+    }
+
+    boolean containsVertex(final Object id) {
+        check();
+        final Object key = getKey(id);
+        if (unsynchronized.contains(key)) return true;
+        final Worker worker = workers[getPartition(key)];
+        synchronized (worker.cache) {
+            return worker.cache.getVertex(id) != null;
+        }
+    }
+
+    void addEdge(final Object id, final Object outID, final Object inID, final String label, final Map<String, Object> properties) {
+        final int partition = getPartition(getKey(outID));
+        final Object inKey = getKey(inID);
+        if (unsynchronized.contains(inKey) && getPartition(inKey) != partition) synchronize();
+        edgeWorker = partition;
+        submit(partition, new Operation() {
+            @Override
+            void execute(final Worker worker) {
+                worker.nextElement();
+                final Vertex ov = worker.getCachedVertex(outID);
+                final Vertex iv = worker.getCachedVertex(inID);
+                worker.currentEdge = BatchGraph.createEdge(worker.transaction, id, ov, iv, label, properties);
+            }
+        });
+    }
+
+    /**
+     * Applies the mutation to the vertex on the worker of its partition without waiting for it.
+     */
+    void applyToVertex(final Object id, final ElementCall call) {
+        submit(getPartition(getKey(id)), new Operation() {
+            @Override
+            void execute(final Worker worker) {
+                call.call(worker.getCachedVertex(id));
+            }
+        });
+    }
+
+    /**
+     * Applies the mutation to the edge last added without waiting for it.
+     */
+    void applyToEdge(final ElementCall call) {
+        submit(edgeWorker, new Operation() {
+            @Override
+            void execute(final Worker worker) {
+                call.call(worker.currentEdge);
+            }
+        });
+    }
+
+    /**
+     * Calls the vertex on the worker of its partition and waits for the result.
+     */
+    Object callVertex(final Object id, final ElementCall call) {
+        return await(getPartition(getKey(id)), new Query() {
+            @Override
+            Object call(final Worker worker) {
+                return call.call(worker.getCachedVertex(id));
+            }
+        });
+    }
+
+    /**
+     * Calls the edge last added and waits for the result.
+     */
+    Object callEdge(final ElementCall call) {
+        return await(edgeWorker, new Query() {
+            @Override
+            Object call(final Worker worker) {
+                return call.call(worker.currentEdge);
+            }
+        });
+    }
+
+    /**
+     * Waits until all workers have committed all mutations submitted so far.
+     */
+    void synchronize() {
+        final CountDownLatch latch = new CountDownLatch(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            submit(i, new Barrier(latch, false));
+        }
+        await(latch);
+        unsynchronized.clear();
+        check();
+    }
+
+    /**
+     * Commits all mutations, stops the workers and closes the vertex caches.
+     */
+    void shutdown() {
+        final CountDownLatch latch = new CountDownLatch(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            put(i, new Barrier(latch, true));
+        }
+        await(latch);
+        unsynchronized.clear();
+        for (Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            if (worker.cache instanceof Closeable) {
+                try {
+                    ((Closeable) worker.cache).close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+        }
+        check();
+    }
+
+    private Object getKey(final Object id) {
+        if (type == BatchGraph.IdType.NUMBER) {
+            if (!(id instanceof Number)) throw new IllegalArgumentException("Number expected.");
+            return ((Number) id).longValue();
+        }
+        return id;
+    }
+
+    private int getPartition(final Object key) {
+        int hash = key.hashCode();
+        hash = hash ^ (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % workers.length;
+    }
+
+    private void submit(final int partition, final Operation operation) {
+        check();
+        put(partition, operation);
+    }
+
+    private void put(final int partition, final Operation operation) {
+        try {
+            workers[partition].queue.put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private Object await(final int partition, final Query query) {
+        submit(partition, query);
+        await(query.latch);
+        if (query.exception != null) throw query.exception;
+        check();
+        return query.result;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private void check() {
+        if (failure != null)
+            throw new RuntimeException("Parallel batch loading failed: " + failure.getMessage(), failure);
+    }
+
+    /**
+     * A call of an element in the transaction of a worker.
+     */
+    static abstract class ElementCall {
+
+        static final ElementCall GET_ID = new ElementCall() {
+            @Override
+            Object call(final Element element) {
+                return element.getId();
+            }
+        };
+
+        static final ElementCall GET_PROPERTY_KEYS = new ElementCall() {
+            @Override
+            Object call(final Element element) {
+                return element.getPropertyKeys();
+            }
+        };
+
+        static final ElementCall GET_LABEL = new ElementCall() {
+            @Override
+            Object call(final Element element) {
+                return ((Edge) element).getLabel();
+            }
+        };
+
+        static ElementCall getVertex(final Direction direction) {
+            return new ElementCall() {
+                @Override
+                Object call(final Element element) {
+                    return ((Edge) element).getVertex(direction);
+                }
+            };
+        }
+
+        static ElementCall getProperty(final String key) {
+            return new ElementCall() {
+                @Override
+                Object call(final Element element) {
+                    return element.getProperty(key);
+                }
+            };
+        }
+
+        static ElementCall setProperty(final String key, final Object value) {
+            return new ElementCall() {
+                @Override
+                Object call(final Element element) {
+                    element.setProperty(key, value);
+                    return null;
+                }
+            };
+        }
+
+        static ElementCall removeProperty(final String key) {
+            return new ElementCall() {
+                @Override
+                Object call(final Element element) {
+                    return element.removeProperty(key);
+                }
+            };
+        }
+
+        abstract Object call(Element element);
+    }
+
+    private static abstract class Operation {
+        abstract void execute(Worker worker);
+    }
+
+    private static abstract class Query extends Operation {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private Object result = null;
+        private RuntimeException exception = null;
+
+        abstract Object call(Worker worker);
+
+        @Override
+        void execute(final Worker worker) {
+            try {
+                result = call(worker);
+            } catch (RuntimeException e) {
+                exception = e;
+            } finally {
+                latch.countDown();
+            }
+        }
+    }
+
+    private static class Barrier extends Operation {
+        private final CountDownLatch latch;
+        private final boolean last;
+
+        private Barrier(final CountDownLatch latch, final boolean last) {
+            this.latch = latch;
+            this.last = last;
+        }
+
+        @Override
+        void execute(final Worker worker) {
+            try {
+                worker.commit();
+                if (!last) worker.begin();
+            } finally {
+                latch.countDown();
+            }
+        }
+    }
+
+    private class Worker extends Thread {
+
+        private final BlockingQueue<Operation> queue;
+        private final VertexCache cache;
+
+        private TransactionalGraph transaction;
+        private long remainingBufferSize;
+        private Edge currentEdge = null;
+
+        private Worker(final int partition, final int queueSize) {
+            super("BatchGraph-worker-" + partition);
+            setDaemon(true);
+            queue = new ArrayBlockingQueue<Operation>(queueSize);
+            cache = type.getVertexCache(graph);
+        }
+
+        @Override
+        public void run() {
+            boolean started = false;
+            while (true) {
+                final Operation operation;
+                try {
+                    operation = queue.take();
+                } catch (InterruptedException e) {
+                    fail(e);
+                    return;
+                }
+                if (failure == null || operation instanceof Query) {
+                    try {
+                        if (!started && failure == null) {
+                            begin();
+                            started = true;
+                        }
+                        operation.execute(this);
+                    } catch (Throwable t) {
+                        fail(t);
+                    }
+                } else if (operation instanceof Barrier) {
+                    ((Barrier) operation).latch.countDown();
+                }
+                if (operation instanceof Barrier && ((Barrier) operation).last) return;
+            }
+        }
+
+        private void fail(final Throwable t) {
+            synchronized (ParallelBatchLoader.this) {
+                if (failure == null) failure = t;
+            }
+        }
+
+        private void begin() {
+            if (graph instanceof ThreadedTransactionalGraph) {
+                transaction = ((ThreadedTransactionalGraph) graph).startThreadTransaction();
+            } else {
+                transaction = graph;
+                graph.startTransaction();
+            }
+            remainingBufferSize = bufferSize;
+        }
+
+        private void commit() {
+            transaction.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+            synchronized (cache) {
+                cache.newTransaction();
+            }
+        }
+
+        private void nextElement() {
+            if (remainingBufferSize <= 0) {
+                commit();
+                begin();
+            }
+            remainingBufferSize--;
+        }
+
+        /**
+         * Returns the vertex of the transaction of this worker. A vertex cached by another worker, or one the cache
+         * retrieved through the graph rather than a thread transaction, belongs to another transaction and is hence
+         * retrieved again by its id.
+         */
+        private Vertex getCachedVertex(final Object externalID) {
+            final Worker owner = workers[getPartition(getKey(externalID))];
+            final Vertex v;
+            synchronized (owner.cache) {
+                v = owner.cache.getVertex(externalID);
+            }
+            if (v == null) throw new IllegalArgumentException("Vertex for given ID cannot be found: " + externalID);
+            if (owner == this && transaction == graph) return v;
+            final Vertex resolved = transaction.getVertex(v.getId());
+            if (resolved == null) throw new IllegalArgumentException("Vertex for given ID cannot be found: " + externalID);
+            return resolved;
+        }
+    }
+}
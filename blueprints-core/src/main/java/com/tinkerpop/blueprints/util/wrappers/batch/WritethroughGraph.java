@@ -3,11 +3,15 @@ package com.tinkerpop.blueprints.util.wrappers.batch;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ElementPropertiesGraph;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
 
+import java.util.Map;
+
 /**
  * This is a naive wrapper to make a non-transactional graph transactional by simply writing all mutations
  * directly through to the wrapped graph and not supporting transactional failures.
@@ -21,7 +25,7 @@ import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
  * @author Matthias Broecheler (http://www.matthiasb.com)
  */
 
-class WritethroughGraph<T extends Graph> implements WrapperGraph<T>, TransactionalGraph {
+class WritethroughGraph<T extends Graph> implements WrapperGraph<T>, TransactionalGraph, ElementPropertiesGraph {
 
     private final T graph;
 
@@ -68,6 +72,11 @@ class WritethroughGraph<T extends Graph> implements WrapperGraph<T>, Transaction
         return graph.addVertex(id);
     }
 
+    @Override
+    public Vertex addVertex(final Object id, final Map<String, Object> properties) {
+        return BatchGraph.createVertex(graph, id, properties);
+    }
+
     @Override
     public Vertex getVertex(final Object id) {
         return graph.getVertex(id);
@@ -93,6 +102,11 @@ class WritethroughGraph<T extends Graph> implements WrapperGraph<T>, Transaction
         return graph.addEdge(id, outVertex, inVertex, label);
     }
 
+    @Override
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label, final Map<String, Object> properties) {
+        return BatchGraph.createEdge(graph, id, outVertex, inVertex, label, properties);
+    }
+
     @Override
     public Edge getEdge(final Object id) {
         return graph.getEdge(id);
@@ -113,6 +127,11 @@ class WritethroughGraph<T extends Graph> implements WrapperGraph<T>, Transaction
         return graph.getEdges(key, value);
     }
 
+    @Override
+    public GraphQuery query() {
+        return graph.query();
+    }
+
     @Override
     public void shutdown() {
         graph.shutdown();
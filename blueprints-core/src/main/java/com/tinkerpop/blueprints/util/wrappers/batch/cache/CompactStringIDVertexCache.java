@@ -0,0 +1,451 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A VertexCache for String ids which keeps the mapping from external to internal vertex ids in byte arrays rather than
+ * in String objects and hash map entries, for a fraction of the memory of {@link StringIDVertexCache}.
+ * <br />
+ * Only the vertices added or retrieved in the current transaction are held as objects. When a new transaction starts,
+ * the external ids of the added vertices are compressed with the given StringCompression, by default a
+ * {@link PrefixTrieCompression}, encoded as UTF-8, sorted and appended to pages of memory front coded: each id only
+ * stores the bytes following the prefix it shares with the previous one, except at every 16th id, where decoding
+ * restarts. The internal ids follow the external ids, encoded as variable length integers for Long and Integer ids,
+ * as UTF-8 for String ids and as references for other ids.
+ * <br />
+ * An open addressing table of ints points at the ids, along with a byte of their hash so that most probes do not need
+ * to decode an id.
+ * <br />
+ * The cache is not thread safe.
+ */
+
+public class CompactStringIDVertexCache implements VertexCache {
+
+    private static final int INITIAL_CAPACITY = 1000;
+    private static final int INITIAL_TABLE_CAPACITY = 1 << 10;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = 1 << (31 - PAGE_BITS);
+    private static final int RESTART_INTERVAL = 16;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte STRING = 3;
+    private static final byte OBJECT = 4;
+
+    private final Graph graph;
+    private final StringCompression compression;
+
+    private final Map<String, Vertex> added;
+    private final Map<String, Vertex> retrieved;
+
+    private final List<Page> pages = new ArrayList<Page>();
+    private int[] table = new int[INITIAL_TABLE_CAPACITY];
+    private byte[] fragments = new byte[INITIAL_TABLE_CAPACITY];
+    private int size = 0;
+
+    // internal ids which are neither numbers nor strings
+    private final List<Object> objects = new ArrayList<Object>();
+
+    // the id looked up or appended, the id decoded from the pages and the internal id appended
+    private byte[] key = new byte[256];
+    private int keyLength = 0;
+    private byte[] decoded = new byte[256];
+    private int decodedLength = 0;
+    private byte[] value = new byte[16];
+    private int valueLength = 0;
+
+    public CompactStringIDVertexCache(final Graph graph, final StringCompression compression) {
+        if (graph == null) throw new IllegalArgumentException("Graph expected.");
+        if (compression == null) throw new IllegalArgumentException("Compression expected.");
+        this.graph = graph;
+        this.compression = compression;
+        added = new HashMap<String, Vertex>(INITIAL_CAPACITY);
+        retrieved = new HashMap<String, Vertex>(INITIAL_CAPACITY);
+    }
+
+    public CompactStringIDVertexCache(final Graph graph) {
+        this(graph, new PrefixTrieCompression());
+    }
+
+    private static String getID(final Object externalID) {
+        if (!(externalID instanceof String)) throw new IllegalArgumentException("String expected.");
+        return (String) externalID;
+    }
+
+    @Override
+    public Vertex getVertex(Object externalID) {
+        final String id = getID(externalID);
+        Vertex v = added.get(id);
+        if (v == null) v = retrieved.get(id);
+        if (v == null) {
+            encodeKey(id);
+            final int slot = find(hash(key, keyLength));
+            if (table[slot] == 0) return null;
+            v = graph.getVertex(readValue(table[slot] - 1));
+            retrieved.put(id, v);
+        }
+        return v;
+    }
+
+    @Override
+    public void add(Vertex vertex, Object externalID) {
+        final String id = getID(externalID);
+        assert !added.containsKey(id);
+        added.put(id, vertex);
+    }
+
+    /**
+     * Appends the ids of the vertices added in the current transaction in sorted order, so that they share prefixes.
+     */
+    @Override
+    public void newTransaction() {
+        final Entry[] entries = new Entry[added.size()];
+        int i = 0;
+        for (Map.Entry<String, Vertex> entry : added.entrySet()) {
+            encodeKey(entry.getKey());
+            entries[i++] = new Entry(Arrays.copyOf(key, keyLength), entry.getValue().getId());
+        }
+        Arrays.sort(entries);
+        Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        for (final Entry entry : entries) {
+            System.arraycopy(entry.key, 0, key, 0, entry.key.length);
+            keyLength = entry.key.length;
+            final int hash = hash(key, keyLength);
+            final int slot = find(hash);
+            if (table[slot] != 0) continue;
+            encodeValue(entry.internalID);
+            page = append(page);
+            table[slot] = ((pages.size() - 1) << PAGE_BITS | page.appended) + 1;
+            fragments[slot] = (byte) (hash >>> 24);
+            size++;
+            if (size > (table.length >>> 1) + (table.length >>> 2)) resize();
+        }
+        added.clear();
+        retrieved.clear();
+    }
+
+    /**
+     * The number of vertices in the cache, excluding those added in the current transaction.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of bytes of the pages and the table.
+     */
+    public long getMemory() {
+        long memory = (long) table.length * 5;
+        for (final Page page : pages) {
+            memory = memory + PAGE_SIZE + page.restarts.length * 2;
+        }
+        return memory;
+    }
+
+    /**
+     * The number of bytes used per vertex in the cache, excluding those added in the current transaction.
+     */
+    public double getBytesPerId() {
+        return size == 0 ? 0.0d : (double) getMemory() / size;
+    }
+
+    /**
+     * Returns the slot of the id in the key buffer, or the empty slot where it belongs.
+     */
+    private int find(final int hash) {
+        final int mask = table.length - 1;
+        final byte fragment = (byte) (hash >>> 24);
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            if (table[i] == 0) return i;
+            if (fragments[i] == fragment && keyEquals(table[i] - 1)) return i;
+        }
+    }
+
+    /**
+     * Doubles the table and rebuilds it by decoding the pages in order.
+     */
+    private void resize() {
+        table = new int[table.length << 1];
+        fragments = new byte[table.length];
+        final int mask = table.length - 1;
+        for (int p = 0; p < pages.size(); p++) {
+            final Page page = pages.get(p);
+            int position = 0;
+            while (position < page.position) {
+                final int valuePosition = decodeKey(page.data, position);
+                final int hash = hash(decoded, decodedLength);
+                int i = hash & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = ((p << PAGE_BITS) | position) + 1;
+                fragments[i] = (byte) (hash >>> 24);
+                position = skipValue(page.data, valuePosition);
+            }
+        }
+    }
+
+    ///////////////// PAGES /////////////////
+
+    /**
+     * Appends the id in the key buffer and the internal id in the value buffer, returning the page appended to.
+     */
+    private Page append(Page page) {
+        int shared = 0;
+        if (page != null && page.count % RESTART_INTERVAL != 0) {
+            final int max = Math.min(keyLength, page.lastLength);
+            while (shared < max && page.last[shared] == key[shared]) {
+                shared++;
+            }
+        }
+        int length = varIntSize(shared) + varIntSize(keyLength - shared) + keyLength - shared + valueLength;
+        if (page == null || page.position + length > PAGE_SIZE) {
+            if (pages.size() == MAX_PAGES) throw new IllegalStateException("Vertex cache is full");
+            page = new Page();
+            pages.add(page);
+            shared = 0;
+            length = 1 + varIntSize(keyLength) + keyLength + valueLength;
+            if (length > PAGE_SIZE) throw new IllegalArgumentException("Id exceeds page size: " + length);
+        }
+        if (page.count % RESTART_INTERVAL == 0) {
+            if (page.restartCount == page.restarts.length)
+                page.restarts = Arrays.copyOf(page.restarts, page.restarts.length * 2);
+            page.restarts[page.restartCount++] = (char) page.position;
+        }
+        page.appended = page.position;
+        int position = writeVarInt(page.data, page.position, shared);
+        position = writeVarInt(page.data, position, keyLength - shared);
+        System.arraycopy(key, shared, page.data, position, keyLength - shared);
+        position = position + keyLength - shared;
+        System.arraycopy(value, 0, page.data, position, valueLength);
+        page.position = position + valueLength;
+        page.count++;
+        if (page.last.length < keyLength) page.last = new byte[Math.max(keyLength, page.last.length * 2)];
+        System.arraycopy(key, 0, page.last, 0, keyLength);
+        page.lastLength = keyLength;
+        return page;
+    }
+
+    /**
+     * Decodes the id at the address, returning the position of its internal id.
+     */
+    private int seek(final int address) {
+        final Page page = pages.get(address >>> PAGE_BITS);
+        final int target = address & (PAGE_SIZE - 1);
+        // the last restart at or before the target
+        int low = 0, high = page.restartCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (page.restarts[mid] <= target) low = mid;
+            else high = mid - 1;
+        }
+        int position = page.restarts[low];
+        while (true) {
+            final int valuePosition = decodeKey(page.data, position);
+            if (position == target) return valuePosition;
+            position = skipValue(page.data, valuePosition);
+        }
+    }
+
+    private boolean keyEquals(final int address) {
+        seek(address);
+        if (decodedLength != keyLength) return false;
+        for (int i = 0; i < keyLength; i++) {
+            if (decoded[i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    private Object readValue(final int address) {
+        final byte[] data = pages.get(address >>> PAGE_BITS).data;
+        int position = seek(address);
+        final byte type = data[position++];
+        switch (type) {
+            case LONG:
+            case INTEGER:
+                long value = 0;
+                for (int shift = 0; ; shift = shift + 7) {
+                    final byte b = data[position++];
+                    value = value | ((long) (b & 0x7F) << shift);
+                    if ((b & 0x80) == 0) break;
+                }
+                value = (value >>> 1) ^ -(value & 1);
+                return type == LONG ? (Object) value : (Object) (int) value;
+            case STRING:
+                final int length = readVarInt(data, position);
+                return new String(data, position + varIntSize(length), length, UTF8);
+            case OBJECT:
+                return objects.get(readVarInt(data, position));
+            default:
+                throw new IllegalStateException("Unrecognized id encoding: " + type);
+        }
+    }
+
+    /**
+     * Decodes the id at the position, which follows the previously decoded one or is a restart, into the decoded buffer.
+     */
+    private int decodeKey(final byte[] data, int position) {
+        final int shared = readVarInt(data, position);
+        position = position + varIntSize(shared);
+        final int unshared = readVarInt(data, position);
+        position = position + varIntSize(unshared);
+        if (decoded.length < shared + unshared)
+            decoded = Arrays.copyOf(decoded, Math.max(shared + unshared, decoded.length * 2));
+        System.arraycopy(data, position, decoded, shared, unshared);
+        decodedLength = shared + unshared;
+        return position + unshared;
+    }
+
+    private static int skipValue(final byte[] data, int position) {
+        final byte type = data[position++];
+        if (type == STRING) {
+            final int length = readVarInt(data, position);
+            return position + varIntSize(length) + length;
+        }
+        while ((data[position++] & 0x80) != 0) ;
+        return position;
+    }
+
+    ///////////////// ENCODING /////////////////
+
+    /**
+     * Writes the UTF-8 bytes of the compressed id to the key buffer.
+     */
+    private void encodeKey(final String externalID) {
+        final String id = compression.compress(externalID);
+        // a char takes at most three bytes in UTF-8
+        if (key.length < id.length() * 3) key = new byte[Math.max(id.length() * 3, key.length * 2)];
+        int position = 0;
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            if (c < 0x80) {
+                key[position++] = (byte) c;
+            } else if (c < 0x800) {
+                key[position++] = (byte) (0xC0 | (c >> 6));
+                key[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < id.length() && Character.isLowSurrogate(id.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, id.charAt(++i));
+                key[position++] = (byte) (0xF0 | (codePoint >> 18));
+                key[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                key[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                key[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                key[position++] = (byte) (0xE0 | (c >> 12));
+                key[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                key[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        keyLength = position;
+    }
+
+    /**
+     * Writes the encoded internal id to the value buffer.
+     */
+    private void encodeValue(final Object internalID) {
+        valueLength = 0;
+        if (internalID instanceof Long || internalID instanceof Integer) {
+            long v = ((Number) internalID).longValue();
+            v = (v << 1) ^ (v >> 63);
+            value[valueLength++] = internalID instanceof Long ? LONG : INTEGER;
+            while ((v & ~0x7FL) != 0) {
+                value[valueLength++] = (byte) ((v & 0x7F) | 0x80);
+                v = v >>> 7;
+            }
+            value[valueLength++] = (byte) v;
+        } else if (internalID instanceof String) {
+            final byte[] bytes = ((String) internalID).getBytes(UTF8);
+            if (value.length < bytes.length + 6) value = new byte[bytes.length + 6];
+            value[valueLength++] = STRING;
+            valueLength = writeVarInt(value, valueLength, bytes.length);
+            System.arraycopy(bytes, 0, value, valueLength, bytes.length);
+            valueLength = valueLength + bytes.length;
+        } else {
+            value[valueLength++] = OBJECT;
+            valueLength = writeVarInt(value, valueLength, objects.size());
+            objects.add(internalID);
+        }
+    }
+
+    private static int hash(final byte[] bytes, final int length) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        hash = (hash ^ (hash >>> 16)) * 0x85ebca6b;
+        hash = (hash ^ (hash >>> 13)) * 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value = value >>> 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarInt(final byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value = value >>> 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarInt(final byte[] bytes, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift = shift + 7) {
+            final byte b = bytes[position++];
+            value = value | ((b & 0x7F) << shift);
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static class Page {
+
+        private final byte[] data = new byte[PAGE_SIZE];
+        private int position = 0;
+        private int count = 0;
+        private int appended = 0;
+
+        // the positions at which decoding restarts
+        private char[] restarts = new char[16];
+        private int restartCount = 0;
+
+        private byte[] last = new byte[256];
+        private int lastLength = 0;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final byte[] key;
+        private final Object internalID;
+
+        private Entry(final byte[] key, final Object internalID) {
+            this.key = key;
+            this.internalID = internalID;
+        }
+
+        @Override
+        public int compareTo(final Entry other) {
+            final int length = Math.min(key.length, other.key.length);
+            for (int i = 0; i < length; i++) {
+                final int difference = (key[i] & 0xff) - (other.key[i] & 0xff);
+                if (difference != 0) return difference;
+            }
+            return key.length - other.key.length;
+        }
+    }
+}
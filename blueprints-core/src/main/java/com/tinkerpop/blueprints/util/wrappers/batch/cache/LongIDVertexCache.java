@@ -1,6 +1,6 @@
 package com.tinkerpop.blueprints.util.wrappers.batch.cache;
 
-import cern.colt.function.LongObjectProcedure;
+import cern.colt.list.LongArrayList;
 import cern.colt.map.AbstractLongObjectMap;
 import cern.colt.map.OpenLongObjectHashMap;
 import com.tinkerpop.blueprints.Graph;
@@ -16,11 +16,13 @@ public class LongIDVertexCache implements VertexCache {
 
     private final Graph graph;
     private final AbstractLongObjectMap map;
+    private final LongArrayList transaction;
 
     public LongIDVertexCache(final Graph graph) {
         if (graph == null) throw new IllegalArgumentException("Graph expected.");
         this.graph = graph;
         map = new OpenLongObjectHashMap(INITIAL_CAPACITY);
+        transaction = new LongArrayList(INITIAL_CAPACITY);
     }
 
     private static final long getID(Object externalID) {
@@ -47,18 +49,19 @@ public class LongIDVertexCache implements VertexCache {
         long id = getID(externalID);
         assert !map.containsKey(id);
         map.put(id, vertex);
+        transaction.add(id);
     }
 
+    /**
+     * Only the vertices added in the current transaction are replaced by their ids.
+     */
     @Override
     public void newTransaction() {
-        map.forEachPair(new LongObjectProcedure() {
-            @Override
-            public boolean apply(long l, Object o) {
-                if (o instanceof Vertex) {
-                    map.put(l, ((Vertex) o).getId());
-                }
-                return true;
-            }
-        });
+        for (int i = 0; i < transaction.size(); i++) {
+            long id = transaction.getQuick(i);
+            Object o = map.get(id);
+            if (o instanceof Vertex) map.put(id, ((Vertex) o).getId());
+        }
+        transaction.clear();
     }
 }
@@ -3,7 +3,9 @@ package com.tinkerpop.blueprints.util.wrappers.batch.cache;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,11 +18,13 @@ public class ObjectIDVertexCache implements VertexCache {
 
     private final Graph graph;
     private final Map<Object, Object> map;
+    private final List<Object> transaction;
 
     public ObjectIDVertexCache(final Graph graph) {
         if (graph == null) throw new IllegalArgumentException("Graph expected.");
         this.graph = graph;
         map = new HashMap<Object, Object>(INITIAL_CAPACITY);
+        transaction = new ArrayList<Object>(INITIAL_CAPACITY);
     }
 
 
@@ -40,15 +44,18 @@ public class ObjectIDVertexCache implements VertexCache {
     public void add(Vertex vertex, Object externalID) {
         assert !map.containsKey(externalID);
         map.put(externalID, vertex);
+        transaction.add(externalID);
     }
 
+    /**
+     * Only the vertices added in the current transaction are replaced by their ids.
+     */
     @Override
     public void newTransaction() {
-        for (Map.Entry<Object, Object> entry : map.entrySet()) {
-            if (entry.getValue() instanceof Vertex) {
-                Vertex v = (Vertex) entry.getValue();
-                entry.setValue(v.getId());
-            }
+        for (Object externalID : transaction) {
+            Object o = map.get(externalID);
+            if (o instanceof Vertex) map.put(externalID, ((Vertex) o).getId());
         }
+        transaction.clear();
     }
 }
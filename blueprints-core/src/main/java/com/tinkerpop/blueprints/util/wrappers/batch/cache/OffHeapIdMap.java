@@ -0,0 +1,347 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash map from byte array keys to byte array values that keeps all of its data outside of the Java heap.
+ * <br />
+ * Entries are appended to a log of fixed size segments and an open addressing table of longs points into the log,
+ * where each slot holds the offset of its entry and a fragment of the key's hash so that most probes do not touch the log.
+ * Segments are allocated as direct buffers until the memory budget is used up and are memory mapped from a spill file
+ * afterwards, leaving it to the operating system to page them to disk.
+ * <br />
+ * The map is not thread safe.
+ */
+
+final class OffHeapIdMap implements Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 24;
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+    private static final long MAX_OFFSET = (1L << 40) - 2;
+    private static final long OFFSET_MASK = (1L << 40) - 1;
+    private static final int SKIP = 0;
+
+    private final long maxMemory;
+    private final File spillDirectory;
+    private final int segmentSize;
+
+    private final List<ByteBuffer> data = new ArrayList<ByteBuffer>();
+    private long dataEnd = 0;
+
+    private ByteBuffer[] table;
+    private boolean[] tableDirect;
+    private long capacity;
+    private long size = 0;
+
+    private long memory = 0;
+    private RandomAccessFile spillFile = null;
+    private File spillPath = null;
+    private long spilled = 0;
+
+    private byte[] scratch = new byte[64];
+
+    OffHeapIdMap(final long maxMemory, final File spillDirectory, final int segmentSize) {
+        if (maxMemory < 0) throw new IllegalArgumentException("Memory budget may not be negative");
+        if (segmentSize < 64 || Integer.bitCount(segmentSize) != 1)
+            throw new IllegalArgumentException("Segment size must be a power of two of at least 64 bytes");
+        this.maxMemory = maxMemory;
+        this.spillDirectory = spillDirectory;
+        this.segmentSize = segmentSize;
+        this.capacity = INITIAL_CAPACITY;
+        this.allocateTable();
+    }
+
+    OffHeapIdMap(final long maxMemory, final File spillDirectory) {
+        this(maxMemory, spillDirectory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * The number of bytes held in direct memory.
+     */
+    public long getMemory() {
+        return this.memory;
+    }
+
+    /**
+     * The number of bytes mapped from the spill file.
+     */
+    public long getSpilled() {
+        return this.spilled;
+    }
+
+    public byte[] get(final byte[] key) {
+        final long hash = hash(key, key.length);
+        final long fragment = hash >>> 40;
+        final long mask = this.capacity - 1;
+        for (long i = hash & mask; ; i = (i + 1) & mask) {
+            final long slot = this.getSlot(i);
+            if (slot == 0)
+                return null;
+            if ((slot >>> 40) == fragment) {
+                final long offset = (slot & OFFSET_MASK) - 1;
+                if (this.keyEquals(offset, key, key.length))
+                    return this.readValue(offset);
+            }
+        }
+    }
+
+    public void put(final byte[] key, final byte[] value) {
+        if (key.length == 0) throw new IllegalArgumentException("Key may not be empty");
+        if (this.size + 1 > (this.capacity >>> 1) + (this.capacity >>> 2))
+            this.resize();
+        final long offset = this.append(key, value);
+        if (this.insert(hash(key, key.length), offset, key, key.length))
+            this.size++;
+    }
+
+    /**
+     * Points the slot of the key at the entry, returning whether the key was new.
+     */
+    private boolean insert(final long hash, final long offset, final byte[] key, final int keyLength) {
+        final long fragment = hash >>> 40;
+        final long mask = this.capacity - 1;
+        for (long i = hash & mask; ; i = (i + 1) & mask) {
+            final long slot = this.getSlot(i);
+            if (slot == 0) {
+                this.setSlot(i, (fragment << 40) | (offset + 1));
+                return true;
+            }
+            if ((slot >>> 40) == fragment && this.keyEquals((slot & OFFSET_MASK) - 1, key, keyLength)) {
+                this.setSlot(i, (fragment << 40) | (offset + 1));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Doubles the table and rebuilds it by scanning the log, where an entry replaces any earlier entry of the same key.
+     */
+    private void resize() {
+        this.releaseTable();
+        this.capacity = this.capacity << 1;
+        this.allocateTable();
+        this.size = 0;
+        long offset = 0;
+        while (offset < this.dataEnd) {
+            final ByteBuffer segment = this.data.get((int) (offset / this.segmentSize));
+            int position = (int) (offset % this.segmentSize);
+            final int keyLength = readVarInt(segment, position);
+            if (keyLength == SKIP) {
+                offset = offset - position + this.segmentSize;
+                continue;
+            }
+            position = position + varIntSize(keyLength);
+            if (this.scratch.length < keyLength)
+                this.scratch = new byte[Math.max(keyLength, this.scratch.length << 1)];
+            for (int i = 0; i < keyLength; i++) {
+                this.scratch[i] = segment.get(position + i);
+            }
+            if (this.insert(hash(this.scratch, keyLength), offset, this.scratch, keyLength))
+                this.size++;
+            position = position + keyLength;
+            final int valueLength = readVarInt(segment, position);
+            offset = offset - (offset % this.segmentSize) + position + varIntSize(valueLength) + valueLength;
+        }
+    }
+
+    private long append(final byte[] key, final byte[] value) {
+        final int length = varIntSize(key.length) + key.length + varIntSize(value.length) + value.length;
+        if (length > this.segmentSize) throw new IllegalArgumentException("Entry exceeds segment size: " + length);
+        int position = (int) (this.dataEnd % this.segmentSize);
+        if (this.dataEnd == (long) this.data.size() * this.segmentSize) {
+            this.data.add(this.allocate(this.segmentSize).buffer);
+            position = 0;
+        } else if (position + length > this.segmentSize) {
+            this.data.get(this.data.size() - 1).put(position, (byte) SKIP);
+            this.data.add(this.allocate(this.segmentSize).buffer);
+            this.dataEnd = this.dataEnd - position + this.segmentSize;
+            position = 0;
+        }
+        final long offset = this.dataEnd;
+        if (offset > MAX_OFFSET) throw new IllegalStateException("Off-heap map is full");
+        final ByteBuffer segment = this.data.get(this.data.size() - 1);
+        position = writeVarInt(segment, position, key.length);
+        for (final byte b : key) {
+            segment.put(position++, b);
+        }
+        position = writeVarInt(segment, position, value.length);
+        for (final byte b : value) {
+            segment.put(position++, b);
+        }
+        this.dataEnd = offset + length;
+        return offset;
+    }
+
+    private boolean keyEquals(final long offset, final byte[] key, final int keyLength) {
+        final ByteBuffer segment = this.data.get((int) (offset / this.segmentSize));
+        int position = (int) (offset % this.segmentSize);
+        if (readVarInt(segment, position) != keyLength)
+            return false;
+        position = position + varIntSize(keyLength);
+        for (int i = 0; i < keyLength; i++) {
+            if (segment.get(position + i) != key[i])
+                return false;
+        }
+        return true;
+    }
+
+    private byte[] readValue(final long offset) {
+        final ByteBuffer segment = this.data.get((int) (offset / this.segmentSize));
+        int position = (int) (offset % this.segmentSize);
+        final int keyLength = readVarInt(segment, position);
+        position = position + varIntSize(keyLength) + keyLength;
+        final int valueLength = readVarInt(segment, position);
+        position = position + varIntSize(valueLength);
+        final byte[] value = new byte[valueLength];
+        for (int i = 0; i < valueLength; i++) {
+            value[i] = segment.get(position + i);
+        }
+        return value;
+    }
+
+    ///////////////// TABLE /////////////////
+
+    private long getSlot(final long index) {
+        final long position = index << 3;
+        return this.table[(int) (position / this.segmentSize)].getLong((int) (position % this.segmentSize));
+    }
+
+    private void setSlot(final long index, final long slot) {
+        final long position = index << 3;
+        this.table[(int) (position / this.segmentSize)].putLong((int) (position % this.segmentSize), slot);
+    }
+
+    private void allocateTable() {
+        final long bytes = this.capacity << 3;
+        final int count = (int) ((bytes + this.segmentSize - 1) / this.segmentSize);
+        this.table = new ByteBuffer[count];
+        this.tableDirect = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            final Segment segment = this.allocate((int) Math.min(bytes, this.segmentSize));
+            this.table[i] = segment.buffer;
+            this.tableDirect[i] = segment.direct;
+        }
+    }
+
+    /**
+     * Direct buffers of a replaced table are returned to the memory budget as the garbage collector frees them.
+     * Mapped regions are not reused, so the spill file grows by the size of every replaced table.
+     */
+    private void releaseTable() {
+        for (int i = 0; i < this.table.length; i++) {
+            if (this.tableDirect[i])
+                this.memory = this.memory - this.table[i].capacity();
+        }
+        this.table = null;
+        this.tableDirect = null;
+    }
+
+    ///////////////// ALLOCATION /////////////////
+
+    private Segment allocate(final int bytes) {
+        if (this.memory + bytes <= this.maxMemory) {
+            try {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+                this.memory = this.memory + bytes;
+                return new Segment(buffer, true);
+            } catch (OutOfMemoryError e) {
+                // direct memory of the JVM is exhausted before the budget, so spill
+            }
+        }
+        try {
+            if (null == this.spillFile) {
+                this.spillPath = File.createTempFile("vertexcache", ".spill", this.spillDirectory);
+                this.spillFile = new RandomAccessFile(this.spillPath, "rw");
+            }
+            final ByteBuffer buffer = this.spillFile.getChannel().map(FileChannel.MapMode.READ_WRITE, this.spilled, bytes);
+            this.spilled = this.spilled + bytes;
+            return new Segment(buffer, false);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the spill file. Direct buffers are freed by the garbage collector once the map is no longer referenced.
+     */
+    public void close() {
+        this.data.clear();
+        this.table = null;
+        this.tableDirect = null;
+        this.size = 0;
+        this.dataEnd = 0;
+        this.memory = 0;
+        if (null != this.spillFile) {
+            try {
+                this.spillFile.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            } finally {
+                this.spillFile = null;
+                this.spillPath.delete();
+            }
+        }
+    }
+
+    private static class Segment {
+        private final ByteBuffer buffer;
+        private final boolean direct;
+
+        private Segment(final ByteBuffer buffer, final boolean direct) {
+            this.buffer = buffer;
+            this.direct = direct;
+        }
+    }
+
+    ///////////////// ENCODING /////////////////
+
+    private static long hash(final byte[] key, final int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (key[i] & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value = value >>> 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarInt(final ByteBuffer buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put(position++, (byte) ((value & 0x7F) | 0x80));
+            value = value >>> 7;
+        }
+        buffer.put(position++, (byte) value);
+        return position;
+    }
+
+    private static int readVarInt(final ByteBuffer buffer, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift = shift + 7) {
+            final byte b = buffer.get(position++);
+            value = value | ((b & 0x7F) << shift);
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+}
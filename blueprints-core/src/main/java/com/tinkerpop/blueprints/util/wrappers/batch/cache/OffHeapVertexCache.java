@@ -0,0 +1,203 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A VertexCache which keeps the mapping from external to internal vertex ids outside of the Java heap so that the
+ * number of vertices loaded is not bounded by the heap size.
+ * <br />
+ * Only the vertices added or retrieved in the current transaction are held on the heap. When a new transaction starts,
+ * the ids of the added vertices are encoded into bytes and moved to an {@link OffHeapIdMap} which uses direct memory
+ * up to the given budget and memory mapped segments of a spill file in the given directory beyond it.
+ * <br />
+ * Ids are encoded compactly: Long and Integer ids as variable length zig-zag integers, String ids as UTF-8 after the
+ * given StringCompression, and other serializable ids with Java serialization. Internal ids which are not serializable
+ * are stored as their string representation, which is handed back to {@link Graph#getVertex(Object)}.
+ * Like {@link ObjectIDVertexCache}, ids of different classes are different ids.
+ * <br />
+ * Use {@link #close()} to delete the spill file once loading is complete. The cache is not thread safe.
+ */
+
+public class OffHeapVertexCache implements VertexCache, Closeable {
+
+    public static final long DEFAULT_MAX_MEMORY = Math.min(Runtime.getRuntime().maxMemory() / 4, 1L << 30);
+
+    private static final int INITIAL_CAPACITY = 1000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte STRING = 3;
+    private static final byte SERIALIZED = 4;
+
+    private final Graph graph;
+    private final StringCompression compression;
+    private final OffHeapIdMap map;
+
+    private final Map<Object, Vertex> added;
+    private final Map<Object, Vertex> retrieved;
+
+    /**
+     * @param graph          the graph the vertices are loaded into
+     * @param compression    the compression applied to String ids
+     * @param maxMemory      the number of bytes of direct memory to use before spilling to disk
+     * @param spillDirectory the directory of the spill file, or null for the default temporary directory
+     */
+    public OffHeapVertexCache(final Graph graph, final StringCompression compression, final long maxMemory, final File spillDirectory) {
+        this(graph, compression, new OffHeapIdMap(maxMemory, spillDirectory));
+    }
+
+    public OffHeapVertexCache(final Graph graph, final StringCompression compression) {
+        this(graph, compression, DEFAULT_MAX_MEMORY, null);
+    }
+
+    public OffHeapVertexCache(final Graph graph) {
+        this(graph, StringCompression.NO_COMPRESSION);
+    }
+
+    OffHeapVertexCache(final Graph graph, final StringCompression compression, final OffHeapIdMap map) {
+        if (graph == null) throw new IllegalArgumentException("Graph expected.");
+        if (compression == null) throw new IllegalArgumentException("Compression expected.");
+        this.graph = graph;
+        this.compression = compression;
+        this.map = map;
+        added = new HashMap<Object, Vertex>(INITIAL_CAPACITY);
+        retrieved = new HashMap<Object, Vertex>(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public Vertex getVertex(Object externalID) {
+        Vertex v = added.get(externalID);
+        if (v == null) v = retrieved.get(externalID);
+        if (v == null) {
+            byte[] internal = map.get(encode(externalID, true));
+            if (internal == null) return null;
+            v = graph.getVertex(decode(internal));
+            retrieved.put(externalID, v);
+        }
+        return v;
+    }
+
+    @Override
+    public void add(Vertex vertex, Object externalID) {
+        assert !added.containsKey(externalID) && map.get(encode(externalID, true)) == null;
+        added.put(externalID, vertex);
+    }
+
+    @Override
+    public void newTransaction() {
+        for (Map.Entry<Object, Vertex> entry : added.entrySet()) {
+            map.put(encode(entry.getKey(), true), encode(entry.getValue().getId(), false));
+        }
+        added.clear();
+        retrieved.clear();
+    }
+
+    /**
+     * The number of vertices in the cache, excluding those added in the current transaction.
+     */
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * The number of bytes of direct memory used.
+     */
+    public long getMemory() {
+        return map.getMemory();
+    }
+
+    /**
+     * The number of bytes spilled to disk.
+     */
+    public long getSpilled() {
+        return map.getSpilled();
+    }
+
+    @Override
+    public void close() {
+        added.clear();
+        retrieved.clear();
+        map.close();
+    }
+
+    private byte[] encode(Object id, boolean external) {
+        if (id instanceof Long || id instanceof Integer) {
+            long value = ((Number) id).longValue();
+            value = (value << 1) ^ (value >> 63);
+            byte[] bytes = new byte[11];
+            bytes[0] = id instanceof Long ? LONG : INTEGER;
+            int length = 1;
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value = value >>> 7;
+            }
+            bytes[length++] = (byte) value;
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        } else if (id instanceof String) {
+            byte[] string = (external ? compression.compress((String) id) : (String) id).getBytes(UTF8);
+            byte[] result = new byte[string.length + 1];
+            result[0] = STRING;
+            System.arraycopy(string, 0, result, 1, string.length);
+            return result;
+        } else if (id instanceof Serializable) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                bytes.write(SERIALIZED);
+                ObjectOutputStream out = new ObjectOutputStream(bytes);
+                out.writeObject(id);
+                out.close();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        } else if (!external) {
+            return encode(id.toString(), false);
+        } else {
+            throw new IllegalArgumentException("Serializable id expected.");
+        }
+    }
+
+    private static Object decode(byte[] bytes) {
+        switch (bytes[0]) {
+            case LONG:
+            case INTEGER:
+                long value = 0;
+                for (int i = 1, shift = 0; i < bytes.length; i++, shift = shift + 7) {
+                    value = value | ((long) (bytes[i] & 0x7F) << shift);
+                }
+                value = (value >>> 1) ^ -(value & 1);
+                return bytes[0] == LONG ? (Object) value : (Object) (int) value;
+            case STRING:
+                return new String(bytes, 1, bytes.length - 1, UTF8);
+            case SERIALIZED:
+                try {
+                    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+                    Object id = in.readObject();
+                    in.close();
+                    return id;
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            default:
+                throw new IllegalStateException("Unrecognized id encoding: " + bytes[0]);
+        }
+    }
+}
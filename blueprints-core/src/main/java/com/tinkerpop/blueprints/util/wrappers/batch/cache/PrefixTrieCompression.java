@@ -0,0 +1,79 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+/**
+ * A StringCompression for URL-like ids which, like {@link URLCompression}, replaces everything up to the last '/',
+ * '#' or ':' with a short code for that prefix.
+ * <br />
+ * The prefixes are kept in a trie of their characters, so that prefixes sharing a namespace share its characters and
+ * a known prefix is found without splitting the id.
+ */
+
+public class PrefixTrieCompression implements StringCompression {
+
+    private static final String DELIMITER = "$";
+
+    private final Node root = new Node();
+    private int prefixCounter = 0;
+
+    @Override
+    public String compress(String input) {
+        int pos = -1;
+        for (int i = input.length() - 1; i >= 0; i--) {
+            if (isDelimiter(input.charAt(i))) {
+                pos = i;
+                break;
+            }
+        }
+        Node node = root;
+        for (int i = 0; i <= pos; i++) {
+            node = node.getChild(input.charAt(i));
+        }
+        if (node.code == null) {
+            //New Prefix
+            node.code = Long.toString(prefixCounter, Character.MAX_RADIX) + DELIMITER;
+            prefixCounter++;
+        }
+        return node.code + input.substring(pos + 1);
+    }
+
+    /**
+     * @return the number of distinct prefixes seen
+     */
+    public int getPrefixCount() {
+        return prefixCounter;
+    }
+
+    private static boolean isDelimiter(final char c) {
+        return c == '/' || c == '#' || c == ':';
+    }
+
+    private static class Node {
+
+        private char[] keys = null;
+        private Node[] children = null;
+        private int size = 0;
+        private String code = null;
+
+        private Node getChild(final char key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) return children[i];
+            }
+            if (keys == null) {
+                keys = new char[2];
+                children = new Node[2];
+            } else if (size == keys.length) {
+                final char[] newKeys = new char[size * 2];
+                final Node[] newChildren = new Node[size * 2];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                System.arraycopy(children, 0, newChildren, 0, size);
+                keys = newKeys;
+                children = newChildren;
+            }
+            final Node child = new Node();
+            keys[size] = key;
+            children[size] = child;
+            size++;
+            return child;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.tinkerpop.blueprints.util.wrappers.batch.cache;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,6 +18,7 @@ public class StringIDVertexCache implements VertexCache {
 
     private final Graph graph;
     private final Map<String, Object> map;
+    private final List<String> transaction;
     private final StringCompression compression;
 
     public StringIDVertexCache(final Graph graph, final StringCompression compression) {
@@ -24,6 +27,7 @@ public class StringIDVertexCache implements VertexCache {
         this.graph = graph;
         this.compression = compression;
         map = new HashMap<String, Object>(INITIAL_CAPACITY);
+        transaction = new ArrayList<String>(INITIAL_CAPACITY);
     }
 
     public StringIDVertexCache(final Graph graph) {
@@ -48,15 +52,18 @@ public class StringIDVertexCache implements VertexCache {
         String id = compression.compress((String) externalID);
         assert !map.containsKey(id);
         map.put(id, vertex);
+        transaction.add(id);
     }
 
+    /**
+     * Only the vertices added in the current transaction are replaced by their ids.
+     */
     @Override
     public void newTransaction() {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (entry.getValue() instanceof Vertex) {
-                Vertex v = (Vertex) entry.getValue();
-                entry.setValue(v.getId());
-            }
+        for (String id : transaction) {
+            Object o = map.get(id);
+            if (o instanceof Vertex) map.put(id, ((Vertex) o).getId());
         }
+        transaction.clear();
     }
 }
@@ -3,9 +3,11 @@ package com.tinkerpop.blueprints.util.wrappers.event;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraphQuery;
 import com.tinkerpop.blueprints.util.wrappers.event.listener.EdgeAddedEvent;
 import com.tinkerpop.blueprints.util.wrappers.event.listener.EdgeRemovedEvent;
 import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedListener;
@@ -176,6 +178,20 @@ public class EventGraph<T extends Graph> implements Graph, WrapperGraph<T> {
         return new EventEdgeIterable(this.baseGraph.getEdges(key, value), this.graphChangedListeners, this.trigger);
     }
 
+    public GraphQuery query() {
+        return new WrapperGraphQuery(this.baseGraph.query()) {
+            @Override
+            public Iterable<Edge> edges() {
+                return new EventEdgeIterable(this.query.edges(), graphChangedListeners, trigger);
+            }
+
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new EventVertexIterable(this.query.vertices(), graphChangedListeners, trigger);
+            }
+        };
+    }
+
     public void shutdown() {
         try {
             this.baseGraph.shutdown();
@@ -3,10 +3,12 @@ package com.tinkerpop.blueprints.util.wrappers.id;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraphQuery;
 
 import java.util.HashSet;
 import java.util.Iterator;
@@ -177,6 +179,20 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
         }
     }
 
+    public GraphQuery query() {
+        return new WrapperGraphQuery(baseGraph.query()) {
+            @Override
+            public Iterable<Edge> edges() {
+                return new IdEdgeIterable(this.query.edges());
+            }
+
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new IdVertexIterable(this.query.vertices());
+            }
+        };
+    }
+
     public void shutdown() {
         baseGraph.shutdown();
     }
@@ -4,7 +4,9 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
 
@@ -126,6 +128,13 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
         return new PartitionEdgeIterable(this.baseGraph.getEdges(key, value), this);
     }
 
+    /**
+     * The elements of other partitions are filtered out before the query is applied, so the query is answered by a scan.
+     */
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
     public void removeEdge(final Edge edge) {
         this.baseGraph.removeEdge(((PartitionEdge) edge).getBaseEdge());
     }
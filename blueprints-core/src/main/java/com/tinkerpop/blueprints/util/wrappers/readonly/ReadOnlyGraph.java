@@ -3,9 +3,11 @@ package com.tinkerpop.blueprints.util.wrappers.readonly;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraphQuery;
 
 /**
  * A ReadOnlyGraph wraps a Graph and overrides the underlying graph's mutating methods.
@@ -61,6 +63,20 @@ public class ReadOnlyGraph<T extends Graph> implements Graph, WrapperGraph<T> {
         return new ReadOnlyEdgeIterable(this.baseGraph.getEdges(key, value));
     }
 
+    public GraphQuery query() {
+        return new WrapperGraphQuery(this.baseGraph.query()) {
+            @Override
+            public Iterable<Edge> edges() {
+                return new ReadOnlyEdgeIterable(this.query.edges());
+            }
+
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new ReadOnlyVertexIterable(this.query.vertices());
+            }
+        };
+    }
+
     public Edge getEdge(final Object id) {
         final Edge edge = this.baseGraph.getEdge(id);
         if (null == edge)
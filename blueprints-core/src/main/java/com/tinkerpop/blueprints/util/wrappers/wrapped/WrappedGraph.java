@@ -3,9 +3,11 @@ package com.tinkerpop.blueprints.util.wrappers.wrapped;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraphQuery;
 
 /**
  * WrappedGraph serves as a template for writing a wrapper graph.
@@ -48,6 +50,20 @@ public class WrappedGraph<T extends Graph> implements Graph, WrapperGraph<T> {
         return new WrappedVertexIterable(this.baseGraph.getVertices(key, value));
     }
 
+    public GraphQuery query() {
+        return new WrapperGraphQuery(this.baseGraph.query()) {
+            @Override
+            public Iterable<Edge> edges() {
+                return new WrappedEdgeIterable(this.query.edges());
+            }
+
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new WrappedVertexIterable(this.query.vertices());
+            }
+        };
+    }
+
     public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
         return new WrappedEdge(this.baseGraph.addEdge(id, ((WrappedVertex) outVertex).getBaseVertex(), ((WrappedVertex) inVertex).getBaseVertex(), label));
     }
@@ -9,6 +9,7 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.DefaultQuery;
+import com.tinkerpop.blueprints.util.DegreeVertex;
 import com.tinkerpop.blueprints.util.MultiIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.WrappingCloseableIterable;
@@ -24,7 +25,7 @@ import java.util.List;
  * @author <a href="http://www.sparsity-technologies.com">Sparsity
  *         Technologies</a>
  */
-class DexVertex extends DexElement implements Vertex {
+class DexVertex extends DexElement implements Vertex, DegreeVertex {
     /**
      * Creates a new instance.
      *
@@ -215,6 +216,70 @@ class DexVertex extends DexElement implements Vertex {
         }
     }
 
+    public long getDegree(final Direction direction, final String... labels) {
+        long degree = 0;
+        for (final int type : this.getEdgeTypes(labels)) {
+            if (!direction.equals(Direction.OUT))
+                degree = degree + this.getDegree(type, com.sparsity.dex.gdb.EdgesDirection.Ingoing);
+            if (!direction.equals(Direction.IN))
+                degree = degree + this.getDegree(type, com.sparsity.dex.gdb.EdgesDirection.Outgoing);
+        }
+        return degree;
+    }
+
+    private long getDegree(final int type, final com.sparsity.dex.gdb.EdgesDirection direction) {
+        final com.sparsity.dex.gdb.Objects objs = graph.getRawGraph().explode(oid, type, direction);
+        final long degree = objs.count();
+        objs.close();
+        return degree;
+    }
+
+    public List<Object> getAdjacentVertexIds(final Direction direction, final String... labels) {
+        final List<Object> ids = new ArrayList<Object>();
+        final List<Integer> types = this.getEdgeTypes(labels);
+        if (!direction.equals(Direction.OUT)) {
+            for (final int type : types) {
+                this.addAdjacentVertexIds(ids, type, com.sparsity.dex.gdb.EdgesDirection.Ingoing);
+            }
+        }
+        if (!direction.equals(Direction.IN)) {
+            for (final int type : types) {
+                this.addAdjacentVertexIds(ids, type, com.sparsity.dex.gdb.EdgesDirection.Outgoing);
+            }
+        }
+        return ids;
+    }
+
+    private void addAdjacentVertexIds(final List<Object> ids, final int type, final com.sparsity.dex.gdb.EdgesDirection direction) {
+        // the oids of the adjacent vertices are read from the edge data rather than by creating the edges and vertices
+        final com.sparsity.dex.gdb.Objects objs = graph.getRawGraph().explode(oid, type, direction);
+        final com.sparsity.dex.gdb.ObjectsIterator itty = objs.iterator();
+        while (itty.hasNext()) {
+            final com.sparsity.dex.gdb.EdgeData edata = graph.getRawGraph().getEdgeData(itty.next());
+            ids.add(direction == com.sparsity.dex.gdb.EdgesDirection.Outgoing ? edata.getHead() : edata.getTail());
+        }
+        itty.close();
+        objs.close();
+    }
+
+    private List<Integer> getEdgeTypes(final String... labels) {
+        final List<Integer> types = new ArrayList<Integer>();
+        if (labels.length == 0) {
+            final com.sparsity.dex.gdb.TypeList tlist = graph.getRawGraph().findEdgeTypes();
+            for (final Integer type : tlist) {
+                types.add(type);
+            }
+            tlist.delete();
+        } else {
+            for (final String label : labels) {
+                final int type = graph.getRawGraph().findType(label);
+                if (type != com.sparsity.dex.gdb.Type.InvalidType)
+                    types.add(type);
+            }
+        }
+        return types;
+    }
+
     public Query query() {
         return new DefaultQuery(this);
     }
@@ -4,6 +4,7 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
@@ -11,6 +12,7 @@ import com.tinkerpop.blueprints.MetaGraph;
 import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.KeyIndexableGraphHelper;
 import com.tinkerpop.blueprints.util.PropertyFilteredIterable;
@@ -348,6 +350,10 @@ public class Neo4jGraph implements TransactionalGraph, IndexableGraph, KeyIndexa
             return new PropertyFilteredIterable<Edge>(key, value, this.getEdges());
     }
 
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
     public <T extends Element> void dropKeyIndex(final String key, final Class<T> elementClass) {
         this.autoStartTransaction();
         if (Vertex.class.isAssignableFrom(elementClass)) {
@@ -3,7 +3,6 @@ package com.tinkerpop.blueprints.impls.neo4j;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.blueprints.util.DefaultQuery;
 import com.tinkerpop.blueprints.util.MultiIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import org.neo4j.graphdb.Direction;
@@ -44,7 +43,7 @@ public class Neo4jVertex extends Neo4jElement implements Vertex {
     }
 
     public Query query() {
-        return new DefaultQuery(this);
+        return new Neo4jVertexQuery(this);
     }
 
     public boolean equals(final Object object) {
@@ -0,0 +1,167 @@
+package com.tinkerpop.blueprints.impls.neo4j;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultQuery;
+import com.tinkerpop.blueprints.util.HasContainer;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A query of the edges of a Neo4jVertex that is evaluated against the raw relationships of its node.
+ * The direction and labels of the query select the relationships in Neo4j, the property constraints are checked on the
+ * relationships, and a Neo4jEdge or Neo4jVertex is only created for a relationship that is returned.
+ * Counting and collecting vertex ids create no elements at all, and every operation stops once the limit is reached.
+ */
+public class Neo4jVertexQuery extends DefaultQuery {
+
+    private final Neo4jGraph graph;
+    private final Node node;
+
+    public Neo4jVertexQuery(final Neo4jVertex vertex) {
+        super(vertex);
+        this.graph = vertex.graph;
+        this.node = vertex.getRawVertex();
+    }
+
+    public Iterable<Edge> edges() {
+        return new Neo4jVertexQueryIterable<Edge>(false);
+    }
+
+    public Iterable<Vertex> vertices() {
+        return new Neo4jVertexQueryIterable<Vertex>(true);
+    }
+
+    public long count() {
+        long count = 0;
+        final Iterator<Relationship> itty = this.relationships();
+        while (count < this.limit && itty.hasNext()) {
+            if (this.isLegal(itty.next()))
+                count++;
+        }
+        return count;
+    }
+
+    public Object vertexIds() {
+        final List<Object> list = new ArrayList<Object>();
+        final Iterator<Relationship> itty = this.relationships();
+        while (list.size() < this.limit && itty.hasNext()) {
+            final Relationship relationship = itty.next();
+            if (this.isLegal(relationship))
+                list.add(relationship.getOtherNode(this.node).getId());
+        }
+        return list;
+    }
+
+    private boolean isLegal(final Relationship relationship) {
+        for (final HasContainer hasContainer : this.hasContainers) {
+            final Object value = relationship.hasProperty(hasContainer.key) ? relationship.getProperty(hasContainer.key) : null;
+            if (!hasContainer.isLegalValue(value))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The relationships of the direction and labels, with the outgoing before the incoming relationships for both directions as by Neo4jVertex.getEdges().
+     */
+    private Iterator<Relationship> relationships() {
+        final DynamicRelationshipType[] types = new DynamicRelationshipType[this.labels.length];
+        for (int i = 0; i < this.labels.length; i++) {
+            types[i] = DynamicRelationshipType.withName(this.labels[i]);
+        }
+        if (this.direction.equals(com.tinkerpop.blueprints.Direction.OUT)) {
+            return this.relationships(Direction.OUTGOING, types).iterator();
+        } else if (this.direction.equals(com.tinkerpop.blueprints.Direction.IN)) {
+            return this.relationships(Direction.INCOMING, types).iterator();
+        } else {
+            final Iterator<Relationship> outgoing = this.relationships(Direction.OUTGOING, types).iterator();
+            final Iterable<Relationship> incoming = this.relationships(Direction.INCOMING, types);
+            return new Iterator<Relationship>() {
+                private Iterator<Relationship> itty = outgoing;
+                private boolean switched = false;
+
+                public boolean hasNext() {
+                    if (!this.switched && !this.itty.hasNext()) {
+                        this.itty = incoming.iterator();
+                        this.switched = true;
+                    }
+                    return this.itty.hasNext();
+                }
+
+                public Relationship next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    return this.itty.next();
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    private Iterable<Relationship> relationships(final Direction direction, final DynamicRelationshipType[] types) {
+        if (types.length > 0)
+            return this.node.getRelationships(direction, types);
+        else
+            return this.node.getRelationships(direction);
+    }
+
+    private class Neo4jVertexQueryIterable<T extends Element> implements Iterable<T> {
+
+        private final boolean forVertex;
+
+        public Neo4jVertexQueryIterable(final boolean forVertex) {
+            this.forVertex = forVertex;
+        }
+
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final Iterator<Relationship> itty = relationships();
+                private Relationship nextRelationship = null;
+                private long count = 0;
+
+                public boolean hasNext() {
+                    if (null != this.nextRelationship)
+                        return true;
+                    if (this.count >= limit)
+                        return false;
+                    while (this.itty.hasNext()) {
+                        final Relationship relationship = this.itty.next();
+                        if (isLegal(relationship)) {
+                            this.nextRelationship = relationship;
+                            this.count++;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+
+                public T next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    final Relationship relationship = this.nextRelationship;
+                    this.nextRelationship = null;
+                    if (forVertex)
+                        return (T) new Neo4jVertex(relationship.getOtherNode(node), graph);
+                    else
+                        return (T) new Neo4jEdge(relationship, graph);
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
@@ -16,6 +16,7 @@ import com.tinkerpop.blueprints.TransactionalGraphTestSuite;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexTestSuite;
 import com.tinkerpop.blueprints.impls.GraphTest;
+import com.tinkerpop.blueprints.util.ParallelGraphCopierTestSuite;
 import com.tinkerpop.blueprints.util.io.gml.GMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphml.GraphMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
@@ -96,6 +97,12 @@ public class Neo4jGraphTest extends GraphTest {
         printTestPerformance("GraphSONReaderTestSuite", this.stopWatch());
     }
 
+    public void testParallelGraphCopierTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new ParallelGraphCopierTestSuite(this));
+        printTestPerformance("ParallelGraphCopierTestSuite", this.stopWatch());
+    }
+
     public void testGMLReaderTestSuite() throws Exception {
         this.stopWatch();
         doTestSuite(new GMLReaderTestSuite(this));
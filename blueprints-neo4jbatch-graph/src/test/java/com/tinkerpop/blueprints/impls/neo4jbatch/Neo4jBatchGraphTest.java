@@ -312,6 +312,40 @@ public class Neo4jBatchGraphTest extends BaseTest {
 
     }
 
+    public void testReservedKeysOfPropertyMaps() {
+        final String directory = this.getWorkingDirectory();
+        final Neo4jBatchGraph batch = new Neo4jBatchGraph(directory);
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("_id", 1);
+        properties.put("label", "a");
+        final Vertex a = batch.addVertex(null, properties);
+        assertEquals(a.getProperty("_id"), 1);
+        assertEquals(a.getProperty("label"), "a");
+        final Vertex b = batch.addVertex(null, new HashMap<String, Object>());
+        try {
+            batch.addEdge(null, a, b, "knows", properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        properties.remove("label");
+        assertEquals(batch.addEdge(null, a, b, "knows", properties).getProperty("_id"), 1);
+        properties.put("id", 2);
+        try {
+            batch.addVertex(null, properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            batch.addEdge(null, a, b, "knows", properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        batch.shutdown();
+    }
+
     public void testToStringMethods() {
         final String directory = this.getWorkingDirectory();
         final Neo4jBatchGraph batch = new Neo4jBatchGraph(directory);
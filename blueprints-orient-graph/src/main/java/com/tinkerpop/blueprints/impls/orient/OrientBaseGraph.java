@@ -2,8 +2,10 @@ package com.tinkerpop.blueprints.impls.orient;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.orientechnologies.orient.core.db.graph.OGraphDatabase;
@@ -17,6 +19,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
@@ -24,6 +27,8 @@ import com.tinkerpop.blueprints.MetaGraph;
 import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.TransactionalGraph.Conclusion;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.ElementPropertiesGraph;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.PropertyFilteredIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
@@ -33,7 +38,7 @@ import com.tinkerpop.blueprints.util.StringFactory;
  *
  * @author Luca Garulli (http://www.orientechnologies.com)
  */
-public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGraphDatabase>, KeyIndexableGraph {
+public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGraphDatabase>, KeyIndexableGraph, ElementPropertiesGraph {
     protected final static String ADMIN = "admin";
 
     private String url;
@@ -131,10 +136,23 @@ public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGrap
     }
 
     public Vertex addVertex(final Object id) {
+        return this.addVertex(id, Collections.<String, Object>emptyMap());
+    }
+
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+        return this.addEdge(id, outVertex, inVertex, label, Collections.<String, Object>emptyMap());
+    }
+
+    public Vertex addVertex(final Object id, final Map<String, Object> properties) {
+        validateProperties(properties, false);
         final OGraphDatabase db = getRawGraph();
         this.autoStartTransaction();
         try {
-            final OrientVertex vertex = new OrientVertex(this, db.createVertex(null));
+            final ODocument vertexDoc = db.createVertex(null);
+            for (final Map.Entry<String, Object> entry : properties.entrySet()) {
+                vertexDoc.field(entry.getKey(), entry.getValue());
+            }
+            final OrientVertex vertex = new OrientVertex(this, vertexDoc);
             vertex.save();
             return vertex;
         } catch (Exception e) {
@@ -142,12 +160,16 @@ public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGrap
         }
     }
 
-    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label, final Map<String, Object> properties) {
+        validateProperties(properties, true);
         final OGraphDatabase db = getRawGraph();
         this.autoStartTransaction();
         try {
             final ODocument edgeDoc = db.createEdge(((OrientVertex) outVertex).getRawElement(), ((OrientVertex) inVertex).getRawElement());
             final OrientEdge edge = new OrientEdge(this, edgeDoc, label);
+            for (final Map.Entry<String, Object> entry : properties.entrySet()) {
+                edgeDoc.field(entry.getKey(), entry.getValue());
+            }
 
             // SAVE THE VERTICES TO ASSURE THEY ARE IN TX
             db.save(((OrientVertex) outVertex).getRawElement());
@@ -159,6 +181,13 @@ public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGrap
         }
     }
 
+    private static void validateProperties(final Map<String, Object> properties, final boolean edge) {
+        if (properties.containsKey(StringFactory.ID))
+            throw ExceptionFactory.propertyKeyIdIsReserved();
+        if (edge && properties.containsKey(StringFactory.LABEL))
+            throw ExceptionFactory.propertyKeyLabelIsReservedForEdges();
+    }
+
     public Vertex getVertex(final Object id) {
         if (null == id)
             throw ExceptionFactory.vertexIdCanNotBeNull();
@@ -253,6 +282,10 @@ public abstract class OrientBaseGraph implements IndexableGraph, MetaGraph<OGrap
         return new PropertyFilteredIterable<Edge>(key, value, this.getEdges());
     }
 
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
     private Iterable<Edge> getEdges(final boolean polymorphic) {
         return new OrientElementScanIterable<Edge>(this, Edge.class, polymorphic);
     }
@@ -15,6 +15,7 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Query;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.DefaultQuery;
+import com.tinkerpop.blueprints.util.DegreeVertex;
 import com.tinkerpop.blueprints.util.MultiIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.VerticesFromEdgesIterable;
@@ -23,7 +24,7 @@ import com.tinkerpop.blueprints.util.VerticesFromEdgesIterable;
 /**
  * @author Luca Garulli (http://www.orientechnologies.com)
  */
-public class OrientVertex extends OrientElement implements Vertex {
+public class OrientVertex extends OrientElement implements Vertex, DegreeVertex {
 
     public OrientVertex() {
         super(null, new ODocument());
@@ -89,6 +90,63 @@ public class OrientVertex extends OrientElement implements Vertex {
         }
     }
 
+    public long getDegree(final Direction direction, final String... labels) {
+        if (this.rawElement == null)
+            return 0;
+        long degree = 0;
+        if (!direction.equals(Direction.OUT))
+            degree = degree + this.getDegree(false, labels);
+        if (!direction.equals(Direction.IN))
+            degree = degree + this.getDegree(true, labels);
+        return degree;
+    }
+
+    private long getDegree(final boolean out, final String... labels) {
+        // without labels the degree is the size of the link set of the vertex document and no edge is loaded,
+        // with labels the link set is filtered on the label of each edge document, which loads the edges
+        if (labels.length == 0)
+            return this.getEdgeLinks(out, null).size();
+        long degree = 0;
+        for (final String label : labels) {
+            degree = degree + this.getEdgeLinks(out, label).size();
+        }
+        return degree;
+    }
+
+    public List<Object> getAdjacentVertexIds(final Direction direction, final String... labels) {
+        final List<Object> ids = new ArrayList<Object>();
+        if (this.rawElement == null)
+            return ids;
+        if (!direction.equals(Direction.OUT))
+            this.addAdjacentVertexIds(ids, false, labels);
+        if (!direction.equals(Direction.IN))
+            this.addAdjacentVertexIds(ids, true, labels);
+        return ids;
+    }
+
+    private void addAdjacentVertexIds(final List<Object> ids, final boolean out, final String... labels) {
+        if (labels.length == 0) {
+            this.addAdjacentVertexIds(ids, out, this.getEdgeLinks(out, null));
+        } else {
+            for (final String label : labels) {
+                this.addAdjacentVertexIds(ids, out, this.getEdgeLinks(out, label));
+            }
+        }
+    }
+
+    private void addAdjacentVertexIds(final List<Object> ids, final boolean out, final Set<OIdentifiable> edges) {
+        // the edge documents are read for the vertex at their other end, but no OrientEdge or OrientVertex is created
+        final OGraphDatabase rawGraph = graph.getRawGraph();
+        for (final OIdentifiable edge : edges) {
+            final ODocument rawEdge = (ODocument) edge.getRecord();
+            ids.add((out ? rawGraph.getInVertex(rawEdge) : rawGraph.getOutVertex(rawEdge)).getIdentity());
+        }
+    }
+
+    private Set<OIdentifiable> getEdgeLinks(final boolean out, final String label) {
+        return out ? graph.getRawGraph().getOutEdges(this.rawElement, label) : graph.getRawGraph().getInEdges(this.rawElement, label);
+    }
+
     public Query query() {
         return new DefaultQuery(this);
     }
@@ -3,9 +3,11 @@ package com.tinkerpop.blueprints.impls.sail;
 
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.MetaGraph;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.PropertyFilteredIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
@@ -219,6 +221,10 @@ public class SailGraph implements TransactionalGraph, MetaGraph<Sail> {
         return new PropertyFilteredIterable<Edge>(key, value, new SailEdgeIterable(null, null, null, this));
     }
 
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
     public void removeVertex(final Vertex vertex) {
         Value vertexValue = ((SailVertex) vertex).getRawVertex();
         try {
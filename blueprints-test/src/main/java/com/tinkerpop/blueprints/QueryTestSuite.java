@@ -186,4 +186,79 @@ public class QueryTestSuite extends TestSuite {
         graph.shutdown();
 
     }
-}
\ No newline at end of file
+
+    public void testGraphQuery() {
+        Graph graph = graphTest.generateGraph();
+        if (!graph.getFeatures().isRDFModel) {
+            if (graph instanceof KeyIndexableGraph && graph.getFeatures().supportsVertexKeyIndex) {
+                ((KeyIndexableGraph) graph).createKeyIndex("name", Vertex.class);
+            }
+
+            Vertex a = graph.addVertex(null);
+            Vertex b = graph.addVertex(null);
+            Vertex c = graph.addVertex(null);
+            a.setProperty("name", "marko");
+            a.setProperty("age", 33);
+            b.setProperty("name", "peter");
+            b.setProperty("age", 28);
+            c.setProperty("name", "marko");
+            c.setProperty("age", 45);
+            Edge aFriendB = graph.addEdge(null, a, b, convertId(graph, "friend"));
+            Edge aFriendC = graph.addEdge(null, a, c, convertId(graph, "friend"));
+            Edge cHateB = graph.addEdge(null, c, b, convertId(graph, "hate"));
+            aFriendB.setProperty("weight", 0.5);
+            aFriendC.setProperty("weight", 1.0);
+            cHateB.setProperty("weight", 0.2);
+
+            List results = asList(graph.query().has("name", "marko").vertices());
+            assertEquals(results.size(), 2);
+            assertTrue(results.contains(a));
+            assertTrue(results.contains(c));
+
+            results = asList(graph.query().has("name", "marko").has("age", 40, Query.Compare.GREATER_THAN).vertices());
+            assertEquals(results.size(), 1);
+            assertTrue(results.contains(c));
+
+            results = asList(graph.query().has("name", "josh").vertices());
+            assertEquals(results.size(), 0);
+
+            results = asList(graph.query().has("age", 33, Query.Compare.NOT_EQUAL).vertices());
+            assertEquals(results.size(), 2);
+            assertTrue(results.contains(b));
+            assertTrue(results.contains(c));
+
+            results = asList(graph.query().interval("age", 28, 45).vertices());
+            assertEquals(results.size(), 2);
+            assertTrue(results.contains(a));
+            assertTrue(results.contains(b));
+
+            results = asList(graph.query().has("age", 33, Query.Compare.LESS_THAN_EQUAL).has("name", "marko").vertices());
+            assertEquals(results.size(), 1);
+            assertTrue(results.contains(a));
+
+            results = asList(graph.query().has("name", "marko").limit(1).vertices());
+            assertEquals(results.size(), 1);
+            assertTrue(results.contains(a) || results.contains(c));
+
+            results = asList(graph.query().has("name", "marko").limit(0).vertices());
+            assertEquals(results.size(), 0);
+
+            results = asList(graph.query().has("weight", 0.5, Query.Compare.GREATER_THAN_EQUAL).edges());
+            assertEquals(results.size(), 2);
+            assertTrue(results.contains(aFriendB));
+            assertTrue(results.contains(aFriendC));
+
+            results = asList(graph.query().interval("weight", 0.1, 0.5).edges());
+            assertEquals(results.size(), 1);
+            assertTrue(results.contains(cHateB));
+
+            results = asList(graph.query().has("weight", 2.0, Query.Compare.GREATER_THAN).edges());
+            assertEquals(results.size(), 0);
+
+            results = asList(graph.query().has("weight", 0.5, Query.Compare.LESS_THAN_EQUAL).limit(1).edges());
+            assertEquals(results.size(), 1);
+            assertTrue(results.contains(aFriendB) || results.contains(cHateB));
+        }
+        graph.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TestSuite;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.GraphTest;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ParallelGraphCopierTestSuite extends TestSuite {
+
+    public ParallelGraphCopierTestSuite() {
+    }
+
+    public ParallelGraphCopierTestSuite(GraphTest graphTest) {
+        super(graphTest);
+    }
+
+    public void testCopyingTinkerGraph() throws Exception {
+        Graph graph = graphTest.generateGraph();
+        if (!graph.getFeatures().isRDFModel) {
+            this.stopWatch();
+            ParallelGraphCopier.copyGraph(TinkerGraphFactory.createTinkerGraph(), graph, 2, getThreads(graph));
+            printPerformance(graph.toString(), 12, "elements copied from graph-example-1", this.stopWatch());
+
+            assertEquals(6, count(graph.getVertices()));
+            assertEquals(6, count(graph.getEdges()));
+            Vertex marko = null;
+            for (Vertex vertex : graph.getVertices()) {
+                if ("marko".equals(vertex.getProperty("name"))) marko = vertex;
+            }
+            assertNotNull(marko);
+            assertEquals(29, marko.getProperty("age"));
+            Set<String> names = new HashSet<String>();
+            for (Edge edge : marko.getEdges(Direction.OUT)) {
+                names.add(edge.getLabel() + ":" + edge.getVertex(Direction.IN).getProperty("name"));
+            }
+            assertEquals(3, names.size());
+            assertTrue(names.contains("knows:vadas"));
+            assertTrue(names.contains("knows:josh"));
+            assertTrue(names.contains("created:lop"));
+            if (!graph.getFeatures().ignoresSuppliedIds) {
+                assertEquals("marko", graph.getVertex("1").getProperty("name"));
+            }
+        }
+        graph.shutdown();
+    }
+
+    public void testCopyingThroughput() throws Exception {
+        Graph graph = graphTest.generateGraph();
+        if (!graph.getFeatures().isRDFModel) {
+            final int total = 10000;
+            TinkerGraph source = new TinkerGraph();
+            for (int i = 0; i < total; i++) {
+                Vertex vertex = source.addVertex(null);
+                vertex.setProperty("name", "vertex" + i);
+            }
+            for (int i = 0; i < total * 2; i++) {
+                Edge edge = source.addEdge(null, source.getVertex(String.valueOf(i % total)), source.getVertex(String.valueOf((i * 7) % total)), "knows");
+                edge.setProperty("weight", i / 7.0d);
+            }
+
+            this.stopWatch();
+            ParallelGraphCopier.copyGraph(source, graph, 1000, getThreads(graph));
+            printPerformance(graph.toString(), total * 3, "elements copied from a TinkerGraph with " + getThreads(graph) + " threads", this.stopWatch());
+
+            assertEquals(total, count(graph.getVertices()));
+            assertEquals(total * 2, count(graph.getEdges()));
+        }
+        graph.shutdown();
+    }
+
+    /**
+     * @return several threads for graphs that accept concurrent writers, which are those with a transaction per thread
+     *         and a TinkerGraph with concurrent storage, and one otherwise
+     */
+    private static int getThreads(final Graph graph) {
+        if (graph instanceof TransactionalGraph)
+            return 4;
+        return graph instanceof TinkerGraph && ((TinkerGraph) graph).getStorage() == TinkerGraph.Storage.CONCURRENT ? 4 : 1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the compact storage of TinkerGraph using the standard test suite.
+ */
+public class CompactTinkerGraphTest extends TinkerGraphTest {
+
+    private static final int TOTAL_VERTICES = 20000;
+    private static final int EDGES_PER_VERTEX = 10;
+
+    @Override
+    public Graph generateGraph() {
+        return new TinkerGraph(getDirectory(), TinkerGraph.Storage.COMPACT);
+    }
+
+    public void testLongKeyedMap() {
+        final LongKeyedMap<String> map = new LongKeyedMap<String>();
+        for (int i = -500; i < 500; i++) {
+            assertNull(map.put(String.valueOf(i), "v" + i));
+        }
+        assertNull(map.put("007", "bond"));
+        assertNull(map.put("-0", "negative zero"));
+        assertNull(map.put("a", "string"));
+        assertEquals(1003, map.size());
+        assertEquals("v7", map.get("7"));
+        assertEquals("bond", map.get("007"));
+        assertEquals("negative zero", map.get("-0"));
+        assertEquals("v0", map.get("0"));
+        assertNull(map.get("1000"));
+        assertEquals("v7", map.put("7", "seven"));
+        assertEquals("seven", map.get("7"));
+
+        for (int i = -500; i < 500; i = i + 2) {
+            assertEquals(i == 7 ? "seven" : "v" + i, map.remove(String.valueOf(i)));
+        }
+        assertEquals(503, map.size());
+        for (int i = -500; i < 500; i++) {
+            if (i % 2 == 0)
+                assertNull(map.get(String.valueOf(i)));
+            else
+                assertEquals(i == 7 ? "seven" : "v" + i, map.get(String.valueOf(i)));
+        }
+        assertEquals(503, count(map.values()));
+        assertEquals(503, count(map.entrySet()));
+
+        assertTrue(LongKeyedMap.isLongKey(String.valueOf(Long.MAX_VALUE)));
+        assertTrue(LongKeyedMap.isLongKey(String.valueOf(Long.MIN_VALUE)));
+        assertFalse(LongKeyedMap.isLongKey("9223372036854775808"));
+        assertFalse(LongKeyedMap.isLongKey("+1"));
+        assertFalse(LongKeyedMap.isLongKey(""));
+        assertFalse(LongKeyedMap.isLongKey("-"));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get("1"));
+    }
+
+    public void testInternedLabels() {
+        final TinkerGraph graph = new TinkerGraph(TinkerGraph.Storage.COMPACT);
+        final Vertex a = graph.addVertex(null);
+        final Vertex b = graph.addVertex(null);
+        final Edge e1 = graph.addEdge(null, a, b, new String("knows"));
+        final Edge e2 = graph.addEdge(null, b, a, new String("knows"));
+        assertSame(e1.getLabel(), e2.getLabel());
+        assertEquals(1, count(a.getEdges(Direction.OUT, "knows")));
+        assertEquals(2, count(a.getEdges(Direction.BOTH, "knows")));
+        graph.removeEdge(e1);
+        assertEquals(0, count(a.getEdges(Direction.OUT, "knows")));
+        assertEquals(1, count(a.getEdges(Direction.IN, "knows")));
+    }
+
+    public void testCompactStorageFootprint() {
+        final long defaultBytes = this.measureFootprint(TinkerGraph.Storage.DEFAULT);
+        final long compactBytes = this.measureFootprint(TinkerGraph.Storage.COMPACT);
+        final int totalEdges = TOTAL_VERTICES * EDGES_PER_VERTEX;
+        printPerformance("DEFAULT storage", totalEdges, "edges in " + defaultBytes + " bytes (" + (defaultBytes / totalEdges) + " bytes/edge)", 0.0d);
+        printPerformance("COMPACT storage", totalEdges, "edges in " + compactBytes + " bytes (" + (compactBytes / totalEdges) + " bytes/edge)", 0.0d);
+    }
+
+    private long measureFootprint(final TinkerGraph.Storage storage) {
+        final List<TinkerGraph> holder = new ArrayList<TinkerGraph>();
+        final long before = usedMemory();
+        final TinkerGraph graph = new TinkerGraph(storage);
+        holder.add(graph);
+        for (int i = 0; i < TOTAL_VERTICES; i++) {
+            graph.addVertex(i);
+        }
+        for (int i = 0; i < TOTAL_VERTICES; i++) {
+            final Vertex out = graph.getVertex(i);
+            for (int j = 1; j <= EDGES_PER_VERTEX; j++) {
+                // fresh label strings, as produced by the graph readers
+                graph.addEdge(null, out, graph.getVertex((i + j) % TOTAL_VERTICES), new String(j % 2 == 0 ? "knows" : "created"));
+            }
+        }
+        final long after = usedMemory();
+        assertEquals(TOTAL_VERTICES * EDGES_PER_VERTEX, count(holder.get(0).getEdges()));
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
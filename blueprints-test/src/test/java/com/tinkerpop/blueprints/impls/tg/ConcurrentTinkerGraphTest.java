@@ -0,0 +1,156 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the concurrent storage of TinkerGraph using the standard test suite.
+ */
+public class ConcurrentTinkerGraphTest extends TinkerGraphTest {
+
+    private static final int TOTAL_THREADS = 8;
+    private static final int TOTAL_VERTICES = 2000;
+    private static final int OPERATIONS_PER_THREAD = 50000;
+
+    @Override
+    public Graph generateGraph() {
+        return new TinkerGraph(getDirectory(), TinkerGraph.Storage.CONCURRENT);
+    }
+
+    public void testLazyIterationNotSupported() {
+        final TinkerGraph graph = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        try {
+            graph.setLazyIteration(true);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertTrue(true);
+        }
+        assertFalse(graph.isLazyIteration());
+    }
+
+    public void testConcurrentAddRemoveVertices() throws Exception {
+        final TinkerGraph graph = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        final Vertex hub = graph.addVertex("hub");
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < TOTAL_THREADS; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 500; i++) {
+                            final Vertex vertex = graph.addVertex(offset + ":" + i);
+                            graph.addEdge(null, hub, vertex, "knows");
+                            graph.addEdge(null, vertex, hub, "knows");
+                            if (i % 2 == 0)
+                                graph.removeVertex(vertex);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        runThreads(threads, failure);
+
+        assertEquals(TOTAL_THREADS * 250 + 1, count(graph.getVertices()));
+        assertEquals(TOTAL_THREADS * 500, count(graph.getEdges()));
+        assertEquals(TOTAL_THREADS * 250, count(hub.getEdges(Direction.OUT)));
+        assertEquals(TOTAL_THREADS * 250, count(hub.getEdges(Direction.IN)));
+    }
+
+    public void testConcurrentReadWriteThroughput() throws Exception {
+        for (final TinkerGraph.Storage storage : new TinkerGraph.Storage[]{TinkerGraph.Storage.DEFAULT, TinkerGraph.Storage.CONCURRENT}) {
+            final TinkerGraph graph = new TinkerGraph(storage);
+            graph.createKeyIndex("bucket", Vertex.class);
+            for (int i = 0; i < TOTAL_VERTICES; i++) {
+                graph.addVertex(i).setProperty("bucket", i % 10);
+            }
+            final int threads = storage == TinkerGraph.Storage.CONCURRENT ? TOTAL_THREADS : 1;
+            final AtomicInteger reads = new AtomicInteger(0);
+            this.stopWatch();
+            this.readWrite(graph, threads, reads);
+            final double time = this.stopWatch();
+            printPerformance(storage + " storage", threads * OPERATIONS_PER_THREAD, "operations (" + reads.get() + " adjacent edges read) by " + threads + " thread(s)", time);
+
+            int outEdges = 0;
+            int inEdges = 0;
+            for (final Vertex vertex : graph.getVertices()) {
+                outEdges = outEdges + count(vertex.getEdges(Direction.OUT));
+                inEdges = inEdges + count(vertex.getEdges(Direction.IN));
+                for (final Edge edge : vertex.getEdges(Direction.OUT)) {
+                    assertNotNull(graph.getEdge(edge.getId()));
+                    assertTrue(count(edge.getVertex(Direction.IN).getEdges(Direction.IN)) > 0);
+                }
+            }
+            final int totalEdges = count(graph.getEdges());
+            assertEquals(totalEdges, outEdges);
+            assertEquals(totalEdges, inEdges);
+            int indexed = 0;
+            for (int i = 0; i < 10; i++) {
+                for (final Vertex vertex : graph.getVertices("bucket", i)) {
+                    assertEquals(i, vertex.getProperty("bucket"));
+                    indexed++;
+                }
+            }
+            assertEquals(TOTAL_VERTICES, indexed);
+        }
+    }
+
+    private void readWrite(final TinkerGraph graph, final int totalThreads, final AtomicInteger reads) throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < totalThreads; t++) {
+            final Random random = new Random(t);
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        int counter = 0;
+                        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                            final Vertex out = graph.getVertex(random.nextInt(TOTAL_VERTICES));
+                            final int operation = random.nextInt(10);
+                            if (operation == 0) {
+                                graph.addEdge(null, out, graph.getVertex(random.nextInt(TOTAL_VERTICES)), "knows");
+                            } else if (operation == 1) {
+                                for (final Edge edge : out.getEdges(Direction.OUT)) {
+                                    graph.removeEdge(edge);
+                                    break;
+                                }
+                            } else if (operation == 2) {
+                                out.setProperty("bucket", random.nextInt(10));
+                            } else {
+                                for (final Edge edge : out.getEdges(Direction.BOTH)) {
+                                    edge.getLabel();
+                                    counter++;
+                                }
+                            }
+                        }
+                        reads.addAndGet(counter);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        runThreads(threads, failure);
+    }
+
+    private static void runThreads(final List<Thread> threads, final AtomicReference<Throwable> failure) throws Exception {
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (null != failure.get())
+            throw new RuntimeException(failure.get());
+    }
+}
@@ -0,0 +1,130 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+
+/**
+ * Tests the lazy iteration of TinkerGraph using the standard test suite.
+ */
+public class LazyIterationTinkerGraphTest extends TinkerGraphTest {
+
+    private static final int TOTAL_RUNS = 10;
+
+    @Override
+    public Graph generateGraph() {
+        final TinkerGraph graph = new TinkerGraph(getDirectory());
+        graph.setLazyIteration(true);
+        return graph;
+    }
+
+    public void testSnapshotOnMutation() {
+        final TinkerGraph graph = new TinkerGraph();
+        graph.setLazyIteration(true);
+        final Vertex a = graph.addVertex(null);
+        for (int i = 0; i < 10; i++) {
+            graph.addEdge(null, a, graph.addVertex(null), "knows");
+        }
+
+        int counter = 0;
+        for (final Edge edge : a.getEdges(Direction.OUT)) {
+            graph.removeEdge(edge);
+            graph.addEdge(null, a, a, "knows");
+            counter++;
+        }
+        assertEquals(10, counter);
+        assertEquals(10, count(a.getEdges(Direction.OUT)));
+
+        counter = 0;
+        for (final Vertex vertex : graph.getVertices()) {
+            graph.removeVertex(vertex);
+            counter++;
+        }
+        assertEquals(11, counter);
+        assertEquals(0, count(graph.getVertices()));
+        assertEquals(0, count(graph.getEdges()));
+    }
+
+    public void testIterableSeesTheGraphWhenIterated() {
+        final TinkerGraph graph = new TinkerGraph();
+        graph.addVertex(null);
+        final Iterable<Vertex> copy = graph.getVertices();
+        graph.setLazyIteration(true);
+        final Iterable<Vertex> view = graph.getVertices();
+        graph.addVertex(null);
+        assertEquals(1, count(copy));
+        assertEquals(2, count(view));
+    }
+
+    public void testAbandonedIterators() {
+        final TinkerGraph graph = new TinkerGraph();
+        graph.setLazyIteration(true);
+        final Vertex a = graph.addVertex(null);
+        graph.addEdge(null, a, graph.addVertex(null), "knows");
+        graph.addEdge(null, a, graph.addVertex(null), "knows");
+
+        final Iterator<Edge> itty = a.getEdges(Direction.OUT).iterator();
+        itty.next();
+        for (int i = 0; i < 1000; i++) {
+            a.getEdges(Direction.OUT).iterator().next();
+        }
+        graph.addEdge(null, a, graph.addVertex(null), "knows");
+        assertTrue(itty.hasNext());
+        itty.next();
+        assertFalse(itty.hasNext());
+        assertEquals(3, count(a.getEdges(Direction.OUT)));
+    }
+
+    public void testLazyIterationAllocation() throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+            return;
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        for (final boolean lazy : new boolean[]{false, true}) {
+            final TinkerGraph graph = new TinkerGraph();
+            graph.setLazyIteration(lazy);
+            GraphMLReader.inputGraph(graph, GraphMLReader.class.getResourceAsStream("graph-example-2.xml"));
+            int counter = 0;
+            long totalBytes = 0l;
+            double totalTime = 0.0d;
+            for (int i = 0; i < TOTAL_RUNS; i++) {
+                final long bytes = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                this.stopWatch();
+                counter = threeHops(graph);
+                totalTime = totalTime + this.stopWatch();
+                totalBytes = totalBytes + allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes;
+            }
+            printPerformance(lazy ? "lazy iteration" : "copying iteration", counter, "elements touched with " + (totalBytes / TOTAL_RUNS) + " bytes allocated per run, average", totalTime / TOTAL_RUNS);
+        }
+    }
+
+    private static int threeHops(final Graph graph) {
+        int counter = 0;
+        for (final Vertex vertex : graph.getVertices()) {
+            counter++;
+            for (final Edge edge : vertex.getEdges(Direction.OUT)) {
+                counter++;
+                final Vertex vertex2 = edge.getVertex(Direction.IN);
+                counter++;
+                for (final Edge edge2 : vertex2.getEdges(Direction.OUT)) {
+                    counter++;
+                    final Vertex vertex3 = edge2.getVertex(Direction.IN);
+                    counter++;
+                    for (final Edge edge3 : vertex3.getEdges(Direction.OUT)) {
+                        counter++;
+                        edge3.getVertex(Direction.OUT);
+                        counter++;
+                    }
+                }
+            }
+        }
+        return counter;
+    }
+}
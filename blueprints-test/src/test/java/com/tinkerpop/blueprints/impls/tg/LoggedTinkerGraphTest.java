@@ -0,0 +1,274 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the write-ahead log of TinkerGraph using the standard test suite.
+ */
+public class LoggedTinkerGraphTest extends TinkerGraphTest {
+
+    private static final int TOTAL_MUTATIONS = 100000;
+
+    @Override
+    public Graph generateGraph() {
+        return new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+    }
+
+    public void testRecoveryWithoutShutdown() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        this.mutate(graph);
+        graph.log.sync();
+
+        // the graph is abandoned as if the process had crashed, and a torn record is left at the end of the log
+        final File[] segments = logSegments();
+        assertEquals(1, segments.length);
+        final FileOutputStream out = new FileOutputStream(segments[0], true);
+        out.write(new byte[]{0, 0, 0, 100, 1, 2, 3});
+        out.close();
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        this.checkMutations(graph);
+        graph.shutdown();
+        assertEquals(0, logSegments().length);
+        assertTrue(new File(getDirectory() + "/tinkergraph.bin").exists());
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.BINARY);
+        this.checkMutations(graph);
+        graph.shutdown();
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testRecoveryAfterCheckpoint() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        final Vertex a = graph.addVertex("a");
+        a.setProperty("name", "marko");
+        graph.log.checkpoint();
+        assertEquals(1, logSegments().length);
+        this.mutate(graph);
+        graph.removeVertex(a);
+        graph.log.sync();
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        assertNull(graph.getVertex("a"));
+        this.checkMutations(graph);
+        graph.shutdown();
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testRecoveryOfSerializedElements() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.JAVA);
+        graph.createKeyIndex("name", Vertex.class);
+        graph.addVertex("a").setProperty("name", "marko");
+        graph.shutdown();
+
+        // the elements loaded from tinkergraph.dat log their changes to the graph that loaded them
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        final Vertex a = graph.getVertex("a");
+        assertSame(graph, ((TinkerVertex) a).graph);
+        a.setProperty("name", "okram");
+        a.setProperty("age", 29);
+        graph.log.sync();
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.LOGGED);
+        assertEquals("okram", graph.getVertex("a").getProperty("name"));
+        assertEquals(29, graph.getVertex("a").getProperty("age"));
+        assertEquals(graph.getVertex("a"), graph.getVertices("name", "okram").iterator().next());
+        graph.shutdown();
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testConcurrentCheckpoint() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.Storage.CONCURRENT, TinkerGraph.FileType.LOGGED);
+        final TinkerGraph concurrentGraph = graph;
+        concurrentGraph.createKeyIndex("bucket", Vertex.class);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        final Random random = new Random(offset);
+                        final List<Vertex> vertices = new ArrayList<Vertex>();
+                        for (int i = 0; i < 5000; i++) {
+                            final Vertex vertex = concurrentGraph.addVertex(offset + ":" + i);
+                            vertex.setProperty("bucket", random.nextInt(10));
+                            if (!vertices.isEmpty())
+                                concurrentGraph.addEdge(null, vertex, vertices.get(random.nextInt(vertices.size())), "knows");
+                            vertices.add(vertex);
+                            if (i % 10 == 0)
+                                concurrentGraph.removeVertex(vertices.remove(random.nextInt(vertices.size())));
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        while (threads.get(0).isAlive()) {
+            concurrentGraph.log.checkpoint();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (null != failure.get())
+            throw new RuntimeException(failure.get());
+        concurrentGraph.log.sync();
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.Storage.CONCURRENT, TinkerGraph.FileType.LOGGED);
+        assertEquals(count(concurrentGraph.getVertices()), count(graph.getVertices()));
+        assertEquals(count(concurrentGraph.getEdges()), count(graph.getEdges()));
+        for (final Vertex vertex : concurrentGraph.getVertices()) {
+            final Vertex recovered = graph.getVertex(vertex.getId());
+            assertNotNull(recovered);
+            assertEquals(vertex.getProperty("bucket"), recovered.getProperty("bucket"));
+            assertEquals(count(vertex.getEdges(Direction.BOTH)), count(recovered.getEdges(Direction.BOTH)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(count(concurrentGraph.getVertices("bucket", i)), count(graph.getVertices("bucket", i)));
+        }
+        graph.shutdown();
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testConcurrentMutationsOfSharedElements() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        final TinkerGraph concurrentGraph = new TinkerGraph(getDirectory(), TinkerGraph.Storage.CONCURRENT, TinkerGraph.FileType.LOGGED);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        final Random random = new Random(offset);
+                        for (int i = 0; i < 5000; i++) {
+                            final Vertex vertex = concurrentGraph.addVertex(offset + ":" + i);
+                            // the vertices of the other threads are linked and changed as soon as they are visible
+                            final Vertex other = concurrentGraph.getVertex(((offset + 1) % 4) + ":" + i);
+                            if (null != other) {
+                                other.setProperty("touched", offset);
+                                concurrentGraph.addEdge(null, vertex, other, "knows").setProperty("weight", random.nextInt(10));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (null != failure.get())
+            throw new RuntimeException(failure.get());
+        concurrentGraph.log.sync();
+
+        final TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.Storage.CONCURRENT, TinkerGraph.FileType.LOGGED);
+        assertEquals(count(concurrentGraph.getVertices()), count(graph.getVertices()));
+        assertEquals(count(concurrentGraph.getEdges()), count(graph.getEdges()));
+        for (final Vertex vertex : concurrentGraph.getVertices()) {
+            assertEquals(vertex.getProperty("touched"), graph.getVertex(vertex.getId()).getProperty("touched"));
+        }
+        for (final Edge edge : concurrentGraph.getEdges()) {
+            assertEquals(edge.getProperty("weight"), graph.getEdge(edge.getId()).getProperty("weight"));
+        }
+        graph.shutdown();
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testLogPerformance() throws Exception {
+        for (final TinkerGraph.FileType fileType : new TinkerGraph.FileType[]{TinkerGraph.FileType.BINARY, TinkerGraph.FileType.LOGGED}) {
+            deleteDirectory(new File(getDirectory()));
+            final TinkerGraph graph = new TinkerGraph(getDirectory(), fileType);
+            this.stopWatch();
+            Vertex previous = graph.addVertex(null);
+            for (int i = 0; i < TOTAL_MUTATIONS / 3; i++) {
+                final Vertex vertex = graph.addVertex(null);
+                vertex.setProperty("name", "vertex" + i);
+                graph.addEdge(null, previous, vertex, "next");
+                previous = vertex;
+            }
+            if (null != graph.log)
+                graph.log.sync();
+            printPerformance(fileType + " mutations", TOTAL_MUTATIONS, "mutations made durable", this.stopWatch());
+            this.stopWatch();
+            graph.shutdown();
+            printPerformance(fileType + " shutdown", TOTAL_MUTATIONS, "mutations saved", this.stopWatch());
+        }
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    private void mutate(final TinkerGraph graph) {
+        graph.createKeyIndex("name", Vertex.class);
+        final Index<Vertex> index = graph.createIndex("people", Vertex.class);
+        final Index<Edge> dropped = graph.createIndex("dropped", Edge.class);
+        final Vertex marko = graph.addVertex(null);
+        final Vertex peter = graph.addVertex("peter");
+        final Vertex josh = graph.addVertex(7);
+        marko.setProperty("name", "marko");
+        marko.setProperty("age", 29);
+        marko.setProperty("temp", true);
+        marko.removeProperty("temp");
+        peter.setProperty("name", "peter");
+        index.put("name", "marko", marko);
+        index.put("name", "peter", peter);
+        index.remove("name", "peter", peter);
+        final Edge knows = graph.addEdge(null, marko, peter, "knows");
+        knows.setProperty("weight", 0.5d);
+        graph.addEdge("e", marko, josh, "knows");
+        graph.removeEdge(graph.getEdge("e"));
+        graph.addEdge("e", josh, peter, "created");
+        graph.dropIndex(dropped.getIndexName());
+        graph.removeVertex(graph.addVertex("removed"));
+    }
+
+    private void checkMutations(final TinkerGraph graph) {
+        assertEquals(3, count(graph.getVertices()));
+        assertEquals(2, count(graph.getEdges()));
+        final Vertex marko = graph.getVertices("name", "marko").iterator().next();
+        assertEquals(29, marko.getProperty("age"));
+        assertNull(marko.getProperty("temp"));
+        assertEquals(1, count(marko.getEdges(Direction.OUT)));
+        assertEquals(0.5d, marko.getEdges(Direction.OUT, "knows").iterator().next().getProperty("weight"));
+        assertEquals(graph.getVertex(7), graph.getEdge("e").getVertex(Direction.OUT));
+        assertEquals(2, count(graph.getVertex("peter").getEdges(Direction.IN)));
+        assertEquals(1, count(graph.getIndex("people", Vertex.class).get("name", "marko")));
+        assertEquals(0, count(graph.getIndex("people", Vertex.class).get("name", "peter")));
+        assertNull(graph.getIndex("dropped", Edge.class));
+        assertTrue(graph.getIndexedKeys(Vertex.class).contains("name"));
+        assertNull(graph.getVertex("removed"));
+        // generated ids are not handed out again
+        assertTrue(graph.currentId.get() > Long.parseLong(marko.getId().toString()));
+    }
+
+    private File[] logSegments() {
+        final List<File> segments = new ArrayList<File>();
+        for (final File file : new File(getDirectory()).listFiles()) {
+            if (file.getName().endsWith(".log"))
+                segments.add(file);
+        }
+        return segments.toArray(new File[segments.size()]);
+    }
+}
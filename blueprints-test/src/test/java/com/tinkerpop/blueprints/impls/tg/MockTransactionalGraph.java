@@ -115,6 +115,11 @@ public class MockTransactionalGraph implements TransactionalGraph {
         return graph.getEdges(key,value);
     }
 
+    @Override
+    public GraphQuery query() {
+        return graph.query();
+    }
+
     @Override
     public void shutdown() {
         graph.shutdown();
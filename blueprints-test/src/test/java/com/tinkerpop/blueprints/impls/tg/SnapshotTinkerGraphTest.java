@@ -0,0 +1,229 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests the binary snapshot format of TinkerGraph, loaded through memory mapped regions, using the standard test suite.
+ */
+public class SnapshotTinkerGraphTest extends TinkerGraphTest {
+
+    private static final int TOTAL_VERTICES = 50000;
+    private static final int EDGES_PER_VERTEX = 5;
+
+    @Override
+    public Graph generateGraph() {
+        return new TinkerGraph(getDirectory(), TinkerGraph.Storage.DEFAULT, TinkerGraph.FileType.BINARY_MAPPED);
+    }
+
+    public void testSnapshotRoundTrip() {
+        for (final TinkerGraph.FileType fileType : new TinkerGraph.FileType[]{TinkerGraph.FileType.BINARY, TinkerGraph.FileType.BINARY_MAPPED}) {
+            deleteDirectory(new File(getDirectory()));
+            TinkerGraph graph = new TinkerGraph(getDirectory(), fileType);
+            graph.createKeyIndex("name", Vertex.class);
+            graph.createKeyIndex("label", Edge.class);
+            final Index<Vertex> index = graph.createIndex("people", Vertex.class);
+
+            final Map<String, Object> map = new HashMap<String, Object>();
+            map.put("nested", new ArrayList<Object>(Arrays.asList(1, "two", 3.0d)));
+            final Object[] values = new Object[]{"élève 日本", Integer.MIN_VALUE, Long.MAX_VALUE, -1.5f, Math.PI,
+                    true, (short) -7, (byte) 3, map, new ArrayList<Object>(Arrays.asList("a", null, 2l)), new int[]{1, 2}, new Date(0l)};
+            final Vertex a = graph.addVertex("a");
+            final Vertex b = graph.addVertex(-42);
+            a.setProperty("name", "marko");
+            b.setProperty("name", "peter");
+            for (int i = 0; i < values.length; i++) {
+                a.setProperty("value" + i, values[i]);
+            }
+            index.put("name", "marko", a);
+            index.put("age", 29, a);
+            final Edge edge = graph.addEdge("e", a, b, "knows");
+            edge.setProperty("weight", 0.5f);
+            graph.addEdge(null, b, b, "self");
+            graph.shutdown();
+
+            graph = new TinkerGraph(getDirectory(), fileType);
+            assertEquals(2, count(graph.getVertices()));
+            assertEquals(2, count(graph.getEdges()));
+            final Vertex a2 = graph.getVertex("a");
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof int[])
+                    assertTrue(Arrays.equals((int[]) values[i], (int[]) a2.getProperty("value" + i)));
+                else
+                    assertEquals(values[i], a2.getProperty("value" + i));
+            }
+            assertEquals(0.5f, graph.getEdge("e").getProperty("weight"));
+            assertEquals(graph.getVertex(-42), graph.getEdge("e").getVertex(Direction.IN));
+            assertEquals(1, count(graph.getVertex(-42).getEdges(Direction.OUT, "self")));
+            assertEquals(2, count(graph.getVertex(-42).getEdges(Direction.IN)));
+            assertEquals(graph.getVertex(-42), graph.getVertices("name", "peter").iterator().next());
+            assertEquals(1, count(graph.getEdges("label", "self")));
+            assertEquals(a2, graph.getIndex("people", Vertex.class).get("age", 29).iterator().next());
+            assertEquals(1, graph.getIndex("people", Vertex.class).count("name", "marko"));
+            assertEquals(fileType, graph.getFileType());
+
+            // ids continue after the ones generated before the shutdown
+            assertNull(graph.getVertex(graph.addVertex(null).getId().toString() + "0"));
+            graph.shutdown();
+        }
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testSerializedFileIsTheDefault() {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory());
+        assertEquals(TinkerGraph.FileType.JAVA, graph.getFileType());
+        graph.addVertex("a");
+        graph.shutdown();
+        assertTrue(new File(getDirectory() + "/tinkergraph.dat").exists());
+        assertFalse(new File(getDirectory() + "/tinkergraph.bin").exists());
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testSnapshotReplacesSerializedFile() {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.JAVA);
+        graph.addVertex("a").setProperty("name", "marko");
+        graph.shutdown();
+        assertTrue(new File(getDirectory() + "/tinkergraph.dat").exists());
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.BINARY);
+        assertEquals("marko", graph.getVertex("a").getProperty("name"));
+        graph.shutdown();
+        assertTrue(new File(getDirectory() + "/tinkergraph.bin").exists());
+        assertFalse(new File(getDirectory() + "/tinkergraph.dat").exists());
+
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.JAVA);
+        assertEquals("marko", graph.getVertex("a").getProperty("name"));
+        graph.shutdown();
+        assertFalse(new File(getDirectory() + "/tinkergraph.bin").exists());
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testSerializedFileOfEarlierVersionsIsLoaded() throws Exception {
+        for (final TinkerGraph.Storage storage : TinkerGraph.Storage.values()) {
+            deleteDirectory(new File(getDirectory()));
+            new File(getDirectory()).mkdirs();
+            // the graph of TinkerGraphFactory with a key index on name and the people in a manual index,
+            // serialized before the storage types were introduced
+            final InputStream in = SnapshotTinkerGraphTest.class.getResourceAsStream("legacy-tinkergraph.dat");
+            final OutputStream out = new FileOutputStream(getDirectory() + "/tinkergraph.dat");
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            in.close();
+            out.close();
+
+            TinkerGraph graph = new TinkerGraph(getDirectory(), storage);
+            assertEquals(storage, graph.getStorage());
+            assertEquals(6, count(graph.getVertices()));
+            assertEquals(6, count(graph.getEdges()));
+            assertEquals(3, count(graph.getVertex("1").getEdges(Direction.OUT)));
+            assertEquals("marko", graph.getVertex("1").getProperty("name"));
+            assertTrue(graph.getIndexedKeys(Vertex.class).contains("name"));
+            assertEquals(graph.getVertex("4"), graph.getVertices("name", "josh").iterator().next());
+            assertEquals(4, count(graph.getIndex("people", Vertex.class).get("type", "person")));
+            graph.addVertex(null);
+            graph.shutdown();
+
+            graph = new TinkerGraph(getDirectory(), storage);
+            assertEquals(7, count(graph.getVertices()));
+            assertEquals(6, count(graph.getEdges()));
+            graph.shutdown();
+        }
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testInterruptedSaveIsRecovered() throws Exception {
+        deleteDirectory(new File(getDirectory()));
+        TinkerGraph graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.BINARY);
+        graph.addVertex("a").setProperty("name", "marko");
+        graph.shutdown();
+
+        // a save that removed the snapshot but did not rename the temporary file
+        final File snapshot = new File(getDirectory() + "/tinkergraph.bin");
+        final File temp = new File(getDirectory() + "/tinkergraph.bin.tmp");
+        assertTrue(snapshot.renameTo(temp));
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.BINARY);
+        assertEquals("marko", graph.getVertex("a").getProperty("name"));
+        assertTrue(snapshot.exists());
+        assertFalse(temp.exists());
+        graph.addVertex("b");
+        graph.shutdown();
+
+        // a save that was interrupted while writing the temporary file
+        final FileOutputStream out = new FileOutputStream(temp);
+        out.write(new byte[]{0x54, 0x47, 0x53, 0x42, 0, 0, 0});
+        out.close();
+        graph = new TinkerGraph(getDirectory(), TinkerGraph.FileType.BINARY);
+        assertEquals(2, count(graph.getVertices()));
+        graph.shutdown();
+        assertFalse(temp.exists());
+        deleteDirectory(new File(getDirectory()));
+    }
+
+    public void testSnapshotPerformance() throws Exception {
+        for (final TinkerGraph.FileType fileType : TinkerGraph.FileType.values()) {
+            deleteDirectory(new File(getDirectory()));
+            final TinkerGraph graph = new TinkerGraph(getDirectory(), fileType);
+            final Random random = new Random(1);
+            for (int i = 0; i < TOTAL_VERTICES; i++) {
+                final Vertex vertex = graph.addVertex(null);
+                vertex.setProperty("name", "vertex" + i);
+                vertex.setProperty("age", random.nextInt(100));
+            }
+            for (int i = 0; i < TOTAL_VERTICES; i++) {
+                for (int j = 0; j < EDGES_PER_VERTEX; j++) {
+                    final Edge edge = graph.addEdge(null, graph.getVertex(i), graph.getVertex(random.nextInt(TOTAL_VERTICES)), j % 2 == 0 ? "knows" : "created");
+                    edge.setProperty("weight", random.nextDouble());
+                }
+            }
+            final int totalElements = TOTAL_VERTICES * (EDGES_PER_VERTEX + 1);
+
+            // Java serialization recurses along the edges of the graph, so it is given a deep stack
+            final Throwable[] failure = new Throwable[1];
+            final double[] times = new double[2];
+            final Thread thread = new Thread(null, new Runnable() {
+                public void run() {
+                    try {
+                        long start = System.nanoTime();
+                        graph.shutdown();
+                        times[0] = (System.nanoTime() - start) / 1000000.0d;
+                        start = System.nanoTime();
+                        final TinkerGraph loaded = new TinkerGraph(getDirectory(), fileType);
+                        times[1] = (System.nanoTime() - start) / 1000000.0d;
+                        assertEquals(TOTAL_VERTICES, count(loaded.getVertices()));
+                        assertEquals(TOTAL_VERTICES * EDGES_PER_VERTEX, count(loaded.getEdges()));
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            }, "snapshot", 1024l * 1024l * 1024l);
+            thread.start();
+            thread.join();
+
+            if (null != failure[0])
+                throw new RuntimeException(failure[0]);
+            final File file = new File(getDirectory() + (fileType == TinkerGraph.FileType.JAVA ? "/tinkergraph.dat" : "/tinkergraph.bin"));
+            printPerformance(fileType + " save", totalElements, "elements written to " + file.length() + " bytes", times[0]);
+            printPerformance(fileType + " load", totalElements, "elements read", times[1]);
+        }
+        deleteDirectory(new File(getDirectory()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class SortedKeyIndexTest extends BaseTest {
+
+    private static final int TOTAL_VERTICES = 100000;
+    private static final int TOTAL_QUERIES = 200;
+
+    private static final Parameter<String, String> SORTED = new Parameter<String, String>(TinkerGraph.KEY_INDEX_TYPE, TinkerGraph.SORTED_KEY_INDEX);
+
+    public void testRangeQueriesMatchScan() {
+        for (final TinkerGraph.Storage storage : TinkerGraph.Storage.values()) {
+            final TinkerGraph sorted = new TinkerGraph(storage);
+            final TinkerGraph scanned = new TinkerGraph(storage);
+            sorted.createKeyIndex("age", Vertex.class, SORTED);
+            this.populate(sorted);
+            this.populate(scanned);
+            sorted.createKeyIndex("name", Vertex.class, SORTED);
+            sorted.createKeyIndex("weight", Edge.class, SORTED);
+            assertTrue(sorted.isSortedKeyIndex("age", Vertex.class));
+            assertFalse(scanned.isSortedKeyIndex("age", Vertex.class));
+
+            for (final Query.Compare compare : Query.Compare.values()) {
+                assertEquals(sortedIds(scanned.getVertices("age", 20, compare)), sortedIds(sorted.getVertices("age", 20, compare)));
+                assertEquals(sortedIds(scanned.getVertices("age", 20l, compare)), sortedIds(sorted.getVertices("age", 20l, compare)));
+                assertEquals(sortedIds(scanned.getEdges("weight", 0.5d, compare)), sortedIds(sorted.getEdges("weight", 0.5d, compare)));
+            }
+            assertEquals(sortedIds(scanned.getVerticesInInterval("age", 10, 30)), sortedIds(sorted.getVerticesInInterval("age", 10, 30)));
+            assertEquals(values(scanned.getVerticesInInterval("age", 10, 30), "age"), values(sorted.getVerticesInInterval("age", 10, 30), "age"));
+            assertEquals(0, count(sorted.getVerticesInInterval("age", 30, 10)));
+            assertEquals(ids(scanned.getVerticesWithPrefix("name", "vertex1")), ids(sorted.getVerticesWithPrefix("name", "vertex1")));
+            assertEquals(111, count(sorted.getVerticesWithPrefix("name", "vertex1")));
+            assertEquals(values(scanned.getVerticesOrderedBy("age", true, 25), "age"), values(sorted.getVerticesOrderedBy("age", true, 25), "age"));
+            assertEquals(ids(scanned.getEdgesOrderedBy("weight", false, 25)), ids(sorted.getEdgesOrderedBy("weight", false, 25)));
+
+            // numbers of all classes are in one range, and other values are not
+            assertEquals(3, count(sorted.getVerticesInInterval("age", 100, 200)));
+            assertEquals(1, count(sorted.getVertices("age", 150l, Query.Compare.EQUAL)));
+            assertEquals(0, count(sorted.getVertices("age", 150, Query.Compare.EQUAL)));
+            // values are grouped by their class and the strings order after the numbers
+            assertEquals(ids(sorted.getVerticesOrderedBy("age", true, 2)), Arrays.asList("d", "c"));
+            assertEquals(1, count(sorted.getVertices("age", "unknown", Query.Compare.GREATER_THAN_EQUAL)));
+
+            // the index follows removed vertices and changed properties
+            for (final Vertex vertex : sorted.getVerticesInInterval("age", 10, 20)) {
+                sorted.removeVertex(vertex);
+            }
+            for (final Vertex vertex : sorted.getVerticesInInterval("age", 20, 25)) {
+                vertex.setProperty("age", 5);
+            }
+            assertEquals(0, count(sorted.getVerticesInInterval("age", 10, 25)));
+            for (final Vertex vertex : sorted.getVerticesInInterval("age", 0, 100)) {
+                final int age = (Integer) vertex.getProperty("age");
+                assertTrue(age < 10 || age >= 25);
+            }
+
+            sorted.dropKeyIndex("age", Vertex.class);
+            assertFalse(sorted.isSortedKeyIndex("age", Vertex.class));
+            assertEquals(0, count(sorted.getVerticesInInterval("age", 10, 25)));
+        }
+    }
+
+    public void testSortedKeyIndexPersistence() {
+        final String directory = this.computeTestDataRoot().getAbsolutePath() + "/sorted";
+        for (final TinkerGraph.FileType fileType : new TinkerGraph.FileType[]{TinkerGraph.FileType.BINARY, TinkerGraph.FileType.LOGGED}) {
+            deleteDirectory(new File(directory));
+            TinkerGraph graph = new TinkerGraph(directory, fileType);
+            graph.createKeyIndex("age", Vertex.class, SORTED);
+            graph.createKeyIndex("name", Vertex.class);
+            this.populate(graph);
+            final List<String> expected = sortedIds(graph.getVerticesInInterval("age", 10, 30));
+            if (fileType == TinkerGraph.FileType.LOGGED) {
+                // the log is replayed as if the graph had not been shut down
+                graph.log.sync();
+                graph.log.close();
+            } else {
+                graph.shutdown();
+            }
+
+            graph = new TinkerGraph(directory, fileType);
+            assertTrue(graph.isSortedKeyIndex("age", Vertex.class));
+            assertFalse(graph.isSortedKeyIndex("name", Vertex.class));
+            assertTrue(graph.getIndexedKeys(Vertex.class).contains("name"));
+            assertEquals(expected, sortedIds(graph.getVerticesInInterval("age", 10, 30)));
+            graph.shutdown();
+        }
+        deleteDirectory(new File(directory));
+    }
+
+    public void testRangePerformance() {
+        final TinkerGraph sorted = new TinkerGraph();
+        final TinkerGraph scanned = new TinkerGraph();
+        sorted.createKeyIndex("time", Vertex.class, SORTED);
+        final Random random = new Random(1);
+        for (int i = 0; i < TOTAL_VERTICES; i++) {
+            final long time = random.nextInt(TOTAL_VERTICES);
+            sorted.addVertex(i).setProperty("time", time);
+            scanned.addVertex(i).setProperty("time", time);
+        }
+
+        for (final double selectivity : new double[]{0.0001d, 0.01d, 0.1d}) {
+            final long width = (long) (TOTAL_VERTICES * selectivity);
+            for (final TinkerGraph graph : new TinkerGraph[]{sorted, scanned}) {
+                final Random starts = new Random(2);
+                final int queries = graph == sorted ? TOTAL_QUERIES : TOTAL_QUERIES / 10;
+                int results = 0;
+                this.stopWatch();
+                for (int i = 0; i < queries; i++) {
+                    final long start = starts.nextInt(TOTAL_VERTICES);
+                    results = results + count(graph.getVerticesInInterval("time", start, start + width));
+                }
+                printPerformance((graph == sorted ? "sorted" : "scanned") + " range of " + (selectivity * 100) + "%", queries,
+                        "queries (" + results + " vertices) over " + TOTAL_VERTICES + " vertices", this.stopWatch());
+            }
+        }
+
+        this.stopWatch();
+        assertEquals(10, count(sorted.getVerticesOrderedBy("time", true, 10)));
+        printPerformance("sorted top 10", 1, "query", this.stopWatch());
+        this.stopWatch();
+        assertEquals(10, count(scanned.getVerticesOrderedBy("time", true, 10)));
+        printPerformance("scanned top 10", 1, "query", this.stopWatch());
+    }
+
+    private void populate(final TinkerGraph graph) {
+        final Random random = new Random(1);
+        Vertex previous = null;
+        for (int i = 0; i < 1000; i++) {
+            final Vertex vertex = graph.addVertex(i);
+            vertex.setProperty("age", random.nextInt(50));
+            vertex.setProperty("name", "vertex" + i);
+            if (null != previous)
+                graph.addEdge(i, previous, vertex, "next").setProperty("weight", random.nextDouble());
+            previous = vertex;
+        }
+        graph.addVertex("a").setProperty("age", 150l);
+        graph.addVertex("b").setProperty("age", 120.5d);
+        final Vertex old = graph.addVertex("c");
+        old.setProperty("age", (short) 199);
+        old.setProperty("kind", "old");
+        graph.addVertex("d").setProperty("age", "unknown");
+        graph.addVertex("e").setProperty("age", new int[]{1, 2});
+    }
+
+    private static List<String> sortedIds(final Iterable<? extends Element> elements) {
+        final List<String> ids = ids(elements);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static List<Object> values(final Iterable<? extends Element> elements, final String key) {
+        final List<Object> values = new ArrayList<Object>();
+        for (final Element element : elements) {
+            values.add(element.getProperty(key));
+        }
+        return values;
+    }
+
+    private static List<String> ids(final Iterable<? extends Element> elements) {
+        final List<String> ids = new ArrayList<String>();
+        for (final Element element : elements) {
+            ids.add(element.getId().toString());
+        }
+        return ids;
+    }
+}
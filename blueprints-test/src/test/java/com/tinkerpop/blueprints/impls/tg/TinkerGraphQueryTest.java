@@ -0,0 +1,101 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TinkerGraphQueryTest extends BaseTest {
+
+    private static final int TOTAL_VERTICES = 100000;
+    private static final int TOTAL_QUERIES = 200;
+
+    private static final Parameter<String, String> SORTED = new Parameter<String, String>(TinkerGraph.KEY_INDEX_TYPE, TinkerGraph.SORTED_KEY_INDEX);
+
+    public void testPlannedQueriesMatchScan() {
+        final TinkerGraph indexed = new TinkerGraph();
+        final TinkerGraph scanned = new TinkerGraph();
+        indexed.createKeyIndex("group", Vertex.class);
+        indexed.createKeyIndex("age", Vertex.class, SORTED);
+        indexed.createKeyIndex("weight", Edge.class, SORTED);
+        this.populate(indexed, 10000);
+        this.populate(scanned, 10000);
+
+        for (final Query.Compare compare : Query.Compare.values()) {
+            assertEquals(ids(scanned.query().has("age", 20, compare).vertices()), ids(indexed.query().has("age", 20, compare).vertices()));
+            assertEquals(ids(scanned.query().has("group", "g3").has("age", 20, compare).vertices()),
+                    ids(indexed.query().has("group", "g3").has("age", 20, compare).vertices()));
+            assertEquals(ids(scanned.query().has("weight", 0.5d, compare).edges()), ids(indexed.query().has("weight", 0.5d, compare).edges()));
+        }
+        assertEquals(ids(scanned.query().interval("age", 10, 12).has("group", "g1").vertices()),
+                ids(indexed.query().interval("age", 10, 12).has("group", "g1").vertices()));
+        assertEquals(ids(scanned.query().has("age", 30, Query.Compare.GREATER_THAN).has("age", 35, Query.Compare.LESS_THAN_EQUAL).vertices()),
+                ids(indexed.query().has("age", 30, Query.Compare.GREATER_THAN).has("age", 35, Query.Compare.LESS_THAN_EQUAL).vertices()));
+        assertEquals(0, count(indexed.query().interval("age", 30, 10).vertices()));
+        assertEquals(0, count(indexed.query().has("group", "none").has("age", 10, Query.Compare.GREATER_THAN).vertices()));
+        assertEquals(5, count(indexed.query().has("group", "g3").limit(5).vertices()));
+
+        // numbers of another class than the queried value compare by their numeric value, as in getVertices()
+        indexed.getVertex("v0").setProperty("age", 20l);
+        scanned.getVertex("v0").setProperty("age", 20l);
+        for (final Query.Compare compare : Query.Compare.values()) {
+            final List<String> expected = ids(indexed.getVertices("age", 20, compare));
+            assertEquals(expected, ids(indexed.query().has("age", 20, compare).vertices()));
+            assertEquals(expected, ids(scanned.query().has("age", 20, compare).vertices()));
+            assertEquals(expected, ids(scanned.getVertices("age", 20, compare)));
+        }
+        assertTrue(ids(indexed.query().has("age", 20, Query.Compare.GREATER_THAN_EQUAL).vertices()).contains("v0"));
+        assertFalse(ids(indexed.query().has("age", 20, Query.Compare.GREATER_THAN).vertices()).contains("v0"));
+        assertEquals(0, count(indexed.query().has("age", 20, Query.Compare.EQUAL).has("age", 20l, Query.Compare.EQUAL).vertices()));
+    }
+
+    public void testQueryPerformance() {
+        final TinkerGraph indexed = new TinkerGraph();
+        final TinkerGraph scanned = new TinkerGraph();
+        indexed.createKeyIndex("group", Vertex.class);
+        indexed.createKeyIndex("age", Vertex.class, SORTED);
+        this.populate(indexed, TOTAL_VERTICES);
+        this.populate(scanned, TOTAL_VERTICES);
+
+        for (final TinkerGraph graph : new TinkerGraph[]{indexed, scanned}) {
+            final Random random = new Random(42);
+            long total = 0;
+            this.stopWatch();
+            for (int i = 0; i < TOTAL_QUERIES; i++) {
+                final int age = random.nextInt(100);
+                total = total + count(graph.query().has("group", "g" + random.nextInt(10)).interval("age", age, age + 1).vertices());
+            }
+            printPerformance((graph == indexed ? "planned" : "scanned") + " query of " + total + " vertices", TOTAL_QUERIES, "queries", this.stopWatch());
+        }
+    }
+
+    private void populate(final TinkerGraph graph, final int totalVertices) {
+        final Random random = new Random(7);
+        Vertex previous = null;
+        for (int i = 0; i < totalVertices; i++) {
+            final Vertex vertex = graph.addVertex("v" + i);
+            vertex.setProperty("group", "g" + random.nextInt(10));
+            vertex.setProperty("age", random.nextInt(100));
+            if (null != previous) {
+                graph.addEdge("e" + i, previous, vertex, "next").setProperty("weight", random.nextDouble());
+            }
+            previous = vertex;
+        }
+    }
+
+    private static List<String> ids(final Iterable<? extends Element> elements) {
+        final List<String> ids = new ArrayList<String>();
+        for (final Element element : elements) {
+            ids.add((String) element.getId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,98 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TinkerVertexDegreeTest extends BaseTest {
+
+    private static final int TOTAL_QUERIES = 1000;
+
+    public void testDegreeMatchesEdges() {
+        for (final TinkerGraph.Storage storage : TinkerGraph.Storage.values()) {
+            final TinkerGraph graph = new TinkerGraph(storage);
+            final Vertex hub = this.populate(graph, 1000);
+            for (final Direction direction : Direction.values()) {
+                for (final String[] labels : new String[][]{new String[0], new String[]{"knows"}, new String[]{"knows", "created"}, new String[]{"unknown"}}) {
+                    assertEquals(count(hub.getEdges(direction, labels)), hub.query().direction(direction).labels(labels).count());
+                    assertEquals(count(hub.getEdges(direction, labels)), ((TinkerVertex) hub).getDegree(direction, labels));
+                    assertEquals(Math.min(10, count(hub.getEdges(direction, labels))), hub.query().direction(direction).labels(labels).limit(10).count());
+
+                    final List<Object> expected = new ArrayList<Object>();
+                    for (final Vertex vertex : hub.query().direction(direction).labels(labels).vertices()) {
+                        expected.add(vertex.getId());
+                    }
+                    assertEquals(sorted(expected), sorted((List<Object>) hub.query().direction(direction).labels(labels).vertexIds()));
+                    assertEquals(Math.min(10, expected.size()), ((List) hub.query().direction(direction).labels(labels).limit(10).vertexIds()).size());
+                }
+            }
+            // constraints are still checked on every edge
+            assertEquals(count(new DefaultQuery(hub).has("weight", 5).edges()), hub.query().has("weight", 5).count());
+        }
+    }
+
+    public void testDegreePerformance() {
+        for (int degree = 1000; degree <= 100000; degree = degree * 10) {
+            final TinkerGraph graph = new TinkerGraph();
+            final Vertex hub = this.populate(graph, degree);
+
+            long total = 0;
+            this.stopWatch();
+            for (int i = 0; i < TOTAL_QUERIES; i++) {
+                total = total + hub.query().direction(Direction.OUT).labels("knows").count();
+            }
+            printPerformance("degree " + degree + " count from adjacency", TOTAL_QUERIES, "queries (" + total + " edges)", this.stopWatch());
+
+            total = 0;
+            this.stopWatch();
+            for (int i = 0; i < TOTAL_QUERIES; i++) {
+                total = total + count(hub.query().direction(Direction.OUT).labels("knows").edges());
+            }
+            printPerformance("degree " + degree + " count by iteration", TOTAL_QUERIES, "queries (" + total + " edges)", this.stopWatch());
+
+            total = 0;
+            this.stopWatch();
+            for (int i = 0; i < TOTAL_QUERIES / 10; i++) {
+                total = total + ((List) hub.query().direction(Direction.BOTH).vertexIds()).size();
+            }
+            printPerformance("degree " + degree + " vertex ids from adjacency", TOTAL_QUERIES / 10, "queries (" + total + " ids)", this.stopWatch());
+
+            total = 0;
+            this.stopWatch();
+            for (int i = 0; i < TOTAL_QUERIES / 10; i++) {
+                for (final Vertex vertex : hub.query().direction(Direction.BOTH).vertices()) {
+                    vertex.getId();
+                    total++;
+                }
+            }
+            printPerformance("degree " + degree + " vertex ids by iteration", TOTAL_QUERIES / 10, "queries (" + total + " ids)", this.stopWatch());
+        }
+    }
+
+    private Vertex populate(final TinkerGraph graph, final int degree) {
+        final Vertex hub = graph.addVertex(null);
+        for (int i = 0; i < degree; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            if (i % 3 == 0)
+                graph.addEdge(null, vertex, hub, "created").setProperty("weight", i % 10);
+            else
+                graph.addEdge(null, hub, vertex, i % 3 == 1 ? "knows" : "created").setProperty("weight", i % 10);
+        }
+        graph.addEdge(null, hub, hub, "knows");
+        return hub;
+    }
+
+    private static List<String> sorted(final List<Object> ids) {
+        final List<String> list = new ArrayList<String>();
+        for (final Object id : ids) {
+            list.add(id.toString());
+        }
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Query;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultQuery;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class VertexCentricIndexTest extends BaseTest {
+
+    private static final int TOTAL_QUERIES = 100;
+
+    public void testIndexedQueriesMatchScan() {
+        for (final TinkerGraph.Storage storage : TinkerGraph.Storage.values()) {
+            final TinkerGraph graph = new TinkerGraph(storage);
+            graph.createVertexCentricIndex("time");
+            final Vertex hub = this.populate(graph, 2000);
+            graph.createVertexCentricIndex("weight");
+            assertEquals(2, graph.getVertexCentricIndexedKeys().size());
+
+            this.assertQueriesMatchScan(hub);
+            assertEquals(10, count(hub.query().direction(Direction.OUT).has("time", 500, Query.Compare.GREATER_THAN).limit(10).edges()));
+            assertEquals(0, count(hub.query().has("time", 5000, Query.Compare.GREATER_THAN).edges()));
+            assertEquals(0, count(hub.query().labels("unknown").has("time", 5, Query.Compare.GREATER_THAN).edges()));
+            // the edges of a range are in the order of their values
+            int last = -1;
+            for (final Edge edge : hub.query().direction(Direction.OUT).labels("rated").has("time", 100, Query.Compare.GREATER_THAN_EQUAL).limit(50).edges()) {
+                final int time = (Integer) edge.getProperty("time");
+                assertTrue(time >= last);
+                last = time;
+            }
+
+            // the indices follow changed properties and removed edges and vertices
+            int removed = 0;
+            for (final Edge edge : hub.query().direction(Direction.OUT).interval("time", 100, 200).edges()) {
+                if (removed++ % 2 == 0)
+                    graph.removeEdge(edge);
+                else
+                    edge.setProperty("time", 5000);
+            }
+            for (final Edge edge : hub.query().direction(Direction.IN).interval("time", 200, 300).edges()) {
+                graph.removeVertex(edge.getVertex(Direction.OUT));
+            }
+            for (final Edge edge : hub.query().has("weight", 0.5d, Query.Compare.LESS_THAN).edges()) {
+                edge.removeProperty("weight");
+            }
+            assertEquals(0, count(hub.query().direction(Direction.OUT).interval("time", 100, 200).edges()));
+            assertEquals(0, count(hub.query().direction(Direction.IN).interval("time", 200, 300).edges()));
+            assertTrue(count(hub.query().has("time", 5000).edges()) > 0);
+            this.assertQueriesMatchScan(hub);
+
+            graph.dropVertexCentricIndex("time");
+            assertFalse(graph.getVertexCentricIndexedKeys().contains("time"));
+            this.assertQueriesMatchScan(hub);
+        }
+    }
+
+    public void testVertexCentricIndexPersistence() {
+        final String directory = this.computeTestDataRoot().getAbsolutePath() + "/vertex-centric";
+        for (final TinkerGraph.FileType fileType : new TinkerGraph.FileType[]{TinkerGraph.FileType.BINARY, TinkerGraph.FileType.LOGGED}) {
+            deleteDirectory(new File(directory));
+            TinkerGraph graph = new TinkerGraph(directory, fileType);
+            graph.createVertexCentricIndex("time");
+            this.populate(graph, 500);
+            final List<String> expected = ids(graph.getVertex("hub").query().interval("time", 100, 200).edges());
+            if (fileType == TinkerGraph.FileType.LOGGED) {
+                // the log is replayed as if the graph had not been shut down
+                graph.log.sync();
+                graph.log.close();
+            } else {
+                graph.shutdown();
+            }
+
+            graph = new TinkerGraph(directory, fileType);
+            assertTrue(graph.getVertexCentricIndexedKeys().contains("time"));
+            final Vertex hub = graph.getVertex("hub");
+            assertNotNull(((TinkerVertex) hub).getEdgeIndices(Direction.OUT));
+            assertEquals(expected, ids(hub.query().interval("time", 100, 200).edges()));
+            this.assertQueriesMatchScan(hub);
+            graph.shutdown();
+        }
+        deleteDirectory(new File(directory));
+    }
+
+    public void testSupernodePerformance() {
+        // larger degrees, up to the millions of edges of real supernodes, are benchmarked by raising the maximum degree
+        final int maxDegree = Integer.valueOf(System.getProperty("vertexCentricMaxDegree", "100000"));
+        for (int degree = 1000; degree <= maxDegree; degree = degree * 10) {
+            final TinkerGraph indexed = new TinkerGraph();
+            final TinkerGraph scanned = new TinkerGraph();
+            indexed.createVertexCentricIndex("time");
+            final Vertex indexedHub = this.populate(indexed, degree);
+            final Vertex scannedHub = this.populate(scanned, degree);
+
+            for (final Vertex hub : new Vertex[]{indexedHub, scannedHub}) {
+                final String name = (hub == indexedHub ? "indexed" : "scanned") + " degree " + degree;
+                final Random random = new Random(3);
+                int results = 0;
+                this.stopWatch();
+                for (int i = 0; i < TOTAL_QUERIES; i++) {
+                    results = results + count(hub.query().direction(Direction.OUT).has("time", random.nextInt(degree), Query.Compare.GREATER_THAN).limit(10).edges());
+                }
+                printPerformance(name + " range with limit 10", TOTAL_QUERIES, "queries (" + results + " edges)", this.stopWatch());
+
+                results = 0;
+                this.stopWatch();
+                for (int i = 0; i < TOTAL_QUERIES; i++) {
+                    results = results + count(hub.query().direction(Direction.OUT).has("time", random.nextInt(degree)).edges());
+                }
+                printPerformance(name + " equality", TOTAL_QUERIES, "queries (" + results + " edges)", this.stopWatch());
+
+                results = 0;
+                this.stopWatch();
+                for (int i = 0; i < TOTAL_QUERIES; i++) {
+                    final int start = random.nextInt(degree);
+                    results = results + count(hub.query().direction(Direction.OUT).labels("rated").interval("time", start, start + 10).edges());
+                }
+                printPerformance(name + " interval of 10", TOTAL_QUERIES, "queries (" + results + " edges)", this.stopWatch());
+            }
+        }
+    }
+
+    private void assertQueriesMatchScan(final Vertex hub) {
+        for (final Direction direction : Direction.values()) {
+            for (final String[] labels : new String[][]{new String[0], new String[]{"rated"}, new String[]{"rated", "viewed"}}) {
+                for (final Query.Compare compare : Query.Compare.values()) {
+                    assertEquals(ids(new DefaultQuery(hub).direction(direction).labels(labels).has("time", 700, compare).edges()),
+                            ids(hub.query().direction(direction).labels(labels).has("time", 700, compare).edges()));
+                    assertEquals(ids(new DefaultQuery(hub).direction(direction).labels(labels).has("time", 700, compare).has("weight", 0.25d, Query.Compare.GREATER_THAN).edges()),
+                            ids(hub.query().direction(direction).labels(labels).has("time", 700, compare).has("weight", 0.25d, Query.Compare.GREATER_THAN).edges()));
+                }
+                assertEquals(ids(new DefaultQuery(hub).direction(direction).labels(labels).interval("time", 100, 400).has("time", 300, Query.Compare.LESS_THAN_EQUAL).vertices()),
+                        ids(hub.query().direction(direction).labels(labels).interval("time", 100, 400).has("time", 300, Query.Compare.LESS_THAN_EQUAL).vertices()));
+                assertEquals(ids(new DefaultQuery(hub).direction(direction).labels(labels).has("time", 7).interval("weight", 0.1d, 0.9d).edges()),
+                        ids(hub.query().direction(direction).labels(labels).has("time", 7).interval("weight", 0.1d, 0.9d).edges()));
+                assertEquals(new DefaultQuery(hub).direction(direction).labels(labels).has("time", 10l, Query.Compare.GREATER_THAN).count(),
+                        hub.query().direction(direction).labels(labels).has("time", 10l, Query.Compare.GREATER_THAN).count());
+            }
+        }
+    }
+
+    /**
+     * Adds a hub with out and in edges of two labels to the graph, with times drawn from as many values as there are edges.
+     */
+    private Vertex populate(final TinkerGraph graph, final int degree) {
+        final Random random = new Random(5);
+        final Vertex hub = graph.addVertex("hub");
+        for (int i = 0; i < degree; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            final Edge edge = random.nextBoolean() ? graph.addEdge(null, hub, vertex, "rated") : graph.addEdge(null, vertex, hub, "viewed");
+            if (i % 100 != 0)
+                edge.setProperty("time", random.nextInt(degree));
+            if (i % 3 != 0)
+                edge.setProperty("weight", random.nextDouble());
+        }
+        graph.addEdge(null, hub, hub, "rated").setProperty("time", 7);
+        return hub;
+    }
+
+    private static List<String> ids(final Iterable<? extends Element> elements) {
+        final List<String> ids = new ArrayList<String>();
+        for (final Element element : elements) {
+            ids.add(element.getId().toString());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -3,6 +3,7 @@ package com.tinkerpop.blueprints.util;
 import com.tinkerpop.blueprints.BaseTest;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
@@ -103,4 +104,91 @@ public class GraphHelperTest extends BaseTest {
         assertEquals(counter, 5);
     }
 
+    public void testCopyGraphParallel() {
+        Graph g = TinkerGraphFactory.createTinkerGraph();
+        Graph h = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+
+        GraphHelper.copyGraph(g, h, 2, 4);
+        assertEquals(count(h.getVertices()), 6);
+        assertEquals(count(h.getEdges()), 6);
+        for (Vertex v : g.getVertices()) {
+            Vertex copy = h.getVertex(v.getId());
+            assertEquals(v.getProperty("name"), copy.getProperty("name"));
+            assertEquals(count(v.getEdges(Direction.OUT)), count(copy.getEdges(Direction.OUT)));
+            assertEquals(count(v.getEdges(Direction.IN)), count(copy.getEdges(Direction.IN)));
+        }
+        for (Edge e : g.getEdges()) {
+            Edge copy = h.getEdge(e.getId());
+            assertEquals(e.getLabel(), copy.getLabel());
+            assertEquals(e.getProperty("weight"), copy.getProperty("weight"));
+            assertEquals(e.getVertex(Direction.OUT).getId(), copy.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), copy.getVertex(Direction.IN).getId());
+        }
+    }
+
+    public void testCopyGraphIgnoringSuppliedIds() {
+        Graph g = TinkerGraphFactory.createTinkerGraph();
+        Graph h = new TinkerGraph() {
+            public Features getFeatures() {
+                Features features = super.getFeatures().copyFeatures();
+                features.ignoresSuppliedIds = true;
+                return features;
+            }
+
+            public Vertex addVertex(final Object id) {
+                return super.addVertex(null);
+            }
+
+            public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+                return super.addEdge(null, outVertex, inVertex, label);
+            }
+        };
+        // shifts the ids the target graph generates away from the ones of the source graph
+        h.addVertex(null);
+        h.removeVertex(h.getVertices().iterator().next());
+
+        GraphHelper.copyGraph(g, h, 1, 1);
+        assertEquals(count(h.getVertices()), 6);
+        assertEquals(count(h.getEdges()), 6);
+        for (Vertex v : h.getVertices()) {
+            if ("marko".equals(v.getProperty("name"))) {
+                assertEquals(count(v.getEdges(Direction.OUT)), 3);
+                for (Edge e : v.getEdges(Direction.OUT, "created")) {
+                    assertEquals(e.getVertex(Direction.IN).getProperty("name"), "lop");
+                }
+            } else if ("josh".equals(v.getProperty("name"))) {
+                assertEquals(count(v.getEdges(Direction.OUT)), 2);
+                assertEquals(count(v.getEdges(Direction.IN)), 1);
+                assertEquals(v.getEdges(Direction.IN).iterator().next().getVertex(Direction.OUT).getProperty("name"), "marko");
+            }
+        }
+    }
+
+    /**
+     * Compares the time of copying a graph with copyGraph and with ParallelGraphCopier with an increasing number
+     * of threads. The number of vertices is set with the copyGraphBenchmarkSize system property.
+     */
+    public void testCopyGraphThroughput() {
+        final int total = Integer.getInteger("copyGraphBenchmarkSize", 20000);
+        Graph g = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            g.addVertex(null).setProperty("name", "vertex" + i);
+        }
+        for (int i = 0; i < total * 2; i++) {
+            g.addEdge(null, g.getVertex(String.valueOf(i % total)), g.getVertex(String.valueOf((i * 7) % total)), "knows").setProperty("weight", i);
+        }
+
+        for (int run = 0; run < 2; run++) {
+            this.stopWatch();
+            GraphHelper.copyGraph(g, new TinkerGraph());
+            printPerformance("copyGraph", total * 3, "elements copied", this.stopWatch());
+            for (int threads = 1; threads <= 4; threads *= 2) {
+                Graph h = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+                this.stopWatch();
+                GraphHelper.copyGraph(g, h, 1000, threads);
+                printPerformance("ParallelGraphCopier (" + threads + " threads)", total * 3, "elements copied", this.stopWatch());
+                assertEquals(count(h.getEdges()), total * 2);
+            }
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package com.tinkerpop.blueprints.util.io;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMigrator;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class GraphElementMigratorTest extends TestCase {
+
+    public void testMigrateGraph() throws Exception {
+        TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        TinkerGraph copy = new TinkerGraph();
+        GraphElementMigrator.Progress progress = GraphElementMigrator.migrateGraph(graph, copy);
+        assertEquals(6, progress.getVertices());
+        assertEquals(6, progress.getEdges());
+        assertTrue(progress.isDone());
+        assertSameGraph(graph, copy);
+    }
+
+    public void testMigrateGraphWithWorkersAndProgress() throws Exception {
+        TinkerGraph graph = createGraph(3000);
+        TinkerGraph copy = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        final List<GraphElementMigrator.Progress> reports = new ArrayList<GraphElementMigrator.Progress>();
+
+        GraphElementMigrator migrator = new GraphElementMigrator(graph, copy);
+        migrator.setWorkers(3);
+        migrator.setBufferSize(100);
+        migrator.setQueueSize(2);
+        migrator.setProgressListener(new GraphElementMigrator.ProgressListener() {
+            public void progress(GraphElementMigrator.Progress progress) {
+                reports.add(progress);
+            }
+        }, 2000);
+        migrator.migrateGraph();
+
+        assertSameGraph(graph, copy);
+        assertEquals(5, reports.size());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(reports.get(i).isDone());
+            assertEquals((i + 1) * 2000, reports.get(i).getVertices() + reports.get(i).getEdges());
+        }
+        assertTrue(reports.get(4).isDone());
+        assertEquals(3000, reports.get(4).getVertices());
+        assertEquals(6000, reports.get(4).getEdges());
+        assertEquals(0, countWorkers());
+    }
+
+    public void testMigrateGraphTargetFailure() throws Exception {
+        TinkerGraph graph = createGraph(3000);
+        TinkerGraph copy = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        copy.addVertex("1500");
+
+        GraphElementMigrator migrator = new GraphElementMigrator(graph, copy);
+        migrator.setWorkers(3);
+        migrator.setBufferSize(100);
+        try {
+            migrator.migrateGraph();
+            fail();
+        } catch (RuntimeException e) {
+            // the vertex already exists in the target graph
+        }
+        // the workers are stopped while the target graph stays open
+        assertEquals(0, countWorkers());
+        copy.addVertex("3000");
+        assertNotNull(copy.getVertex("3000"));
+    }
+
+    public void testMigrateGraphSourceFailure() throws Exception {
+        TinkerGraph graph = new TinkerGraph() {
+            public Iterable<Edge> getEdges() {
+                final Iterator<Edge> edges = super.getEdges().iterator();
+                return new Iterable<Edge>() {
+                    public Iterator<Edge> iterator() {
+                        return new Iterator<Edge>() {
+                            int count = 0;
+
+                            public boolean hasNext() {
+                                return edges.hasNext();
+                            }
+
+                            public Edge next() {
+                                if (++count == 2500) throw new IllegalStateException("source failure");
+                                return edges.next();
+                            }
+
+                            public void remove() {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+                };
+            }
+        };
+        populate(graph, 3000);
+        try {
+            GraphElementMigrator.migrateGraph(graph, new TinkerGraph());
+            fail();
+        } catch (IOException e) {
+            assertEquals("source failure", e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the time of GraphElementMigrator with GraphMigrator, which pipes GraphML between the graphs.
+     * The number of vertices is set with the graphElementMigratorBenchmarkSize system property.
+     */
+    public void testMigrateGraphThroughput() throws Exception {
+        final int total = Integer.getInteger("graphElementMigratorBenchmarkSize", 20000);
+        TinkerGraph graph = createGraph(total);
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            GraphMigrator.migrateGraph(graph, new TinkerGraph());
+            BaseTest.printPerformance("GraphMigrator", total * 3, "elements migrated", (System.nanoTime() - start) / 1000000.0d);
+
+            TinkerGraph copy = new TinkerGraph();
+            GraphElementMigrator.Progress progress = GraphElementMigrator.migrateGraph(graph, copy);
+            BaseTest.printPerformance("GraphElementMigrator", (int) (progress.getVertices() + progress.getEdges()), "elements migrated", progress.getElapsedNanos() / 1000000.0d);
+            assertEquals(total * 3, progress.getVertices() + progress.getEdges());
+        }
+    }
+
+    private static TinkerGraph createGraph(final int total) {
+        TinkerGraph graph = new TinkerGraph();
+        populate(graph, total);
+        return graph;
+    }
+
+    private static void populate(final Graph graph, final int total) {
+        for (int i = 0; i < total; i++) {
+            Vertex v = graph.addVertex(null);
+            v.setProperty("name", "vertex" + i);
+            v.setProperty("age", i);
+        }
+        for (int i = 0; i < total * 2; i++) {
+            Edge e = graph.addEdge(null, graph.getVertex(String.valueOf(i % total)), graph.getVertex(String.valueOf((i * 7) % total)), "knows");
+            e.setProperty("weight", i / 7.0d);
+        }
+    }
+
+    private static void assertSameGraph(final Graph expected, final Graph actual) {
+        assertEquals(count(expected.getVertices()), count(actual.getVertices()));
+        assertEquals(count(expected.getEdges()), count(actual.getEdges()));
+        for (Vertex v : expected.getVertices()) {
+            Vertex found = actual.getVertex(v.getId());
+            assertNotNull(found);
+            assertEquals(v.getPropertyKeys(), found.getPropertyKeys());
+            for (String key : v.getPropertyKeys()) {
+                assertEquals(v.getProperty(key), found.getProperty(key));
+            }
+        }
+        for (Edge e : expected.getEdges()) {
+            Edge found = actual.getEdge(e.getId());
+            assertNotNull(found);
+            assertEquals(e.getLabel(), found.getLabel());
+            assertEquals(e.getVertex(Direction.OUT).getId(), found.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), found.getVertex(Direction.IN).getId());
+            for (String key : e.getPropertyKeys()) {
+                assertEquals(e.getProperty(key), found.getProperty(key));
+            }
+        }
+    }
+
+    private static int countWorkers() {
+        int counter = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("BatchGraph-worker-") && thread.isAlive())
+                counter++;
+        }
+        return counter;
+    }
+
+    private static int count(final Iterable iterable) {
+        int counter = 0;
+        for (Object ignored : iterable) {
+            counter++;
+        }
+        return counter;
+    }
+}
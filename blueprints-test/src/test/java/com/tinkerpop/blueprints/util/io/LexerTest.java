@@ -0,0 +1,218 @@
+package com.tinkerpop.blueprints.util.io;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.io.gml.GMLReader;
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+public class LexerTest extends TestCase {
+
+    private static final String GML = "# a comment\n" +
+            "graph [\n" +
+            "\tcomment \"a \\\"quoted\\\" string\\t\\101\"\n" +
+            "\tdirected 1\n" +
+            "\tnode [ id 1 label \"marko\" weight 0.5 x -12.25 y -.5 ]\n" +
+            "\tnode [ id 2 label \"vadas\" url http://tinkerpop.com/a_b?c=d ]\r\n" +
+            "\tedge [ source 1 target 2 label \"knows\" - 3.14159 ]\r" +
+            "\tedge [ source 2 target 1 label 'created' 1abc 12345678901234 ]\n" +
+            "]";
+
+    public void testSameTokensAsStreamTokenizerInGMLSyntax() throws Exception {
+        for (int bufferSize : new int[]{1, 3, 7, Lexer.DEFAULT_BUFFER_SIZE}) {
+            final StreamTokenizer expected = new StreamTokenizer(new StringReader(GML));
+            final Lexer actual = new Lexer(new StringReader(GML), bufferSize);
+            actual.defaultSyntax();
+            configureGML(expected, actual);
+            assertSameTokens(expected, actual);
+        }
+    }
+
+    public void testSameTokensAsStreamTokenizerInDOTSyntax() throws Exception {
+        final String dot = "/* a\n comment */ digraph G {\n" +
+                "  // another comment\n" +
+                "  a -> b [label=\"x y\", weight=2.5];\n" +
+                "  \"c d\" -- {e f}\n" +
+                "  g [pos=\"1,2\"]; a/b\n" +
+                "}\n";
+        final StreamTokenizer expected = new StreamTokenizer(new StringReader(dot));
+        final Lexer actual = new Lexer(new StringReader(dot), 5);
+        configureDOT(expected, actual);
+        assertSameTokens(expected, actual);
+    }
+
+    public void testEolAndReadLine() throws Exception {
+        final Lexer lexer = new Lexer(new StringReader("*Arcs\r\n1 2 0.5\n\n*Edges list\r3 4"), 4);
+        lexer.whitespaceChars(0, ' ');
+        lexer.wordChars(' ' + 1, '\u00ff');
+        lexer.parseNumbers();
+        lexer.eolIsSignificant(true);
+
+        assertEquals("*Arcs", lexer.readLine());
+        assertEquals(Lexer.TT_NUMBER, lexer.nextToken());
+        assertEquals(1.0d, lexer.nval);
+        assertEquals(Lexer.TT_NUMBER, lexer.nextToken());
+        assertEquals(Lexer.TT_NUMBER, lexer.nextToken());
+        assertEquals(0.5d, lexer.nval);
+        assertEquals(Lexer.TT_EOL, lexer.nextToken());
+        assertEquals(Lexer.TT_EOL, lexer.nextToken());
+        assertEquals(Lexer.TT_WORD, lexer.nextToken());
+        assertEquals("*Edges", lexer.sval);
+        assertEquals(" list", lexer.readLine());
+        assertEquals(5, lexer.lineno());
+        assertEquals("3 4", lexer.readLine());
+        assertNull(lexer.readLine());
+        assertEquals(Lexer.TT_EOF, lexer.nextToken());
+    }
+
+    public void testPushBack() throws Exception {
+        final Lexer lexer = new Lexer(new StringReader("a b"));
+        lexer.defaultSyntax();
+        assertEquals(Lexer.TT_WORD, lexer.nextToken());
+        lexer.pushBack();
+        assertEquals(Lexer.TT_WORD, lexer.nextToken());
+        assertEquals("a", lexer.sval);
+        assertEquals(Lexer.TT_WORD, lexer.nextToken());
+        assertEquals("b", lexer.sval);
+        assertEquals(Lexer.TT_EOF, lexer.nextToken());
+    }
+
+    public void testRepeatedStringsAreInterned() throws Exception {
+        final Lexer lexer = new Lexer(new StringReader("label \"knows\" label \"knows\""), 3);
+        lexer.defaultSyntax();
+        lexer.nextToken();
+        final String key = lexer.sval;
+        lexer.nextToken();
+        final String label = lexer.sval;
+        lexer.nextToken();
+        assertSame(key, lexer.sval);
+        lexer.nextToken();
+        assertSame(label, lexer.sval);
+        assertSame(label, lexer.intern("knows".toCharArray(), 0, 5));
+    }
+
+    /**
+     * Compares the time StreamTokenizer and Lexer take to read the tokens of a generated GML document, and GMLReader to read it.
+     * The size of the document in MB is set with the lexerBenchmarkSize system property.
+     */
+    public void testThroughput() throws Exception {
+        final int megabytes = Integer.getInteger("lexerBenchmarkSize", 8);
+        final byte[] gml = generateGML(megabytes * 1024 * 1024);
+
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            final StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(reader(gml)));
+            configureGML(tokenizer, null);
+            int expected = 0;
+            while (tokenizer.nextToken() != StreamTokenizer.TT_EOF) {
+                expected++;
+            }
+            BaseTest.printPerformance("StreamTokenizer", expected, "tokens of " + megabytes + " MB read", milliseconds(start));
+
+            start = System.nanoTime();
+            final Lexer lexer = new Lexer(reader(gml));
+            lexer.defaultSyntax();
+            configureGML(null, lexer);
+            int actual = 0;
+            while (lexer.nextToken() != Lexer.TT_EOF) {
+                actual++;
+            }
+            BaseTest.printPerformance("Lexer", actual, "tokens of " + megabytes + " MB read", milliseconds(start));
+            assertEquals(expected, actual);
+
+            start = System.nanoTime();
+            GMLReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(gml));
+            BaseTest.printPerformance("GMLReader", megabytes, "MB read", milliseconds(start));
+        }
+    }
+
+    private static void configureGML(final StreamTokenizer st, final Lexer lexer) {
+        final String stringCharacters = "/\\(){}<>!£$%^&*-+=,.?:;@_`|~";
+        if (null != st) {
+            st.commentChar('#');
+            st.ordinaryChar('[');
+            st.ordinaryChar(']');
+            for (int i = 0; i < stringCharacters.length(); i++) {
+                st.wordChars(stringCharacters.charAt(i), stringCharacters.charAt(i));
+            }
+        }
+        if (null != lexer) {
+            lexer.commentChar('#');
+            lexer.ordinaryChar('[');
+            lexer.ordinaryChar(']');
+            for (int i = 0; i < stringCharacters.length(); i++) {
+                lexer.wordChars(stringCharacters.charAt(i), stringCharacters.charAt(i));
+            }
+        }
+    }
+
+    private static void configureDOT(final StreamTokenizer st, final Lexer lexer) {
+        st.resetSyntax();
+        lexer.resetSyntax();
+        st.slashStarComments(true);
+        lexer.slashStarComments(true);
+        st.slashSlashComments(true);
+        lexer.slashSlashComments(true);
+        st.whitespaceChars(0, ' ');
+        lexer.whitespaceChars(0, ' ');
+        st.wordChars(' ' + 1, '\u00ff');
+        lexer.wordChars(' ' + 1, '\u00ff');
+        for (char c : "[]{}->/*,=".toCharArray()) {
+            st.ordinaryChar(c);
+            lexer.ordinaryChar(c);
+        }
+        st.quoteChar('"');
+        lexer.quoteChar('"');
+        st.whitespaceChars(';', ';');
+        lexer.whitespaceChars(';', ';');
+    }
+
+    private static void assertSameTokens(final StreamTokenizer expected, final Lexer actual) throws IOException {
+        int count = 0;
+        do {
+            expected.nextToken();
+            actual.nextToken();
+            final String token = "token " + count++ + " " + expected;
+            assertEquals(token, expected.ttype, actual.ttype);
+            assertEquals(token, expected.sval, actual.sval);
+            if (expected.ttype == StreamTokenizer.TT_NUMBER) assertEquals(token, expected.nval, actual.nval);
+            assertEquals(token, expected.lineno(), actual.lineno());
+        } while (expected.ttype != StreamTokenizer.TT_EOF);
+        assertTrue(count > 10);
+    }
+
+    private static byte[] generateGML(final int size) throws IOException {
+        final StringBuilder gml = new StringBuilder(size + 1024);
+        gml.append("graph [\n\tdirected 1\n");
+        int i = 0;
+        while (gml.length() < size) {
+            gml.append("\tnode [\n\t\tid ").append(i).append("\n\t\tname \"vertex").append(i)
+                    .append("\"\n\t\tage ").append(i % 100).append("\n\t\tweight ").append(i / 7.0f).append("\n\t]\n");
+            if (i > 0) {
+                gml.append("\tedge [\n\t\tsource ").append(i).append("\n\t\ttarget ").append(i / 2)
+                        .append("\n\t\tlabel \"knows\"\n\t\tweight ").append(i % 10 / 4.0f).append("\n\t]\n");
+            }
+            i++;
+        }
+        gml.append("]\n");
+        return gml.toString().getBytes("ISO-8859-1");
+    }
+
+    private static Reader reader(final byte[] bytes) {
+        final InputStream in = new ByteArrayInputStream(bytes);
+        return new InputStreamReader(in, Charset.forName("ISO-8859-1"));
+    }
+
+    private static double milliseconds(final long start) {
+        return (System.nanoTime() - start) / 1000000.0d;
+    }
+}
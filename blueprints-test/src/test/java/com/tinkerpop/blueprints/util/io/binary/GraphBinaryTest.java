@@ -0,0 +1,260 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReader;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLWriter;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMigrator;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONReader;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONWriter;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import com.tinkerpop.blueprints.util.wrappers.readonly.ReadOnlyGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+public class GraphBinaryTest {
+
+    @Test
+    public void roundTripTinkerGraph() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        final TinkerGraph copy = new TinkerGraph();
+        GraphBinaryReader.inputGraph(copy, new ByteArrayInputStream(write(graph, Deflater.DEFAULT_COMPRESSION, GraphBinaryWriter.DEFAULT_BLOCK_SIZE)));
+        assertSameGraph(graph, copy);
+    }
+
+    @Test
+    public void roundTripAllPropertyTypes() throws IOException {
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex a = graph.addVertex("a");
+        a.setProperty("boolean", true);
+        a.setProperty("integer", -42);
+        a.setProperty("long", Long.MIN_VALUE);
+        a.setProperty("float", 1.5f);
+        a.setProperty("double", Math.PI);
+        a.setProperty("string", "héllo wörld ☃");
+        a.setProperty("numeric", "-007");
+        a.setProperty("list", Arrays.asList(1, "two", 3.0d, null));
+        final Map<String, Object> map = new HashMap<String, Object>();
+        map.put("x", 1L);
+        map.put("y", Arrays.asList("z"));
+        a.setProperty("map", map);
+        a.setProperty("booleans", new boolean[]{true, false});
+        a.setProperty("integers", new int[]{1, -2, Integer.MAX_VALUE});
+        a.setProperty("longs", new long[]{Long.MAX_VALUE, 0L});
+        a.setProperty("floats", new float[]{0.25f});
+        a.setProperty("doubles", new double[]{-0.5d, Double.NaN});
+        a.setProperty("strings", new String[]{"1", "one"});
+        a.setProperty("serializable", new java.util.Date(1234567890L));
+        final Vertex b = graph.addVertex("12345678901234567890");
+        graph.addEdge("-1", a, b, "label").setProperty("weight", 0.5f);
+
+        final TinkerGraph copy = new TinkerGraph();
+        GraphBinaryReader.inputGraph(copy, new ByteArrayInputStream(write(graph, Deflater.BEST_SPEED, GraphBinaryWriter.DEFAULT_BLOCK_SIZE)));
+
+        final Vertex found = copy.getVertex("a");
+        for (final String key : a.getPropertyKeys()) {
+            final Object expected = a.getProperty(key);
+            final Object actual = found.getProperty(key);
+            if (expected.getClass().isArray()) {
+                Assert.assertEquals(key, Arrays.deepToString(new Object[]{expected}), Arrays.deepToString(new Object[]{actual}));
+            } else {
+                Assert.assertEquals(key, expected, actual);
+            }
+        }
+        Assert.assertEquals(a.getPropertyKeys(), found.getPropertyKeys());
+        Assert.assertNotNull(copy.getVertex("12345678901234567890"));
+        Assert.assertEquals(0.5f, copy.getEdge("-1").getProperty("weight"));
+    }
+
+    @Test
+    public void stringsAreWrittenInUTF8() throws IOException {
+        final String string = "a\u00e9\u2603\ud83d\ude00\ud800z";
+        final TinkerGraph graph = new TinkerGraph();
+        graph.addVertex("a").setProperty("string", string);
+        final byte[] bytes = write(graph, Deflater.NO_COMPRESSION, GraphBinaryWriter.DEFAULT_BLOCK_SIZE);
+        Assert.assertTrue(indexOf(bytes, "\ud83d\ude00".getBytes("UTF-8")) >= 0);
+
+        final TinkerGraph copy = new TinkerGraph();
+        GraphBinaryReader.inputGraph(copy, new ByteArrayInputStream(bytes));
+        Assert.assertEquals(string, copy.getVertex("a").getProperty("string"));
+    }
+
+    @Test
+    public void roundTripSmallBlocksWithoutCompression() throws IOException {
+        final TinkerGraph graph = createGraph(500);
+        for (final int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION}) {
+            final TinkerGraph copy = new TinkerGraph();
+            GraphBinaryReader.inputGraph(copy, new ByteArrayInputStream(write(graph, level, 100)), 10);
+            assertSameGraph(graph, copy);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphCorruptedBlock() throws IOException {
+        final byte[] bytes = write(TinkerGraphFactory.createTinkerGraph(), Deflater.NO_COMPRESSION, GraphBinaryWriter.DEFAULT_BLOCK_SIZE);
+        bytes[bytes.length - 10] ^= 0x01;
+        GraphBinaryReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphTruncated() throws IOException {
+        final byte[] bytes = write(TinkerGraphFactory.createTinkerGraph(), Deflater.DEFAULT_COMPRESSION, GraphBinaryWriter.DEFAULT_BLOCK_SIZE);
+        GraphBinaryReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 5)));
+    }
+
+    @Test
+    public void inputGraphThroughConfiguredBatchGraph() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        final TinkerGraph copy = new TinkerGraph();
+        final BatchGraph batch = BatchGraph.wrap(copy, 10);
+        batch.setVertexIdKey("uid");
+        GraphBinaryReader.inputGraph(batch, new ByteArrayInputStream(write(graph, Deflater.DEFAULT_COMPRESSION, GraphBinaryWriter.DEFAULT_BLOCK_SIZE)));
+        Assert.assertEquals(6, count(copy.getVertices()));
+        Assert.assertEquals(6, count(copy.getEdges()));
+        Assert.assertEquals("marko", copy.getVertices("uid", "1").iterator().next().getProperty("name"));
+    }
+
+    @Test
+    public void migrateGraphBinary() throws IOException {
+        final TinkerGraph graph = createGraph(1000);
+        final TinkerGraph copy = new TinkerGraph();
+        GraphMigrator.migrateGraphBinary(graph, copy);
+        assertSameGraph(graph, copy);
+    }
+
+    @Test
+    public void migrateGraphBinaryWriterFailure() throws IOException {
+        final TinkerGraph graph = createGraph(1000);
+        final Graph failing = new ReadOnlyGraph<TinkerGraph>(graph) {
+            public Iterable<Edge> getEdges() {
+                throw new IllegalStateException("edges are unavailable");
+            }
+        };
+        try {
+            GraphMigrator.migrateGraphBinary(failing, new TinkerGraph());
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("edges are unavailable", e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the size and the write and read throughput of the binary format with GraphML and GraphSON.
+     * The number of vertices is set with the graphBinaryBenchmarkSize system property.
+     */
+    @Test
+    public void benchmarkAgainstGraphMLAndGraphSON() throws Exception {
+        final int total = Integer.getInteger("graphBinaryBenchmarkSize", 20000);
+        final TinkerGraph graph = createGraph(total);
+        final int elements = total * 3;
+
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            final ByteArrayOutputStream graphml = new ByteArrayOutputStream();
+            GraphMLWriter.outputGraph(graph, graphml);
+            printThroughput("GraphML write", elements, graphml.size(), start);
+            start = System.nanoTime();
+            GraphMLReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(graphml.toByteArray()));
+            printThroughput("GraphML read", elements, graphml.size(), start);
+
+            start = System.nanoTime();
+            final ByteArrayOutputStream graphson = new ByteArrayOutputStream();
+            GraphSONWriter.outputGraph(graph, graphson, true);
+            printThroughput("GraphSON write", elements, graphson.size(), start);
+            start = System.nanoTime();
+            GraphSONReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(graphson.toByteArray()));
+            printThroughput("GraphSON read", elements, graphson.size(), start);
+
+            for (final int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED}) {
+                start = System.nanoTime();
+                final byte[] binary = write(graph, level, GraphBinaryWriter.DEFAULT_BLOCK_SIZE);
+                printThroughput("Binary (level " + level + ") write", elements, binary.length, start);
+                final TinkerGraph copy = new TinkerGraph();
+                start = System.nanoTime();
+                GraphBinaryReader.inputGraph(copy, new ByteArrayInputStream(binary));
+                printThroughput("Binary (level " + level + ") read", elements, binary.length, start);
+                Assert.assertEquals(total * 2, count(copy.getEdges()));
+                Assert.assertTrue(binary.length < graphson.size());
+            }
+        }
+    }
+
+    private static void printThroughput(final String name, final int elements, final long bytes, final long start) {
+        BaseTest.printPerformance(name, elements, "elements in " + bytes + " bytes", (System.nanoTime() - start) / 1000000.0d);
+    }
+
+    private static int indexOf(final byte[] bytes, final byte[] sequence) {
+        for (int i = 0; i + sequence.length <= bytes.length; i++) {
+            if (Arrays.equals(sequence, Arrays.copyOfRange(bytes, i, i + sequence.length))) return i;
+        }
+        return -1;
+    }
+
+    private static byte[] write(final Graph graph, final int compressionLevel, final int blockSize) throws IOException {
+        final GraphBinaryWriter writer = new GraphBinaryWriter(graph);
+        writer.setCompressionLevel(compressionLevel);
+        writer.setBlockSize(blockSize);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.outputGraph(out);
+        return out.toByteArray();
+    }
+
+    private static TinkerGraph createGraph(final int total) {
+        final TinkerGraph graph = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            final Vertex v = graph.addVertex(null);
+            v.setProperty("name", "vertex" + i);
+            v.setProperty("age", i);
+        }
+        for (int i = 0; i < total * 2; i++) {
+            final Edge e = graph.addEdge(null, graph.getVertex(String.valueOf(i % total)), graph.getVertex(String.valueOf((i * 7) % total)), i % 2 == 0 ? "knows" : "created");
+            e.setProperty("weight", i / 7.0d);
+            e.setProperty("since", (long) i);
+        }
+        return graph;
+    }
+
+    private static void assertSameGraph(final Graph expected, final Graph actual) {
+        Assert.assertEquals(count(expected.getVertices()), count(actual.getVertices()));
+        Assert.assertEquals(count(expected.getEdges()), count(actual.getEdges()));
+        for (Vertex v : expected.getVertices()) {
+            final Vertex found = actual.getVertex(v.getId());
+            Assert.assertNotNull(found);
+            Assert.assertEquals(v.getPropertyKeys(), found.getPropertyKeys());
+            for (String key : v.getPropertyKeys()) {
+                Assert.assertEquals(v.getProperty(key), found.getProperty(key));
+            }
+        }
+        for (Edge e : expected.getEdges()) {
+            final Edge found = actual.getEdge(e.getId());
+            Assert.assertNotNull(found);
+            Assert.assertEquals(e.getLabel(), found.getLabel());
+            Assert.assertEquals(e.getVertex(Direction.OUT).getId(), found.getVertex(Direction.OUT).getId());
+            Assert.assertEquals(e.getVertex(Direction.IN).getId(), found.getVertex(Direction.IN).getId());
+            for (String key : e.getPropertyKeys()) {
+                Assert.assertEquals(e.getProperty(key), found.getProperty(key));
+            }
+        }
+    }
+
+    private static int count(final Iterable iterable) {
+        int counter = 0;
+        for (Object ignored : iterable) {
+            counter++;
+        }
+        return counter;
+    }
+}
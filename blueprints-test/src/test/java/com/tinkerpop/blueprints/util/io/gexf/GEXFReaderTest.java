@@ -0,0 +1,182 @@
+package com.tinkerpop.blueprints.util.io.gexf;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+
+public class GEXFReaderTest {
+
+    private static final String GEXF = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gexf xmlns=\"http://www.gexf.net/1.2draft\" xmlns:viz=\"http://www.gexf.net/1.2draft/viz\" version=\"1.2\">\n" +
+            "  <graph mode=\"static\" defaultedgetype=\"directed\">\n" +
+            "    <attributes class=\"node\">\n" +
+            "      <attribute id=\"0\" title=\"age\" type=\"integer\"/>\n" +
+            "      <attribute id=\"1\" title=\"score\" type=\"double\"/>\n" +
+            "      <attribute id=\"2\" title=\"active\" type=\"boolean\">\n" +
+            "        <default>true</default>\n" +
+            "      </attribute>\n" +
+            "      <attribute id=\"3\" title=\"city\" type=\"string\"/>\n" +
+            "    </attributes>\n" +
+            "    <attributes class=\"edge\">\n" +
+            "      <attribute id=\"0\" title=\"since\" type=\"long\"/>\n" +
+            "    </attributes>\n" +
+            "    <edges>\n" +
+            "      <edge id=\"e0\" source=\"a\" target=\"b\" label=\"knows\">\n" +
+            "        <attvalues><attvalue for=\"0\" value=\"2010\"/></attvalues>\n" +
+            "      </edge>\n" +
+            "    </edges>\n" +
+            "    <nodes>\n" +
+            "      <node id=\"a\" label=\"marko\">\n" +
+            "        <attvalues>\n" +
+            "          <attvalue for=\"0\" value=\"29\"/>\n" +
+            "          <attvalue for=\"1\" value=\"0.5\"/>\n" +
+            "          <attvalue for=\"3\" value=\"Santa Fe\"/>\n" +
+            "        </attvalues>\n" +
+            "        <viz:color r=\"255\" g=\"0\" b=\"0\"/>\n" +
+            "        <viz:position x=\"1.5\" y=\"-2.0\" z=\"0.0\"/>\n" +
+            "        <viz:size value=\"3.0\"/>\n" +
+            "      </node>\n" +
+            "      <node id=\"b\" label=\"vadas\">\n" +
+            "        <attvalues><attvalue for=\"2\" value=\"false\"/></attvalues>\n" +
+            "      </node>\n" +
+            "    </nodes>\n" +
+            "    <edges>\n" +
+            "      <edge id=\"e1\" source=\"b\" target=\"a\" weight=\"2.0\"/>\n" +
+            "      <edge id=\"e2\" source=\"a\" target=\"missing\"/>\n" +
+            "    </edges>\n" +
+            "  </graph>\n" +
+            "</gexf>\n";
+
+    @Test
+    public void exampleGEXFGetsCorrectNumberOfElements() throws IOException {
+        TinkerGraph graph = new TinkerGraph();
+
+        GEXFReader.inputGraph(graph, GEXFReader.class.getResourceAsStream("/com/tinkerpop/blueprints/pgm/util/io/gexf/example.gexf"));
+
+        Assert.assertEquals(2361, getIterableCount(graph.getVertices()));
+        Assert.assertEquals(7182, getIterableCount(graph.getEdges()));
+        Assert.assertEquals("YBR236C", graph.getVertex("4941").getProperty(BlueprintsTokens.LABEL));
+        Edge edge = graph.getEdge("13189");
+        Assert.assertEquals("4941", edge.getVertex(Direction.OUT).getId());
+        Assert.assertEquals("4942", edge.getVertex(Direction.IN).getId());
+        Assert.assertEquals(GEXFReader.DEFAULT_LABEL, edge.getLabel());
+    }
+
+    @Test
+    public void attvaluesAreConvertedToTheTypesOfTheirAttributes() throws IOException {
+        TinkerGraph graph = new TinkerGraph();
+
+        GEXFReader.inputGraph(graph, new ByteArrayInputStream(GEXF.getBytes("UTF-8")));
+
+        Vertex marko = graph.getVertex("a");
+        Assert.assertEquals("marko", marko.getProperty(BlueprintsTokens.LABEL));
+        Assert.assertEquals(29, marko.getProperty("age"));
+        Assert.assertEquals(0.5d, marko.getProperty("score"));
+        Assert.assertEquals(true, marko.getProperty("active"));
+        Assert.assertEquals("Santa Fe", marko.getProperty("city"));
+        Assert.assertEquals(0xFFFF0000, marko.getProperty(BlueprintsTokens.COLOR));
+        Assert.assertEquals(1.5f, marko.getProperty(BlueprintsTokens.X));
+        Assert.assertEquals(-2.0f, marko.getProperty(BlueprintsTokens.Y));
+        Assert.assertEquals(3.0f, marko.getProperty(BlueprintsTokens.SIZE));
+
+        Vertex vadas = graph.getVertex("b");
+        Assert.assertEquals(false, vadas.getProperty("active"));
+        Assert.assertNull(vadas.getProperty("age"));
+    }
+
+    @Test
+    public void edgesBeforeTheirVerticesAreSpilledAndAdded() throws Exception {
+        TinkerGraph graph = new TinkerGraph();
+        BatchGraph batch = BatchGraph.wrap(graph, 1000);
+        GEXFParser parser = new GEXFParser(batch, GEXFReader.DEFAULT_LABEL, null, null, null);
+        parser.parse(new ByteArrayInputStream(GEXF.getBytes("UTF-8")));
+        batch.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+
+        // e0 precedes its vertices and e2 refers to a vertex which does not exist
+        Assert.assertEquals(2, parser.getSpilledEdges());
+        Assert.assertEquals(2, getIterableCount(graph.getEdges()));
+        Assert.assertNull(graph.getEdge("e2"));
+
+        Edge knows = graph.getEdge("e0");
+        Assert.assertEquals("knows", knows.getLabel());
+        Assert.assertEquals("a", knows.getVertex(Direction.OUT).getId());
+        Assert.assertEquals("b", knows.getVertex(Direction.IN).getId());
+        Assert.assertEquals(2010l, knows.getProperty("since"));
+        Assert.assertEquals(true, knows.getProperty(BlueprintsTokens.DIRECTED));
+
+        Edge e1 = graph.getEdge("e1");
+        Assert.assertEquals(GEXFReader.DEFAULT_LABEL, e1.getLabel());
+        Assert.assertEquals("2.0", e1.getProperty(BlueprintsTokens.WEIGHT));
+    }
+
+    @Test
+    public void deprecatedParseOfBufferedReader() throws Exception {
+        TinkerGraph graph = new TinkerGraph();
+        new GEXFParser(graph, GEXFReader.DEFAULT_LABEL, null, null, null).parse(new BufferedReader(new StringReader(GEXF)));
+        Assert.assertEquals(2, getIterableCount(graph.getVertices()));
+        Assert.assertEquals(2, getIterableCount(graph.getEdges()));
+        Assert.assertEquals("knows", graph.getEdge("e0").getLabel());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void deprecatedParseOfBufferedReaderWrapsMalformedDocuments() throws Exception {
+        new GEXFParser(new TinkerGraph(), GEXFReader.DEFAULT_LABEL, null, null, null).parse(new BufferedReader(new StringReader("<gexf><graph>")));
+    }
+
+    /**
+     * Measures the time of reading a generated GEXF document of which the edges precede the nodes, so that every
+     * edge is spilled. The number of nodes is set with the gexfBenchmarkSize system property.
+     */
+    @Test
+    public void spilledEdgesThroughput() throws Exception {
+        final int total = Integer.getInteger("gexfBenchmarkSize", 20000);
+        final StringBuilder gexf = new StringBuilder();
+        gexf.append("<gexf version=\"1.2\"><graph defaultedgetype=\"undirected\">");
+        gexf.append("<attributes class=\"node\"><attribute id=\"0\" title=\"age\" type=\"integer\"/></attributes><edges>");
+        for (int i = 0; i < total * 2; i++) {
+            gexf.append("<edge id=\"").append(i).append("\" source=\"").append(i % total)
+                    .append("\" target=\"").append((i * 7) % total).append("\"/>");
+        }
+        gexf.append("</edges><nodes>");
+        for (int i = 0; i < total; i++) {
+            gexf.append("<node id=\"").append(i).append("\" label=\"vertex").append(i)
+                    .append("\"><attvalues><attvalue for=\"0\" value=\"").append(i % 100).append("\"/></attvalues></node>");
+        }
+        gexf.append("</nodes></graph></gexf>");
+        final byte[] bytes = gexf.toString().getBytes("UTF-8");
+
+        TinkerGraph graph = new TinkerGraph();
+        long start = System.nanoTime();
+        GEXFReader.inputGraph(graph, new ByteArrayInputStream(bytes));
+        BaseTest.printPerformance("GEXFReader", total * 3, "elements in " + bytes.length + " bytes read", (System.nanoTime() - start) / 1000000.0d);
+
+        Assert.assertEquals(total, getIterableCount(graph.getVertices()));
+        Assert.assertEquals(total * 2, getIterableCount(graph.getEdges()));
+        Assert.assertEquals(42, graph.getVertex("42").getProperty("age"));
+    }
+
+    private static int getIterableCount(Iterable<?> elements) {
+        int counter = 0;
+
+        Iterator<?> iterator = elements.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            counter++;
+        }
+
+        return counter;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tinkerpop.blueprints.util.io.graphml;
 
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
@@ -36,6 +38,75 @@ public class GraphMLWriterTest extends TestCase {
         assertEquals(expected.replace("\n", "").replace("\r", ""), bos.toString().replace("\n", "").replace("\r", ""));
     }
 
+    public void testSinglePassNormal() throws Exception {
+        TinkerGraph g = new TinkerGraph();
+        GraphMLReader.inputGraph(g, GraphMLReader.class.getResourceAsStream("graph-example-1.xml"));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GraphMLWriter w = new GraphMLWriter(g);
+        w.setNormalize(true);
+        w.setSinglePass(true);
+        w.outputGraph(bos);
+
+        String expected = streamToString(GraphMLWriterTest.class.getResourceAsStream("graph-example-1-normalized.xml"));
+        assertEquals(expected.replace("\n", "").replace("\r", ""), bos.toString().replace("\n", "").replace("\r", ""));
+    }
+
+    public void testSinglePassMatchesTwoPasses() throws Exception {
+        TinkerGraph g = createGraph(1000);
+        for (boolean normalize : new boolean[]{false, true}) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            GraphMLWriter w = new GraphMLWriter(g);
+            w.setNormalize(normalize);
+            w.outputGraph(expected);
+
+            // a small sort buffer so that normalized output is merged from many runs
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            w = new GraphMLWriter(g);
+            w.setNormalize(normalize);
+            w.setSinglePass(true);
+            w.setSortBufferSize(7);
+            w.outputGraph(actual);
+
+            assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+        }
+    }
+
+    /**
+     * Compares the time of writing normalized GraphML in two passes with sorting in memory, and in a single pass
+     * with sorting on disk. The number of vertices is set with the graphMLWriterBenchmarkSize system property.
+     */
+    public void testSinglePassThroughput() throws Exception {
+        final int total = Integer.getInteger("graphMLWriterBenchmarkSize", 20000);
+        TinkerGraph g = createGraph(total);
+        for (int run = 0; run < 2; run++) {
+            for (boolean singlePass : new boolean[]{false, true}) {
+                GraphMLWriter w = new GraphMLWriter(g);
+                w.setNormalize(true);
+                w.setSinglePass(singlePass);
+                w.setSortBufferSize(10000);
+                long start = System.nanoTime();
+                w.outputGraph(new ByteArrayOutputStream());
+                BaseTest.printPerformance("GraphMLWriter (" + (singlePass ? "single pass" : "two passes") + ")", total * 3,
+                        "elements written", (System.nanoTime() - start) / 1000000.0d);
+            }
+        }
+    }
+
+    private static TinkerGraph createGraph(final int total) {
+        TinkerGraph g = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            Vertex v = g.addVertex(null);
+            v.setProperty("name", "vertex <" + i + ">");
+            v.setProperty(i % 2 == 0 ? "age" : "rank", i % 3 == 0 ? (Object) i : (Object) (long) i);
+        }
+        for (int i = 0; i < total * 2; i++) {
+            Edge e = g.addEdge(null, g.getVertex(String.valueOf(i % total)), g.getVertex(String.valueOf((i * 7) % total)), "knows");
+            e.setProperty("weight", i % 5 == 0 ? (Object) (float) i : (Object) (i / 7.0d));
+        }
+        return g;
+    }
+
     private String streamToString(final InputStream in) throws IOException {
         Writer writer = new StringWriter();
 
@@ -1,11 +1,19 @@
 package com.tinkerpop.blueprints.util.io.graphson;
 
 
+import com.tinkerpop.blueprints.BaseTest;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.MappingJsonFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -13,6 +21,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -166,6 +177,185 @@ public class GraphSONReaderTest {
 
     }
 
+    @Test
+    public void inputGraphWithIdsFirstAndValuesBeforeTypes() throws IOException {
+        TinkerGraph graph = new TinkerGraph();
+
+        String json = "{ \"embeddedTypes\":true, \"vertices\": [ {\"_id\":1, \"_type\":\"vertex\", \"name\": { \"value\":\"marko\", \"type\":\"string\"}, \"ages\":{\"type\":\"list\", \"value\":[{\"value\":29, \"type\":\"integer\"}, {\"type\":\"long\", \"value\":30}]}}, {\"_id\":2, \"weight\":{\"value\":{\"inner\":{\"value\":0.5, \"type\":\"float\"}}, \"type\":\"map\"}}], \"edges\":[{\"_id\":100, \"_outV\":1, \"_inV\":2, \"_label\":\"knows\", \"since\": {\"type\":\"integer\", \"value\":2010}}]}";
+
+        GraphSONReader.inputGraph(graph, new ByteArrayInputStream(json.getBytes()));
+
+        Vertex v1 = graph.getVertex(1);
+        Assert.assertEquals("marko", v1.getProperty("name"));
+        Assert.assertNull(v1.getProperty("_type"));
+        List list = (List) v1.getProperty("ages");
+        Assert.assertEquals(29, list.get(0));
+        Assert.assertEquals(30l, list.get(1));
+
+        Map map = (Map) graph.getVertex(2).getProperty("weight");
+        Assert.assertEquals(0.5f, map.get("inner"));
+
+        Edge e = graph.getEdge(100);
+        Assert.assertEquals("knows", e.getLabel());
+        Assert.assertEquals(2010, e.getProperty("since"));
+        Assert.assertEquals(v1, e.getVertex(Direction.OUT));
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphVertexWithoutId() throws IOException {
+        String json = "{ \"vertices\": [ {\"name\":\"marko\"} ], \"edges\":[]}";
+        GraphSONReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream(json.getBytes()));
+    }
+
+    /**
+     * Compares the throughput of GraphSONReader with reading every element as a tree first. The number of vertices
+     * is set with the graphsonReaderBenchmarkSize system property.
+     */
+    @Test
+    public void inputGraphThroughput() throws IOException {
+        final int total = Integer.getInteger("graphsonReaderBenchmarkSize", 20000);
+        final TinkerGraph graph = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            final Vertex v = graph.addVertex(null);
+            v.setProperty("name", "vertex" + i);
+            v.setProperty("age", i);
+            v.setProperty("rank", i / 3.0d);
+            v.setProperty("aliases", Arrays.asList("a" + i, "b" + i));
+        }
+        for (int i = 0; i < total * 2; i++) {
+            final Edge e = graph.addEdge(null, graph.getVertex(String.valueOf(i % total)), graph.getVertex(String.valueOf((i * 7) % total)), "knows");
+            e.setProperty("weight", i / 7.0d);
+            e.setProperty("since", (long) i);
+        }
+        final int elements = total * 3;
+
+        for (final boolean showTypes : new boolean[]{false, true}) {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            GraphSONWriter.outputGraph(graph, stream, showTypes);
+            final byte[] bytes = stream.toByteArray();
+
+            for (final boolean streaming : new boolean[]{false, true, false, true}) {
+                final TinkerGraph inputGraph = new TinkerGraph();
+                final long start = System.nanoTime();
+                if (streaming) {
+                    GraphSONReader.inputGraph(inputGraph, new ByteArrayInputStream(bytes));
+                } else {
+                    inputGraphFromTrees(inputGraph, new ByteArrayInputStream(bytes));
+                }
+                final double milliseconds = (System.nanoTime() - start) / 1000000.0d;
+
+                Assert.assertEquals(total, getIterableCount(inputGraph.getVertices()));
+                Assert.assertEquals(total * 2, getIterableCount(inputGraph.getEdges()));
+                Assert.assertEquals(graph.getVertex("1").getProperty("aliases"), inputGraph.getVertex("1").getProperty("aliases"));
+
+                BaseTest.printPerformance((streaming ? "GraphSONReader" : "Tree reader") + (showTypes ? " (embedded types)" : ""),
+                        elements, "elements in " + bytes.length + " bytes read", milliseconds);
+            }
+        }
+    }
+
+    /**
+     * The reader GraphSONReader replaced, which materializes every element as a tree of JsonNodes.
+     */
+    private static void inputGraphFromTrees(final Graph inputGraph, final InputStream jsonInputStream) throws IOException {
+        boolean hasEmbeddedTypes = false;
+        final JsonParser jp = new MappingJsonFactory().createJsonParser(jsonInputStream);
+        final BatchGraph graph = BatchGraph.wrap(inputGraph, 1000);
+
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            final String fieldname = jp.getCurrentName() == null ? "" : jp.getCurrentName();
+            if (fieldname.equals(GraphSONTokens.EMBEDDED_TYPES)) {
+                jp.nextToken();
+                hasEmbeddedTypes = jp.getBooleanValue();
+            } else if (fieldname.equals(GraphSONTokens.VERTICES)) {
+                jp.nextToken();
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    final JsonNode node = jp.readValueAsTree();
+                    final Vertex v = graph.addVertex(node.get(GraphSONTokens._ID).getValueAsText());
+                    for (Map.Entry<String, Object> entry : readProperties(node, true, hasEmbeddedTypes).entrySet()) {
+                        v.setProperty(entry.getKey(), entry.getValue());
+                    }
+                }
+            } else if (fieldname.equals(GraphSONTokens.EDGES)) {
+                jp.nextToken();
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    final JsonNode node = jp.readValueAsTree();
+                    final Vertex inV = graph.getVertex(node.get(GraphSONTokens._IN_V).getValueAsText());
+                    final Vertex outV = graph.getVertex(node.get(GraphSONTokens._OUT_V).getValueAsText());
+                    final Edge e = graph.addEdge(node.get(GraphSONTokens._ID).getValueAsText(), outV, inV, node.get(GraphSONTokens._LABEL).getValueAsText());
+                    for (Map.Entry<String, Object> entry : readProperties(node, true, hasEmbeddedTypes).entrySet()) {
+                        e.setProperty(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        jp.close();
+        graph.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+    }
+
+    private static Map<String, Object> readProperties(final JsonNode node, final boolean ignoreReservedKeys, final boolean hasEmbeddedTypes) {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        final Iterator<Map.Entry<String, JsonNode>> iterator = node.getFields();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, JsonNode> entry = iterator.next();
+            if (!ignoreReservedKeys || !entry.getKey().startsWith("_")) {
+                map.put(entry.getKey(), readProperty(entry.getValue(), hasEmbeddedTypes));
+            }
+        }
+        return map;
+    }
+
+    private static Object readProperty(final JsonNode node, final boolean hasEmbeddedTypes) {
+        if (hasEmbeddedTypes) {
+            final String type = node.get(GraphSONTokens.TYPE).getValueAsText();
+            final JsonNode value = node.get(GraphSONTokens.VALUE);
+            if (type.equals(GraphSONTokens.TYPE_BOOLEAN)) {
+                return value.getBooleanValue();
+            } else if (type.equals(GraphSONTokens.TYPE_FLOAT)) {
+                return Float.parseFloat(value.getValueAsText());
+            } else if (type.equals(GraphSONTokens.TYPE_DOUBLE)) {
+                return value.getDoubleValue();
+            } else if (type.equals(GraphSONTokens.TYPE_INTEGER)) {
+                return value.getIntValue();
+            } else if (type.equals(GraphSONTokens.TYPE_LONG)) {
+                return value.getLongValue();
+            } else if (type.equals(GraphSONTokens.TYPE_STRING)) {
+                return value.getTextValue();
+            } else if (type.equals(GraphSONTokens.TYPE_LIST)) {
+                return readList(value.getElements(), hasEmbeddedTypes);
+            } else if (type.equals(GraphSONTokens.TYPE_MAP)) {
+                return readProperties(value, false, hasEmbeddedTypes);
+            } else {
+                return null;
+            }
+        } else if (node.isNull()) {
+            return null;
+        } else if (node.isBoolean()) {
+            return node.getBooleanValue();
+        } else if (node.isDouble()) {
+            return node.getDoubleValue();
+        } else if (node.isInt()) {
+            return node.getIntValue();
+        } else if (node.isLong()) {
+            return node.getLongValue();
+        } else if (node.isArray()) {
+            return readList(node.getElements(), hasEmbeddedTypes);
+        } else if (node.isObject()) {
+            return readProperties(node, false, hasEmbeddedTypes);
+        } else {
+            return node.getValueAsText();
+        }
+    }
+
+    private static List readList(final Iterator<JsonNode> listOfNodes, final boolean hasEmbeddedTypes) {
+        final List list = new ArrayList();
+        while (listOfNodes.hasNext()) {
+            list.add(readProperty(listOfNodes.next(), hasEmbeddedTypes));
+        }
+        return list;
+    }
+
     private int getIterableCount(Iterable elements) {
         int counter = 0;
 
@@ -1,16 +1,31 @@
 package com.tinkerpop.blueprints.util.io.graphson;
 
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.MappingJsonFactory;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jettison.json.JSONException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 public class GraphSONWriterTest {
 
@@ -78,4 +93,138 @@ public class GraphSONWriterTest {
         ArrayNode edges = (ArrayNode) rootNode.get(GraphSONTokens.EDGES);
         Assert.assertEquals(6, edges.size());
     }
+
+    @Test
+    public void outputGraphMatchesElementTrees() throws IOException {
+        final TinkerGraph g = TinkerGraphFactory.createTinkerGraph();
+        final Vertex marko = g.getVertex(1);
+        marko.setProperty("aliases", Arrays.asList("mark", "marko a.", null));
+        marko.setProperty("scores", new int[]{1, 2, 3});
+        marko.setProperty("nested", Arrays.asList(Arrays.asList(1l, 2l), Arrays.asList(true)));
+        final Map<String, Object> address = new HashMap<String, Object>();
+        address.put("city", "santa fe");
+        address.put("zip", 87501);
+        address.put("location", Arrays.asList(35.6, -105.9));
+        marko.setProperty("address", address);
+        marko.setProperty("rank", 0.5f);
+        marko.setProperty("friend", g.getVertex(2));
+        g.getEdge(7).setProperty("since", 2010l);
+
+        final List<String> vertexKeys = Arrays.asList("name", "address", "missing");
+        final List<String> edgeKeys = Arrays.asList("weight");
+        for (final boolean showTypes : new boolean[]{false, true}) {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            GraphSONWriter.outputGraph(g, stream, showTypes);
+            Assert.assertEquals(readTree(outputGraphFromTrees(g, null, null, showTypes)), readTree(stream.toByteArray()));
+
+            final ByteArrayOutputStream filtered = new ByteArrayOutputStream();
+            GraphSONWriter.outputGraph(g, filtered, edgeKeys, vertexKeys, showTypes);
+            Assert.assertEquals(readTree(outputGraphFromTrees(g, edgeKeys, vertexKeys, showTypes)), readTree(filtered.toByteArray()));
+        }
+    }
+
+    @Test
+    public void outputGraphCompressed() throws IOException {
+        final TinkerGraph g = TinkerGraphFactory.createTinkerGraph();
+        g.getVertex(1).setProperty("cities", Arrays.asList(Collections.singletonMap("name", "santa fe")));
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        GraphSONWriter.outputGraph(g, stream, null, null, true, true);
+        final byte[] bytes = stream.toByteArray();
+        Assert.assertEquals((byte) 0x1f, bytes[0]);
+        Assert.assertEquals((byte) 0x8b, bytes[1]);
+
+        final TinkerGraph copy = new TinkerGraph();
+        GraphSONReader.inputGraph(copy, new GZIPInputStream(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(6, count(copy.getVertices()));
+        Assert.assertEquals(6, count(copy.getEdges()));
+        Assert.assertEquals("marko", copy.getVertex(1).getProperty("name"));
+        Assert.assertEquals(0.4f, copy.getEdge(11).getProperty("weight"));
+        Assert.assertEquals("santa fe", ((Map) ((List) copy.getVertex(1).getProperty("cities")).get(0)).get("name"));
+    }
+
+    /**
+     * Compares the export speed and the allocation of GraphSONWriter with writing every element as a tree. The
+     * number of vertices is set with the graphsonWriterBenchmarkSize system property.
+     */
+    @Test
+    public void outputGraphThroughput() throws IOException {
+        final int total = Integer.getInteger("graphsonWriterBenchmarkSize", 20000);
+        final TinkerGraph g = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            final Vertex v = g.addVertex(null);
+            v.setProperty("name", "vertex" + i);
+            v.setProperty("age", i);
+            v.setProperty("rank", i / 3.0d);
+            v.setProperty("aliases", Arrays.asList("a" + i, "b" + i));
+        }
+        for (int i = 0; i < total * 2; i++) {
+            final Edge e = g.addEdge(null, g.getVertex(String.valueOf(i % total)), g.getVertex(String.valueOf((i * 7) % total)), "knows");
+            e.setProperty("weight", i / 7.0d);
+            e.setProperty("since", (long) i);
+        }
+        final int elements = total * 3;
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final boolean allocation = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+
+        for (final boolean showTypes : new boolean[]{false, true}) {
+            for (int run = 0; run < 6; run++) {
+                final String name = run % 3 == 0 ? "Tree writer" : run % 3 == 1 ? "GraphSONWriter" : "GraphSONWriter (gzip)";
+                final long allocated = allocation ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+                final long start = System.nanoTime();
+                final byte[] bytes;
+                if (run % 3 == 0) {
+                    bytes = outputGraphFromTrees(g, null, null, showTypes);
+                } else {
+                    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                    GraphSONWriter.outputGraph(g, stream, null, null, showTypes, run % 3 == 2);
+                    bytes = stream.toByteArray();
+                }
+                final double milliseconds = (System.nanoTime() - start) / 1000000.0d;
+                final long bytesAllocated = allocation ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated : 0;
+
+                BaseTest.printPerformance(name + (showTypes ? " (embedded types)" : ""), elements, "elements in " + bytes.length + " bytes written"
+                        + (allocation ? " with " + bytesAllocated / elements + " bytes allocated per element" : ""), milliseconds);
+            }
+        }
+    }
+
+    /**
+     * How GraphSONWriter wrote graphs before it streamed the elements, as a tree per element.
+     */
+    private static byte[] outputGraphFromTrees(final Graph graph, final List<String> edgePropertyKeys, final List<String> vertexPropertyKeys, final boolean showTypes) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final JsonGenerator jg = new MappingJsonFactory().createJsonGenerator(stream);
+        jg.writeStartObject();
+        if (showTypes) {
+            jg.writeBooleanField(GraphSONTokens.EMBEDDED_TYPES, showTypes);
+        }
+        jg.writeArrayFieldStart(GraphSONTokens.VERTICES);
+        for (Vertex v : graph.getVertices()) {
+            jg.writeTree(GraphSONFactory.createJSONElementAsObjectNode(v, vertexPropertyKeys, showTypes));
+        }
+        jg.writeEndArray();
+        jg.writeArrayFieldStart(GraphSONTokens.EDGES);
+        for (Edge e : graph.getEdges()) {
+            jg.writeTree(GraphSONFactory.createJSONElementAsObjectNode(e, edgePropertyKeys, showTypes));
+        }
+        jg.writeEndArray();
+        jg.writeEndObject();
+        jg.close();
+        return stream.toByteArray();
+    }
+
+    private static JsonNode readTree(final byte[] bytes) throws IOException {
+        return new ObjectMapper().readValue(new String(bytes, "UTF-8"), JsonNode.class);
+    }
+
+    private static int count(final Iterable iterable) {
+        int counter = 0;
+        for (Object ignored : iterable) {
+            counter++;
+        }
+        return counter;
+    }
 }
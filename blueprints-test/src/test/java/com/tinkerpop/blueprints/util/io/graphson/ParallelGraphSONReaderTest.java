@@ -0,0 +1,195 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+public class ParallelGraphSONReaderTest {
+
+    @Test
+    public void outputGraphLinesOneElementPerLine() throws IOException {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final File file = writeLines(graph, true);
+
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            Assert.assertEquals("{\"embeddedTypes\":true}", reader.readLine());
+            int lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Assert.assertTrue(line.startsWith("{") && line.endsWith("}"));
+                lines++;
+            }
+            Assert.assertEquals(12, lines);
+        } finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void inputGraphWithAndWithoutTypes() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        graph.getVertex(1).setProperty("aliases", Arrays.asList("mark", "marko a."));
+        graph.getVertex(1).setProperty("rank", 0.5f);
+
+        for (final boolean showTypes : new boolean[]{false, true}) {
+            final File file = writeLines(graph, showTypes);
+            try {
+                // chunks of a few lines each to exercise the splitting
+                for (final int chunkSize : new int[]{1, 100, ParallelGraphSONReader.DEFAULT_CHUNK_SIZE}) {
+                    final TinkerGraph copy = new TinkerGraph();
+                    ParallelGraphSONReader.inputGraph(copy, file, 1000, 4, chunkSize);
+                    assertSameGraph(graph, copy, showTypes);
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void inputGraphMatchesGraphSONReader() throws IOException {
+        final TinkerGraph graph = createGraph(2000);
+        final File file = writeLines(graph, true);
+        try {
+            final TinkerGraph copy = new TinkerGraph();
+            new ParallelGraphSONReader(copy).inputGraph(file, 100, 3);
+            assertSameGraph(graph, copy, true);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphVertexAfterEdge() throws IOException {
+        final File file = File.createTempFile("graphson", ".json");
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(("{\"_id\":1,\"_type\":\"vertex\"}\n{\"_id\":2,\"_type\":\"vertex\"}\n"
+                    + "{\"_id\":3,\"_type\":\"edge\",\"_outV\":1,\"_inV\":2,\"_label\":\"knows\"}\n"
+                    + "{\"_id\":4,\"_type\":\"vertex\"}\n").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        try {
+            ParallelGraphSONReader.inputGraph(new TinkerGraph(), file, 1000, 2, 1);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Compares the elements/s of ParallelGraphSONReader with an increasing number of threads, and with
+     * GraphSONReader. The number of vertices is set with the parallelGraphSONReaderBenchmarkSize system property.
+     */
+    @Test
+    public void inputGraphThroughput() throws IOException {
+        final int total = Integer.getInteger("parallelGraphSONReaderBenchmarkSize", 20000);
+        final TinkerGraph graph = createGraph(total);
+        final File file = writeLines(graph, true);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        GraphSONWriter.outputGraph(graph, stream, true);
+        final int elements = total * 3;
+        try {
+            for (int run = 0; run < 2; run++) {
+                final TinkerGraph serial = new TinkerGraph();
+                long start = System.nanoTime();
+                GraphSONReader.inputGraph(serial, new ByteArrayInputStream(stream.toByteArray()));
+                printThroughput("GraphSONReader", elements, stream.size(), start);
+
+                for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() * 2; threads *= 2) {
+                    final TinkerGraph parallel = new TinkerGraph();
+                    start = System.nanoTime();
+                    ParallelGraphSONReader.inputGraph(parallel, file, 1000, threads, 256 * 1024);
+                    printThroughput("ParallelGraphSONReader (" + threads + " threads)", elements, file.length(), start);
+                    Assert.assertEquals(total * 2, count(parallel.getEdges()));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void printThroughput(final String name, final int elements, final long bytes, final long start) {
+        BaseTest.printPerformance(name, elements, "elements in " + bytes + " bytes read", (System.nanoTime() - start) / 1000000.0d);
+    }
+
+    private static TinkerGraph createGraph(final int total) {
+        final TinkerGraph graph = new TinkerGraph();
+        for (int i = 0; i < total; i++) {
+            final Vertex v = graph.addVertex(null);
+            v.setProperty("name", "vertex" + i);
+            v.setProperty("age", i);
+            v.setProperty("aliases", Arrays.asList("a" + i, "b" + i));
+        }
+        for (int i = 0; i < total * 2; i++) {
+            final Edge e = graph.addEdge(null, graph.getVertex(String.valueOf(i % total)), graph.getVertex(String.valueOf((i * 7) % total)), "knows");
+            e.setProperty("weight", i / 7.0d);
+            e.setProperty("since", (long) i);
+        }
+        return graph;
+    }
+
+    private static File writeLines(final Graph graph, final boolean showTypes) throws IOException {
+        final File file = File.createTempFile("graphson", ".json");
+        GraphSONWriter.outputGraphLines(graph, new FileOutputStream(file), null, null, showTypes);
+        return file;
+    }
+
+    private static void assertSameGraph(final Graph expected, final Graph actual, final boolean showTypes) {
+        Assert.assertEquals(count(expected.getVertices()), count(actual.getVertices()));
+        Assert.assertEquals(count(expected.getEdges()), count(actual.getEdges()));
+        for (Vertex v : expected.getVertices()) {
+            final Vertex found = actual.getVertex(v.getId().toString());
+            Assert.assertNotNull(found);
+            Assert.assertEquals(v.getPropertyKeys(), found.getPropertyKeys());
+            for (String key : v.getPropertyKeys()) {
+                assertSameValue(v.getProperty(key), found.getProperty(key), showTypes);
+            }
+        }
+        for (Edge e : expected.getEdges()) {
+            final Edge found = actual.getEdge(e.getId().toString());
+            Assert.assertNotNull(found);
+            Assert.assertEquals(e.getLabel(), found.getLabel());
+            Assert.assertEquals(e.getVertex(Direction.OUT).getId().toString(), found.getVertex(Direction.OUT).getId());
+            Assert.assertEquals(e.getVertex(Direction.IN).getId().toString(), found.getVertex(Direction.IN).getId());
+            for (String key : e.getPropertyKeys()) {
+                assertSameValue(e.getProperty(key), found.getProperty(key), showTypes);
+            }
+        }
+    }
+
+    private static void assertSameValue(final Object expected, final Object actual, final boolean showTypes) {
+        if (showTypes || !(expected instanceof Number)) {
+            Assert.assertEquals(expected, actual);
+        } else {
+            // without types, floats are read as doubles and longs that fit as integers
+            Assert.assertEquals(((Number) expected).doubleValue(), ((Number) actual).doubleValue(), 0.0001d);
+        }
+    }
+
+    private static int count(final Iterable iterable) {
+        int counter = 0;
+        for (Object ignored : iterable) {
+            counter++;
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tinkerpop.blueprints.util.io.net;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.io.BlueprintsTokens;
+import com.tinkerpop.blueprints.util.io.Lexer;
+import junit.framework.TestCase;
+
+import java.io.StringReader;
+
+public class NETParserTest extends TestCase {
+
+    public void testWeightsWithExponents() throws Exception {
+        final String net = "*Vertices 3\n" +
+                "1 \"marko\"\n" +
+                "2 \"vadas\"\n" +
+                "3 \"lop\"\n" +
+                "*Arcs\n" +
+                "3 2 1e-3\n" +
+                "2 3 2.5E2 c Blue\n" +
+                "3 1 -0.5\n";
+        final TinkerGraph graph = new TinkerGraph();
+        final Lexer lexer = new Lexer(new StringReader(net));
+        lexer.whitespaceChars(0, ' ');
+        lexer.wordChars(' ' + 1, '\u00ff');
+        lexer.eolIsSignificant(true);
+        new NETParser(graph, "undefined", null, null, null).parse(lexer);
+
+        final Edge first = graph.getEdge(0);
+        assertEquals("2", first.getVertex(Direction.OUT).getId());
+        assertEquals("1", first.getVertex(Direction.IN).getId());
+        assertEquals(0.001f, first.getProperty(BlueprintsTokens.WEIGHT));
+        final Edge second = graph.getEdge(1);
+        assertEquals(250f, second.getProperty(BlueprintsTokens.WEIGHT));
+        assertEquals("Blue", second.getProperty(BlueprintsTokens.COLOR));
+        assertEquals(-0.5f, graph.getEdge(2).getProperty(BlueprintsTokens.WEIGHT));
+    }
+}
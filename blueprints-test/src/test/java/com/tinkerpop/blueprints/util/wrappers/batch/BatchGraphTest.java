@@ -4,8 +4,18 @@ import com.tinkerpop.blueprints.*;
 import com.tinkerpop.blueprints.impls.tg.IgnoreIdTinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.MockTransactionalGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ElementPropertiesGraph;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReader;
+import com.tinkerpop.blueprints.util.wrappers.event.EventEdge;
+import com.tinkerpop.blueprints.util.wrappers.event.EventTransactionalGraph;
+import com.tinkerpop.blueprints.util.wrappers.event.EventVertex;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.StubGraphChangedListener;
+import com.tinkerpop.blueprints.util.wrappers.wrapped.WrappedVertex;
 import junit.framework.TestCase;
 
+import java.util.Map;
+
 /**
  * Tests {@link BatchGraph} by creating a variable length chain and verifying that the chain is correctly inserted into the wrapped TinkerGraph.
  * <br />
@@ -22,6 +32,7 @@ public class BatchGraphTest extends TestCase {
     private static final String edgeIDKey = "eid";
     private static boolean assignKeys = false;
     private static boolean ignoreIDs = false;
+    private static boolean bufferProperties = false;
 
     public void testNumberIdLoading() {
         loadingTest(5000, 100, BatchGraph.IdType.NUMBER, new NumberLoadingFactory());
@@ -48,11 +59,278 @@ public class BatchGraphTest extends TestCase {
         loadingTest(200000, 10000, BatchGraph.IdType.STRING, new StringLoadingFactory());
     }
 
+    public void testCompactStringIdLoading() {
+        loadingTest(5000, 100, BatchGraph.IdType.COMPACT_STRING, new StringLoadingFactory());
+        loadingTest(200000, 10000, BatchGraph.IdType.COMPACT_STRING, new URLLoadingFactory());
+    }
+
     public void testURLIdLoading() {
         loadingTest(5000, 100, BatchGraph.IdType.URL, new URLLoadingFactory());
         loadingTest(200000, 10000, BatchGraph.IdType.URL, new URLLoadingFactory());
     }
 
+    public void testOffHeapIdLoading() {
+        loadingTest(5000, 100, BatchGraph.IdType.OFF_HEAP, new NumberLoadingFactory());
+        loadingTest(200000, 10000, BatchGraph.IdType.OFF_HEAP, new NumberLoadingFactory());
+        loadingTest(5000, 100, BatchGraph.IdType.OFF_HEAP, new StringLoadingFactory());
+        loadingTest(200000, 10000, BatchGraph.IdType.OFF_HEAP, new URLLoadingFactory());
+    }
+
+    public void testParallelLoading() {
+        for (int workers = 2; workers <= 4; workers = workers * 2) {
+            parallelLoadingTest(2000, 100, BatchGraph.IdType.NUMBER, workers, new NumberLoadingFactory());
+            parallelLoadingTest(2000, 100, BatchGraph.IdType.OBJECT, workers, new StringLoadingFactory());
+            parallelLoadingTest(20000, 1000, BatchGraph.IdType.URL, workers, new URLLoadingFactory());
+        }
+
+        bufferProperties = true;
+        parallelLoadingTest(2000, 100, BatchGraph.IdType.NUMBER, 2, new NumberLoadingFactory());
+        parallelLoadingTest(20000, 1000, BatchGraph.IdType.URL, 4, new URLLoadingFactory());
+        bufferProperties = false;
+    }
+
+    public void testPropertyBuffering() {
+        final int total = 1000;
+        final int vertexProperties = 3;
+        final int edgeProperties = 2;
+
+        final PropertiesGraph unbuffered = propertyLoadingTest(total, vertexProperties, edgeProperties, false);
+        final PropertiesGraph buffered = propertyLoadingTest(total, vertexProperties, edgeProperties, true);
+        assertEquals(total * (1 + vertexProperties) + (total - 1) * (1 + edgeProperties), unbuffered.getWrites());
+        assertEquals(total + (total - 1), buffered.getWrites());
+
+        final TinkerGraph expected = unbuffered.graph;
+        final TinkerGraph graph = buffered.graph;
+        assertEquals(BaseTest.count(expected.getVertices()), BaseTest.count(graph.getVertices()));
+        assertEquals(BaseTest.count(expected.getEdges()), BaseTest.count(graph.getEdges()));
+        for (Vertex v : expected.getVertices()) {
+            Vertex u = graph.getVertex(v.getId());
+            assertEquals(v.getPropertyKeys(), u.getPropertyKeys());
+            for (String key : v.getPropertyKeys()) {
+                assertEquals(v.getProperty(key), u.getProperty(key));
+            }
+        }
+        for (Edge e : expected.getEdges()) {
+            Edge f = graph.getEdge(e.getId());
+            assertEquals(e.getLabel(), f.getLabel());
+            assertEquals(e.getVertex(Direction.OUT).getId(), f.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), f.getVertex(Direction.IN).getId());
+            assertEquals(e.getPropertyKeys(), f.getPropertyKeys());
+            for (String key : e.getPropertyKeys()) {
+                assertEquals(e.getProperty(key), f.getProperty(key));
+            }
+        }
+    }
+
+    public void testIncrementalLoading() {
+        final int total = 2000;
+        final TinkerGraph tgraph = new TinkerGraph();
+        tgraph.createKeyIndex(vertexIDKey, Vertex.class);
+
+        // load the first half of the vertices from scratch
+        BatchGraph<LookupCountingGraph> loader = new BatchGraph<LookupCountingGraph>(new LookupCountingGraph(tgraph), BatchGraph.IdType.OBJECT, 100);
+        loader.setVertexIdKey(vertexIDKey);
+        for (int i = 0; i < total / 2; i++) {
+            Vertex v = loader.addVertex("v" + i);
+            v.setProperty(UID, i);
+            v.setProperty("name", "old");
+        }
+        loader.shutdown();
+
+        // add all vertices, half of which exist, along with a chain of edges
+        final LookupCountingGraph graph = new LookupCountingGraph(tgraph);
+        loader = new BatchGraph<LookupCountingGraph>(graph, BatchGraph.IdType.OBJECT, 100);
+        loader.setVertexIdKey(vertexIDKey);
+        loader.setLoadingFromScratch(false);
+        Vertex previous = null;
+        for (int i = 0; i < total; i++) {
+            Vertex next = loader.addVertex("v" + i);
+            next.setProperty("name", "new");
+            next.setProperty(UID, null);
+            if (i % 2 == 0) loader.addVertex("v" + i).setProperty("even", true);
+            if (previous != null)
+                loader.addEdge(null, loader.getVertex(previous.getId()), loader.getVertex(next.getId()), "next");
+            previous = next;
+            // the ids are looked up when the transaction is committed
+            if (i == 10) assertEquals(0, graph.getLookups());
+        }
+        assertNull(loader.getVertex("v" + total));
+        assertNull(loader.getVertex("v" + total));
+        assertEquals("new", loader.getVertex("v0").getProperty("name"));
+        assertEquals(0, loader.getVertex("v0").getProperty(UID));
+        loader.shutdown();
+
+        // each id is looked up once
+        assertEquals(total + 1, graph.getLookups());
+        assertEquals(total, BaseTest.count(tgraph.getVertices()));
+        assertEquals(total - 1, BaseTest.count(tgraph.getEdges()));
+        for (int i = 0; i < total; i++) {
+            Vertex v = tgraph.getVertices(vertexIDKey, "v" + i).iterator().next();
+            assertEquals("new", v.getProperty("name"));
+            assertEquals(i < total / 2 ? i : null, v.getProperty(UID));
+            assertEquals(i % 2 == 0 ? true : null, v.getProperty("even"));
+            if (i > 0) assertEquals(1, BaseTest.count(v.getEdges(Direction.IN)));
+        }
+    }
+
+    public void testIncrementalLoadingConfiguration() {
+        BatchGraph loader = new BatchGraph<MockTransactionalGraph>(new MockTransactionalGraph(new IgnoreIdTinkerGraph()), BatchGraph.IdType.OBJECT, 100);
+        try {
+            loader.setLoadingFromScratch(false);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        loader.setVertexIdKey(vertexIDKey);
+        loader.setLoadingFromScratch(false);
+        try {
+            loader.setVertexIdKey(null);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        loader.shutdown();
+
+        loader = BatchGraph.wrap(new TinkerGraph(TinkerGraph.Storage.CONCURRENT), 100, 2);
+        try {
+            loader.setLoadingFromScratch(false);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        loader.shutdown();
+    }
+
+    private PropertiesGraph propertyLoadingTest(int total, int vertexProperties, int edgeProperties, boolean buffer) {
+        final PropertiesGraph graph = new PropertiesGraph(new TinkerGraph());
+        final BatchGraph<PropertiesGraph> loader = new BatchGraph<PropertiesGraph>(graph, BatchGraph.IdType.OBJECT, 100);
+        loader.setPropertyBuffering(buffer);
+
+        Vertex previous = null;
+        for (int i = 0; i < total; i++) {
+            Vertex next = loader.addVertex(String.valueOf(i));
+            for (int k = 0; k < vertexProperties; k++) {
+                next.setProperty("p" + k, i * k);
+            }
+            assertEquals(i, next.getProperty("p1"));
+            if (previous != null) {
+                Edge e = loader.addEdge(String.valueOf(i), previous, next, "next");
+                for (int k = 0; k < edgeProperties; k++) {
+                    e.setProperty("q" + k, i * k);
+                }
+                assertEquals(i, e.getProperty("q1"));
+            }
+            previous = next;
+        }
+        loader.shutdown();
+        return graph;
+    }
+
+    public void testParallelGraphMLReader() throws Exception {
+        TinkerGraph expected = new TinkerGraph();
+        GraphMLReader.inputGraph(expected, GraphMLReader.class.getResourceAsStream("graph-example-1.xml"));
+
+        TinkerGraph graph = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        BatchGraph loader = BatchGraph.wrap(graph, 2, 3);
+        GraphMLReader.inputGraph(loader, GraphMLReader.class.getResourceAsStream("graph-example-1.xml"));
+
+        assertEquals(BaseTest.count(expected.getVertices()), BaseTest.count(graph.getVertices()));
+        assertEquals(BaseTest.count(expected.getEdges()), BaseTest.count(graph.getEdges()));
+        for (Vertex v : expected.getVertices()) {
+            Vertex u = graph.getVertex(v.getId());
+            assertEquals(v.getPropertyKeys(), u.getPropertyKeys());
+            for (String key : v.getPropertyKeys()) {
+                assertEquals(v.getProperty(key), u.getProperty(key));
+            }
+        }
+        for (Edge e : expected.getEdges()) {
+            Edge f = graph.getEdge(e.getId());
+            assertEquals(e.getLabel(), f.getLabel());
+            assertEquals(e.getVertex(Direction.OUT).getId(), f.getVertex(Direction.OUT).getId());
+            assertEquals(e.getVertex(Direction.IN).getId(), f.getVertex(Direction.IN).getId());
+            assertEquals(e.getProperty("weight"), f.getProperty("weight"));
+        }
+        loader.shutdown();
+    }
+
+    public void testParallelLoadingFailure() {
+        BatchGraph loader = BatchGraph.wrap(new TinkerGraph(TinkerGraph.Storage.CONCURRENT), 100, 2);
+        loader.addVertex("a");
+        loader.addVertex("a");
+        try {
+            loader.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Parallel batch loading failed"));
+        }
+        try {
+            loader.shutdown();
+            fail();
+        } catch (RuntimeException e) {
+        }
+    }
+
+    public void testParallelLoadingOfThreadTransactions() {
+        for (BatchGraph.IdType type : new BatchGraph.IdType[]{BatchGraph.IdType.OBJECT, BatchGraph.IdType.NUMBER}) {
+            TinkerGraph tgraph = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+            BatchGraph<ThreadTransactionsGraph> loader = new BatchGraph<ThreadTransactionsGraph>(new ThreadTransactionsGraph(tgraph), type, 10, 4);
+            int total = 200;
+            for (int i = 0; i < total; i++) {
+                loader.addVertex((long) i).setProperty(UID, i);
+            }
+            // the edges refer to vertices cached by other workers and committed before
+            for (int i = 1; i < total; i++) {
+                loader.addEdge(null, loader.getVertex((long) (i - 1)), loader.getVertex((long) i), "next").setProperty(UID, i);
+            }
+            loader.shutdown();
+
+            assertEquals(total, BaseTest.count(tgraph.getVertices()));
+            assertEquals(total - 1, BaseTest.count(tgraph.getEdges()));
+            for (Edge e : tgraph.getEdges()) {
+                assertEquals(e.getProperty(UID), e.getVertex(Direction.IN).getProperty(UID));
+            }
+        }
+    }
+
+    public void parallelLoadingTest(int total, int bufferSize, BatchGraph.IdType type, int workers, LoadingFactory ids) {
+        TinkerGraph tgraph = new TinkerGraph(TinkerGraph.Storage.CONCURRENT);
+        BatchGraph<WritethroughGraph<TinkerGraph>> loader = new BatchGraph<WritethroughGraph<TinkerGraph>>(new WritethroughGraph<TinkerGraph>(tgraph), type, bufferSize, workers);
+        loader.setVertexIdKey(vertexIDKey);
+        loader.setEdgeIdKey(edgeIDKey);
+        loader.setPropertyBuffering(bufferProperties);
+
+        //Add all vertices, then a chain of edges, followed by a second chain added along with its vertices
+        for (int i = 0; i < total; i++) {
+            Vertex v = loader.addVertex(ids.getVertexID(i));
+            v.setProperty(UID, i);
+            assertNotNull(loader.getVertex(ids.getVertexID(i)));
+        }
+        assertNull(loader.getVertex(ids.getVertexID(total * 2)));
+        for (int i = 1; i < total; i++) {
+            Edge e = loader.addEdge(ids.getEdgeID(i), loader.getVertex(ids.getVertexID(i - 1)), loader.getVertex(ids.getVertexID(i)), "next");
+            e.setProperty(UID, i);
+            assertEquals("next", e.getLabel());
+        }
+        for (int i = total; i < total + 100; i++) {
+            Vertex v = loader.addVertex(ids.getVertexID(i));
+            v.setProperty(UID, i);
+            assertEquals(i, v.getProperty(UID));
+            loader.addEdge(ids.getEdgeID(i), loader.getVertex(ids.getVertexID(i - 1)), v, "next").setProperty(UID, i);
+        }
+        loader.stopTransaction(TransactionalGraph.Conclusion.SUCCESS);
+
+        int count = total + 100;
+        assertEquals(count, BaseTest.count(tgraph.getVertices()));
+        assertEquals(count - 1, BaseTest.count(tgraph.getEdges()));
+        for (Edge e : tgraph.getEdges()) {
+            int id = (Integer) e.getProperty(UID);
+            assertEquals(ids.getEdgeID(id), e.getProperty(edgeIDKey));
+            assertEquals(id, e.getVertex(Direction.IN).getProperty(UID));
+            assertEquals(id - 1, e.getVertex(Direction.OUT).getProperty(UID));
+        }
+        for (Vertex v : tgraph.getVertices()) {
+            assertEquals(ids.getVertexID((Integer) v.getProperty(UID)), v.getProperty(vertexIDKey));
+        }
+        loader.shutdown();
+    }
+
 
     public void loadingTest(int total, int bufferSize, BatchGraph.IdType type, LoadingFactory ids) {
         final VertexEdgeCounter counter = new VertexEdgeCounter();
@@ -95,6 +373,119 @@ public class BatchGraphTest extends TestCase {
         loader.shutdown();
     }
 
+    /**
+     * Counts the lookups of vertices by key.
+     */
+    static class LookupCountingGraph extends MockTransactionalGraph {
+
+        private int lookups = 0;
+
+        LookupCountingGraph(final Graph graph) {
+            super(graph);
+        }
+
+        int getLookups() {
+            return lookups;
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices(final String key, final Object value) {
+            lookups++;
+            return super.getVertices(key, value);
+        }
+    }
+
+    /**
+     * Counts the writes of the elements and properties that reach the wrapped graph.
+     */
+    static class PropertiesGraph extends EventTransactionalGraph<MockTransactionalGraph> implements ElementPropertiesGraph {
+
+        private final StubGraphChangedListener listener = new StubGraphChangedListener();
+        private final TinkerGraph graph;
+
+        PropertiesGraph(final TinkerGraph graph) {
+            super(new MockTransactionalGraph(graph));
+            this.graph = graph;
+            addListener(listener);
+        }
+
+        int getWrites() {
+            return listener.addVertexEventRecorded() + listener.addEdgeEventRecorded()
+                    + listener.vertexPropertyChangedEventRecorded() + listener.edgePropertyChangedEventRecorded();
+        }
+
+        @Override
+        public Vertex addVertex(final Object id, final Map<String, Object> properties) {
+            final Vertex vertex = addVertex(id);
+            ElementHelper.setProperties(((EventVertex) vertex).getBaseVertex(), properties);
+            return vertex;
+        }
+
+        @Override
+        public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label, final Map<String, Object> properties) {
+            final Edge edge = addEdge(id, outVertex, inVertex, label);
+            ElementHelper.setProperties(((EventEdge) edge).getBaseEdge(), properties);
+            return edge;
+        }
+    }
+
+    /**
+     * Hands out thread transactions which only accept edges between their own vertices.
+     */
+    static class ThreadTransactionsGraph extends MockTransactionalGraph implements ThreadedTransactionalGraph {
+
+        private final Graph graph;
+
+        ThreadTransactionsGraph(final Graph graph) {
+            super(graph);
+            this.graph = graph;
+        }
+
+        @Override
+        public TransactionalGraph startThreadTransaction() {
+            return new ThreadTransaction(graph);
+        }
+    }
+
+    static class ThreadTransaction extends MockTransactionalGraph {
+
+        ThreadTransaction(final Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        public Vertex addVertex(final Object id) {
+            return new TransactionVertex(super.addVertex(id), this);
+        }
+
+        @Override
+        public Vertex getVertex(final Object id) {
+            final Vertex vertex = super.getVertex(id);
+            return vertex == null ? null : new TransactionVertex(vertex, this);
+        }
+
+        @Override
+        public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+            return super.addEdge(id, getBaseVertex(outVertex), getBaseVertex(inVertex), label);
+        }
+
+        private Vertex getBaseVertex(final Vertex vertex) {
+            if (!(vertex instanceof TransactionVertex) || ((TransactionVertex) vertex).transaction != this)
+                throw new IllegalArgumentException("Vertex of another transaction: " + vertex);
+            return ((TransactionVertex) vertex).getBaseVertex();
+        }
+    }
+
+    static class TransactionVertex extends WrappedVertex {
+
+        private final ThreadTransaction transaction;
+
+        TransactionVertex(final Vertex vertex, final ThreadTransaction transaction) {
+            super(vertex);
+            this.transaction = transaction;
+        }
+    }
+
     static class VertexEdgeCounter {
 
         int numVertices = 0;
@@ -234,6 +625,11 @@ public class BatchGraphTest extends TestCase {
             return graph.getEdges(key,value);
         }
 
+        @Override
+        public GraphQuery query() {
+            return graph.query();
+        }
+
         @Override
         public void shutdown() {
             graph.shutdown();
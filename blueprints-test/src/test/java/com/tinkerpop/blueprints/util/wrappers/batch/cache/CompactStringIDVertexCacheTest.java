@@ -0,0 +1,117 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * The number of ids of the memory test is set with the compactVertexCacheSize system property.
+ */
+public class CompactStringIDVertexCacheTest extends BaseTest {
+
+    private static final String[] NAMESPACES = new String[]{
+            "http://dbpedia.org/resource/",
+            "http://dbpedia.org/resource/Category:",
+            "http://dbpedia.org/ontology/",
+            "http://www.w3.org/2002/07/owl#",
+            "http://yago-knowledge.org/resource/"};
+
+    public void testPrefixTrieCompression() {
+        final PrefixTrieCompression compression = new PrefixTrieCompression();
+        final URLCompression url = new URLCompression();
+        final String[] ids = new String[]{"http://dbpedia.org/resource/Berlin", "http://dbpedia.org/resource/Paris",
+                "http://dbpedia.org/resource/Category:Capitals", "http://www.w3.org/2002/07/owl#Thing", "Berlin", ""};
+        for (final String id : ids) {
+            assertEquals(url.compress(id), compression.compress(id));
+        }
+        assertEquals("0$Berlin", compression.compress("http://dbpedia.org/resource/Berlin"));
+        assertEquals(4, compression.getPrefixCount());
+    }
+
+    public void testEncodedIds() {
+        final TinkerGraph graph = new TinkerGraph();
+        final CompactStringIDVertexCache cache = new CompactStringIDVertexCache(graph);
+        final String[] ids = new String[]{"http://dbpedia.org/resource/Berlin", "http://dbpedia.org/resource/Zürich",
+                "http://dbpedia.org/resource/東京", "http://dbpedia.org/resource/𝄞", "", "1", "/"};
+        for (final String id : ids) {
+            cache.add(graph.addVertex(null), id);
+        }
+        for (final String id : ids) {
+            assertNotNull(cache.getVertex(id));
+        }
+        cache.newTransaction();
+        assertEquals(ids.length, cache.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(graph.getVertex(String.valueOf(i)), cache.getVertex(ids[i]));
+        }
+        assertNull(cache.getVertex("http://dbpedia.org/resource/berlin"));
+        assertNull(cache.getVertex("2"));
+    }
+
+    public void testIdsOtherThanStrings() {
+        final TinkerGraph graph = new TinkerGraph();
+        final CompactStringIDVertexCache cache = new CompactStringIDVertexCache(graph);
+        try {
+            cache.add(graph.addVertex(null), 1l);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            cache.getVertex(1l);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    public void testMemory() {
+        final int total = Integer.getInteger("compactVertexCacheSize", 200000);
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex vertex = graph.addVertex(null);
+        final Runtime runtime = Runtime.getRuntime();
+        for (final boolean compact : new boolean[]{true, false}) {
+            final long memory = usedMemory(runtime);
+            final VertexCache cache = compact ? new CompactStringIDVertexCache(graph) : new StringIDVertexCache(graph, new URLCompression());
+            final String name = compact ? "CompactStringIDVertexCache" : "StringIDVertexCache";
+            this.stopWatch();
+            for (int i = 0; i < total; i++) {
+                cache.add(vertex, getId(i));
+                if (i % 10000 == 9999)
+                    cache.newTransaction();
+            }
+            cache.newTransaction();
+            final double time = this.stopWatch();
+            String memoryUsed = (usedMemory(runtime) - memory) / total + " bytes per id on the heap";
+            if (compact)
+                memoryUsed = memoryUsed + ", " + ((CompactStringIDVertexCache) cache).getBytesPerId() + " bytes per id in the cache";
+            printPerformance(name, total, "ids added (" + memoryUsed + ")", time);
+
+            this.stopWatch();
+            for (int i = 0; i < total; i++) {
+                assertEquals(vertex, cache.getVertex(getId((int) ((i * 7919l) % total))));
+                if (i % 10000 == 9999)
+                    cache.newTransaction();
+            }
+            printPerformance(name, total, "ids retrieved", this.stopWatch());
+            assertNull(cache.getVertex(getId(total)));
+
+            if (compact) {
+                final CompactStringIDVertexCache compactCache = (CompactStringIDVertexCache) cache;
+                assertEquals(total, compactCache.size());
+                assertTrue(compactCache.getBytesPerId() < 40);
+            }
+        }
+    }
+
+    private static String getId(final int i) {
+        return NAMESPACES[i % NAMESPACES.length] + "Entity_" + Integer.toString(i, 7) + "_(" + (i % 13) + ")";
+    }
+
+    private static long usedMemory(final Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,88 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+import java.util.Arrays;
+
+/**
+ * The number of ids of the throughput test is set with the offHeapVertexCacheSize system property.
+ */
+public class OffHeapVertexCacheTest extends BaseTest {
+
+    public void testEncodedIds() {
+        final TinkerGraph graph = new TinkerGraph();
+        final OffHeapVertexCache cache = new OffHeapVertexCache(graph);
+        final Object[] ids = new Object[]{1l, 1, -1l, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE, "1", "", "été", 1.5d, Arrays.asList("a", "b")};
+        for (final Object id : ids) {
+            cache.add(graph.addVertex(null), id);
+        }
+        for (final Object id : ids) {
+            assertNotNull(cache.getVertex(id));
+        }
+        cache.newTransaction();
+        assertEquals(ids.length, cache.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(graph.getVertex(String.valueOf(i)), cache.getVertex(ids[i]));
+        }
+        assertNull(cache.getVertex(2l));
+        assertNull(cache.getVertex("2"));
+        assertNull(cache.getVertex(Arrays.asList("a")));
+        assertEquals(0, cache.getSpilled());
+        cache.close();
+    }
+
+    public void testSpilling() {
+        final TinkerGraph graph = new TinkerGraph();
+        final OffHeapVertexCache cache = new OffHeapVertexCache(graph, new URLCompression(), new OffHeapIdMap(4096, null, 1024));
+        final int total = 100000;
+        for (int i = 0; i < total; i++) {
+            cache.add(graph.addVertex(null), "http://www.tinkerpop.com/rdf/ns/vertex/" + i);
+            if (i % 1000 == 999)
+                cache.newTransaction();
+        }
+        cache.newTransaction();
+        assertEquals(total, cache.size());
+        assertTrue(cache.getMemory() <= 4096);
+        assertTrue(cache.getSpilled() > 0);
+        for (int i = 0; i < total; i++) {
+            assertEquals(String.valueOf(i), cache.getVertex("http://www.tinkerpop.com/rdf/ns/vertex/" + i).getId());
+        }
+        assertNull(cache.getVertex("http://www.tinkerpop.com/rdf/ns/vertex/" + total));
+        cache.close();
+    }
+
+    public void testThroughput() {
+        final int total = Integer.getInteger("offHeapVertexCacheSize", 1000000);
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex vertex = graph.addVertex(null);
+        for (final boolean offHeap : new boolean[]{true, false}) {
+            final VertexCache cache = offHeap ? new OffHeapVertexCache(graph) : new LongIDVertexCache(graph);
+            final String name = offHeap ? "OffHeapVertexCache" : "LongIDVertexCache";
+            this.stopWatch();
+            for (long i = 0; i < total; i++) {
+                cache.add(vertex, i * 7);
+                if (i % 10000 == 9999)
+                    cache.newTransaction();
+            }
+            cache.newTransaction();
+            if (offHeap) {
+                final OffHeapVertexCache offHeapCache = (OffHeapVertexCache) cache;
+                printPerformance(name, total, "ids added (" + offHeapCache.getMemory() + " bytes in memory, " + offHeapCache.getSpilled() + " bytes spilled)", this.stopWatch());
+            } else {
+                printPerformance(name, total, "ids added", this.stopWatch());
+            }
+
+            this.stopWatch();
+            for (long i = 0; i < total; i++) {
+                assertNotNull(cache.getVertex(((i * 7919) % total) * 7));
+                if (i % 10000 == 9999)
+                    cache.newTransaction();
+            }
+            printPerformance(name, total, "ids retrieved", this.stopWatch());
+            if (offHeap)
+                ((OffHeapVertexCache) cache).close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * The number of ids of the load test is set with the vertexCacheSize system property.
+ */
+public class VertexCacheTest extends BaseTest {
+
+    private static final int TRANSACTION_SIZE = 10000;
+    private static final int STAGES = 5;
+
+    public void testNewTransactionCost() {
+        final int total = Integer.getInteger("vertexCacheSize", 500000);
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex vertex = graph.addVertex(null);
+        for (int type = 0; type < 4; type++) {
+            final VertexCache cache;
+            final String name;
+            if (type == 0) {
+                cache = new ObjectIDVertexCache(graph);
+                name = "ObjectIDVertexCache";
+            } else if (type == 1) {
+                cache = new LongIDVertexCache(graph);
+                name = "LongIDVertexCache";
+            } else if (type == 2) {
+                cache = new StringIDVertexCache(graph, new URLCompression());
+                name = "StringIDVertexCache";
+            } else {
+                cache = new OffHeapVertexCache(graph);
+                name = "OffHeapVertexCache";
+            }
+
+            // the commit cost of the first and the last stage of the load should be about the same
+            final int stageSize = total / STAGES;
+            for (int stage = 0; stage < STAGES; stage++) {
+                double time = 0.0d;
+                for (int i = stage * stageSize; i < (stage + 1) * stageSize; i++) {
+                    cache.add(vertex, type == 1 ? (Object) (long) i : (Object) ("http://www.tinkerpop.com/rdf/ns/vertex/" + i));
+                    if (i % TRANSACTION_SIZE == TRANSACTION_SIZE - 1) {
+                        this.stopWatch();
+                        cache.newTransaction();
+                        time = time + this.stopWatch();
+                    }
+                }
+                printPerformance(name + " with " + (stage + 1) * stageSize + " ids", stageSize / TRANSACTION_SIZE, "transactions", time);
+            }
+            cache.newTransaction();
+
+            for (int i = 0; i < STAGES * stageSize; i = i + 97) {
+                assertEquals(vertex, cache.getVertex(type == 1 ? (Object) (long) i : (Object) ("http://www.tinkerpop.com/rdf/ns/vertex/" + i)));
+            }
+            assertNull(cache.getVertex(type == 1 ? (Object) (long) -1 : (Object) "http://www.tinkerpop.com/rdf/ns/vertex/-1"));
+            if (cache instanceof OffHeapVertexCache)
+                ((OffHeapVertexCache) cache).close();
+        }
+    }
+}